@@ -0,0 +1,27 @@
+-- =============================================
+-- NovelAI Studio 审查规则执行指标
+-- 记录每次审查中各规则的耗时、问题数和失败数，用于定位慢规则
+-- =============================================
+
+USE novel_ai_studio;
+
+-- 审查规则执行指标表（每次审查每条规则一行）
+CREATE TABLE IF NOT EXISTS review_rule_metrics (
+    id VARCHAR(36) PRIMARY KEY COMMENT '记录ID(UUID)',
+    history_id VARCHAR(36) NOT NULL COMMENT '审查历史记录ID',
+    book_id VARCHAR(36) NOT NULL COMMENT '书籍ID',
+    review_mode VARCHAR(20) NOT NULL COMMENT '审查模式：single/batch/full',
+    rule_name VARCHAR(100) NOT NULL COMMENT '规则名称',
+    rule_level VARCHAR(20) COMMENT '规则级别',
+    executions INT DEFAULT 0 COMMENT '执行次数（全书审查时为章节数）',
+    issues_found INT DEFAULT 0 COMMENT '发现的问题数',
+    failures INT DEFAULT 0 COMMENT '执行失败次数',
+    total_duration_ms BIGINT DEFAULT 0 COMMENT '累计耗时(毫秒)',
+    max_duration_ms BIGINT DEFAULT 0 COMMENT '单次最长耗时(毫秒)',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '审查时间',
+    INDEX idx_history_id (history_id),
+    INDEX idx_book_id (book_id),
+    INDEX idx_rule_created (rule_name, created_at),
+    INDEX idx_created_at (created_at),
+    CONSTRAINT fk_review_rule_metrics_history FOREIGN KEY (history_id) REFERENCES review_history(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='审查规则执行指标表';
@@ -0,0 +1,82 @@
+-- =============================================
+-- NovelAI Studio Token 用量记录
+-- token_usage 表已由 schema.sql 创建，这里统一为一种定义：
+-- 放宽任务类型长度、提高费用精度、去掉对 ai_configs 的外键
+-- （用量历史在配置删除后仍保留，批量写入也不会因单条记录引用已删除的配置而整批失败），
+-- 并补充按书籍/配置 + 时间汇总所需的索引（复合索引覆盖原单列索引，后者删除以减少写入开销）
+-- =============================================
+
+USE novel_ai_studio;
+
+-- 去掉外键 fk_usage_config（如果存在）
+SET @s = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS
+     WHERE TABLE_SCHEMA = 'novel_ai_studio'
+     AND TABLE_NAME = 'token_usage'
+     AND CONSTRAINT_NAME = 'fk_usage_config') > 0,
+    'ALTER TABLE token_usage DROP FOREIGN KEY fk_usage_config;',
+    'SELECT ''fk_usage_config already dropped'';'
+));
+PREPARE stmt FROM @s;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 统一列定义
+ALTER TABLE token_usage
+    MODIFY COLUMN task VARCHAR(50) NOT NULL COMMENT '任务类型：generate/outline/chat/summary/extract/review',
+    MODIFY COLUMN prompt_tokens INT UNSIGNED NOT NULL DEFAULT 0 COMMENT '提示词 token 数',
+    MODIFY COLUMN completion_tokens INT UNSIGNED NOT NULL DEFAULT 0 COMMENT '生成内容 token 数',
+    MODIFY COLUMN total_tokens INT UNSIGNED NOT NULL DEFAULT 0 COMMENT '总 token 数',
+    MODIFY COLUMN estimated_cost DECIMAL(12, 6) DEFAULT 0 COMMENT '估算费用(元)';
+
+-- 添加 idx_book_created 索引（如果不存在）
+SET @s = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = 'novel_ai_studio'
+     AND TABLE_NAME = 'token_usage'
+     AND INDEX_NAME = 'idx_book_created') = 0,
+    'ALTER TABLE token_usage ADD INDEX idx_book_created (book_id, created_at);',
+    'SELECT ''idx_book_created already exists'';'
+));
+PREPARE stmt FROM @s;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 添加 idx_config_created 索引（如果不存在）
+SET @s = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = 'novel_ai_studio'
+     AND TABLE_NAME = 'token_usage'
+     AND INDEX_NAME = 'idx_config_created') = 0,
+    'ALTER TABLE token_usage ADD INDEX idx_config_created (config_id, created_at);',
+    'SELECT ''idx_config_created already exists'';'
+));
+PREPARE stmt FROM @s;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 删除被 idx_book_created 覆盖的 idx_book_id 索引（如果存在）
+SET @s = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = 'novel_ai_studio'
+     AND TABLE_NAME = 'token_usage'
+     AND INDEX_NAME = 'idx_book_id') > 0,
+    'ALTER TABLE token_usage DROP INDEX idx_book_id;',
+    'SELECT ''idx_book_id already dropped'';'
+));
+PREPARE stmt FROM @s;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 删除被 idx_config_created 覆盖的 idx_config_id 索引（如果存在）
+SET @s = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = 'novel_ai_studio'
+     AND TABLE_NAME = 'token_usage'
+     AND INDEX_NAME = 'idx_config_id') > 0,
+    'ALTER TABLE token_usage DROP INDEX idx_config_id;',
+    'SELECT ''idx_config_id already dropped'';'
+));
+PREPARE stmt FROM @s;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
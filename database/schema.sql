@@ -168,22 +168,21 @@ CREATE TABLE IF NOT EXISTS ai_configs (
     INDEX idx_default (is_default)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='AI配置表';
 
--- Token使用记录表
+-- Token使用记录表（不引用 ai_configs：配置删除后保留用量历史，批量写入不会因单条记录失败）
 CREATE TABLE IF NOT EXISTS token_usage (
     id VARCHAR(36) PRIMARY KEY COMMENT '记录ID(UUID)',
     book_id VARCHAR(36) COMMENT '关联书籍ID',
     config_id VARCHAR(36) NOT NULL COMMENT 'AI配置ID',
-    task VARCHAR(50) NOT NULL COMMENT '任务类型：generate/review/summary/chat',
-    prompt_tokens INT UNSIGNED NOT NULL COMMENT '提示Token数',
-    completion_tokens INT UNSIGNED NOT NULL COMMENT '完成Token数',
-    total_tokens INT UNSIGNED NOT NULL COMMENT '总Token数',
-    estimated_cost DECIMAL(10,4) DEFAULT 0 COMMENT '估算费用(元)',
+    task VARCHAR(50) NOT NULL COMMENT '任务类型：generate/outline/chat/summary/extract/review',
+    prompt_tokens INT UNSIGNED NOT NULL DEFAULT 0 COMMENT '提示Token数',
+    completion_tokens INT UNSIGNED NOT NULL DEFAULT 0 COMMENT '完成Token数',
+    total_tokens INT UNSIGNED NOT NULL DEFAULT 0 COMMENT '总Token数',
+    estimated_cost DECIMAL(12,6) DEFAULT 0 COMMENT '估算费用(元)',
     created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_book_id (book_id),
-    INDEX idx_config_id (config_id),
     INDEX idx_created_at (created_at),
     INDEX idx_task (task),
-    CONSTRAINT fk_usage_config FOREIGN KEY (config_id) REFERENCES ai_configs(id) ON DELETE CASCADE
+    INDEX idx_book_created (book_id, created_at),
+    INDEX idx_config_created (config_id, created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Token使用记录表';
 
 -- 用户设置表
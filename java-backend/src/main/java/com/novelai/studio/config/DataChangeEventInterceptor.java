@@ -0,0 +1,110 @@
+package com.novelai.studio.config;
+
+import com.novelai.studio.service.review.BookDataChangedEvent;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 数据变更事件拦截器
+ * 拦截审查相关表的写操作（插入、更新、删除），成功后发布 {@link BookDataChangedEvent}，
+ * 覆盖服务层、控制器直接调用以及AI提取等所有写入路径
+ */
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class DataChangeEventInterceptor implements Interceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(DataChangeEventInterceptor.class);
+
+    /**
+     * Mapper -> 数据类型
+     */
+    private static final Map<String, String> MAPPER_DATA_TYPES = Map.of(
+            "ChapterMapper", BookDataChangedEvent.CHAPTER,
+            "CharacterMapper", BookDataChangedEvent.CHARACTER,
+            "WorldSettingMapper", BookDataChangedEvent.WORLD_SETTING,
+            "ForeshadowMapper", BookDataChangedEvent.FORESHADOW,
+            "StoryEventMapper", BookDataChangedEvent.STORY_EVENT,
+            "CharacterStateChangeMapper", BookDataChangedEvent.STATE_CHANGE,
+            "ChapterSummaryMapper", BookDataChangedEvent.CHAPTER_SUMMARY,
+            "BookMapper", BookDataChangedEvent.BOOK
+    );
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        String dataType = resolveDataType(ms.getId());
+        if (dataType != null) {
+            try {
+                eventPublisher.publishEvent(buildEvent(dataType, invocation.getArgs()[1]));
+            } catch (Exception e) {
+                log.warn("Failed to publish data change event for {}: {}", ms.getId(), e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 由语句ID（如 com.novelai.studio.mapper.ChapterMapper.updateById）确定数据类型
+     */
+    private String resolveDataType(String statementId) {
+        int methodDot = statementId.lastIndexOf('.');
+        if (methodDot < 0) {
+            return null;
+        }
+        String namespace = statementId.substring(0, methodDot);
+        return MAPPER_DATA_TYPES.get(namespace.substring(namespace.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * 从参数中提取书籍ID和记录ID：实体参数直接读取，MyBatis-Plus 的 updateById 实体位于 "et"，
+     * deleteById 等只有主键的语句以主键作为记录ID
+     */
+    private BookDataChangedEvent buildEvent(String dataType, Object parameter) {
+        Object entity = parameter;
+        if (parameter instanceof Map) {
+            Map<?, ?> params = (Map<?, ?>) parameter;
+            entity = params.containsKey("et") ? params.get("et") : null;
+        }
+
+        if (entity instanceof String) {
+            return new BookDataChangedEvent(null, dataType, (String) entity);
+        }
+        if (entity == null) {
+            return new BookDataChangedEvent(null, dataType, null);
+        }
+
+        MetaObject meta = SystemMetaObject.forObject(entity);
+        String bookId = readString(meta, "bookId");
+        String id = readString(meta, "id");
+        if (BookDataChangedEvent.BOOK.equals(dataType)) {
+            bookId = id;
+        }
+        return new BookDataChangedEvent(bookId, dataType, id);
+    }
+
+    private String readString(MetaObject meta, String property) {
+        if (!meta.hasGetter(property)) {
+            return null;
+        }
+        Object value = meta.getValue(property);
+        return value != null ? value.toString() : null;
+    }
+}
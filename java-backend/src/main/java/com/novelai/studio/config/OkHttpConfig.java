@@ -1,24 +1,90 @@
 package com.novelai.studio.config;
 
+import com.novelai.studio.service.ai.AIHttpMetrics;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * OkHttp配置类
- * 用于AI API调用
+ * 用于AI API调用：所有适配器共享同一个连接池和调度器，各服务商的客户端由此派生
  */
 @Configuration
 public class OkHttpConfig {
 
+    /**
+     * 连接池最多保留的空闲连接数
+     */
+    @Value("${ai.http.max-idle-connections:20}")
+    private int maxIdleConnections;
+
+    /**
+     * 空闲连接保活时间（秒）
+     */
+    @Value("${ai.http.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    /**
+     * 同时执行的异步请求（流式请求）总数上限
+     */
+    @Value("${ai.http.max-requests:64}")
+    private int maxRequests;
+
+    /**
+     * 每个主机同时执行的异步请求数上限
+     */
+    @Value("${ai.http.max-requests-per-host:16}")
+    private int maxRequestsPerHost;
+
+    /**
+     * 是否启用 HTTP/2（同一连接多路复用多个请求）
+     */
+    @Value("${ai.http.http2-enabled:true}")
+    private boolean http2Enabled;
+
+    /**
+     * 连接、读、写超时（秒），各服务商的客户端可单独覆盖连接和读超时（见 AIHttpClientFactory）
+     */
+    @Value("${ai.http.connect-timeout-seconds:60}")
+    private long connectTimeoutSeconds;
+
+    @Value("${ai.http.read-timeout-seconds:120}")
+    private long readTimeoutSeconds;
+
+    @Value("${ai.http.write-timeout-seconds:60}")
+    private long writeTimeoutSeconds;
+
+    @Bean
+    public ConnectionPool okHttpConnectionPool() {
+        return new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+    }
+
+    @Bean
+    public Dispatcher okHttpDispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        return dispatcher;
+    }
+
     @Bean
-    public OkHttpClient okHttpClient() {
+    public OkHttpClient okHttpClient(ConnectionPool okHttpConnectionPool, Dispatcher okHttpDispatcher,
+                                     AIHttpMetrics aiHttpMetrics) {
         return new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .writeTimeout(60, TimeUnit.SECONDS)
+                .connectionPool(okHttpConnectionPool)
+                .dispatcher(okHttpDispatcher)
+                .protocols(http2Enabled ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                .eventListener(aiHttpMetrics.connectionListener())
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(writeTimeoutSeconds, TimeUnit.SECONDS)
                 .build();
     }
 }
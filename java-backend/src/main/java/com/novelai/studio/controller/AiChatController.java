@@ -2,8 +2,11 @@ package com.novelai.studio.controller;
 
 import com.novelai.studio.entity.ChatMessageEntity;
 import com.novelai.studio.entity.ChatSession;
+import com.novelai.studio.service.AiTaskDispatchService;
 import com.novelai.studio.service.ChatHistoryService;
 import com.novelai.studio.service.ai.AIService;
+import com.novelai.studio.service.ai.adapter.StreamCallback;
+import com.novelai.studio.service.ai.adapter.StreamHandle;
 import com.novelai.studio.service.ai.dto.GenerateOptions;
 import com.novelai.studio.service.ai.dto.GenerateResult;
 import org.slf4j.Logger;
@@ -17,8 +20,6 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * AI对话控制器
@@ -36,8 +37,6 @@ public class AiChatController {
     @Autowired
     private AIService aiService;
 
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
-
     // ==================== 会话管理 ====================
 
     /**
@@ -172,6 +171,8 @@ public class AiChatController {
         GenerateOptions options = GenerateOptions.builder()
                 .maxTokens(request.getMaxTokens() != null ? request.getMaxTokens() : 2048)
                 .temperature(request.getTemperature() != null ? request.getTemperature() : 0.7)
+                .bookId(session.getBookId())
+                .task(AiTaskDispatchService.TASK_CHAT)
                 .build();
 
         // 调用AI
@@ -211,83 +212,107 @@ public class AiChatController {
 
         SseEmitter emitter = new SseEmitter(300000L); // 5分钟超时
 
-        executorService.execute(() -> {
-            try {
-                ChatSession session = chatHistoryService.getSession(sessionId);
-                if (session == null) {
-                    emitter.send(SseEmitter.event().name("error").data("Session not found"));
-                    emitter.complete();
-                    return;
-                }
+        try {
+            ChatSession session = chatHistoryService.getSession(sessionId);
+            if (session == null) {
+                emitter.send(SseEmitter.event().name("error").data("Session not found"));
+                emitter.complete();
+                return emitter;
+            }
 
-                // 保存用户消息
-                chatHistoryService.addUserMessage(sessionId, request.getMessage());
+            // 保存用户消息
+            chatHistoryService.addUserMessage(sessionId, request.getMessage());
 
-                // 构建系统提示词
-                String systemPrompt = chatHistoryService.buildSystemPrompt(session);
+            // 构建系统提示词
+            String systemPrompt = chatHistoryService.buildSystemPrompt(session);
 
-                // 构建对话消息
-                List<com.novelai.studio.service.ai.dto.ChatMessage> messages =
-                        chatHistoryService.buildChatMessages(sessionId, systemPrompt, 20);
+            // 构建对话消息
+            List<com.novelai.studio.service.ai.dto.ChatMessage> messages =
+                    chatHistoryService.buildChatMessages(sessionId, systemPrompt, 20);
 
-                messages.add(com.novelai.studio.service.ai.dto.ChatMessage.user(request.getMessage()));
+            messages.add(com.novelai.studio.service.ai.dto.ChatMessage.user(request.getMessage()));
 
-                // 构建生成选项
-                GenerateOptions options = GenerateOptions.builder()
-                        .maxTokens(request.getMaxTokens() != null ? request.getMaxTokens() : 2048)
-                        .temperature(request.getTemperature() != null ? request.getTemperature() : 0.7)
-                        .build();
+            // 构建生成选项
+            GenerateOptions options = GenerateOptions.builder()
+                    .maxTokens(request.getMaxTokens() != null ? request.getMaxTokens() : 2048)
+                    .temperature(request.getTemperature() != null ? request.getTemperature() : 0.7)
+                    .bookId(session.getBookId())
+                    .task(AiTaskDispatchService.TASK_CHAT)
+                    .build();
 
-                StringBuilder fullContent = new StringBuilder();
+            StringBuilder fullContent = new StringBuilder();
 
-                // 流式调用AI
-                String configId = session.getAiConfigId();
-                GenerateResult result = aiService.chatStream(messages, configId, options, chunk -> {
+            // 流式调用AI（非阻塞），回调在 HTTP 客户端的读取线程上执行
+            String configId = session.getAiConfigId();
+            StreamHandle handle = aiService.chatStreamAsync(messages, configId, options, new StreamCallback() {
+                @Override
+                public void onChunk(String chunk) {
                     try {
                         fullContent.append(chunk);
                         emitter.send(SseEmitter.event().name("chunk").data(chunk));
                     } catch (Exception e) {
                         log.error("Error sending SSE chunk", e);
                     }
-                });
-
-                // 保存AI回复
-                ChatMessageEntity assistantMsg;
-                if ("error".equals(result.getFinishReason())) {
-                    assistantMsg = chatHistoryService.addErrorMessage(sessionId, result.getErrorMessage());
-                    emitter.send(SseEmitter.event().name("error").data(result.getErrorMessage()));
-                } else {
-                    assistantMsg = chatHistoryService.addAssistantMessage(
-                            sessionId,
-                            fullContent.toString(),
-                            result.getReasoning(),
-                            result.getTokenUsage() != null ? result.getTokenUsage().getTotalTokens() : 0,
-                            result.getModel(),
-                            result.getDuration() != null ? result.getDuration().intValue() : 0
-                    );
-
-                    // 发送完成事件
-                    Map<String, Object> doneData = new HashMap<>();
-                    doneData.put("messageId", assistantMsg.getId());
-                    doneData.put("tokenUsage", result.getTokenUsage());
-                    doneData.put("duration", result.getDuration());
-                    emitter.send(SseEmitter.event().name("done").data(doneData));
                 }
 
-                emitter.complete();
+                @Override
+                public void onComplete(GenerateResult result) {
+                    completeStream(sessionId, emitter, fullContent, result);
+                }
+            });
 
-            } catch (Exception e) {
-                log.error("Error in stream chat", e);
-                try {
-                    emitter.send(SseEmitter.event().name("error").data(e.getMessage()));
-                } catch (Exception ignored) {}
-                emitter.completeWithError(e);
-            }
-        });
+            // 客户端断开或超时时取消上游生成
+            emitter.onTimeout(handle::cancel);
+            emitter.onError(e -> handle.cancel());
+            emitter.onCompletion(handle::cancel);
+
+        } catch (Exception e) {
+            log.error("Error in stream chat", e);
+            try {
+                emitter.send(SseEmitter.event().name("error").data(e.getMessage()));
+            } catch (Exception ignored) {}
+            emitter.completeWithError(e);
+        }
 
         return emitter;
     }
 
+    /**
+     * 流结束：保存AI回复并发送完成或错误事件
+     */
+    private void completeStream(String sessionId, SseEmitter emitter, StringBuilder fullContent,
+                                GenerateResult result) {
+        try {
+            ChatMessageEntity assistantMsg;
+            if ("error".equals(result.getFinishReason())) {
+                assistantMsg = chatHistoryService.addErrorMessage(sessionId, result.getErrorMessage());
+                emitter.send(SseEmitter.event().name("error").data(result.getErrorMessage()));
+            } else {
+                assistantMsg = chatHistoryService.addAssistantMessage(
+                        sessionId,
+                        fullContent.toString(),
+                        result.getReasoning(),
+                        result.getTokenUsage() != null ? result.getTokenUsage().getTotalTokens() : 0,
+                        result.getModel(),
+                        result.getDuration() != null ? result.getDuration().intValue() : 0
+                );
+
+                // 发送完成事件
+                Map<String, Object> doneData = new HashMap<>();
+                doneData.put("messageId", assistantMsg.getId());
+                doneData.put("tokenUsage", result.getTokenUsage());
+                doneData.put("duration", result.getDuration());
+                emitter.send(SseEmitter.event().name("done").data(doneData));
+            }
+
+            emitter.complete();
+
+        } catch (Exception e) {
+            log.error("Error completing stream chat", e);
+            emitter.completeWithError(e);
+        }
+    }
+
     // ==================== 请求/响应对象 ====================
 
     public static class CreateSessionRequest {
@@ -3,11 +3,16 @@ package com.novelai.studio.controller;
 import com.novelai.studio.common.Result;
 import com.novelai.studio.entity.AiConfig;
 import com.novelai.studio.service.AiConfigService;
+import com.novelai.studio.service.ai.AICircuitBreakerRegistry;
+import com.novelai.studio.service.ai.AIHttpClientFactory;
+import com.novelai.studio.service.ai.AIRateLimiterRegistry;
+import com.novelai.studio.service.ai.AIResponseCache;
 import com.novelai.studio.service.ai.AIService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * AI配置控制器
@@ -22,6 +27,18 @@ public class AiConfigController {
     @Autowired
     private AIService aiService;
 
+    @Autowired
+    private AIHttpClientFactory httpClientFactory;
+
+    @Autowired
+    private AIRateLimiterRegistry rateLimiterRegistry;
+
+    @Autowired
+    private AICircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private AIResponseCache responseCache;
+
     /**
      * 获取所有AI配置列表
      */
@@ -178,4 +195,45 @@ public class AiConfigController {
         List<String> models = aiService.listModels(id);
         return Result.success(models);
     }
+
+    /**
+     * 获取AI HTTP 连接池与请求统计
+     */
+    @GetMapping("/http-stats")
+    public Result<Map<String, Object>> getHttpStats() {
+        return Result.success(httpClientFactory.getStats());
+    }
+
+    /**
+     * 获取各AI配置的限流状态（并发上限、排队数、剩余额度）
+     */
+    @GetMapping("/limiter-stats")
+    public Result<Map<String, Object>> getLimiterStats() {
+        return Result.success(rateLimiterRegistry.getStats());
+    }
+
+    /**
+     * 获取各AI配置的熔断状态
+     */
+    @GetMapping("/circuit-stats")
+    public Result<Map<String, Object>> getCircuitStats() {
+        return Result.success(circuitBreakerRegistry.getStats());
+    }
+
+    /**
+     * 获取AI响应缓存状态
+     */
+    @GetMapping("/response-cache")
+    public Result<Map<String, Object>> getResponseCacheStats() {
+        return Result.success(responseCache.getStats());
+    }
+
+    /**
+     * 清空AI响应缓存
+     */
+    @DeleteMapping("/response-cache")
+    public Result<Void> clearResponseCache() {
+        responseCache.clear();
+        return Result.success();
+    }
 }
@@ -1,7 +1,11 @@
 package com.novelai.studio.controller;
 
 import com.novelai.studio.common.Result;
+import com.novelai.studio.service.AiTaskDispatchService;
+import com.novelai.studio.service.ai.AIContextEnhancer;
 import com.novelai.studio.service.ai.AIService;
+import com.novelai.studio.service.ai.adapter.StreamCallback;
+import com.novelai.studio.service.ai.adapter.StreamHandle;
 import com.novelai.studio.service.ai.dto.ChatMessage;
 import com.novelai.studio.service.ai.dto.GenerateOptions;
 import com.novelai.studio.service.ai.dto.GenerateResult;
@@ -11,10 +15,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * AI生成控制器
@@ -26,7 +29,8 @@ public class AiGenerateController {
     @Autowired
     private AIService aiService;
 
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    @Autowired
+    private AIContextEnhancer aiContextEnhancer;
 
     /**
      * 生成请求体
@@ -35,11 +39,14 @@ public class AiGenerateController {
         private String prompt;
         private String configId;
         private String systemPrompt;
+        private Boolean cacheSystemPrompt;
+        private Boolean includeBookContext;
         private String model;
         private Integer maxTokens;
         private Double temperature;
         private Double topP;
         private String[] stopSequences;
+        private String bookId;
 
         public String getPrompt() { return prompt; }
         public void setPrompt(String prompt) { this.prompt = prompt; }
@@ -47,6 +54,10 @@ public class AiGenerateController {
         public void setConfigId(String configId) { this.configId = configId; }
         public String getSystemPrompt() { return systemPrompt; }
         public void setSystemPrompt(String systemPrompt) { this.systemPrompt = systemPrompt; }
+        public Boolean getCacheSystemPrompt() { return cacheSystemPrompt; }
+        public void setCacheSystemPrompt(Boolean cacheSystemPrompt) { this.cacheSystemPrompt = cacheSystemPrompt; }
+        public Boolean getIncludeBookContext() { return includeBookContext; }
+        public void setIncludeBookContext(Boolean includeBookContext) { this.includeBookContext = includeBookContext; }
         public String getModel() { return model; }
         public void setModel(String model) { this.model = model; }
         public Integer getMaxTokens() { return maxTokens; }
@@ -57,15 +68,20 @@ public class AiGenerateController {
         public void setTopP(Double topP) { this.topP = topP; }
         public String[] getStopSequences() { return stopSequences; }
         public void setStopSequences(String[] stopSequences) { this.stopSequences = stopSequences; }
+        public String getBookId() { return bookId; }
+        public void setBookId(String bookId) { this.bookId = bookId; }
 
         public GenerateOptions toOptions() {
             return GenerateOptions.builder()
                     .systemPrompt(systemPrompt)
+                    .cacheSystemPrompt(cacheSystemPrompt)
                     .model(model)
                     .maxTokens(maxTokens)
                     .temperature(temperature)
                     .topP(topP)
                     .stopSequences(stopSequences)
+                    .bookId(bookId)
+                    .task(AiTaskDispatchService.TASK_GENERATE)
                     .build();
         }
     }
@@ -80,6 +96,7 @@ public class AiGenerateController {
         private Integer maxTokens;
         private Double temperature;
         private Double topP;
+        private String bookId;
 
         public List<Map<String, String>> getMessages() { return messages; }
         public void setMessages(List<Map<String, String>> messages) { this.messages = messages; }
@@ -93,6 +110,8 @@ public class AiGenerateController {
         public void setTemperature(Double temperature) { this.temperature = temperature; }
         public Double getTopP() { return topP; }
         public void setTopP(Double topP) { this.topP = topP; }
+        public String getBookId() { return bookId; }
+        public void setBookId(String bookId) { this.bookId = bookId; }
 
         public GenerateOptions toOptions() {
             return GenerateOptions.builder()
@@ -100,12 +119,18 @@ public class AiGenerateController {
                     .maxTokens(maxTokens)
                     .temperature(temperature)
                     .topP(topP)
+                    .bookId(bookId)
+                    .task(AiTaskDispatchService.TASK_CHAT)
                     .build();
         }
 
         public List<ChatMessage> toChatMessages() {
             return messages.stream()
-                    .map(m -> new ChatMessage(m.get("role"), m.get("content")))
+                    .map(m -> ChatMessage.builder()
+                            .role(m.get("role"))
+                            .content(m.get("content"))
+                            .cacheable("true".equals(m.get("cacheable")) ? Boolean.TRUE : null)
+                            .build())
                     .toList();
         }
     }
@@ -119,11 +144,10 @@ public class AiGenerateController {
             return Result.badRequest("提示词不能为空");
         }
 
-        GenerateResult result = aiService.generate(
-                request.getPrompt(),
-                request.getConfigId(),
-                request.toOptions()
-        );
+        List<ChatMessage> messages = withBookContext(request);
+        GenerateResult result = messages != null
+                ? aiService.chat(messages, request.getConfigId(), withoutSystemPrompt(request.toOptions()))
+                : aiService.generate(request.getPrompt(), request.getConfigId(), request.toOptions());
 
         if ("error".equals(result.getFinishReason())) {
             return Result.error(result.getErrorMessage());
@@ -139,40 +163,51 @@ public class AiGenerateController {
     public SseEmitter generateStream(@RequestBody GenerateRequest request) {
         SseEmitter emitter = new SseEmitter(300000L); // 5分钟超时
 
-        executorService.execute(() -> {
-            try {
-                aiService.generateStream(
-                        request.getPrompt(),
-                        request.getConfigId(),
-                        request.toOptions(),
-                        chunk -> {
-                            try {
-                                emitter.send(SseEmitter.event()
-                                        .name("message")
-                                        .data(Map.of("content", chunk)));
-                            } catch (IOException e) {
-                                emitter.completeWithError(e);
-                            }
-                        }
-                );
-
-                emitter.send(SseEmitter.event()
-                        .name("done")
-                        .data(Map.of("status", "completed")));
-                emitter.complete();
-            } catch (Exception e) {
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name("error")
-                            .data(Map.of("error", e.getMessage())));
-                } catch (IOException ignored) {}
-                emitter.completeWithError(e);
-            }
-        });
+        List<ChatMessage> messages = withBookContext(request);
+        StreamHandle handle = messages != null
+                ? aiService.chatStreamAsync(messages, request.getConfigId(),
+                        withoutSystemPrompt(request.toOptions()), sseCallback(emitter))
+                : aiService.generateStreamAsync(request.getPrompt(), request.getConfigId(),
+                        request.toOptions(), sseCallback(emitter));
+        bindEmitter(emitter, handle);
 
         return emitter;
     }
 
+    /**
+     * 请求显式要求携带书籍上下文（includeBookContext，默认关闭）时，
+     * 把书籍的稳定上下文（设定、角色）作为单独的可缓存系统消息放在最前，其后是本次请求的系统提示词和提示词；同一本书的连续请求共享该前缀。未要求或没有上下文时返回 null
+     */
+    private List<ChatMessage> withBookContext(GenerateRequest request) {
+        if (!Boolean.TRUE.equals(request.getIncludeBookContext())
+                || request.getBookId() == null || request.getBookId().isEmpty()) {
+            return null;
+        }
+        String stableContext = aiContextEnhancer.buildStableContext(request.getBookId());
+        if (stableContext == null || stableContext.isEmpty()) {
+            return null;
+        }
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(ChatMessage.cacheableSystem(stableContext));
+        if (request.getSystemPrompt() != null && !request.getSystemPrompt().isEmpty()) {
+            messages.add(Boolean.TRUE.equals(request.getCacheSystemPrompt())
+                    ? ChatMessage.cacheableSystem(request.getSystemPrompt())
+                    : ChatMessage.system(request.getSystemPrompt()));
+        }
+        messages.add(ChatMessage.user(request.getPrompt()));
+        return messages;
+    }
+
+    /**
+     * 系统提示词已放入消息列表，返回不再携带系统提示词的选项副本
+     */
+    private static GenerateOptions withoutSystemPrompt(GenerateOptions options) {
+        return options.toBuilder()
+                .systemPrompt(null)
+                .cacheSystemPrompt(null)
+                .build();
+    }
+
     /**
      * 多轮对话
      */
@@ -202,38 +237,61 @@ public class AiGenerateController {
     public SseEmitter chatStream(@RequestBody ChatRequest request) {
         SseEmitter emitter = new SseEmitter(300000L);
 
-        executorService.execute(() -> {
-            try {
-                aiService.chatStream(
-                        request.toChatMessages(),
-                        request.getConfigId(),
-                        request.toOptions(),
-                        chunk -> {
-                            try {
-                                emitter.send(SseEmitter.event()
-                                        .name("message")
-                                        .data(Map.of("content", chunk)));
-                            } catch (IOException e) {
-                                emitter.completeWithError(e);
-                            }
-                        }
-                );
+        StreamHandle handle = aiService.chatStreamAsync(
+                request.toChatMessages(),
+                request.getConfigId(),
+                request.toOptions(),
+                sseCallback(emitter)
+        );
+        bindEmitter(emitter, handle);
 
-                emitter.send(SseEmitter.event()
-                        .name("done")
-                        .data(Map.of("status", "completed")));
-                emitter.complete();
-            } catch (Exception e) {
+        return emitter;
+    }
+
+    /**
+     * 把流式内容转发到 SSE：逐段发送 message 事件，结束时发送 done 或 error 事件
+     */
+    private StreamCallback sseCallback(SseEmitter emitter) {
+        return new StreamCallback() {
+            @Override
+            public void onChunk(String chunk) {
                 try {
                     emitter.send(SseEmitter.event()
-                            .name("error")
-                            .data(Map.of("error", e.getMessage())));
-                } catch (IOException ignored) {}
-                emitter.completeWithError(e);
+                            .name("message")
+                            .data(Map.of("content", chunk)));
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
             }
-        });
 
-        return emitter;
+            @Override
+            public void onComplete(GenerateResult result) {
+                try {
+                    if ("error".equals(result.getFinishReason())) {
+                        String error = result.getErrorMessage() != null ? result.getErrorMessage() : "Unknown error";
+                        emitter.send(SseEmitter.event()
+                                .name("error")
+                                .data(Map.of("error", error)));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .name("done")
+                                .data(Map.of("status", "completed")));
+                    }
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 客户端断开或 SSE 超时时取消上游生成
+     */
+    private void bindEmitter(SseEmitter emitter, StreamHandle handle) {
+        emitter.onTimeout(handle::cancel);
+        emitter.onError(e -> handle.cancel());
+        emitter.onCompletion(handle::cancel);
     }
 
     /**
@@ -272,6 +330,8 @@ public class AiGenerateController {
                 .systemPrompt("你是一位专业的小说作家，擅长网络小说创作。你需要根据给定的大纲和已有内容，以流畅自然的方式续写故事。保持文风一致，情节连贯。")
                 .maxTokens(wordCount != null ? Math.min(wordCount * 2, 4096) : 2048)
                 .temperature(0.8)
+                .bookId((String) request.get("bookId"))
+                .task(AiTaskDispatchService.TASK_GENERATE)
                 .build();
 
         GenerateResult result = aiService.generate(prompt.toString(), configId, options);
@@ -319,6 +379,8 @@ public class AiGenerateController {
                 .systemPrompt("你是一位经验丰富的小说策划，擅长设计引人入胜的故事大纲。你的大纲应该结构清晰、情节紧凑、有起承转合。")
                 .maxTokens(2048)
                 .temperature(0.7)
+                .bookId((String) request.get("bookId"))
+                .task(AiTaskDispatchService.TASK_OUTLINE)
                 .build();
 
         GenerateResult result = aiService.generate(prompt.toString(), configId, options);
@@ -547,6 +609,7 @@ public class AiGenerateController {
                 .systemPrompt("你是一位专业的网络小说策划师，擅长设计引人入胜的故事。请严格按照JSON格式输出，确保输出是有效的JSON。必须严格遵守用户指定的感情线设定。")
                 .maxTokens(4096)
                 .temperature(0.8)
+                .task(AiTaskDispatchService.TASK_OUTLINE)
                 .build();
 
         GenerateResult result = aiService.generate(prompt.toString(), configId, options);
@@ -629,6 +692,8 @@ public class AiGenerateController {
                 .systemPrompt("你是一位专业的网络小说策划师。请根据用户的修改要求调整小说设定，保持整体风格一致。请严格按照JSON格式输出。")
                 .maxTokens(4096)
                 .temperature(0.7)
+                .bookId((String) request.get("bookId"))
+                .task(AiTaskDispatchService.TASK_OUTLINE)
                 .build();
 
         GenerateResult result = aiService.generate(prompt.toString(), configId, options);
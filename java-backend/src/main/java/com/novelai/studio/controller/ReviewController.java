@@ -3,14 +3,22 @@ package com.novelai.studio.controller;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.novelai.studio.common.Result;
+import com.novelai.studio.entity.ReviewHistory;
 import com.novelai.studio.entity.ReviewIssue;
+import com.novelai.studio.entity.ReviewRuleMetric;
 import com.novelai.studio.mapper.ReviewIssueMapper;
+import com.novelai.studio.service.review.ReviewJob;
+import com.novelai.studio.service.review.ReviewJobService;
 import com.novelai.studio.service.review.ReviewLevel;
+import com.novelai.studio.service.review.ReviewMetricsService;
 import com.novelai.studio.service.review.ReviewReport;
 import com.novelai.studio.service.review.ReviewRule;
+import com.novelai.studio.service.review.RuleExecutionGuard;
 import com.novelai.studio.service.review.RuleEngineService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -32,6 +40,15 @@ public class ReviewController {
     @Autowired
     private ReviewIssueMapper reviewIssueMapper;
 
+    @Autowired
+    private ReviewJobService reviewJobService;
+
+    @Autowired
+    private ReviewMetricsService reviewMetricsService;
+
+    @Autowired
+    private RuleExecutionGuard ruleExecutionGuard;
+
     /**
      * 获取所有可用规则
      */
@@ -48,12 +65,23 @@ public class ReviewController {
                     map.put("requiresAI", r.requiresAI());
                     map.put("enabled", r.isEnabled());
                     map.put("priority", r.getPriority());
+                    map.put("cost", r.getCost().name().toLowerCase());
+                    map.put("circuitState", ruleExecutionGuard.getCircuitState(r.getName()));
                     return map;
                 })
                 .collect(Collectors.toList());
         return Result.success(result);
     }
 
+    /**
+     * 手动恢复被熔断的规则
+     */
+    @PostMapping("/rules/{ruleName}/circuit/reset")
+    public Result<Void> resetRuleCircuit(@PathVariable String ruleName) {
+        ruleExecutionGuard.reset(ruleName);
+        return Result.success(null);
+    }
+
     /**
      * 审查单个章节
      */
@@ -89,6 +117,70 @@ public class ReviewController {
         return Result.success(report);
     }
 
+    /**
+     * 提交异步全书审查任务
+     * 返回任务ID，通过 /jobs/{jobId}/events 订阅进度和问题
+     */
+    @PostMapping("/jobs/book/{bookId}")
+    public Result<Map<String, Object>> submitBookReviewJob(
+            @PathVariable String bookId,
+            @RequestParam(required = false) String levels) {
+
+        List<String> levelList = null;
+        if (levels != null && !levels.isEmpty()) {
+            levelList = Arrays.asList(levels.split(","));
+        }
+
+        try {
+            ReviewJob job = reviewJobService.submitBookReview(bookId, levelList);
+            return Result.success(job.snapshot());
+        } catch (IllegalStateException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取审查任务状态
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Result<Map<String, Object>> getReviewJob(@PathVariable String jobId) {
+        ReviewJob job = reviewJobService.getJob(jobId);
+        if (job == null) {
+            return Result.notFound("审查任务不存在");
+        }
+        return Result.success(job.snapshot());
+    }
+
+    /**
+     * 订阅审查任务事件（SSE）
+     * 事件：status、progress、issues，以及终态 done / cancelled / error
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeReviewJob(@PathVariable String jobId) {
+        SseEmitter emitter = reviewJobService.subscribe(jobId);
+        if (emitter == null) {
+            emitter = new SseEmitter(0L);
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("error")
+                        .data(Map.of("error", "审查任务不存在")));
+            } catch (Exception ignored) {}
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * 取消审查任务
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public Result<Void> cancelReviewJob(@PathVariable String jobId) {
+        if (!reviewJobService.cancel(jobId)) {
+            return Result.notFound("审查任务不存在");
+        }
+        return Result.success(null);
+    }
+
     /**
      * 快速审查（仅Level A规则）
      */
@@ -151,6 +243,34 @@ public class ReviewController {
         return Result.success(stats);
     }
 
+    /**
+     * 获取书籍最近的审查记录
+     */
+    @GetMapping("/history/{bookId}")
+    public Result<List<ReviewHistory>> getReviewHistory(
+            @PathVariable String bookId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return Result.success(reviewMetricsService.getRecentHistory(bookId, limit));
+    }
+
+    /**
+     * 获取某次审查中各规则的执行指标
+     */
+    @GetMapping("/history/{historyId}/rules")
+    public Result<List<ReviewRuleMetric>> getReviewRuleMetrics(@PathVariable String historyId) {
+        return Result.success(reviewMetricsService.getRuleMetrics(historyId));
+    }
+
+    /**
+     * 按规则汇总最近若干天的执行指标（按平均耗时降序，用于定位慢规则）
+     */
+    @GetMapping("/metrics/rules")
+    public Result<List<Map<String, Object>>> getRuleMetricsSummary(
+            @RequestParam(required = false) String bookId,
+            @RequestParam(defaultValue = "7") int days) {
+        return Result.success(reviewMetricsService.summarizeRules(bookId, days));
+    }
+
     /**
      * 更新问题状态
      */
@@ -0,0 +1,56 @@
+package com.novelai.studio.controller;
+
+import com.novelai.studio.common.Result;
+import com.novelai.studio.service.ai.TokenUsageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token用量统计控制器
+ */
+@RestController
+@RequestMapping("/api/token-usage")
+public class TokenUsageController {
+
+    @Autowired
+    private TokenUsageService tokenUsageService;
+
+    /**
+     * 按书籍汇总最近若干天的用量
+     */
+    @GetMapping("/books")
+    public Result<List<Map<String, Object>>> summarizeByBook(@RequestParam(defaultValue = "30") int days) {
+        return Result.success(tokenUsageService.summarizeByBook(days));
+    }
+
+    /**
+     * 按AI配置汇总最近若干天的用量
+     */
+    @GetMapping("/configs")
+    public Result<List<Map<String, Object>>> summarizeByConfig(
+            @RequestParam(required = false) String bookId,
+            @RequestParam(defaultValue = "30") int days) {
+        return Result.success(tokenUsageService.summarizeByConfig(bookId, days));
+    }
+
+    /**
+     * 按任务类型汇总最近若干天的用量
+     */
+    @GetMapping("/tasks")
+    public Result<List<Map<String, Object>>> summarizeByTask(
+            @RequestParam(required = false) String bookId,
+            @RequestParam(defaultValue = "30") int days) {
+        return Result.success(tokenUsageService.summarizeByTask(bookId, days));
+    }
+
+    /**
+     * 用量记录器状态（待写入、已写入、丢弃的记录数）
+     */
+    @GetMapping("/recorder")
+    public Result<Map<String, Object>> getRecorderStats() {
+        return Result.success(tokenUsageService.getRecorderStats());
+    }
+}
@@ -0,0 +1,67 @@
+package com.novelai.studio.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 审查历史记录实体
+ */
+@Data
+@TableName("review_history")
+public class ReviewHistory {
+
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /**
+     * 书籍ID
+     */
+    private String bookId;
+
+    /**
+     * 章节ID（单章审查时）
+     */
+    private String chapterId;
+
+    /**
+     * 审查模式：single/batch/full
+     */
+    private String reviewMode;
+
+    /**
+     * 执行的规则数
+     */
+    private Integer rulesExecuted;
+
+    /**
+     * 发现的问题数
+     */
+    private Integer issuesFound;
+
+    /**
+     * 错误数
+     */
+    private Integer errorsCount;
+
+    /**
+     * 警告数
+     */
+    private Integer warningsCount;
+
+    /**
+     * 建议数
+     */
+    private Integer suggestionsCount;
+
+    /**
+     * 审查耗时(毫秒)
+     */
+    private Long durationMs;
+
+    /**
+     * 审查时间
+     */
+    private LocalDateTime createdAt;
+}
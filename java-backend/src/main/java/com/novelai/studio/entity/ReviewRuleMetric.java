@@ -0,0 +1,72 @@
+package com.novelai.studio.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 审查规则执行指标实体（每次审查每条规则一条）
+ */
+@Data
+@TableName("review_rule_metrics")
+public class ReviewRuleMetric {
+
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /**
+     * 审查历史记录ID
+     */
+    private String historyId;
+
+    /**
+     * 书籍ID
+     */
+    private String bookId;
+
+    /**
+     * 审查模式：single/batch/full
+     */
+    private String reviewMode;
+
+    /**
+     * 规则名称
+     */
+    private String ruleName;
+
+    /**
+     * 规则级别
+     */
+    private String ruleLevel;
+
+    /**
+     * 执行次数（全书审查时为章节数）
+     */
+    private Integer executions;
+
+    /**
+     * 发现的问题数
+     */
+    private Integer issuesFound;
+
+    /**
+     * 执行失败次数
+     */
+    private Integer failures;
+
+    /**
+     * 累计耗时(毫秒)
+     */
+    private Long totalDurationMs;
+
+    /**
+     * 单次最长耗时(毫秒)
+     */
+    private Long maxDurationMs;
+
+    /**
+     * 审查时间
+     */
+    private LocalDateTime createdAt;
+}
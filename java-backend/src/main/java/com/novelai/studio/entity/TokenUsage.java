@@ -0,0 +1,58 @@
+package com.novelai.studio.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Token使用记录实体（每次AI调用一条）
+ */
+@Data
+@TableName("token_usage")
+public class TokenUsage {
+
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /**
+     * 关联书籍ID
+     */
+    private String bookId;
+
+    /**
+     * AI配置ID
+     */
+    private String configId;
+
+    /**
+     * 任务类型：generate/review/summary/chat 等
+     */
+    private String task;
+
+    /**
+     * 提示Token数
+     */
+    private Integer promptTokens;
+
+    /**
+     * 完成Token数
+     */
+    private Integer completionTokens;
+
+    /**
+     * 总Token数
+     */
+    private Integer totalTokens;
+
+    /**
+     * 估算费用(元)
+     */
+    private BigDecimal estimatedCost;
+
+    /**
+     * 调用时间
+     */
+    private LocalDateTime createdAt;
+}
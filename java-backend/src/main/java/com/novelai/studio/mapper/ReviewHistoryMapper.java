@@ -0,0 +1,22 @@
+package com.novelai.studio.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.novelai.studio.entity.ReviewHistory;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 审查历史记录 Mapper
+ */
+@Mapper
+public interface ReviewHistoryMapper extends BaseMapper<ReviewHistory> {
+
+    /**
+     * 获取书籍最近的审查记录
+     */
+    @Select("SELECT * FROM review_history WHERE book_id = #{bookId} ORDER BY created_at DESC LIMIT #{limit}")
+    List<ReviewHistory> selectRecentByBookId(@Param("bookId") String bookId, @Param("limit") int limit);
+}
@@ -0,0 +1,38 @@
+package com.novelai.studio.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.novelai.studio.entity.ReviewRuleMetric;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 审查规则执行指标 Mapper
+ */
+@Mapper
+public interface ReviewRuleMetricMapper extends BaseMapper<ReviewRuleMetric> {
+
+    /**
+     * 获取某次审查的规则指标
+     */
+    @Select("SELECT * FROM review_rule_metrics WHERE history_id = #{historyId} ORDER BY total_duration_ms DESC")
+    List<ReviewRuleMetric> selectByHistoryId(@Param("historyId") String historyId);
+
+    /**
+     * 按规则汇总指定时间之后的执行指标（按平均耗时降序）
+     */
+    @Select("<script>" +
+            "SELECT rule_name AS ruleName, MAX(rule_level) AS ruleLevel, COUNT(*) AS runs, " +
+            "SUM(executions) AS executions, SUM(issues_found) AS issuesFound, SUM(failures) AS failures, " +
+            "SUM(total_duration_ms) AS totalDurationMs, MAX(max_duration_ms) AS maxDurationMs, " +
+            "SUM(total_duration_ms) / GREATEST(SUM(executions), 1) AS avgDurationMs " +
+            "FROM review_rule_metrics WHERE created_at &gt;= #{since} " +
+            "<if test='bookId != null'>AND book_id = #{bookId} </if>" +
+            "GROUP BY rule_name ORDER BY avgDurationMs DESC" +
+            "</script>")
+    List<Map<String, Object>> summarizeByRule(@Param("bookId") String bookId, @Param("since") LocalDateTime since);
+}
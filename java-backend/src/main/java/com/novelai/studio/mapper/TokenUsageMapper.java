@@ -0,0 +1,68 @@
+package com.novelai.studio.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.novelai.studio.entity.TokenUsage;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token使用记录 Mapper
+ */
+@Mapper
+public interface TokenUsageMapper extends BaseMapper<TokenUsage> {
+
+    /**
+     * 批量写入（单条多行 INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO token_usage (id, book_id, config_id, task, prompt_tokens, completion_tokens, " +
+            "total_tokens, estimated_cost, created_at) VALUES " +
+            "<foreach collection='list' item='u' separator=','>" +
+            "(#{u.id}, #{u.bookId}, #{u.configId}, #{u.task}, #{u.promptTokens}, #{u.completionTokens}, " +
+            "#{u.totalTokens}, #{u.estimatedCost}, #{u.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<TokenUsage> list);
+
+    /**
+     * 按书籍汇总指定时间之后的用量（按总 token 数降序，未关联书籍的调用归为一组）
+     */
+    @Select("SELECT book_id AS bookId, COUNT(*) AS calls, SUM(prompt_tokens) AS promptTokens, " +
+            "SUM(completion_tokens) AS completionTokens, SUM(total_tokens) AS totalTokens, " +
+            "SUM(estimated_cost) AS estimatedCost " +
+            "FROM token_usage WHERE created_at >= #{since} " +
+            "GROUP BY book_id ORDER BY totalTokens DESC")
+    List<Map<String, Object>> summarizeByBook(@Param("since") LocalDateTime since);
+
+    /**
+     * 按AI配置汇总指定时间之后的用量（按总 token 数降序）
+     */
+    @Select("<script>" +
+            "SELECT config_id AS configId, COUNT(*) AS calls, SUM(prompt_tokens) AS promptTokens, " +
+            "SUM(completion_tokens) AS completionTokens, SUM(total_tokens) AS totalTokens, " +
+            "SUM(estimated_cost) AS estimatedCost " +
+            "FROM token_usage WHERE created_at &gt;= #{since} " +
+            "<if test='bookId != null'>AND book_id = #{bookId} </if>" +
+            "GROUP BY config_id ORDER BY totalTokens DESC" +
+            "</script>")
+    List<Map<String, Object>> summarizeByConfig(@Param("bookId") String bookId, @Param("since") LocalDateTime since);
+
+    /**
+     * 按任务类型汇总指定时间之后的用量（按总 token 数降序）
+     */
+    @Select("<script>" +
+            "SELECT task, COUNT(*) AS calls, SUM(prompt_tokens) AS promptTokens, " +
+            "SUM(completion_tokens) AS completionTokens, SUM(total_tokens) AS totalTokens, " +
+            "SUM(estimated_cost) AS estimatedCost " +
+            "FROM token_usage WHERE created_at &gt;= #{since} " +
+            "<if test='bookId != null'>AND book_id = #{bookId} </if>" +
+            "GROUP BY task ORDER BY totalTokens DESC" +
+            "</script>")
+    List<Map<String, Object>> summarizeByTask(@Param("bookId") String bookId, @Param("since") LocalDateTime since);
+}
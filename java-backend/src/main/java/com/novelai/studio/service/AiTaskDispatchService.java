@@ -3,19 +3,30 @@ package com.novelai.studio.service;
 import com.novelai.studio.entity.AiConfig;
 import com.novelai.studio.entity.AiTaskAssignment;
 import com.novelai.studio.mapper.AiTaskAssignmentMapper;
+import com.novelai.studio.service.ai.AIService;
+import com.novelai.studio.service.ai.LatencyTracker;
+import com.novelai.studio.service.ai.adapter.StreamHandle;
+import com.novelai.studio.service.ai.dto.ChatMessage;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
+import com.novelai.studio.service.ai.dto.GenerateResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * AI任务分配服务
- * 根据任务类型分配不同的AI配置
+ * 根据任务类型分配不同的AI配置；按优先级依次尝试已分配的配置（出错或超时时切换到下一个，已熔断的配置排到最后），
+ * 可选在主请求耗时超过历史分位数时向下一个配置发出对冲请求，先成功的结果胜出，另一个请求被取消
  */
 @Service
 public class AiTaskDispatchService {
@@ -28,6 +39,41 @@ public class AiTaskDispatchService {
     @Autowired
     private AiConfigService aiConfigService;
 
+    @Autowired
+    private AIService aiService;
+
+    /**
+     * 单次尝试的超时时间（毫秒），超时后取消请求并切换到下一个配置
+     */
+    @Value("${ai.dispatch.attempt-timeout-ms:180000}")
+    private long attemptTimeoutMs = 180000;
+
+    /**
+     * 是否启用对冲请求
+     */
+    @Value("${ai.dispatch.hedge-enabled:false}")
+    private boolean hedgeEnabled;
+
+    /**
+     * 对冲阈值：主请求耗时超过该配置此类任务历史耗时的该分位数时发出对冲请求
+     */
+    @Value("${ai.dispatch.hedge-percentile:95}")
+    private double hedgePercentile = 95;
+
+    /**
+     * 计算分位数所需的最少样本数，样本不足时不对冲
+     */
+    @Value("${ai.dispatch.hedge-min-samples:20}")
+    private int hedgeMinSamples = 20;
+
+    /**
+     * 对冲等待时间下限（毫秒）
+     */
+    @Value("${ai.dispatch.hedge-min-delay-ms:2000}")
+    private long hedgeMinDelayMs = 2000;
+
+    private final LatencyTracker latencyTracker = new LatencyTracker(128);
+
     // 缓存任务分配
     private final Map<String, List<AiTaskAssignment>> assignmentCache = new ConcurrentHashMap<>();
 
@@ -51,6 +97,217 @@ public class AiTaskDispatchService {
         return assignments.get(0).getAiConfigId();
     }
 
+    /**
+     * 获取指定任务类型可用的AI配置ID（按优先级排序，默认配置作为最后的候选）
+     */
+    public List<String> getConfigIdsForTask(String taskType) {
+        List<String> configIds = new ArrayList<>();
+        for (AiTaskAssignment assignment : getAssignmentsForTask(taskType)) {
+            if (assignment.getAiConfigId() != null && !configIds.contains(assignment.getAiConfigId())) {
+                configIds.add(assignment.getAiConfigId());
+            }
+        }
+        AiConfig defaultConfig = aiConfigService.getDefaultConfig();
+        if (defaultConfig != null && !configIds.contains(defaultConfig.getId())) {
+            configIds.add(defaultConfig.getId());
+        }
+        return configIds;
+    }
+
+    /**
+     * 按任务分配生成内容（失败时切换配置，可选对冲）
+     * 非交互任务使用非流式请求，用量（含缓存命中）取自服务商响应而不是估算
+     */
+    public GenerateResult generateForTask(String taskType, String prompt, GenerateOptions options) {
+        return dispatch(taskType, deadlineOf(options), configId -> aiService.generateAsync(prompt, configId, options));
+    }
+
+    /**
+     * 按任务分配进行多轮对话（失败时切换配置，可选对冲）
+     */
+    public GenerateResult chatForTask(String taskType, List<ChatMessage> messages, GenerateOptions options) {
+        return dispatch(taskType, deadlineOf(options), configId -> aiService.chatAsync(messages, configId, options));
+    }
+
+    /**
+     * 依次尝试各候选配置，直到有一个成功；全部失败时返回最后一个错误结果
+     * 每次尝试都以可取消的异步请求发出，超时、被对冲请求胜出或调用线程被中断时取消；超时取消计入熔断
+     */
+    GenerateResult dispatch(String taskType, Function<String, StreamHandle> request) {
+        return dispatch(taskType, null, request);
+    }
+
+    /**
+     * 同上，调用方给出截止时间（毫秒时间戳，可为 null）时，每次尝试的超时不超过截止时间，
+     * 截止时间之后调用线程被中断也按超时取消
+     */
+    GenerateResult dispatch(String taskType, Long deadline, Function<String, StreamHandle> request) {
+        List<String> candidates = preferAvailable(getConfigIdsForTask(taskType));
+        if (candidates.isEmpty()) {
+            return request.apply(null).getResult().join();
+        }
+
+        BlockingQueue<Attempt> finished = new LinkedBlockingQueue<>();
+        List<Attempt> running = new ArrayList<>();
+        GenerateResult lastFailure = null;
+        int next = 0;
+        boolean hedged = false;
+
+        try {
+            running.add(startAttempt(taskType, candidates.get(next++), request, finished));
+            while (!running.isEmpty()) {
+                long now = System.currentTimeMillis();
+                long wakeAt = Long.MAX_VALUE;
+                for (Attempt attempt : running) {
+                    wakeAt = Math.min(wakeAt, attempt.timeoutAt(attemptTimeoutMs, deadline));
+                }
+                long hedgeAt = !hedged && running.size() == 1 && next < candidates.size()
+                        ? hedgeTime(taskType, running.get(0)) : -1;
+                if (hedgeAt > 0) {
+                    wakeAt = Math.min(wakeAt, hedgeAt);
+                }
+
+                Attempt done = finished.poll(Math.max(0, wakeAt - now), TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    now = System.currentTimeMillis();
+                    for (Attempt attempt : running) {
+                        if (now >= attempt.timeoutAt(attemptTimeoutMs, deadline)) {
+                            log.warn("AI config {} timed out on task {} after {}ms",
+                                    attempt.configId, taskType, now - attempt.startTime);
+                            attempt.handle.timeout();
+                        }
+                    }
+                    if (hedgeAt > 0 && now >= hedgeAt && next < candidates.size() && running.size() == 1
+                            && (deadline == null || now < deadline)) {
+                        log.info("AI config {} slower than p{} on task {}, hedging with {}",
+                                running.get(0).configId, hedgePercentile, taskType, candidates.get(next));
+                        running.add(startAttempt(taskType, candidates.get(next++), request, finished));
+                        hedged = true;
+                    }
+                    continue;
+                }
+
+                running.remove(done);
+                if (isSuccess(done.result)) {
+                    if (!Boolean.TRUE.equals(done.result.getCached())) {
+                        latencyTracker.record(latencyKey(taskType, done.configId),
+                                System.currentTimeMillis() - done.startTime);
+                    }
+                    for (Attempt loser : running) {
+                        loser.handle.cancel();
+                    }
+                    return done.result;
+                }
+
+                lastFailure = done.result;
+                log.warn("AI config {} failed on task {}: {}", done.configId, taskType,
+                        done.result != null ? done.result.getErrorMessage() : null);
+                if (running.isEmpty() && next < candidates.size()
+                        && (deadline == null || System.currentTimeMillis() < deadline)) {
+                    running.add(startAttempt(taskType, candidates.get(next++), request, finished));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 截止时间之后的中断来自调用方的超时控制，按超时取消以计入熔断；否则是普通取消
+            boolean timedOut = deadline != null && System.currentTimeMillis() >= deadline;
+            for (Attempt attempt : running) {
+                if (timedOut) {
+                    attempt.handle.timeout();
+                } else {
+                    attempt.handle.cancel();
+                }
+            }
+            return GenerateResult.builder()
+                    .content("")
+                    .finishReason("error")
+                    .errorMessage("Interrupted")
+                    .build();
+        }
+        return lastFailure;
+    }
+
+    /**
+     * 未熔断的配置在前（保持优先级顺序），已熔断的配置放到最后，仍会立即失败
+     */
+    private List<String> preferAvailable(List<String> configIds) {
+        List<String> available = new ArrayList<>();
+        List<String> open = new ArrayList<>();
+        for (String configId : configIds) {
+            (isAvailable(configId) ? available : open).add(configId);
+        }
+        available.addAll(open);
+        return available;
+    }
+
+    /**
+     * 配置是否可用（未熔断）
+     */
+    boolean isAvailable(String configId) {
+        return aiService.isAvailable(configId);
+    }
+
+    private Attempt startAttempt(String taskType, String configId, Function<String, StreamHandle> request,
+                                 BlockingQueue<Attempt> finished) {
+        Attempt attempt = new Attempt(configId);
+        attempt.handle = request.apply(configId);
+        attempt.handle.getResult().thenAccept(result -> {
+            attempt.result = result;
+            finished.add(attempt);
+        });
+        log.debug("Dispatching task {} to AI config {}", taskType, configId);
+        return attempt;
+    }
+
+    /**
+     * 对冲请求的发出时刻；未启用或样本不足时返回 -1
+     */
+    private long hedgeTime(String taskType, Attempt primary) {
+        if (!hedgeEnabled) {
+            return -1;
+        }
+        long threshold = latencyTracker.percentile(latencyKey(taskType, primary.configId),
+                hedgePercentile, hedgeMinSamples);
+        if (threshold < 0) {
+            return -1;
+        }
+        return primary.startTime + Math.max(threshold, hedgeMinDelayMs);
+    }
+
+    private static Long deadlineOf(GenerateOptions options) {
+        return options != null ? options.getDeadline() : null;
+    }
+
+    private static String latencyKey(String taskType, String configId) {
+        return configId + ":" + taskType;
+    }
+
+    private static boolean isSuccess(GenerateResult result) {
+        return result != null && !"error".equals(result.getFinishReason());
+    }
+
+    /**
+     * 一次尝试：结果在请求结束后由 HTTP 客户端线程写入，再经队列交给调度线程读取
+     */
+    private static class Attempt {
+        final String configId;
+        final long startTime = System.currentTimeMillis();
+        StreamHandle handle;
+        volatile GenerateResult result;
+
+        Attempt(String configId) {
+            this.configId = configId;
+        }
+
+        /**
+         * 该次尝试的超时时刻：单次尝试时限与调用方截止时间中较早者
+         */
+        long timeoutAt(long attemptTimeoutMs, Long deadline) {
+            long timeoutAt = startTime + attemptTimeoutMs;
+            return deadline != null ? Math.min(timeoutAt, deadline) : timeoutAt;
+        }
+    }
+
     /**
      * 获取指定任务类型的AI配置
      */
@@ -180,4 +437,5 @@ public class AiTaskDispatchService {
     public static final String TASK_SUMMARY = "summary";
     public static final String TASK_CHAT = "chat";
     public static final String TASK_OUTLINE = "outline";
+    public static final String TASK_EXTRACT = "extract";
 }
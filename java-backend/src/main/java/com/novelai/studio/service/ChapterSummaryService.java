@@ -4,7 +4,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.ChapterSummary;
 import com.novelai.studio.mapper.ChapterSummaryMapper;
-import com.novelai.studio.service.ai.AIService;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
 import com.novelai.studio.service.ai.dto.GenerateResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -26,7 +26,7 @@ public class ChapterSummaryService extends ServiceImpl<ChapterSummaryMapper, Cha
     private ChapterService chapterService;
 
     @Autowired
-    private AIService aiService;
+    private AiTaskDispatchService aiTaskDispatchService;
 
     /**
      * 根据章节ID获取摘要
@@ -70,7 +70,11 @@ public class ChapterSummaryService extends ServiceImpl<ChapterSummaryMapper, Cha
         String prompt = buildSummaryPrompt(chapter);
 
         // 调用AI生成摘要
-        GenerateResult result = aiService.generate(prompt);
+        GenerateOptions options = GenerateOptions.builder()
+                .bookId(chapter.getBookId())
+                .task(AiTaskDispatchService.TASK_SUMMARY)
+                .build();
+        GenerateResult result = aiTaskDispatchService.generateForTask(AiTaskDispatchService.TASK_SUMMARY, prompt, options);
         if (result == null || result.getContent() == null || result.getContent().isEmpty()) {
             return null;
         }
@@ -5,7 +5,7 @@ import com.novelai.studio.entity.Character;
 import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.CharacterStateChange;
 import com.novelai.studio.mapper.CharacterStateChangeMapper;
-import com.novelai.studio.service.ai.AIService;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
 import com.novelai.studio.service.ai.dto.GenerateResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -32,7 +32,7 @@ public class CharacterStateChangeService extends ServiceImpl<CharacterStateChang
     private ChapterService chapterService;
 
     @Autowired
-    private AIService aiService;
+    private AiTaskDispatchService aiTaskDispatchService;
 
     /**
      * 获取角色的所有状态变更记录
@@ -175,7 +175,12 @@ public class CharacterStateChangeService extends ServiceImpl<CharacterStateChang
         String prompt = buildExtractionPrompt(chapter, characters);
 
         // 调用AI提取状态变化
-        GenerateResult result = aiService.generate(prompt);
+        GenerateOptions options = GenerateOptions.builder()
+                .bookId(chapter.getBookId())
+                .task(AiTaskDispatchService.TASK_EXTRACT)
+                .build();
+        // 提取任务沿用摘要任务的模型分配
+        GenerateResult result = aiTaskDispatchService.generateForTask(AiTaskDispatchService.TASK_SUMMARY, prompt, options);
         if (result == null || result.getContent() == null || result.getContent().isEmpty()) {
             return new ArrayList<>();
         }
@@ -246,9 +246,9 @@ public class ChatHistoryService {
             String sessionId, String systemPrompt, int maxHistory) {
         List<com.novelai.studio.service.ai.dto.ChatMessage> result = new ArrayList<>();
 
-        // 添加系统提示词
+        // 添加系统提示词（会话内不变，作为可缓存前缀）
         if (systemPrompt != null && !systemPrompt.isEmpty()) {
-            result.add(com.novelai.studio.service.ai.dto.ChatMessage.system(systemPrompt));
+            result.add(com.novelai.studio.service.ai.dto.ChatMessage.cacheableSystem(systemPrompt));
         }
 
         // 获取历史消息
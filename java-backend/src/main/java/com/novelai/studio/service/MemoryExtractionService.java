@@ -147,15 +147,12 @@ public class MemoryExtractionService {
 
         List<Chapter> chapters = chapterService.getChaptersByBook(bookId);
         for (Chapter chapter : chapters) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
             if (chapter.getContent() != null && !chapter.getContent().isEmpty()) {
-                try {
-                    extractMemoryAsync(chapter.getId());
-                    // 避免过于频繁的API调用
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+                // 调用频率由 AIService 按配置限流，无需在此等待
+                extractMemoryAsync(chapter.getId());
             }
         }
 
@@ -4,7 +4,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.StoryEvent;
 import com.novelai.studio.mapper.StoryEventMapper;
-import com.novelai.studio.service.ai.AIService;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
 import com.novelai.studio.service.ai.dto.GenerateResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -26,7 +26,7 @@ public class StoryEventService extends ServiceImpl<StoryEventMapper, StoryEvent>
     private ChapterService chapterService;
 
     @Autowired
-    private AIService aiService;
+    private AiTaskDispatchService aiTaskDispatchService;
 
     /**
      * 获取书籍的所有事件
@@ -101,7 +101,12 @@ public class StoryEventService extends ServiceImpl<StoryEventMapper, StoryEvent>
         String prompt = buildEventExtractionPrompt(chapter);
 
         // 调用AI提取事件
-        GenerateResult result = aiService.generate(prompt);
+        GenerateOptions options = GenerateOptions.builder()
+                .bookId(chapter.getBookId())
+                .task(AiTaskDispatchService.TASK_EXTRACT)
+                .build();
+        // 提取任务沿用摘要任务的模型分配
+        GenerateResult result = aiTaskDispatchService.generateForTask(AiTaskDispatchService.TASK_SUMMARY, prompt, options);
         if (result == null || result.getContent() == null || result.getContent().isEmpty()) {
             return new ArrayList<>();
         }
@@ -0,0 +1,120 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.entity.AiConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+/**
+ * AI 熔断器注册表
+ * 每个AI配置一个 {@link CircuitBreaker}，半开探测在独立的后台线程上执行（探测本身是阻塞的 HTTP 请求）
+ */
+@Component
+public class AICircuitBreakerRegistry {
+
+    /**
+     * 是否启用熔断
+     */
+    @Value("${ai.circuit-breaker.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 统计的最近调用次数
+     */
+    @Value("${ai.circuit-breaker.window-size:20}")
+    private int windowSize = 20;
+
+    /**
+     * 统计窗口内至少有这么多次调用才判断是否熔断
+     */
+    @Value("${ai.circuit-breaker.min-calls:5}")
+    private int minCalls = 5;
+
+    /**
+     * 熔断的失败率阈值（百分比）
+     */
+    @Value("${ai.circuit-breaker.failure-rate-percent:50}")
+    private int failureRatePercent = 50;
+
+    /**
+     * 慢调用阈值（毫秒），超过计为失败；0 表示不统计
+     */
+    @Value("${ai.circuit-breaker.slow-call-ms:0}")
+    private long slowCallMs;
+
+    /**
+     * 首次熔断时间与最长熔断时间（毫秒）
+     */
+    @Value("${ai.circuit-breaker.open-ms:30000}")
+    private long openMs = 30000;
+
+    @Value("${ai.circuit-breaker.max-open-ms:300000}")
+    private long maxOpenMs = 300000;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService prober = Executors.newScheduledThreadPool(2, r -> {
+        Thread t = new Thread(r, "ai-circuit-probe");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+
+    /**
+     * 获取配置的熔断器，未启用熔断时返回 null
+     *
+     * @param probe 半开时的探测操作
+     */
+    public CircuitBreaker forConfig(AiConfig config, BooleanSupplier probe) {
+        if (!enabled || config == null) {
+            return null;
+        }
+        return breakers.computeIfAbsent(config.getId(), id -> new CircuitBreaker(
+                config.getName() != null ? config.getName() : id,
+                new CircuitBreaker.Settings(windowSize, minCalls, failureRatePercent)
+                        .slowCall(slowCallMs)
+                        .openDuration(openMs, maxOpenMs),
+                prober, probe));
+    }
+
+    /**
+     * 配置是否可用（未启用熔断或尚未调用过的配置视为可用）
+     */
+    public boolean isAvailable(String configId) {
+        CircuitBreaker breaker = configId != null ? breakers.get(configId) : null;
+        return breaker == null || breaker.isAvailable();
+    }
+
+    /**
+     * 移除配置的熔断器（配置更新或删除后调用）
+     */
+    public void remove(String configId) {
+        CircuitBreaker breaker = breakers.remove(configId);
+        if (breaker != null) {
+            // 取消尚未执行的探测
+            breaker.reset();
+        }
+    }
+
+    /**
+     * 各配置熔断器的状态
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        Map<String, Object> configs = new LinkedHashMap<>();
+        breakers.forEach((id, breaker) -> configs.put(id, breaker.getStats()));
+        stats.put("configs", configs);
+        return stats;
+    }
+}
@@ -25,6 +25,8 @@ import java.util.stream.Collectors;
  *
  * 在AI生成时自动注入角色、设定和知识库信息
  * 支持缓存机制，避免重复构建相同上下文
+ * 各层按变化频率从低到高排列（设定 → 角色 → 前文摘要 → 事件与状态 → 伏笔 → 知识库检索），
+ * 相邻两次生成的上下文开头尽量相同，便于命中服务商的提示词前缀缓存
  */
 @Service
 public class AIContextEnhancer {
@@ -94,6 +96,14 @@ public class AIContextEnhancer {
                                         boolean includeSettings, boolean includeKnowledge) {
         StringBuilder context = new StringBuilder();
 
+        // 添加设定信息（带缓存，最少变化，放在最前）
+        if (includeSettings) {
+            String settingContext = buildSettingContextCached(bookId);
+            if (!settingContext.isEmpty()) {
+                context.append(settingContext).append("\n\n");
+            }
+        }
+
         // 添加角色信息（带缓存）
         if (includeCharacters) {
             String characterContext = buildCharacterContextCached(bookId);
@@ -102,14 +112,6 @@ public class AIContextEnhancer {
             }
         }
 
-        // 添加设定信息（带缓存）
-        if (includeSettings) {
-            String settingContext = buildSettingContextCached(bookId);
-            if (!settingContext.isEmpty()) {
-                context.append(settingContext).append("\n\n");
-            }
-        }
-
         // 添加知识库检索结果（不缓存，因为query每次不同）
         if (includeKnowledge && query != null && !query.isEmpty()) {
             String knowledgeContext = knowledgeSearchService.getRelevantContext(bookId, query, 3);
@@ -363,16 +365,8 @@ public class AIContextEnhancer {
     public String buildFullMemoryContext(String bookId, int currentChapterOrder, String query) {
         StringBuilder context = new StringBuilder();
 
-        // L0: 角色和设定信息（带缓存）
-        String characterContext = buildCharacterContextCached(bookId);
-        if (!characterContext.isEmpty()) {
-            context.append(characterContext).append("\n\n");
-        }
-
-        String settingContext = buildSettingContextCached(bookId);
-        if (!settingContext.isEmpty()) {
-            context.append(settingContext).append("\n\n");
-        }
+        // L0: 设定和角色信息（带缓存）
+        context.append(buildStableContext(bookId));
 
         // L2: 前文章节摘要
         String summaryContext = chapterSummaryService.buildPreviousContext(bookId, currentChapterOrder, 10);
@@ -409,6 +403,28 @@ public class AIContextEnhancer {
         return context.toString();
     }
 
+    /**
+     * 构建稳定的上下文前缀（设定和角色，很少变化），适合作为可缓存的系统提示词
+     *
+     * @param bookId 书籍ID
+     * @return 设定与角色上下文
+     */
+    public String buildStableContext(String bookId) {
+        StringBuilder context = new StringBuilder();
+
+        String settingContext = buildSettingContextCached(bookId);
+        if (!settingContext.isEmpty()) {
+            context.append(settingContext).append("\n\n");
+        }
+
+        String characterContext = buildCharacterContextCached(bookId);
+        if (!characterContext.isEmpty()) {
+            context.append(characterContext).append("\n\n");
+        }
+
+        return context.toString();
+    }
+
     /**
      * 构建用于章节生成的完整上下文
      *
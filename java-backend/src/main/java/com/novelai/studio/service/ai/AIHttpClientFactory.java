@@ -0,0 +1,113 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.service.ai.dto.AIProvider;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI HTTP 客户端工厂
+ * 由共享的 {@link OkHttpClient} 派生各服务商的客户端：只调整超时并加上统计拦截器，
+ * 连接池、调度器线程和已建立的 TLS 连接在所有适配器之间共享。
+ * 未单独配置超时的服务商沿用共享客户端的超时（ai.http.*-timeout-seconds）
+ */
+@Component
+public class AIHttpClientFactory {
+
+    @Autowired
+    private OkHttpClient sharedClient;
+
+    @Autowired
+    private AIHttpMetrics metrics;
+
+    /**
+     * 各服务商的超时（秒）：本地模型与生成较慢的服务商更长，0 表示沿用共享客户端的超时
+     */
+    @Value("${ai.http.ollama.connect-timeout-seconds:30}")
+    private long ollamaConnectTimeoutSeconds = 30;
+
+    @Value("${ai.http.ollama.read-timeout-seconds:300}")
+    private long ollamaReadTimeoutSeconds = 300;
+
+    @Value("${ai.http.claude.read-timeout-seconds:180}")
+    private long claudeReadTimeoutSeconds = 180;
+
+    @Value("${ai.http.gemini.read-timeout-seconds:180}")
+    private long geminiReadTimeoutSeconds = 180;
+
+    @Value("${ai.http.zhipu.read-timeout-seconds:180}")
+    private long zhipuReadTimeoutSeconds = 180;
+
+    private final Map<AIProvider, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * 获取服务商的客户端（每个服务商只派生一次）
+     */
+    public OkHttpClient clientFor(AIProvider provider) {
+        return clients.computeIfAbsent(provider, this::derive);
+    }
+
+    private OkHttpClient derive(AIProvider provider) {
+        OkHttpClient.Builder builder = sharedClient.newBuilder()
+                .addInterceptor(metrics.providerInterceptor(provider));
+        long connectTimeout = provider == AIProvider.OLLAMA ? ollamaConnectTimeoutSeconds : 0;
+        if (connectTimeout > 0) {
+            builder.connectTimeout(connectTimeout, TimeUnit.SECONDS);
+        }
+        long readTimeout = readTimeoutSeconds(provider);
+        if (readTimeout > 0) {
+            builder.readTimeout(readTimeout, TimeUnit.SECONDS);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 服务商单独配置的读超时（秒），0 表示沿用共享客户端的读超时
+     */
+    private long readTimeoutSeconds(AIProvider provider) {
+        switch (provider) {
+            case OLLAMA:
+                return ollamaReadTimeoutSeconds;
+            case CLAUDE:
+                return claudeReadTimeoutSeconds;
+            case GEMINI:
+                return geminiReadTimeoutSeconds;
+            case ZHIPU:
+                return zhipuReadTimeoutSeconds;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 连接池、调度器及请求统计
+     */
+    public Map<String, Object> getStats() {
+        ConnectionPool pool = sharedClient.connectionPool();
+        Dispatcher dispatcher = sharedClient.dispatcher();
+
+        Map<String, Object> poolStats = new LinkedHashMap<>();
+        poolStats.put("connections", pool.connectionCount());
+        poolStats.put("idleConnections", pool.idleConnectionCount());
+
+        Map<String, Object> dispatcherStats = new LinkedHashMap<>();
+        dispatcherStats.put("runningCalls", dispatcher.runningCallsCount());
+        dispatcherStats.put("queuedCalls", dispatcher.queuedCallsCount());
+        dispatcherStats.put("maxRequests", dispatcher.getMaxRequests());
+        dispatcherStats.put("maxRequestsPerHost", dispatcher.getMaxRequestsPerHost());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pool", poolStats);
+        stats.put("dispatcher", dispatcherStats);
+        stats.put("connections", metrics.getConnectionStats());
+        stats.put("providers", metrics.getProviderStats());
+        return stats;
+    }
+}
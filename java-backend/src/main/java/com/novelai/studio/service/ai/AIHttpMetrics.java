@@ -0,0 +1,123 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.service.ai.dto.AIProvider;
+import okhttp3.*;
+import okhttp3.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI HTTP 调用指标
+ * 记录共享客户端的连接建立、TLS 握手、连接复用情况，以及各服务商的请求数、失败数和耗时
+ */
+@Component
+public class AIHttpMetrics {
+
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong connectFailures = new AtomicLong();
+    private final AtomicLong tlsHandshakes = new AtomicLong();
+    private final AtomicLong connectionsAcquired = new AtomicLong();
+
+    private final Map<AIProvider, ProviderStats> providerStats = new ConcurrentHashMap<>();
+
+    private final EventListener connectionListener = new EventListener() {
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectionsOpened.incrementAndGet();
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                                  Protocol protocol, IOException ioe) {
+            connectFailures.incrementAndGet();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            tlsHandshakes.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionsAcquired.incrementAndGet();
+        }
+    };
+
+    /**
+     * 共享客户端的连接事件监听器
+     */
+    public EventListener connectionListener() {
+        return connectionListener;
+    }
+
+    /**
+     * 统计某个服务商请求的拦截器（流式请求的耗时为收到响应头的时间）
+     */
+    public Interceptor providerInterceptor(AIProvider provider) {
+        ProviderStats stats = providerStats.computeIfAbsent(provider, k -> new ProviderStats());
+        return chain -> {
+            long start = System.nanoTime();
+            stats.inFlight.incrementAndGet();
+            try {
+                Response response = chain.proceed(chain.request());
+                if (!response.isSuccessful()) {
+                    stats.failures.incrementAndGet();
+                }
+                return response;
+            } catch (IOException | RuntimeException e) {
+                stats.failures.incrementAndGet();
+                throw e;
+            } finally {
+                stats.inFlight.decrementAndGet();
+                stats.requests.incrementAndGet();
+                stats.totalNanos.addAndGet(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * 连接统计：新建连接数、TLS 握手数、连接获取次数（含复用）
+     */
+    public Map<String, Object> getConnectionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long acquired = connectionsAcquired.get();
+        long opened = connectionsOpened.get();
+        stats.put("connectionsOpened", opened);
+        stats.put("connectFailures", connectFailures.get());
+        stats.put("tlsHandshakes", tlsHandshakes.get());
+        stats.put("connectionsAcquired", acquired);
+        stats.put("connectionReuseRate", acquired > 0 ? Math.max(0, acquired - opened) / (double) acquired : 0.0);
+        return stats;
+    }
+
+    /**
+     * 各服务商请求统计
+     */
+    public Map<String, Object> getProviderStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<AIProvider, ProviderStats> entry : providerStats.entrySet()) {
+            ProviderStats stats = entry.getValue();
+            long requests = stats.requests.get();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("requests", requests);
+            item.put("failures", stats.failures.get());
+            item.put("inFlight", stats.inFlight.get());
+            item.put("avgLatencyMs", requests > 0 ? stats.totalNanos.get() / requests / 1_000_000 : 0);
+            result.put(entry.getKey().getCode(), item);
+        }
+        return result;
+    }
+
+    private static class ProviderStats {
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong inFlight = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+    }
+}
@@ -0,0 +1,109 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.entity.AiConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * AI 限流器注册表
+ * 每个AI配置一个 {@link AdaptiveLimiter}，所有限流器共用一个定时线程唤醒排队的请求
+ */
+@Component
+public class AIRateLimiterRegistry {
+
+    /**
+     * 是否启用限流
+     */
+    @Value("${ai.limiter.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 每个配置每分钟的请求数上限，0 表示不限
+     */
+    @Value("${ai.limiter.requests-per-minute:60}")
+    private int requestsPerMinute = 60;
+
+    /**
+     * 每个配置每分钟的 token 数上限（提示词 + 最大生成长度），0 表示不限
+     */
+    @Value("${ai.limiter.tokens-per-minute:0}")
+    private int tokensPerMinute;
+
+    /**
+     * 并发上限的初始值、下限和上限
+     */
+    @Value("${ai.limiter.initial-concurrency:4}")
+    private int initialConcurrency = 4;
+
+    @Value("${ai.limiter.min-concurrency:1}")
+    private int minConcurrency = 1;
+
+    @Value("${ai.limiter.max-concurrency:16}")
+    private int maxConcurrency = 16;
+
+    /**
+     * 被限流且未返回 Retry-After 时的暂停时间（毫秒）
+     */
+    @Value("${ai.limiter.default-backoff-ms:1000}")
+    private long defaultBackoffMs = 1000;
+
+    /**
+     * 排队等待许可的最长时间（毫秒）
+     */
+    @Value("${ai.limiter.acquire-timeout-ms:60000}")
+    private long acquireTimeoutMs = 60000;
+
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ai-rate-limiter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 获取配置的限流器，未启用限流时返回 null
+     */
+    public AdaptiveLimiter forConfig(AiConfig config) {
+        if (!enabled || config == null) {
+            return null;
+        }
+        return limiters.computeIfAbsent(config.getId(), id -> new AdaptiveLimiter(
+                config.getName() != null ? config.getName() : id,
+                new AdaptiveLimiter.Settings(requestsPerMinute, tokensPerMinute)
+                        .concurrency(initialConcurrency, minConcurrency, maxConcurrency)
+                        .backoff(defaultBackoffMs)
+                        .acquireTimeout(acquireTimeoutMs),
+                timer));
+    }
+
+    /**
+     * 移除配置的限流器（配置删除后调用）
+     */
+    public void remove(String configId) {
+        limiters.remove(configId);
+    }
+
+    /**
+     * 各配置限流器的状态（并发上限、进行中、排队数、剩余额度等）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        Map<String, Object> configs = new LinkedHashMap<>();
+        limiters.forEach((id, limiter) -> configs.put(id, limiter.getStats()));
+        stats.put("configs", configs);
+        return stats;
+    }
+}
@@ -0,0 +1,314 @@
+package com.novelai.studio.service.ai;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novelai.studio.entity.AiConfig;
+import com.novelai.studio.service.ai.dto.ChatMessage;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * AI 响应缓存
+ * 以 hash(服务商, 地址, 模型, 提示词/消息, 生成参数) 为键把成功的生成结果存到磁盘，只对配置中列出的任务类型生效
+ * （摘要、事件与状态提取等对同一章节内容反复调用的非创作任务）。
+ * 总大小超过上限时按最近使用时间淘汰，命中时更新文件修改时间，重启后淘汰顺序不变
+ */
+@Component
+public class AIResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AIResponseCache.class);
+
+    private static final String SUFFIX = ".json";
+
+    /**
+     * 是否启用响应缓存
+     */
+    @Value("${ai.response-cache.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 启用缓存的任务类型（逗号分隔）
+     */
+    @Value("${ai.response-cache.tasks:summary,extract}")
+    private String tasks = "summary,extract";
+
+    /**
+     * 缓存目录
+     */
+    @Value("${ai.response-cache.dir:${user.home}/.novel-ai-studio/ai-cache}")
+    private String dir;
+
+    /**
+     * 缓存总大小上限（MB）
+     */
+    @Value("${ai.response-cache.max-size-mb:256}")
+    private long maxSizeMb = 256;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private Path root;
+    private Set<String> cachedTasks = Set.of();
+
+    /**
+     * 缓存条目（键 → 文件大小），按访问顺序排列
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        Set<String> taskSet = new HashSet<>();
+        for (String task : tasks.split(",")) {
+            if (!task.isBlank()) {
+                taskSet.add(task.trim());
+            }
+        }
+        cachedTasks = taskSet;
+        if (!enabled || cachedTasks.isEmpty()) {
+            return;
+        }
+        try {
+            root = Paths.get(dir);
+            Files.createDirectories(root);
+            loadIndex();
+        } catch (IOException e) {
+            log.warn("AI response cache disabled, cannot use directory {}: {}", dir, e.getMessage());
+            root = null;
+        }
+    }
+
+    /**
+     * 按文件修改时间重建索引（最早使用的在前）
+     */
+    private void loadIndex() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root, 2)) {
+            files = walk.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList();
+        }
+        List<Object[]> sorted = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                sorted.add(new Object[]{file, Files.getLastModifiedTime(file).toMillis(), Files.size(file)});
+            } catch (IOException ignored) {
+            }
+        }
+        sorted.sort(Comparator.comparingLong(o -> (Long) o[1]));
+        synchronized (entries) {
+            for (Object[] entry : sorted) {
+                String name = ((Path) entry[0]).getFileName().toString();
+                entries.put(name.substring(0, name.length() - SUFFIX.length()), (Long) entry[2]);
+                totalBytes += (Long) entry[2];
+            }
+        }
+        log.info("AI response cache: {} entries, {} KB in {}", entries.size(), totalBytes / 1024, root);
+        evictIfNeeded();
+    }
+
+    /**
+     * 任务是否使用缓存
+     */
+    public boolean isCacheable(GenerateOptions options) {
+        return root != null && options != null && options.getTask() != null && cachedTasks.contains(options.getTask());
+    }
+
+    /**
+     * 单轮生成的缓存键；任务不使用缓存时返回 null
+     */
+    public String keyFor(AiConfig config, String prompt, GenerateOptions options) {
+        if (!isCacheable(options)) {
+            return null;
+        }
+        return hash(config, options, "prompt", prompt);
+    }
+
+    /**
+     * 多轮对话的缓存键；任务不使用缓存时返回 null
+     */
+    public String keyFor(AiConfig config, List<ChatMessage> messages, GenerateOptions options) {
+        if (!isCacheable(options)) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        parts.add("messages");
+        for (ChatMessage message : messages) {
+            parts.add(message.getRole());
+            parts.add(message.getContent());
+        }
+        return hash(config, options, parts.toArray(new String[0]));
+    }
+
+    private static String hash(AiConfig config, GenerateOptions options, String... content) {
+        List<String> parts = new ArrayList<>();
+        parts.add(config.getProvider());
+        parts.add(config.getBaseUrl());
+        parts.add(options.getModel() != null ? options.getModel() : config.getModel());
+        parts.add(String.valueOf(options.getMaxTokens()));
+        parts.add(String.valueOf(options.getTemperature()));
+        parts.add(String.valueOf(options.getTopP()));
+        parts.add(options.getStopSequences() != null ? String.join("\u0001", options.getStopSequences()) : null);
+        parts.add(options.getSystemPrompt());
+        parts.addAll(Arrays.asList(content));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                // 每段前写入长度，避免不同切分拼接出相同的字节序列
+                byte[] bytes = part != null ? part.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                digest.update(String.valueOf(part != null ? bytes.length : -1).getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte) ':');
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取缓存的结果，未命中时返回 null
+     */
+    public GenerateResult get(String key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (entries) {
+            if (entries.get(key) == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        Path file = pathFor(key);
+        try {
+            GenerateResult result = objectMapper.readValue(file.toFile(), GenerateResult.class);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            result.setDuration(0L);
+            result.setCached(true);
+            return result;
+        } catch (IOException e) {
+            log.warn("Failed to read AI response cache entry {}: {}", key, e.getMessage());
+            remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * 缓存成功的结果（出错或内容为空的结果不缓存）
+     */
+    public void put(String key, GenerateResult result) {
+        if (key == null || result == null || "error".equals(result.getFinishReason())
+                || result.getContent() == null || result.getContent().isEmpty()) {
+            return;
+        }
+        Path file = pathFor(key);
+        try {
+            Files.createDirectories(file.getParent());
+            // 先写临时文件再改名，读取方不会看到写了一半的条目
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), result);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(file);
+            synchronized (entries) {
+                Long previous = entries.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0);
+            }
+            evictIfNeeded();
+        } catch (IOException e) {
+            log.warn("Failed to write AI response cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void evictIfNeeded() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        List<String> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                totalBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (String key : evicted) {
+            deleteFile(key);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (entries) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        deleteFile(key);
+    }
+
+    private void deleteFile(String key) {
+        try {
+            Files.deleteIfExists(pathFor(key));
+        } catch (IOException e) {
+            log.debug("Failed to delete AI response cache entry {}", key, e);
+        }
+    }
+
+    /**
+     * 条目按键的前两位分目录存放，避免单个目录文件过多
+     */
+    private Path pathFor(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        List<String> keys;
+        synchronized (entries) {
+            keys = new ArrayList<>(entries.keySet());
+            entries.clear();
+            totalBytes = 0;
+        }
+        keys.forEach(this::deleteFile);
+    }
+
+    /**
+     * 缓存状态
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", root != null);
+        stats.put("tasks", cachedTasks);
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("sizeBytes", totalBytes);
+        }
+        stats.put("maxSizeBytes", maxSizeMb * 1024 * 1024);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
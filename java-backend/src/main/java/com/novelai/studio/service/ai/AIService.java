@@ -4,6 +4,8 @@ import com.novelai.studio.entity.AiConfig;
 import com.novelai.studio.service.AiConfigService;
 import com.novelai.studio.service.ai.adapter.*;
 import com.novelai.studio.service.ai.dto.*;
+import com.novelai.studio.service.ai.tokenizer.TokenizerRegistry;
+import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +13,16 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * AI 服务
- * 管理 AI 适配器，提供统一的 AI 调用接口
+ * 管理 AI 适配器，提供统一的 AI 调用接口；启用了响应缓存的任务先查缓存，
+ * 其余调用经所用配置的熔断器与限流器，熔断中的配置立即返回错误，不再等待连接或读取超时
  */
 @Service
 public class AIService {
@@ -26,6 +32,24 @@ public class AIService {
     @Autowired
     private AiConfigService aiConfigService;
 
+    @Autowired
+    private AIHttpClientFactory httpClientFactory;
+
+    @Autowired
+    private TokenizerRegistry tokenizerRegistry;
+
+    @Autowired
+    private TokenUsageService tokenUsageService;
+
+    @Autowired
+    private AIRateLimiterRegistry rateLimiterRegistry;
+
+    @Autowired
+    private AICircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private AIResponseCache responseCache;
+
     // 缓存适配器实例
     private final Map<String, AIAdapter> adapterCache = new ConcurrentHashMap<>();
 
@@ -40,56 +64,343 @@ public class AIService {
      * 使用指定配置生成内容
      */
     public GenerateResult generate(String prompt, String configId, GenerateOptions options) {
-        AIAdapter adapter = getAdapter(configId);
+        AiConfig config = resolveConfig(configId);
+        AIAdapter adapter = getAdapter(config);
         if (adapter == null) {
-            return GenerateResult.builder()
-                    .finishReason("error")
-                    .errorMessage("No AI configuration found")
-                    .build();
+            return noConfigResult();
+        }
+        String cacheKey = responseCache.keyFor(config, prompt, options);
+        GenerateResult cached = cachedResult(cacheKey, null);
+        if (cached != null) {
+            return cached;
         }
-        return adapter.generate(prompt, options);
+        GenerateResult result = callLimited(config, options, () -> estimateTokens(config, adapter, prompt, options),
+                () -> adapter.generate(prompt, options));
+        responseCache.put(cacheKey, result);
+        return result;
     }
 
     /**
      * 多轮对话
      */
     public GenerateResult chat(List<ChatMessage> messages, String configId, GenerateOptions options) {
-        AIAdapter adapter = getAdapter(configId);
+        AiConfig config = resolveConfig(configId);
+        AIAdapter adapter = getAdapter(config);
         if (adapter == null) {
-            return GenerateResult.builder()
-                    .finishReason("error")
-                    .errorMessage("No AI configuration found")
-                    .build();
+            return noConfigResult();
         }
-        return adapter.chat(messages, options);
+        String cacheKey = responseCache.keyFor(config, messages, options);
+        GenerateResult cached = cachedResult(cacheKey, null);
+        if (cached != null) {
+            return cached;
+        }
+        GenerateResult result = callLimited(config, options, () -> estimateTokens(config, adapter, messages, options),
+                () -> adapter.chat(messages, options));
+        responseCache.put(cacheKey, result);
+        return result;
     }
 
     /**
      * 流式生成
      */
     public GenerateResult generateStream(String prompt, String configId, GenerateOptions options, Consumer<String> consumer) {
-        AIAdapter adapter = getAdapter(configId);
+        AiConfig config = resolveConfig(configId);
+        AIAdapter adapter = getAdapter(config);
         if (adapter == null) {
-            return GenerateResult.builder()
-                    .finishReason("error")
-                    .errorMessage("No AI configuration found")
-                    .build();
+            return noConfigResult();
         }
-        return adapter.generateStream(prompt, options, consumer);
+        String cacheKey = responseCache.keyFor(config, prompt, options);
+        GenerateResult cached = cachedResult(cacheKey, consumer);
+        if (cached != null) {
+            return cached;
+        }
+        GenerateResult result = callLimited(config, options, () -> estimateTokens(config, adapter, prompt, options),
+                () -> adapter.generateStream(prompt, options, consumer));
+        responseCache.put(cacheKey, result);
+        return result;
     }
 
     /**
      * 流式对话
      */
     public GenerateResult chatStream(List<ChatMessage> messages, String configId, GenerateOptions options, Consumer<String> consumer) {
-        AIAdapter adapter = getAdapter(configId);
+        AiConfig config = resolveConfig(configId);
+        AIAdapter adapter = getAdapter(config);
+        if (adapter == null) {
+            return noConfigResult();
+        }
+        String cacheKey = responseCache.keyFor(config, messages, options);
+        GenerateResult cached = cachedResult(cacheKey, consumer);
+        if (cached != null) {
+            return cached;
+        }
+        GenerateResult result = callLimited(config, options, () -> estimateTokens(config, adapter, messages, options),
+                () -> adapter.chatStream(messages, options, consumer));
+        responseCache.put(cacheKey, result);
+        return result;
+    }
+
+    /**
+     * 非阻塞流式生成：立即返回句柄，内容与结果通过回调送达
+     */
+    public StreamHandle generateStreamAsync(String prompt, String configId, GenerateOptions options,
+                                            StreamCallback callback) {
+        AiConfig config = resolveConfig(configId);
+        AIAdapter adapter = getAdapter(config);
         if (adapter == null) {
-            return GenerateResult.builder()
-                    .finishReason("error")
-                    .errorMessage("No AI configuration found")
-                    .build();
+            return StreamHandle.completed(noConfigResult(), callback);
         }
-        return adapter.chatStream(messages, options, consumer);
+        String cacheKey = responseCache.keyFor(config, prompt, options);
+        GenerateResult cached = cachedResult(cacheKey, callback != null ? callback::onChunk : null);
+        if (cached != null) {
+            return StreamHandle.completed(cached, callback);
+        }
+        return cacheOnComplete(cacheKey, streamLimited(config, options,
+                () -> estimateTokens(config, adapter, prompt, options), callback,
+                limitedCallback -> adapter.generateStreamAsync(prompt, options, limitedCallback)));
+    }
+
+    /**
+     * 非阻塞流式对话：立即返回句柄，内容与结果通过回调送达
+     */
+    public StreamHandle chatStreamAsync(List<ChatMessage> messages, String configId, GenerateOptions options,
+                                        StreamCallback callback) {
+        AiConfig config = resolveConfig(configId);
+        AIAdapter adapter = getAdapter(config);
+        if (adapter == null) {
+            return StreamHandle.completed(noConfigResult(), callback);
+        }
+        String cacheKey = responseCache.keyFor(config, messages, options);
+        GenerateResult cached = cachedResult(cacheKey, callback != null ? callback::onChunk : null);
+        if (cached != null) {
+            return StreamHandle.completed(cached, callback);
+        }
+        return cacheOnComplete(cacheKey, streamLimited(config, options,
+                () -> estimateTokens(config, adapter, messages, options), callback,
+                limitedCallback -> adapter.chatStreamAsync(messages, options, limitedCallback)));
+    }
+
+    /**
+     * 非阻塞生成（非流式请求）：立即返回可取消的句柄，用于摘要、提取、审查等非交互任务，用量取自响应
+     */
+    public StreamHandle generateAsync(String prompt, String configId, GenerateOptions options) {
+        AiConfig config = resolveConfig(configId);
+        AIAdapter adapter = getAdapter(config);
+        if (adapter == null) {
+            return StreamHandle.completed(noConfigResult(), null);
+        }
+        String cacheKey = responseCache.keyFor(config, prompt, options);
+        GenerateResult cached = cachedResult(cacheKey, null);
+        if (cached != null) {
+            return StreamHandle.completed(cached, null);
+        }
+        return cacheOnComplete(cacheKey, streamLimited(config, options,
+                () -> estimateTokens(config, adapter, prompt, options), null,
+                ignored -> adapter.generateAsync(prompt, options)));
+    }
+
+    /**
+     * 非阻塞多轮对话（非流式请求）：立即返回可取消的句柄
+     */
+    public StreamHandle chatAsync(List<ChatMessage> messages, String configId, GenerateOptions options) {
+        AiConfig config = resolveConfig(configId);
+        AIAdapter adapter = getAdapter(config);
+        if (adapter == null) {
+            return StreamHandle.completed(noConfigResult(), null);
+        }
+        String cacheKey = responseCache.keyFor(config, messages, options);
+        GenerateResult cached = cachedResult(cacheKey, null);
+        if (cached != null) {
+            return StreamHandle.completed(cached, null);
+        }
+        return cacheOnComplete(cacheKey, streamLimited(config, options,
+                () -> estimateTokens(config, adapter, messages, options), null,
+                ignored -> adapter.chatAsync(messages, options)));
+    }
+
+    /**
+     * 读取缓存的结果，命中时把内容一次性交给流式消费者
+     */
+    private GenerateResult cachedResult(String cacheKey, Consumer<String> consumer) {
+        GenerateResult cached = responseCache.get(cacheKey);
+        if (cached != null && consumer != null) {
+            consumer.accept(cached.getContent());
+        }
+        return cached;
+    }
+
+    private StreamHandle cacheOnComplete(String cacheKey, StreamHandle handle) {
+        if (cacheKey != null) {
+            handle.getResult().thenAccept(result -> responseCache.put(cacheKey, result));
+        }
+        return handle;
+    }
+
+    /**
+     * 获得配置的限流许可后执行阻塞调用；熔断中或排队超时时不发出请求
+     */
+    private GenerateResult callLimited(AiConfig config, GenerateOptions options, Supplier<Integer> estimate,
+                                       Supplier<GenerateResult> call) {
+        CircuitBreaker breaker = circuitBreaker(config);
+        if (breaker != null && !breaker.allowRequest()) {
+            return circuitOpenResult(config);
+        }
+        AdaptiveLimiter limiter = rateLimiterRegistry.forConfig(config);
+        AdaptiveLimiter.Permit permit = null;
+        if (limiter != null) {
+            permit = limiter.acquireBlocking(limiter.limitsTokens() ? estimate.get() : 0);
+            if (permit == null) {
+                return rateLimitedResult(config);
+            }
+        }
+        GenerateResult result = null;
+        long startTime = System.currentTimeMillis();
+        try {
+            result = call.get();
+        } finally {
+            if (permit != null) {
+                permit.release(result);
+            }
+        }
+        if (breaker != null) {
+            breaker.record(result, System.currentTimeMillis() - startTime);
+        }
+        tokenUsageService.record(config.getId(), options, result);
+        return result;
+    }
+
+    /**
+     * 非阻塞地等待限流许可，获得后再发出请求（流式或非流式）；排队期间取消句柄会放弃排队。
+     * 流式请求只在等待首个内容期间占用并发名额，长时间生成不会挤占同一配置的其他请求
+     */
+    private StreamHandle streamLimited(AiConfig config, GenerateOptions options, Supplier<Integer> estimate,
+                                       StreamCallback callback, Function<StreamCallback, StreamHandle> request) {
+        CircuitBreaker breaker = circuitBreaker(config);
+        if (breaker != null && !breaker.allowRequest()) {
+            return StreamHandle.completed(circuitOpenResult(config), callback);
+        }
+        Function<StreamCallback, StreamHandle> call = breaker == null ? request : streamCallback -> {
+            long startTime = System.currentTimeMillis();
+            StreamHandle inner = request.apply(streamCallback);
+            inner.getResult().thenAccept(result -> breaker.record(result, System.currentTimeMillis() - startTime));
+            return inner;
+        };
+
+        AdaptiveLimiter limiter = rateLimiterRegistry.forConfig(config);
+        if (limiter == null) {
+            return recordOnComplete(call.apply(callback), config, options);
+        }
+
+        StreamHandle handle = new StreamHandle(callback);
+        CompletableFuture<AdaptiveLimiter.Permit> pending =
+                limiter.acquire(limiter.limitsTokens() ? estimate.get() : 0);
+        handle.bind(() -> pending.cancel(false));
+        pending.whenComplete((permit, error) -> {
+            if (error != null) {
+                handle.complete(rateLimitedResult(config));
+                return;
+            }
+            if (handle.isDone()) {
+                permit.release(null);
+                return;
+            }
+            // 内层句柄只转发内容，结束通知由外层句柄发出；收到首个内容后归还并发名额，请求数与 token 仍按整次调用计
+            StreamHandle inner = call.apply(chunk -> {
+                permit.releaseConcurrency();
+                if (callback != null) {
+                    callback.onChunk(chunk);
+                }
+            });
+            // 外层句柄的取消原因（超时或普通取消）传给内层请求，熔断统计据此区分
+            handle.bind(() -> {
+                String reason = handle.getCancelReason();
+                inner.cancel(reason != null ? reason : StreamHandle.CANCELLED);
+            });
+            inner.getResult().thenAccept(result -> {
+                permit.release(result);
+                handle.complete(result);
+            });
+        });
+        return recordOnComplete(handle, config, options);
+    }
+
+    /**
+     * 配置的熔断器，半开时用 testConnection 探测
+     */
+    private CircuitBreaker circuitBreaker(AiConfig config) {
+        String configId = config.getId();
+        return circuitBreakerRegistry.forConfig(config, () -> {
+            AIAdapter adapter = getAdapter(configId);
+            return adapter != null && adapter.testConnection();
+        });
+    }
+
+    /**
+     * 配置当前是否可用（未熔断）
+     */
+    public boolean isAvailable(String configId) {
+        return circuitBreakerRegistry.isAvailable(configId);
+    }
+
+    private StreamHandle recordOnComplete(StreamHandle handle, AiConfig config, GenerateOptions options) {
+        handle.getResult().thenAccept(result -> tokenUsageService.record(config.getId(), options, result));
+        return handle;
+    }
+
+    /**
+     * 预计消耗的 token 数：提示词 + 最大生成长度
+     */
+    private int estimateTokens(AiConfig config, AIAdapter adapter, String prompt, GenerateOptions options) {
+        int tokens = tokenizerRegistry.forModel(adapter.getProvider(), modelOf(config, options)).countTokens(prompt);
+        if (options != null && options.getSystemPrompt() != null) {
+            tokens += tokenizerRegistry.forModel(adapter.getProvider(), modelOf(config, options))
+                    .countTokens(options.getSystemPrompt());
+        }
+        return tokens + maxOutputTokens(config, options);
+    }
+
+    private int estimateTokens(AiConfig config, AIAdapter adapter, List<ChatMessage> messages, GenerateOptions options) {
+        StringBuilder text = new StringBuilder();
+        for (ChatMessage message : messages) {
+            if (message.getContent() != null) {
+                text.append(message.getContent()).append('\n');
+            }
+        }
+        return estimateTokens(config, adapter, text.toString(), options);
+    }
+
+    private static String modelOf(AiConfig config, GenerateOptions options) {
+        return options != null && options.getModel() != null ? options.getModel() : config.getModel();
+    }
+
+    private static int maxOutputTokens(AiConfig config, GenerateOptions options) {
+        if (options != null && options.getMaxTokens() != null) {
+            return options.getMaxTokens();
+        }
+        return config.getMaxTokens() != null ? config.getMaxTokens() : 0;
+    }
+
+    private GenerateResult rateLimitedResult(AiConfig config) {
+        return GenerateResult.builder()
+                .content("")
+                .finishReason("error")
+                .errorMessage("Rate limit queue timed out for AI config: " + config.getName())
+                .build();
+    }
+
+    private GenerateResult circuitOpenResult(AiConfig config) {
+        return GenerateResult.builder()
+                .content("")
+                .finishReason("error")
+                .errorMessage("Circuit open for AI config: " + config.getName())
+                .build();
+    }
+
+    private GenerateResult noConfigResult() {
+        return GenerateResult.builder()
+                .finishReason("error")
+                .errorMessage("No AI configuration found")
+                .build();
     }
 
     /**
@@ -118,6 +429,13 @@ public class AIService {
      * 获取适配器实例
      */
     private AIAdapter getAdapter(String configId) {
+        return getAdapter(resolveConfig(configId));
+    }
+
+    /**
+     * 解析配置：未指定时使用默认配置
+     */
+    private AiConfig resolveConfig(String configId) {
         AiConfig config;
 
         if (configId != null && !configId.isEmpty()) {
@@ -128,9 +446,14 @@ public class AIService {
 
         if (config == null) {
             log.warn("No AI config found for id: {}", configId);
-            return null;
         }
+        return config;
+    }
 
+    private AIAdapter getAdapter(AiConfig config) {
+        if (config == null) {
+            return null;
+        }
         // 从缓存获取或创建新适配器
         return adapterCache.computeIfAbsent(config.getId(), id -> createAdapter(config));
     }
@@ -139,7 +462,18 @@ public class AIService {
      * 根据配置创建适配器
      */
     private AIAdapter createAdapter(AiConfig config) {
+        AIAdapter adapter = newAdapter(config);
+        if (adapter instanceof AbstractAIAdapter) {
+            // 流式响应等未返回用量时按模型的分词器计算 token 数
+            ((AbstractAIAdapter) adapter).setTokenizerRegistry(tokenizerRegistry);
+        }
+        return adapter;
+    }
+
+    private AIAdapter newAdapter(AiConfig config) {
         AIProvider provider = AIProvider.fromCode(config.getProvider());
+        // 同一服务商的适配器共用一个派生客户端，所有客户端共享连接池和调度器
+        OkHttpClient httpClient = httpClientFactory.clientFor(provider);
 
         switch (provider) {
             case OPENAI:
@@ -149,40 +483,46 @@ public class AIService {
                 return new OpenAIAdapter(
                         config.getApiKey(),
                         config.getBaseUrl(),
-                        config.getModel()
+                        config.getModel(),
+                        httpClient
                 );
             case ZHIPU:
                 // 智谱 GLM API（使用专用适配器）
                 return new ZhipuAdapter(
                         config.getApiKey(),
                         config.getBaseUrl(),
-                        config.getModel()
+                        config.getModel(),
+                        httpClient
                 );
             case GEMINI:
                 // Google Gemini API
                 return new GeminiAdapter(
                         config.getApiKey(),
                         config.getBaseUrl(),
-                        config.getModel()
+                        config.getModel(),
+                        httpClient
                 );
             case CLAUDE:
                 return new ClaudeAdapter(
                         config.getApiKey(),
                         config.getBaseUrl(),
-                        config.getModel()
+                        config.getModel(),
+                        httpClient
                 );
             case OLLAMA:
                 return new OllamaAdapter(
                         config.getApiKey(),
                         config.getBaseUrl(),
-                        config.getModel()
+                        config.getModel(),
+                        httpClient
                 );
             case WENXIN:
                 // 文心一言使用OpenAI兼容接口
                 return new OpenAIAdapter(
                         config.getApiKey(),
                         config.getBaseUrl(),
-                        config.getModel()
+                        config.getModel(),
+                        httpClient
                 );
             default:
                 log.warn("Unknown AI provider: {}", config.getProvider());
@@ -196,6 +536,8 @@ public class AIService {
     public void clearAdapterCache(String configId) {
         if (configId != null) {
             adapterCache.remove(configId);
+            rateLimiterRegistry.remove(configId);
+            circuitBreakerRegistry.remove(configId);
         }
     }
 
@@ -0,0 +1,343 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.service.ai.dto.GenerateResult;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个AI配置的自适应限流器
+ * 请求数与 token 数各用一个令牌桶（每分钟额度，0 表示不限），并发数按 AIMD 调整：
+ * 请求成功时并发上限缓慢增加，被限流（429/503）时减半，并按 Retry-After 暂停放行。
+ * 等待中的请求按先后顺序排队，许可以 {@link CompletableFuture} 交付，流式请求排队时不占用线程。
+ * 流式请求收到首个内容后即可归还并发名额（{@link Permit#releaseConcurrency()}），并发上限只约束等待首字节的请求
+ */
+public class AdaptiveLimiter {
+
+    private final String name;
+    private final ScheduledExecutorService timer;
+    private final Settings settings;
+
+    private double availableRequests;
+    private double availableTokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * 当前并发上限（AIMD 调整）
+     */
+    private double concurrencyLimit;
+    private int inFlight;
+
+    /**
+     * 暂停放行直到该时刻（毫秒时间戳）
+     */
+    private long pausedUntil;
+
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private boolean wakeScheduled;
+
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public AdaptiveLimiter(String name, Settings settings, ScheduledExecutorService timer) {
+        this.name = name;
+        this.settings = settings;
+        this.timer = timer;
+        this.availableRequests = settings.requestsPerMinute;
+        this.availableTokens = settings.tokensPerMinute;
+        this.concurrencyLimit = Math.max(settings.minConcurrency, settings.initialConcurrency);
+    }
+
+    /**
+     * 申请一次调用的许可；超过排队时间仍未获得时以 {@link TimeoutException} 结束
+     *
+     * @param estimatedTokens 预计消耗的 token 数（提示词 + 最大生成长度），结束后按实际用量修正
+     */
+    public CompletableFuture<Permit> acquire(int estimatedTokens) {
+        Waiter waiter = new Waiter(Math.max(0, estimatedTokens));
+        synchronized (this) {
+            waiters.add(waiter);
+        }
+        waiter.future.orTimeout(settings.acquireTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((permit, error) -> {
+                    if (error instanceof TimeoutException) {
+                        timedOut.incrementAndGet();
+                    }
+                    if (error != null) {
+                        synchronized (this) {
+                            waiters.remove(waiter);
+                        }
+                    }
+                });
+        dispatch();
+        return waiter.future;
+    }
+
+    /**
+     * 阻塞申请许可，超时或被中断时返回 null
+     */
+    public Permit acquireBlocking(int estimatedTokens) {
+        CompletableFuture<Permit> future = acquire(estimatedTokens);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按先后顺序放行排队的请求，许可在锁外交付
+     */
+    private void dispatch() {
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (this) {
+            refill();
+            long now = System.currentTimeMillis();
+            while (!waiters.isEmpty()) {
+                Waiter waiter = waiters.peek();
+                if (waiter.future.isDone()) {
+                    waiters.poll();
+                    continue;
+                }
+                if (now < pausedUntil) {
+                    scheduleWake(pausedUntil - now);
+                    break;
+                }
+                if (inFlight >= (int) concurrencyLimit) {
+                    // 等待正在进行的请求释放许可
+                    break;
+                }
+                if (settings.requestsPerMinute > 0 && availableRequests < 1) {
+                    scheduleWake(millisUntil(1 - availableRequests, settings.requestsPerMinute));
+                    break;
+                }
+                // 超过桶容量的请求等桶满即可放行，否则永远得不到许可
+                int cost = settings.tokensPerMinute > 0 ? Math.min(waiter.tokens, settings.tokensPerMinute) : 0;
+                if (cost > 0 && availableTokens < cost) {
+                    scheduleWake(millisUntil(cost - availableTokens, settings.tokensPerMinute));
+                    break;
+                }
+                waiters.poll();
+                if (settings.requestsPerMinute > 0) {
+                    availableRequests -= 1;
+                }
+                if (settings.tokensPerMinute > 0) {
+                    availableTokens -= waiter.tokens;
+                }
+                inFlight++;
+                ready.add(waiter);
+            }
+        }
+        for (Waiter waiter : ready) {
+            Permit permit = new Permit(waiter.tokens);
+            if (waiter.future.complete(permit)) {
+                granted.incrementAndGet();
+            } else {
+                // 交付前已超时或被取消
+                permit.release(null);
+            }
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double minutes = (now - lastRefillNanos) / 60_000_000_000.0;
+        lastRefillNanos = now;
+        if (settings.requestsPerMinute > 0) {
+            availableRequests = Math.min(settings.requestsPerMinute,
+                    availableRequests + minutes * settings.requestsPerMinute);
+        }
+        if (settings.tokensPerMinute > 0) {
+            availableTokens = Math.min(settings.tokensPerMinute,
+                    availableTokens + minutes * settings.tokensPerMinute);
+        }
+    }
+
+    private static long millisUntil(double deficit, int perMinute) {
+        return (long) Math.ceil(deficit * 60_000 / perMinute);
+    }
+
+    private void scheduleWake(long delayMs) {
+        if (wakeScheduled) {
+            return;
+        }
+        wakeScheduled = true;
+        timer.schedule(() -> {
+            synchronized (this) {
+                wakeScheduled = false;
+            }
+            dispatch();
+        }, Math.max(1, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提前归还并发名额
+     */
+    private void releaseSlot() {
+        synchronized (this) {
+            inFlight--;
+        }
+        dispatch();
+    }
+
+    /**
+     * 调用结束：归还并发名额（尚未归还时）、按实际用量修正 token 桶，并根据结果调整并发上限
+     */
+    private void complete(int estimatedTokens, GenerateResult result, boolean releaseSlot) {
+        synchronized (this) {
+            if (releaseSlot) {
+                inFlight--;
+            }
+            if (result != null && settings.tokensPerMinute > 0 && result.getTokenUsage() != null
+                    && result.getTokenUsage().getTotalTokens() != null) {
+                int actual = result.getTokenUsage().getTotalTokens();
+                availableTokens = Math.min(settings.tokensPerMinute, availableTokens + estimatedTokens - actual);
+            }
+            if (result != null && result.isRateLimited()) {
+                throttled.incrementAndGet();
+                concurrencyLimit = Math.max(settings.minConcurrency, concurrencyLimit * settings.decreaseFactor);
+                long backoff = result.getRetryAfterMs() != null ? result.getRetryAfterMs() : settings.defaultBackoffMs;
+                pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + backoff);
+            } else if (result != null && !"error".equals(result.getFinishReason())) {
+                concurrencyLimit = Math.min(settings.maxConcurrency, concurrencyLimit + 1.0 / concurrencyLimit);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * 限流器状态
+     */
+    public synchronized Map<String, Object> getStats() {
+        refill();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("concurrencyLimit", Math.round(concurrencyLimit * 100) / 100.0);
+        stats.put("inFlight", inFlight);
+        stats.put("queued", waiters.size());
+        stats.put("availableRequests", settings.requestsPerMinute > 0 ? (int) availableRequests : -1);
+        stats.put("availableTokens", settings.tokensPerMinute > 0 ? (long) availableTokens : -1);
+        stats.put("pausedForMs", Math.max(0, pausedUntil - System.currentTimeMillis()));
+        stats.put("granted", granted.get());
+        stats.put("throttled", throttled.get());
+        stats.put("timedOut", timedOut.get());
+        return stats;
+    }
+
+    /**
+     * 是否限制 token 数（否则申请许可时无需估算 token）
+     */
+    public boolean limitsTokens() {
+        return settings.tokensPerMinute > 0;
+    }
+
+    /**
+     * 当前排队等待许可的请求数
+     */
+    public synchronized int getQueueDepth() {
+        return waiters.size();
+    }
+
+    /**
+     * 调用许可，调用结束后必须释放（重复释放无效果）
+     */
+    public class Permit {
+        private final int estimatedTokens;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final AtomicBoolean slotReleased = new AtomicBoolean();
+
+        private Permit(int estimatedTokens) {
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        /**
+         * 只归还并发名额（流式请求收到首个内容时调用），结束时仍需调用 {@link #release}
+         */
+        public void releaseConcurrency() {
+            if (slotReleased.compareAndSet(false, true)) {
+                releaseSlot();
+            }
+        }
+
+        /**
+         * 释放许可
+         *
+         * @param result 调用结果（用于修正 token 用量与调整并发上限），可为 null
+         */
+        public void release(GenerateResult result) {
+            if (released.compareAndSet(false, true)) {
+                complete(estimatedTokens, result, slotReleased.compareAndSet(false, true));
+            }
+        }
+    }
+
+    private static class Waiter {
+        final int tokens;
+        final CompletableFuture<Permit> future = new CompletableFuture<>();
+
+        Waiter(int tokens) {
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * 限流参数
+     */
+    public static class Settings {
+        /**
+         * 每分钟请求数，0 表示不限
+         */
+        int requestsPerMinute;
+        /**
+         * 每分钟 token 数，0 表示不限
+         */
+        int tokensPerMinute;
+        int initialConcurrency = 4;
+        int minConcurrency = 1;
+        int maxConcurrency = 16;
+        /**
+         * 被限流时并发上限的乘数
+         */
+        double decreaseFactor = 0.5;
+        /**
+         * 未返回 Retry-After 时的暂停时间（毫秒）
+         */
+        long defaultBackoffMs = 1000;
+        /**
+         * 排队等待许可的最长时间（毫秒）
+         */
+        long acquireTimeoutMs = 60000;
+
+        public Settings(int requestsPerMinute, int tokensPerMinute) {
+            this.requestsPerMinute = Math.max(0, requestsPerMinute);
+            this.tokensPerMinute = Math.max(0, tokensPerMinute);
+        }
+
+        public Settings concurrency(int initial, int min, int max) {
+            this.minConcurrency = Math.max(1, min);
+            this.maxConcurrency = Math.max(this.minConcurrency, max);
+            this.initialConcurrency = Math.min(this.maxConcurrency, Math.max(this.minConcurrency, initial));
+            return this;
+        }
+
+        public Settings backoff(long defaultBackoffMs) {
+            this.defaultBackoffMs = Math.max(0, defaultBackoffMs);
+            return this;
+        }
+
+        public Settings acquireTimeout(long acquireTimeoutMs) {
+            this.acquireTimeoutMs = Math.max(1, acquireTimeoutMs);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.service.ai.adapter.StreamHandle;
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 单个AI配置的熔断器
+ * 统计最近若干次调用的失败（网络错误、超时、5xx、鉴权失败，以及可选的慢调用），失败率达到阈值时熔断：
+ * 熔断期间调用立即失败，到期后转为半开状态并在后台用 testConnection 探测，成功则恢复，失败则加倍熔断时间。
+ * 被限流（429）、被取消和请求本身有误（其他 4xx）的调用不计入统计
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final ScheduledExecutorService prober;
+    private final BooleanSupplier probe;
+
+    private State state = State.CLOSED;
+
+    /**
+     * 最近调用的结果（true 为失败），环形记录
+     */
+    private final boolean[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+
+    private int consecutiveOpens;
+    private long openUntil;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    /**
+     * @param probe 半开时的探测操作，返回 true 表示服务已恢复
+     */
+    public CircuitBreaker(String name, Settings settings, ScheduledExecutorService prober, BooleanSupplier probe) {
+        this.name = name;
+        this.settings = settings;
+        this.prober = prober;
+        this.probe = probe;
+        this.outcomes = new boolean[settings.windowSize];
+    }
+
+    /**
+     * 是否放行调用；熔断或探测期间返回 false
+     */
+    public boolean allowRequest() {
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 是否可用（未熔断）
+     */
+    public synchronized boolean isAvailable() {
+        return state == State.CLOSED;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 记录一次调用结果
+     */
+    public void record(GenerateResult result, long durationMs) {
+        Boolean failure = classify(result, durationMs, settings.slowCallMs);
+        if (failure == null) {
+            return;
+        }
+        synchronized (this) {
+            if (state != State.CLOSED) {
+                return;
+            }
+            if (calls == outcomes.length) {
+                if (outcomes[next]) {
+                    failures--;
+                }
+            } else {
+                calls++;
+            }
+            outcomes[next] = failure;
+            if (failure) {
+                failures++;
+            }
+            next = (next + 1) % outcomes.length;
+
+            if (calls >= settings.minCalls && failures * 100 >= settings.failureRatePercent * calls) {
+                trip();
+            }
+        }
+    }
+
+    /**
+     * 调用是否计为失败：true 失败，false 成功，null 不计入
+     */
+    static Boolean classify(GenerateResult result, long durationMs, long slowCallMs) {
+        if (result == null) {
+            return true;
+        }
+        if (!"error".equals(result.getFinishReason())) {
+            return slowCallMs > 0 && durationMs > slowCallMs;
+        }
+        if (StreamHandle.CANCELLED.equals(result.getErrorMessage())) {
+            // 对冲落败或用户取消，与服务健康无关；超时取消（TIMED_OUT）按失败计
+            return null;
+        }
+        Integer status = result.getHttpStatus();
+        if (status != null && status >= 400 && status < 500) {
+            // 鉴权失败、模型不存在、超时说明配置或服务不可用；限流及其他请求错误与服务健康无关
+            return status == 401 || status == 403 || status == 404 || status == 408 ? Boolean.TRUE : null;
+        }
+        return true;
+    }
+
+    /**
+     * 熔断并安排探测（调用时已持有锁）
+     */
+    private void trip() {
+        long duration = Math.min(settings.maxOpenMs, settings.openMs << Math.min(consecutiveOpens, 16));
+        consecutiveOpens++;
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + duration;
+        opened.incrementAndGet();
+        log.warn("Circuit opened for AI config {} ({} of last {} calls failed), probing in {}ms",
+                name, failures, calls, duration);
+        prober.schedule(this::probe, duration, TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        synchronized (this) {
+            if (state != State.OPEN) {
+                return;
+            }
+            state = State.HALF_OPEN;
+        }
+        boolean healthy;
+        try {
+            healthy = probe.getAsBoolean();
+        } catch (RuntimeException e) {
+            healthy = false;
+        }
+        synchronized (this) {
+            if (state != State.HALF_OPEN) {
+                // 探测期间已被重置
+                return;
+            }
+            if (healthy) {
+                reset();
+                log.info("Circuit closed for AI config {} after successful probe", name);
+            } else {
+                trip();
+            }
+        }
+    }
+
+    /**
+     * 恢复为闭合状态并清空统计，已安排的探测不再执行
+     */
+    public synchronized void reset() {
+        state = State.CLOSED;
+        consecutiveOpens = 0;
+        calls = 0;
+        failures = 0;
+        next = 0;
+    }
+
+    /**
+     * 熔断器状态
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("state", state.name());
+        stats.put("recentCalls", calls);
+        stats.put("recentFailures", failures);
+        stats.put("retryInMs", state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0);
+        stats.put("opened", opened.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    /**
+     * 熔断参数
+     */
+    public static class Settings {
+        /**
+         * 统计的最近调用次数
+         */
+        int windowSize = 20;
+        /**
+         * 统计窗口内至少有这么多次调用才判断是否熔断
+         */
+        int minCalls = 5;
+        /**
+         * 熔断的失败率阈值（百分比）
+         */
+        int failureRatePercent = 50;
+        /**
+         * 慢调用阈值（毫秒），超过计为失败；0 表示不统计
+         */
+        long slowCallMs;
+        /**
+         * 首次熔断时间（毫秒），连续熔断时加倍
+         */
+        long openMs = 30000;
+        long maxOpenMs = 300000;
+
+        public Settings(int windowSize, int minCalls, int failureRatePercent) {
+            this.windowSize = Math.max(1, windowSize);
+            this.minCalls = Math.max(1, Math.min(minCalls, this.windowSize));
+            this.failureRatePercent = Math.max(1, Math.min(100, failureRatePercent));
+        }
+
+        public Settings slowCall(long slowCallMs) {
+            this.slowCallMs = Math.max(0, slowCallMs);
+            return this;
+        }
+
+        public Settings openDuration(long openMs, long maxOpenMs) {
+            this.openMs = Math.max(1, openMs);
+            this.maxOpenMs = Math.max(this.openMs, maxOpenMs);
+            return this;
+        }
+    }
+}
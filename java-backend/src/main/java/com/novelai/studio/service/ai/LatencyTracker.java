@@ -0,0 +1,82 @@
+package com.novelai.studio.service.ai;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AI 调用耗时统计
+ * 按键（如 AI配置ID + 任务类型）保留最近若干次成功调用的耗时，用于计算耗时分位数
+ */
+public class LatencyTracker {
+
+    private final int window;
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    /**
+     * @param window 每个键保留的样本数
+     */
+    public LatencyTracker(int window) {
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(String key, long millis) {
+        samples.computeIfAbsent(key, k -> new Samples(window)).add(millis);
+    }
+
+    /**
+     * 最近样本的耗时分位数；样本数不足 minSamples 时返回 -1
+     *
+     * @param percentile 分位（0-100）
+     */
+    public long percentile(String key, double percentile, int minSamples) {
+        Samples s = samples.get(key);
+        return s != null ? s.percentile(percentile, Math.max(1, minSamples)) : -1;
+    }
+
+    /**
+     * 当前样本数
+     */
+    public int sampleCount(String key) {
+        Samples s = samples.get(key);
+        return s != null ? s.count() : 0;
+    }
+
+    private static class Samples {
+        private final long[] values;
+        private int next;
+        private int count;
+
+        Samples(int window) {
+            this.values = new long[window];
+        }
+
+        synchronized void add(long value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            if (count < values.length) {
+                count++;
+            }
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        long percentile(double percentile, int minSamples) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < minSamples) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(values, count);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)];
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.entity.TokenUsage;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Token 用量环形缓冲区（多生产者、单消费者，无锁）
+ * 生产者以 CAS 领取写入位置后发布记录，满时直接丢弃，调用线程不会阻塞；
+ * 只允许一个消费线程调用 {@link #drainTo}
+ */
+class TokenUsageBuffer {
+
+    private final AtomicReferenceArray<TokenUsage> slots;
+    private final int mask;
+
+    /**
+     * 下一个领取的写入位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置（只由消费线程推进）
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    TokenUsageBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 写入一条记录，缓冲区已满时丢弃并返回 false
+     */
+    boolean offer(TokenUsage usage) {
+        while (true) {
+            long position = tail.get();
+            if (position - head.get() >= slots.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (tail.compareAndSet(position, position + 1)) {
+                slots.set((int) position & mask, usage);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 取出最多 max 条已发布的记录；遇到已领取但尚未发布的位置时停止，留待下次读取
+     */
+    int drainTo(List<TokenUsage> target, int max) {
+        long position = head.get();
+        int count = 0;
+        while (count < max && position < tail.get()) {
+            int index = (int) position & mask;
+            TokenUsage usage = slots.get(index);
+            if (usage == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            target.add(usage);
+            position++;
+            count++;
+        }
+        head.set(position);
+        return count;
+    }
+
+    /**
+     * 当前待写入的记录数（近似值）
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * 因缓冲区已满丢弃的记录数
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
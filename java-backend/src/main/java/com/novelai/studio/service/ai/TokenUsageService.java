@@ -0,0 +1,196 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.entity.TokenUsage;
+import com.novelai.studio.mapper.TokenUsageMapper;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token 用量服务
+ * 每次AI调用的用量写入无锁环形缓冲区后立即返回，由后台线程定时批量写入 token_usage；
+ * 缓冲区已满或写入失败时只记录日志，不影响生成
+ */
+@Service
+public class TokenUsageService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenUsageService.class);
+
+    @Autowired
+    private TokenUsageMapper tokenUsageMapper;
+
+    /**
+     * 是否记录 token 用量
+     */
+    @Value("${ai.usage.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 缓冲区容量（等待写入的记录数上限，超出时丢弃）
+     */
+    @Value("${ai.usage.buffer-capacity:4096}")
+    private int bufferCapacity = 4096;
+
+    /**
+     * 每条 INSERT 语句最多写入的记录数
+     */
+    @Value("${ai.usage.batch-size:200}")
+    private int batchSize = 200;
+
+    /**
+     * 批量写入间隔（毫秒）
+     */
+    @Value("${ai.usage.flush-interval-ms:2000}")
+    private long flushIntervalMs = 2000;
+
+    private TokenUsageBuffer buffer;
+    private ScheduledExecutorService writer;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        buffer = new TokenUsageBuffer(bufferCapacity);
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "token-usage-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写出剩余记录（写入线程已停止，此时只有当前线程消费）
+        flush();
+    }
+
+    /**
+     * 记录一次AI调用的用量（无配置或无用量时忽略）
+     */
+    public void record(String configId, GenerateOptions options, GenerateResult result) {
+        if (!enabled || buffer == null || configId == null || result == null || result.getTokenUsage() == null) {
+            return;
+        }
+        GenerateResult.TokenUsage usage = result.getTokenUsage();
+        int promptTokens = usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+        int completionTokens = usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0;
+        int totalTokens = usage.getTotalTokens() != null ? usage.getTotalTokens() : promptTokens + completionTokens;
+        if (totalTokens <= 0) {
+            return;
+        }
+
+        TokenUsage record = new TokenUsage();
+        record.setBookId(options != null ? options.getBookId() : null);
+        record.setConfigId(configId);
+        record.setTask(options != null && options.getTask() != null ? options.getTask() : "generate");
+        record.setPromptTokens(promptTokens);
+        record.setCompletionTokens(completionTokens);
+        record.setTotalTokens(totalTokens);
+        record.setEstimatedCost(BigDecimal.ZERO);
+        record.setCreatedAt(LocalDateTime.now());
+
+        if (!buffer.offer(record)) {
+            log.warn("Token usage buffer is full, dropping record for config {}", configId);
+        }
+    }
+
+    /**
+     * 把缓冲区中的记录分批写入数据库
+     */
+    void flush() {
+        List<TokenUsage> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            // 记录ID在写入线程生成，调用线程只做一次入队
+            for (TokenUsage usage : batch) {
+                usage.setId(UUID.randomUUID().toString());
+            }
+            try {
+                tokenUsageMapper.insertBatch(batch);
+                written.addAndGet(batch.size());
+            } catch (Exception e) {
+                log.warn("Failed to persist {} token usage records in one batch, retrying one by one: {}",
+                        batch.size(), e.getMessage());
+                insertEach(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * 逐条写入（批量写入失败时使用），单条记录出错只丢弃该条
+     */
+    private void insertEach(List<TokenUsage> batch) {
+        for (TokenUsage usage : batch) {
+            try {
+                tokenUsageMapper.insert(usage);
+                written.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("Dropping token usage record for config {}: {}", usage.getConfigId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 按书籍汇总最近若干天的用量
+     */
+    public List<Map<String, Object>> summarizeByBook(int days) {
+        return tokenUsageMapper.summarizeByBook(since(days));
+    }
+
+    /**
+     * 按AI配置汇总最近若干天的用量
+     * @param bookId 为空时汇总所有书籍
+     */
+    public List<Map<String, Object>> summarizeByConfig(String bookId, int days) {
+        return tokenUsageMapper.summarizeByConfig(bookId, since(days));
+    }
+
+    /**
+     * 按任务类型汇总最近若干天的用量
+     * @param bookId 为空时汇总所有书籍
+     */
+    public List<Map<String, Object>> summarizeByTask(String bookId, int days) {
+        return tokenUsageMapper.summarizeByTask(bookId, since(days));
+    }
+
+    /**
+     * 记录器状态：待写入、已写入、写入失败及丢弃的记录数
+     */
+    public Map<String, Object> getRecorderStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pending", buffer != null ? buffer.size() : 0);
+        stats.put("capacity", buffer != null ? buffer.capacity() : 0);
+        stats.put("written", written.get());
+        stats.put("failed", failed.get());
+        stats.put("dropped", buffer != null ? buffer.getDropped() : 0);
+        return stats;
+    }
+
+    private LocalDateTime since(int days) {
+        return LocalDateTime.now().minusDays(Math.max(1, days));
+    }
+}
@@ -43,6 +43,24 @@ public interface AIAdapter {
      */
     GenerateResult chat(List<ChatMessage> messages, GenerateOptions options);
 
+    /**
+     * 非阻塞生成：以非流式请求发出后立即返回句柄，最终结果通过句柄送达
+     *
+     * @param prompt  用户提示词
+     * @param options 生成选项
+     * @return 句柄（可取消）
+     */
+    StreamHandle generateAsync(String prompt, GenerateOptions options);
+
+    /**
+     * 非阻塞多轮对话（非流式）
+     *
+     * @param messages 消息历史
+     * @param options  生成选项
+     * @return 句柄（可取消）
+     */
+    StreamHandle chatAsync(List<ChatMessage> messages, GenerateOptions options);
+
     /**
      * 流式生成内容
      *
@@ -63,6 +81,26 @@ public interface AIAdapter {
      */
     GenerateResult chatStream(List<ChatMessage> messages, GenerateOptions options, Consumer<String> consumer);
 
+    /**
+     * 非阻塞流式生成：发出请求后立即返回句柄，内容与最终结果通过回调送达
+     *
+     * @param prompt   用户提示词
+     * @param options  生成选项
+     * @param callback 流式回调
+     * @return 流式句柄（可取消）
+     */
+    StreamHandle generateStreamAsync(String prompt, GenerateOptions options, StreamCallback callback);
+
+    /**
+     * 非阻塞流式多轮对话
+     *
+     * @param messages 消息历史
+     * @param options  生成选项
+     * @param callback 流式回调
+     * @return 流式句柄（可取消）
+     */
+    StreamHandle chatStreamAsync(List<ChatMessage> messages, GenerateOptions options, StreamCallback callback);
+
     /**
      * 测试连接是否正常
      *
@@ -1,11 +1,26 @@
 package com.novelai.studio.service.ai.adapter;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.novelai.studio.service.ai.dto.*;
+import com.novelai.studio.service.ai.tokenizer.HeuristicTokenizer;
+import com.novelai.studio.service.ai.tokenizer.Tokenizer;
+import com.novelai.studio.service.ai.tokenizer.TokenizerRegistry;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -16,10 +31,25 @@ public abstract class AbstractAIAdapter implements AIAdapter {
 
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
+    /**
+     * 阻塞式流式调用的最长等待时间（分钟）
+     */
+    protected static final long STREAM_TIMEOUT_MINUTES = 5;
+
+    /**
+     * 每条消息的格式开销 token 数，另有 3 个用于回复起始（OpenAI 的计算方式，其他服务商近似）
+     */
+    private static final int TOKENS_PER_MESSAGE = 3;
+
     protected String apiKey;
     protected String baseUrl;
     protected String defaultModel;
 
+    /**
+     * 分词器注册表（未设置时按字符数估算）
+     */
+    protected TokenizerRegistry tokenizerRegistry;
+
     public AbstractAIAdapter(String apiKey, String baseUrl, String defaultModel) {
         this.apiKey = apiKey;
         this.baseUrl = baseUrl;
@@ -31,6 +61,10 @@ public abstract class AbstractAIAdapter implements AIAdapter {
         return defaultModel;
     }
 
+    public void setTokenizerRegistry(TokenizerRegistry tokenizerRegistry) {
+        this.tokenizerRegistry = tokenizerRegistry;
+    }
+
     /**
      * 单轮对话的默认实现：转换为多轮对话
      */
@@ -40,7 +74,7 @@ public abstract class AbstractAIAdapter implements AIAdapter {
 
         // 添加系统提示词
         if (options != null && options.getSystemPrompt() != null) {
-            messages.add(ChatMessage.system(options.getSystemPrompt()));
+            messages.add(systemMessage(options));
         }
 
         // 添加用户消息
@@ -49,20 +83,130 @@ public abstract class AbstractAIAdapter implements AIAdapter {
         return chat(messages, options);
     }
 
+    /**
+     * 多轮对话：同步执行非流式请求
+     */
+    @Override
+    public GenerateResult chat(List<ChatMessage> messages, GenerateOptions options) {
+        long startTime = System.currentTimeMillis();
+        try {
+            Request request = buildChatRequest(messages, options);
+            try (Response response = getHttpClient().newCall(request).execute()) {
+                return readChatResponse(response, options, startTime);
+            }
+        } catch (Exception e) {
+            log.error("{} chat error", getName(), e);
+            return createErrorResult("Request failed: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 非阻塞单轮对话的默认实现：转换为多轮对话
+     */
+    @Override
+    public StreamHandle generateAsync(String prompt, GenerateOptions options) {
+        return chatAsync(toMessages(prompt, options), options);
+    }
+
+    /**
+     * 非阻塞多轮对话：以非流式请求异步发出，取消句柄会取消底层 HTTP 调用
+     */
+    @Override
+    public StreamHandle chatAsync(List<ChatMessage> messages, GenerateOptions options) {
+        long startTime = System.currentTimeMillis();
+        StreamHandle handle = new StreamHandle(null);
+        try {
+            Call call = getHttpClient().newCall(buildChatRequest(messages, options));
+            handle.bind(call::cancel);
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    // 被取消时句柄已结束，此处不再生效
+                    handle.complete(createErrorResult("Request failed: " + e.getMessage(),
+                            System.currentTimeMillis() - startTime));
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (response) {
+                        handle.complete(readChatResponse(response, options, startTime));
+                    } catch (Exception e) {
+                        log.error("{} chat error", getName(), e);
+                        handle.complete(createErrorResult("Request failed: " + e.getMessage(),
+                                System.currentTimeMillis() - startTime));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("{} chat error", getName(), e);
+            handle.complete(createErrorResult("Request failed: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime));
+        }
+        return handle;
+    }
+
+    /**
+     * 适配器使用的 HTTP 客户端
+     */
+    protected abstract OkHttpClient getHttpClient();
+
+    /**
+     * 构建非流式对话请求
+     */
+    protected abstract Request buildChatRequest(List<ChatMessage> messages, GenerateOptions options) throws Exception;
+
+    /**
+     * 读取非流式对话响应（包括错误响应）
+     *
+     * @param startTime 请求发出的时间，用于计算耗时
+     */
+    protected abstract GenerateResult readChatResponse(Response response, GenerateOptions options, long startTime)
+            throws Exception;
+
     /**
      * 流式单轮对话的默认实现：转换为多轮对话
      */
     @Override
     public GenerateResult generateStream(String prompt, GenerateOptions options, Consumer<String> consumer) {
+        return chatStream(toMessages(prompt, options), options, consumer);
+    }
+
+    /**
+     * 阻塞式流式对话：基于非阻塞实现等待最终结果（最多等待 5 分钟）
+     */
+    @Override
+    public GenerateResult chatStream(List<ChatMessage> messages, GenerateOptions options, Consumer<String> consumer) {
+        return chatStreamAsync(messages, options, StreamCallback.of(consumer))
+                .await(STREAM_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 非阻塞流式单轮对话的默认实现：转换为多轮对话
+     */
+    @Override
+    public StreamHandle generateStreamAsync(String prompt, GenerateOptions options, StreamCallback callback) {
+        return chatStreamAsync(toMessages(prompt, options), options, callback);
+    }
+
+    private List<ChatMessage> toMessages(String prompt, GenerateOptions options) {
         List<ChatMessage> messages = new ArrayList<>();
 
         if (options != null && options.getSystemPrompt() != null) {
-            messages.add(ChatMessage.system(options.getSystemPrompt()));
+            messages.add(systemMessage(options));
         }
 
         messages.add(ChatMessage.user(prompt));
+        return messages;
+    }
 
-        return chatStream(messages, options, consumer);
+    /**
+     * 选项中的系统提示词（按 cacheSystemPrompt 标记为可缓存前缀）
+     */
+    protected ChatMessage systemMessage(GenerateOptions options) {
+        return Boolean.TRUE.equals(options.getCacheSystemPrompt())
+                ? ChatMessage.cacheableSystem(options.getSystemPrompt())
+                : ChatMessage.system(options.getSystemPrompt());
     }
 
     /**
@@ -75,6 +219,35 @@ public abstract class AbstractAIAdapter implements AIAdapter {
         return defaultModel;
     }
 
+    /**
+     * 计算文本在当前模型下的 token 数
+     */
+    protected int countTokens(String text, GenerateOptions options) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        Tokenizer tokenizer = tokenizerRegistry != null
+                ? tokenizerRegistry.forModel(getProvider(), getEffectiveModel(options))
+                : HeuristicTokenizer.forProvider(getProvider());
+        return tokenizer.countTokens(text);
+    }
+
+    /**
+     * 计算对话消息（含选项中的系统提示词）的 token 数，用于服务商未返回 prompt tokens 的场景
+     */
+    protected int countPromptTokens(List<ChatMessage> messages, GenerateOptions options) {
+        int tokens = TOKENS_PER_MESSAGE;
+        boolean hasSystem = false;
+        for (ChatMessage message : messages) {
+            tokens += TOKENS_PER_MESSAGE + countTokens(message.getContent(), options);
+            hasSystem |= "system".equals(message.getRole());
+        }
+        if (!hasSystem && options != null && options.getSystemPrompt() != null) {
+            tokens += TOKENS_PER_MESSAGE + countTokens(options.getSystemPrompt(), options);
+        }
+        return tokens;
+    }
+
     /**
      * 获取有效的最大 Token 数
      */
@@ -122,6 +295,38 @@ public abstract class AbstractAIAdapter implements AIAdapter {
                 .build();
     }
 
+    /**
+     * 创建 HTTP 错误结果，保留状态码与 Retry-After 供限流器退避
+     */
+    protected GenerateResult createErrorResult(String errorMessage, Response response, long duration) {
+        GenerateResult result = createErrorResult(errorMessage, duration);
+        if (response != null) {
+            result.setHttpStatus(response.code());
+            result.setRetryAfterMs(parseRetryAfter(response.header("Retry-After")));
+        }
+        return result;
+    }
+
+    /**
+     * 解析 Retry-After（秒数或 HTTP 日期），无法解析时返回 null
+     */
+    static Long parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, (long) (Double.parseDouble(trimmed) * 1000));
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     /**
      * 创建成功结果
      */
@@ -141,6 +346,32 @@ public abstract class AbstractAIAdapter implements AIAdapter {
                 .build();
     }
 
+    /**
+     * 填入前缀缓存的 token 用量（服务商未返回时保持为空）
+     */
+    protected GenerateResult withCacheUsage(GenerateResult result, Integer cachedTokens, Integer cacheCreationTokens) {
+        if (result.getTokenUsage() != null) {
+            result.getTokenUsage().setCachedTokens(cachedTokens);
+            result.getTokenUsage().setCacheCreationTokens(cacheCreationTokens);
+        }
+        return result;
+    }
+
+    /**
+     * OpenAI 兼容接口返回的缓存命中 token 数：usage.prompt_tokens_details.cached_tokens，
+     * DeepSeek 为 usage.prompt_cache_hit_tokens；均未返回时为 null
+     */
+    protected Integer parseCachedPromptTokens(JsonNode usage) {
+        if (usage == null) {
+            return null;
+        }
+        JsonNode details = usage.get("prompt_tokens_details");
+        if (details != null && details.has("cached_tokens")) {
+            return details.get("cached_tokens").asInt();
+        }
+        return usage.has("prompt_cache_hit_tokens") ? usage.get("prompt_cache_hit_tokens").asInt() : null;
+    }
+
     /**
      * 创建成功结果（带推理内容）
      */
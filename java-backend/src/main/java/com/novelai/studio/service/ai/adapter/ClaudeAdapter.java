@@ -12,9 +12,7 @@ import okhttp3.sse.EventSources;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
 /**
  * Anthropic Claude API 适配器
@@ -26,6 +24,11 @@ public class ClaudeAdapter extends AbstractAIAdapter {
     private static final String DEFAULT_MODEL = "claude-3-5-sonnet-20241022";
     private static final String API_VERSION = "2023-06-01";
 
+    /**
+     * 一次请求允许的 cache_control 断点数上限
+     */
+    private static final int MAX_CACHE_BREAKPOINTS = 4;
+
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
 
@@ -38,13 +41,20 @@ public class ClaudeAdapter extends AbstractAIAdapter {
     }
 
     public ClaudeAdapter(String apiKey, String baseUrl, String defaultModel) {
-        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL,
-              defaultModel != null ? defaultModel : DEFAULT_MODEL);
-        this.httpClient = new OkHttpClient.Builder()
+        this(apiKey, baseUrl, defaultModel, new OkHttpClient.Builder()
                 .connectTimeout(60, TimeUnit.SECONDS)
                 .readTimeout(180, TimeUnit.SECONDS)
                 .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+                .build());
+    }
+
+    /**
+     * 使用共享连接池的 HTTP 客户端创建（由 AIService 通过 AIHttpClientFactory 传入）
+     */
+    public ClaudeAdapter(String apiKey, String baseUrl, String defaultModel, OkHttpClient httpClient) {
+        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL,
+              defaultModel != null ? defaultModel : DEFAULT_MODEL);
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -59,67 +69,41 @@ public class ClaudeAdapter extends AbstractAIAdapter {
     }
 
     @Override
-    public GenerateResult chat(List<ChatMessage> messages, GenerateOptions options) {
-        long startTime = System.currentTimeMillis();
-        try {
-            String systemPrompt = null;
-            List<ChatMessage> chatMessages = new ArrayList<>();
-            for (ChatMessage msg : messages) {
-                if ("system".equals(msg.getRole())) {
-                    systemPrompt = msg.getContent();
-                } else {
-                    chatMessages.add(msg);
-                }
-            }
-            if (options != null && options.getSystemPrompt() != null) {
-                systemPrompt = options.getSystemPrompt();
-            }
+    protected OkHttpClient getHttpClient() {
+        return httpClient;
+    }
 
-            String requestBody = buildChatRequestBody(chatMessages, systemPrompt, options, false);
-            Request request = buildRequest("/messages", requestBody);
+    @Override
+    protected Request buildChatRequest(List<ChatMessage> messages, GenerateOptions options) throws Exception {
+        return buildRequest("/messages", buildChatRequestBody(messages, options, false));
+    }
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "";
-                if (!response.isSuccessful()) {
-                    log.error("Claude API error: {} - {}", response.code(), responseBody);
-                    return createErrorResult(parseErrorMessage(responseBody, response.code()),
-                            System.currentTimeMillis() - startTime);
-                }
-                return parseChatResponse(responseBody, System.currentTimeMillis() - startTime);
-            }
-        } catch (Exception e) {
-            log.error("Claude chat error", e);
-            return createErrorResult("Request failed: " + e.getMessage(),
+    @Override
+    protected GenerateResult readChatResponse(Response response, GenerateOptions options, long startTime)
+            throws Exception {
+        String responseBody = response.body() != null ? response.body().string() : "";
+        if (!response.isSuccessful()) {
+            log.error("Claude API error: {} - {}", response.code(), responseBody);
+            return createErrorResult(parseErrorMessage(responseBody, response.code()), response,
                     System.currentTimeMillis() - startTime);
         }
+        return parseChatResponse(responseBody, System.currentTimeMillis() - startTime);
     }
 
     @Override
-    public GenerateResult chatStream(List<ChatMessage> messages, GenerateOptions options,
-                                      Consumer<String> consumer) {
+    public StreamHandle chatStreamAsync(List<ChatMessage> messages, GenerateOptions options,
+                                        StreamCallback callback) {
         long startTime = System.currentTimeMillis();
+        StreamHandle handle = new StreamHandle(callback);
         StringBuilder fullContent = new StringBuilder();
-        CountDownLatch latch = new CountDownLatch(1);
+        StreamDelta delta = new StreamDelta();
         final String[] finishReason = {"stop"};
-        final String[] errorMessage = {null};
         final int[] inputTokens = {0};
         final int[] outputTokens = {0};
+        final Integer[] cacheTokens = {null, null};
 
         try {
-            String systemPrompt = null;
-            List<ChatMessage> chatMessages = new ArrayList<>();
-            for (ChatMessage msg : messages) {
-                if ("system".equals(msg.getRole())) {
-                    systemPrompt = msg.getContent();
-                } else {
-                    chatMessages.add(msg);
-                }
-            }
-            if (options != null && options.getSystemPrompt() != null) {
-                systemPrompt = options.getSystemPrompt();
-            }
-
-            String requestBody = buildChatRequestBody(chatMessages, systemPrompt, options, true);
+            String requestBody = buildChatRequestBody(messages, options, true);
             Request request = buildRequest("/messages", requestBody);
 
             EventSource.Factory factory = EventSources.createFactory(httpClient);
@@ -127,43 +111,38 @@ public class ClaudeAdapter extends AbstractAIAdapter {
                 @Override
                 public void onEvent(EventSource eventSource, String id, String type, String data) {
                     try {
-                        JsonNode node = objectMapper.readTree(data);
-                        String eventType = node.has("type") ? node.get("type").asText() : "";
+                        StreamDeltaParser.parseClaude(data, delta);
+                        String eventType = delta.getType() != null ? delta.getType() : "";
                         switch (eventType) {
                             case "content_block_delta":
-                                JsonNode delta = node.get("delta");
-                                if (delta != null && delta.has("text")) {
-                                    String text = delta.get("text").asText();
-                                    fullContent.append(text);
-                                    if (consumer != null) consumer.accept(text);
+                                if (delta.getContent() != null) {
+                                    fullContent.append(delta.getContent());
+                                    callback.onChunk(delta.getContent());
                                 }
                                 break;
                             case "message_start":
-                                JsonNode message = node.get("message");
-                                if (message != null && message.has("usage")) {
-                                    inputTokens[0] = message.get("usage").has("input_tokens")
-                                            ? message.get("usage").get("input_tokens").asInt() : 0;
+                                if (delta.getInputTokens() != null) {
+                                    inputTokens[0] = delta.getInputTokens();
                                 }
+                                cacheTokens[0] = delta.getCacheReadTokens();
+                                cacheTokens[1] = delta.getCacheCreationTokens();
                                 break;
                             case "message_delta":
-                                JsonNode msgDelta = node.get("delta");
-                                if (msgDelta != null && msgDelta.has("stop_reason")) {
-                                    String sr = msgDelta.get("stop_reason").asText();
+                                if (delta.getFinishReason() != null) {
+                                    String sr = delta.getFinishReason();
                                     finishReason[0] = "end_turn".equals(sr) ? "stop" : sr;
                                 }
-                                JsonNode usage = node.get("usage");
-                                if (usage != null && usage.has("output_tokens")) {
-                                    outputTokens[0] = usage.get("output_tokens").asInt();
+                                if (delta.getOutputTokens() != null) {
+                                    outputTokens[0] = delta.getOutputTokens();
                                 }
                                 break;
                             case "message_stop":
-                                latch.countDown();
+                                finish();
                                 break;
                             case "error":
-                                JsonNode error = node.get("error");
-                                errorMessage[0] = error != null ? error.get("message").asText() : "Unknown error";
-                                finishReason[0] = "error";
-                                latch.countDown();
+                                handle.complete(createErrorResult(
+                                        delta.getErrorMessage() != null ? delta.getErrorMessage() : "Unknown error",
+                                        System.currentTimeMillis() - startTime));
                                 break;
                         }
                     } catch (Exception e) {
@@ -173,37 +152,35 @@ public class ClaudeAdapter extends AbstractAIAdapter {
 
                 @Override
                 public void onFailure(EventSource eventSource, Throwable t, Response response) {
-                    errorMessage[0] = t != null ? t.getMessage() : "Unknown error";
+                    String errorMessage = t != null ? t.getMessage() : "Unknown error";
                     if (response != null) {
                         try {
                             String body = response.body() != null ? response.body().string() : "";
-                            errorMessage[0] = parseErrorMessage(body, response.code());
+                            errorMessage = parseErrorMessage(body, response.code());
                         } catch (IOException ignored) {}
                     }
-                    finishReason[0] = "error";
-                    latch.countDown();
+                    handle.complete(createErrorResult(errorMessage, response, System.currentTimeMillis() - startTime));
                 }
 
                 @Override
                 public void onClosed(EventSource eventSource) {
-                    latch.countDown();
+                    finish();
                 }
-            };
 
-            factory.newEventSource(request, listener);
-            latch.await(5, TimeUnit.MINUTES);
-            long duration = System.currentTimeMillis() - startTime;
+                private void finish() {
+                    handle.complete(createUsageResult(fullContent.toString(), getEffectiveModel(options),
+                            inputTokens[0], cacheTokens[0], cacheTokens[1], outputTokens[0], finishReason[0],
+                            System.currentTimeMillis() - startTime));
+                }
+            };
 
-            if (errorMessage[0] != null) {
-                return createErrorResult(errorMessage[0], duration);
-            }
-            return createSuccessResult(fullContent.toString(), getEffectiveModel(options),
-                    inputTokens[0], outputTokens[0], finishReason[0], duration);
+            handle.bind(factory.newEventSource(request, listener)::cancel);
         } catch (Exception e) {
             log.error("Claude stream chat error", e);
-            return createErrorResult("Stream request failed: " + e.getMessage(),
-                    System.currentTimeMillis() - startTime);
+            handle.complete(createErrorResult("Stream request failed: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime));
         }
+        return handle;
     }
 
     @Override
@@ -231,8 +208,40 @@ public class ClaudeAdapter extends AbstractAIAdapter {
         );
     }
 
-    private String buildChatRequestBody(List<ChatMessage> messages, String systemPrompt,
-                                         GenerateOptions options, boolean stream) throws Exception {
+    /**
+     * 构建请求体
+     * 系统消息合并为 system 字段；标记为可缓存的消息（选项中的系统提示词按 cacheSystemPrompt）带上
+     * cache_control，Claude 会缓存到该处为止的前缀。一次请求最多 4 个缓存断点，超出时保留最后 4 个（覆盖的前缀最长）
+     */
+    private String buildChatRequestBody(List<ChatMessage> messages, GenerateOptions options,
+                                         boolean stream) throws Exception {
+        List<ChatMessage> systemMessages = new ArrayList<>();
+        List<ChatMessage> chatMessages = new ArrayList<>();
+        for (ChatMessage msg : messages) {
+            if ("system".equals(msg.getRole())) {
+                systemMessages.add(msg);
+            } else {
+                chatMessages.add(msg);
+            }
+        }
+        if (options != null && options.getSystemPrompt() != null) {
+            systemMessages = new ArrayList<>(List.of(systemMessage(options)));
+        }
+        systemMessages.removeIf(msg -> msg.getContent() == null || msg.getContent().isEmpty());
+
+        int breakpoints = 0;
+        for (ChatMessage msg : systemMessages) {
+            if (Boolean.TRUE.equals(msg.getCacheable())) {
+                breakpoints++;
+            }
+        }
+        for (ChatMessage msg : chatMessages) {
+            if (Boolean.TRUE.equals(msg.getCacheable())) {
+                breakpoints++;
+            }
+        }
+        int[] skipBreakpoints = {Math.max(0, breakpoints - MAX_CACHE_BREAKPOINTS)};
+
         ObjectNode root = objectMapper.createObjectNode();
         root.put("model", getEffectiveModel(options));
         root.put("max_tokens", getEffectiveMaxTokens(options));
@@ -240,15 +249,22 @@ public class ClaudeAdapter extends AbstractAIAdapter {
         root.put("top_p", getEffectiveTopP(options));
         root.put("stream", stream);
 
-        if (systemPrompt != null && !systemPrompt.isEmpty()) {
-            root.put("system", systemPrompt);
+        if (systemMessages.size() == 1 && !Boolean.TRUE.equals(systemMessages.get(0).getCacheable())) {
+            root.put("system", systemMessages.get(0).getContent());
+        } else if (!systemMessages.isEmpty()) {
+            ArrayNode systemArray = root.putArray("system");
+            for (ChatMessage msg : systemMessages) {
+                addTextBlock(systemArray, msg, skipBreakpoints);
+            }
         }
 
         ArrayNode messagesArray = root.putArray("messages");
-        for (ChatMessage msg : messages) {
-            if (!"system".equals(msg.getRole())) {
-                ObjectNode msgNode = messagesArray.addObject();
-                msgNode.put("role", msg.getRole());
+        for (ChatMessage msg : chatMessages) {
+            ObjectNode msgNode = messagesArray.addObject();
+            msgNode.put("role", msg.getRole());
+            if (Boolean.TRUE.equals(msg.getCacheable())) {
+                addTextBlock(msgNode.putArray("content"), msg, skipBreakpoints);
+            } else {
                 msgNode.put("content", msg.getContent());
             }
         }
@@ -263,6 +279,15 @@ public class ClaudeAdapter extends AbstractAIAdapter {
         return objectMapper.writeValueAsString(root);
     }
 
+    private void addTextBlock(ArrayNode blocks, ChatMessage msg, int[] skipBreakpoints) {
+        ObjectNode block = blocks.addObject();
+        block.put("type", "text");
+        block.put("text", msg.getContent());
+        if (Boolean.TRUE.equals(msg.getCacheable()) && skipBreakpoints[0]-- <= 0) {
+            block.putObject("cache_control").put("type", "ephemeral");
+        }
+    }
+
     private Request buildRequest(String endpoint, String body) {
         return new Request.Builder()
                 .url(baseUrl + endpoint)
@@ -296,14 +321,32 @@ public class ClaudeAdapter extends AbstractAIAdapter {
         String finishReason = "end_turn".equals(stopReason) ? "stop" : stopReason;
 
         int inputTokens = 0, outputTokens = 0;
+        Integer cacheReadTokens = null, cacheCreationTokens = null;
         JsonNode usage = root.get("usage");
         if (usage != null) {
             inputTokens = usage.has("input_tokens") ? usage.get("input_tokens").asInt() : 0;
             outputTokens = usage.has("output_tokens") ? usage.get("output_tokens").asInt() : 0;
+            cacheReadTokens = usage.has("cache_read_input_tokens") ? usage.get("cache_read_input_tokens").asInt() : null;
+            cacheCreationTokens = usage.has("cache_creation_input_tokens")
+                    ? usage.get("cache_creation_input_tokens").asInt() : null;
         }
 
         String model = root.has("model") ? root.get("model").asText() : defaultModel;
-        return createSuccessResult(content, model, inputTokens, outputTokens, finishReason, duration);
+        return createUsageResult(content, model, inputTokens, cacheReadTokens, cacheCreationTokens,
+                outputTokens, finishReason, duration);
+    }
+
+    /**
+     * Claude 的 input_tokens 不含读写缓存的部分，这里合计为完整的提示词 token 数
+     */
+    private GenerateResult createUsageResult(String content, String model, int inputTokens,
+                                             Integer cacheReadTokens, Integer cacheCreationTokens,
+                                             int outputTokens, String finishReason, long duration) {
+        int promptTokens = inputTokens
+                + (cacheReadTokens != null ? cacheReadTokens : 0)
+                + (cacheCreationTokens != null ? cacheCreationTokens : 0);
+        return withCacheUsage(createSuccessResult(content, model, promptTokens, outputTokens, finishReason, duration),
+                cacheReadTokens, cacheCreationTokens);
     }
 
     private String parseErrorMessage(String responseBody, int httpCode) {
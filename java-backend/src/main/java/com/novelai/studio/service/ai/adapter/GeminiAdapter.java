@@ -13,9 +13,7 @@ import okhttp3.sse.EventSources;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
 /**
  * Google Gemini API 适配器
@@ -40,14 +38,19 @@ public class GeminiAdapter extends AbstractAIAdapter {
     }
 
     public GeminiAdapter(String apiKey, String baseUrl, String defaultModel) {
-        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL, defaultModel != null ? defaultModel : DEFAULT_MODEL);
-
-        this.httpClient = new OkHttpClient.Builder()
+        this(apiKey, baseUrl, defaultModel, new OkHttpClient.Builder()
                 .connectTimeout(60, TimeUnit.SECONDS)
                 .readTimeout(180, TimeUnit.SECONDS)
                 .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+                .build());
+    }
 
+    /**
+     * 使用共享连接池的 HTTP 客户端创建（由 AIService 通过 AIHttpClientFactory 传入）
+     */
+    public GeminiAdapter(String apiKey, String baseUrl, String defaultModel, OkHttpClient httpClient) {
+        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL, defaultModel != null ? defaultModel : DEFAULT_MODEL);
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -62,43 +65,42 @@ public class GeminiAdapter extends AbstractAIAdapter {
     }
 
     @Override
-    public GenerateResult chat(List<ChatMessage> messages, GenerateOptions options) {
-        long startTime = System.currentTimeMillis();
-
-        try {
-            String model = getEffectiveModel(options);
-            String requestBody = buildGeminiRequestBody(messages, options);
-            Request request = buildRequest(model, requestBody, false);
-
-            log.debug("Gemini request URL: {}", request.url());
-            log.debug("Gemini request body: {}", requestBody);
+    protected OkHttpClient getHttpClient() {
+        return httpClient;
+    }
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "";
+    @Override
+    protected Request buildChatRequest(List<ChatMessage> messages, GenerateOptions options) throws Exception {
+        String requestBody = buildGeminiRequestBody(messages, options);
+        Request request = buildRequest(getEffectiveModel(options), requestBody, false);
 
-                if (!response.isSuccessful()) {
-                    log.error("Gemini API error: {} - {}", response.code(), responseBody);
-                    String errorMsg = parseErrorMessage(responseBody, response.code());
-                    return createErrorResult(errorMsg, System.currentTimeMillis() - startTime);
-                }
+        log.debug("Gemini request URL: {}", request.url());
+        log.debug("Gemini request body: {}", requestBody);
+        return request;
+    }
 
-                log.debug("Gemini response: {}", responseBody);
-                return parseGeminiResponse(responseBody, model, System.currentTimeMillis() - startTime);
-            }
-        } catch (Exception e) {
-            log.error("Gemini chat error", e);
-            return createErrorResult("Request failed: " + e.getMessage(),
-                    System.currentTimeMillis() - startTime);
+    @Override
+    protected GenerateResult readChatResponse(Response response, GenerateOptions options, long startTime)
+            throws Exception {
+        String responseBody = response.body() != null ? response.body().string() : "";
+
+        if (!response.isSuccessful()) {
+            log.error("Gemini API error: {} - {}", response.code(), responseBody);
+            String errorMsg = parseErrorMessage(responseBody, response.code());
+            return createErrorResult(errorMsg, response, System.currentTimeMillis() - startTime);
         }
+
+        log.debug("Gemini response: {}", responseBody);
+        return parseGeminiResponse(responseBody, getEffectiveModel(options), System.currentTimeMillis() - startTime);
     }
 
     @Override
-    public GenerateResult chatStream(List<ChatMessage> messages, GenerateOptions options, Consumer<String> consumer) {
+    public StreamHandle chatStreamAsync(List<ChatMessage> messages, GenerateOptions options, StreamCallback callback) {
         long startTime = System.currentTimeMillis();
+        StreamHandle handle = new StreamHandle(callback);
         StringBuilder fullContent = new StringBuilder();
-        CountDownLatch latch = new CountDownLatch(1);
+        StreamDelta delta = new StreamDelta();
         final String[] finishReason = {"stop"};
-        final String[] errorMessage = {null};
 
         try {
             String model = getEffectiveModel(options);
@@ -110,32 +112,15 @@ public class GeminiAdapter extends AbstractAIAdapter {
                 @Override
                 public void onEvent(EventSource eventSource, String id, String type, String data) {
                     try {
-                        JsonNode node = objectMapper.readTree(data);
-                        JsonNode candidates = node.get("candidates");
-
-                        if (candidates != null && candidates.isArray() && candidates.size() > 0) {
-                            JsonNode candidate = candidates.get(0);
-                            JsonNode content = candidate.get("content");
-
-                            if (content != null && content.has("parts")) {
-                                JsonNode parts = content.get("parts");
-                                if (parts.isArray() && parts.size() > 0) {
-                                    String text = parts.get(0).has("text") ? parts.get(0).get("text").asText() : "";
-                                    if (!text.isEmpty()) {
-                                        fullContent.append(text);
-                                        if (consumer != null) {
-                                            consumer.accept(text);
-                                        }
-                                    }
-                                }
-                            }
-
-                            if (candidate.has("finishReason") && !candidate.get("finishReason").isNull()) {
-                                finishReason[0] = candidate.get("finishReason").asText();
-                                if ("STOP".equals(finishReason[0])) {
-                                    finishReason[0] = "stop";
-                                }
-                            }
+                        StreamDeltaParser.parseGemini(data, delta);
+                        String text = delta.getContent();
+                        if (text != null && !text.isEmpty()) {
+                            fullContent.append(text);
+                            callback.onChunk(text);
+                        }
+
+                        if (delta.getFinishReason() != null) {
+                            finishReason[0] = "STOP".equals(delta.getFinishReason()) ? "stop" : delta.getFinishReason();
                         }
                     } catch (Exception e) {
                         log.error("Error parsing Gemini SSE data", e);
@@ -144,50 +129,38 @@ public class GeminiAdapter extends AbstractAIAdapter {
 
                 @Override
                 public void onFailure(EventSource eventSource, Throwable t, Response response) {
-                    errorMessage[0] = t != null ? t.getMessage() : "Unknown error";
+                    String errorMessage = t != null ? t.getMessage() : "Unknown error";
                     if (response != null) {
                         try {
                             String body = response.body() != null ? response.body().string() : "";
-                            errorMessage[0] = parseErrorMessage(body, response.code());
+                            errorMessage = parseErrorMessage(body, response.code());
                         } catch (IOException ignored) {}
                     }
-                    finishReason[0] = "error";
-                    latch.countDown();
+                    handle.complete(createErrorResult(errorMessage, response, System.currentTimeMillis() - startTime));
                 }
 
                 @Override
                 public void onClosed(EventSource eventSource) {
-                    latch.countDown();
+                    int completionTokens = countTokens(fullContent.toString(), options);
+                    handle.complete(createSuccessResult(
+                            fullContent.toString(),
+                            model,
+                            countPromptTokens(messages, options),
+                            completionTokens,
+                            finishReason[0],
+                            System.currentTimeMillis() - startTime
+                    ));
                 }
             };
 
-            factory.newEventSource(request, listener);
-
-            // 等待流完成，最多等待 5 分钟
-            latch.await(5, TimeUnit.MINUTES);
-
-            long duration = System.currentTimeMillis() - startTime;
-
-            if (errorMessage[0] != null) {
-                return createErrorResult(errorMessage[0], duration);
-            }
-
-            int estimatedTokens = estimateTokens(fullContent.toString());
-
-            return createSuccessResult(
-                    fullContent.toString(),
-                    model,
-                    0,
-                    estimatedTokens,
-                    finishReason[0],
-                    duration
-            );
+            handle.bind(factory.newEventSource(request, listener)::cancel);
 
         } catch (Exception e) {
             log.error("Gemini stream chat error", e);
-            return createErrorResult("Stream request failed: " + e.getMessage(),
-                    System.currentTimeMillis() - startTime);
+            handle.complete(createErrorResult("Stream request failed: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime));
         }
+        return handle;
     }
 
     @Override
@@ -235,8 +208,9 @@ public class GeminiAdapter extends AbstractAIAdapter {
 
         for (ChatMessage msg : messages) {
             if ("system".equals(msg.getRole())) {
-                // Gemini 使用 systemInstruction 而不是 system role
-                systemInstruction = msg.getContent();
+                // Gemini 使用 systemInstruction 而不是 system role，多条系统消息按顺序合并
+                systemInstruction = systemInstruction == null ? msg.getContent()
+                        : systemInstruction + "\n\n" + msg.getContent();
                 continue;
             }
 
@@ -382,26 +356,4 @@ public class GeminiAdapter extends AbstractAIAdapter {
         } catch (Exception ignored) {}
         return "HTTP " + httpCode + ": " + responseBody;
     }
-
-    /**
-     * 估算 token 数
-     */
-    private int estimateTokens(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
-        }
-
-        int chineseCount = 0;
-        int otherCount = 0;
-
-        for (char c : text.toCharArray()) {
-            if (Character.toString(c).matches("[\\u4e00-\\u9fa5]")) {
-                chineseCount++;
-            } else {
-                otherCount++;
-            }
-        }
-
-        return (chineseCount / 2) + (otherCount / 4) + 1;
-    }
 }
@@ -8,10 +8,10 @@ import com.novelai.studio.service.ai.dto.*;
 import okhttp3.*;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
 /**
  * Ollama 本地模型适配器
@@ -36,13 +36,20 @@ public class OllamaAdapter extends AbstractAIAdapter {
     }
 
     public OllamaAdapter(String apiKey, String baseUrl, String defaultModel) {
-        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL,
-              defaultModel != null ? defaultModel : DEFAULT_MODEL);
-        this.httpClient = new OkHttpClient.Builder()
+        this(apiKey, baseUrl, defaultModel, new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(300, TimeUnit.SECONDS)
                 .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+                .build());
+    }
+
+    /**
+     * 使用共享连接池的 HTTP 客户端创建（由 AIService 通过 AIHttpClientFactory 传入）
+     */
+    public OllamaAdapter(String apiKey, String baseUrl, String defaultModel, OkHttpClient httpClient) {
+        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL,
+              defaultModel != null ? defaultModel : DEFAULT_MODEL);
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -57,102 +64,127 @@ public class OllamaAdapter extends AbstractAIAdapter {
     }
 
     @Override
-    public GenerateResult chat(List<ChatMessage> messages, GenerateOptions options) {
-        long startTime = System.currentTimeMillis();
-        try {
-            String requestBody = buildChatRequestBody(messages, options, false);
-            Request request = buildRequest("/api/chat", requestBody);
+    protected OkHttpClient getHttpClient() {
+        return httpClient;
+    }
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "";
-                if (!response.isSuccessful()) {
-                    log.error("Ollama API error: {} - {}", response.code(), responseBody);
-                    return createErrorResult("Ollama API错误: " + response.code(),
-                            System.currentTimeMillis() - startTime);
-                }
-                return parseChatResponse(responseBody, System.currentTimeMillis() - startTime);
-            }
-        } catch (Exception e) {
-            log.error("Ollama chat error", e);
-            return createErrorResult("请求失败: " + e.getMessage(),
+    @Override
+    protected Request buildChatRequest(List<ChatMessage> messages, GenerateOptions options) throws Exception {
+        return buildRequest("/api/chat", buildChatRequestBody(messages, options, false));
+    }
+
+    @Override
+    protected GenerateResult readChatResponse(Response response, GenerateOptions options, long startTime)
+            throws Exception {
+        String responseBody = response.body() != null ? response.body().string() : "";
+        if (!response.isSuccessful()) {
+            log.error("Ollama API error: {} - {}", response.code(), responseBody);
+            return createErrorResult("Ollama API错误: " + response.code(), response,
                     System.currentTimeMillis() - startTime);
         }
+        return parseChatResponse(responseBody, System.currentTimeMillis() - startTime);
     }
 
     @Override
-    public GenerateResult chatStream(List<ChatMessage> messages, GenerateOptions options,
-                                      Consumer<String> consumer) {
+    public StreamHandle chatStreamAsync(List<ChatMessage> messages, GenerateOptions options,
+                                        StreamCallback callback) {
         long startTime = System.currentTimeMillis();
-        StringBuilder fullContent = new StringBuilder();
-        int promptTokens = 0;
-        int completionTokens = 0;
+        StreamHandle handle = new StreamHandle(callback);
 
         try {
             String requestBody = buildChatRequestBody(messages, options, true);
             Request request = buildRequest("/api/chat", requestBody);
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "";
-                    log.error("Ollama stream error: {} - {}", response.code(), errorBody);
-                    return createErrorResult("Ollama API错误: " + response.code(),
-                            System.currentTimeMillis() - startTime);
+            // 异步执行请求，响应在 HTTP 客户端的调度线程上逐行读取
+            Call call = httpClient.newCall(request);
+            handle.bind(call::cancel);
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    log.error("Ollama stream chat error", e);
+                    handle.complete(createErrorResult("流式请求失败: " + e.getMessage(),
+                            System.currentTimeMillis() - startTime));
                 }
 
-                ResponseBody body = response.body();
-                if (body == null) {
-                    return createErrorResult("Empty response", System.currentTimeMillis() - startTime);
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (response) {
+                        handle.complete(readStream(response, options, callback, startTime));
+                    } catch (Exception e) {
+                        log.error("Ollama stream chat error", e);
+                        handle.complete(createErrorResult("流式请求失败: " + e.getMessage(),
+                                System.currentTimeMillis() - startTime));
+                    }
                 }
+            });
+        } catch (Exception e) {
+            log.error("Ollama stream chat error", e);
+            handle.complete(createErrorResult("流式请求失败: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime));
+        }
+        return handle;
+    }
+
+    /**
+     * 逐行读取 Ollama 的流式响应（每行一个 JSON）
+     */
+    private GenerateResult readStream(Response response, GenerateOptions options, StreamCallback callback,
+                                      long startTime) throws IOException {
+        StringBuilder fullContent = new StringBuilder();
+        StreamDelta delta = new StreamDelta();
+        int promptTokens = 0;
+        int completionTokens = 0;
+
+        if (!response.isSuccessful()) {
+            String errorBody = response.body() != null ? response.body().string() : "";
+            log.error("Ollama stream error: {} - {}", response.code(), errorBody);
+            return createErrorResult("Ollama API错误: " + response.code(), response,
+                    System.currentTimeMillis() - startTime);
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            return createErrorResult("Empty response", System.currentTimeMillis() - startTime);
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(body.byteStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+
+                try {
+                    StreamDeltaParser.parseOllama(line, delta);
 
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(body.byteStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (line.isEmpty()) continue;
-
-                        try {
-                            JsonNode node = objectMapper.readTree(line);
-
-                            if (node.has("message")) {
-                                JsonNode message = node.get("message");
-                                if (message.has("content")) {
-                                    String content = message.get("content").asText();
-                                    fullContent.append(content);
-                                    if (consumer != null) {
-                                        consumer.accept(content);
-                                    }
-                                }
-                            }
-
-                            if (node.has("done") && node.get("done").asBoolean()) {
-                                if (node.has("prompt_eval_count")) {
-                                    promptTokens = node.get("prompt_eval_count").asInt();
-                                }
-                                if (node.has("eval_count")) {
-                                    completionTokens = node.get("eval_count").asInt();
-                                }
-                                break;
-                            }
-                        } catch (Exception e) {
-                            log.warn("Error parsing Ollama stream line: {}", line, e);
+                    String content = delta.getContent();
+                    if (content != null) {
+                        fullContent.append(content);
+                        callback.onChunk(content);
+                    }
+
+                    if (delta.isDone()) {
+                        if (delta.getInputTokens() != null) {
+                            promptTokens = delta.getInputTokens();
+                        }
+                        if (delta.getOutputTokens() != null) {
+                            completionTokens = delta.getOutputTokens();
                         }
+                        break;
                     }
+                } catch (Exception e) {
+                    log.warn("Error parsing Ollama stream line: {}", line, e);
                 }
-
-                return createSuccessResult(
-                        fullContent.toString(),
-                        getEffectiveModel(options),
-                        promptTokens,
-                        completionTokens,
-                        "stop",
-                        System.currentTimeMillis() - startTime
-                );
             }
-        } catch (Exception e) {
-            log.error("Ollama stream chat error", e);
-            return createErrorResult("流式请求失败: " + e.getMessage(),
-                    System.currentTimeMillis() - startTime);
         }
+
+        return createSuccessResult(
+                fullContent.toString(),
+                getEffectiveModel(options),
+                promptTokens,
+                completionTokens,
+                "stop",
+                System.currentTimeMillis() - startTime
+        );
     }
 
     @Override
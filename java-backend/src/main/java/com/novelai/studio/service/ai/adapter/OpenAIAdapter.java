@@ -14,9 +14,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
 /**
  * OpenAI API 适配器
@@ -40,14 +38,19 @@ public class OpenAIAdapter extends AbstractAIAdapter {
     }
 
     public OpenAIAdapter(String apiKey, String baseUrl, String defaultModel) {
-        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL, defaultModel != null ? defaultModel : DEFAULT_MODEL);
-
-        this.httpClient = new OkHttpClient.Builder()
+        this(apiKey, baseUrl, defaultModel, new OkHttpClient.Builder()
                 .connectTimeout(60, TimeUnit.SECONDS)
                 .readTimeout(120, TimeUnit.SECONDS)
                 .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+                .build());
+    }
 
+    /**
+     * 使用共享连接池的 HTTP 客户端创建（由 AIService 通过 AIHttpClientFactory 传入）
+     */
+    public OpenAIAdapter(String apiKey, String baseUrl, String defaultModel, OkHttpClient httpClient) {
+        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL, defaultModel != null ? defaultModel : DEFAULT_MODEL);
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -62,37 +65,35 @@ public class OpenAIAdapter extends AbstractAIAdapter {
     }
 
     @Override
-    public GenerateResult chat(List<ChatMessage> messages, GenerateOptions options) {
-        long startTime = System.currentTimeMillis();
-
-        try {
-            String requestBody = buildChatRequestBody(messages, options, false);
-            Request request = buildRequest("/chat/completions", requestBody);
+    protected OkHttpClient getHttpClient() {
+        return httpClient;
+    }
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "Unknown error";
-                    return createErrorResult("API request failed: " + response.code() + " - " + errorBody,
-                            System.currentTimeMillis() - startTime);
-                }
+    @Override
+    protected Request buildChatRequest(List<ChatMessage> messages, GenerateOptions options) throws Exception {
+        return buildRequest("/chat/completions", buildChatRequestBody(messages, options, false));
+    }
 
-                String responseBody = response.body().string();
-                return parseChatResponse(responseBody, System.currentTimeMillis() - startTime);
-            }
-        } catch (Exception e) {
-            log.error("OpenAI chat error", e);
-            return createErrorResult("Request failed: " + e.getMessage(),
-                    System.currentTimeMillis() - startTime);
+    @Override
+    protected GenerateResult readChatResponse(Response response, GenerateOptions options, long startTime)
+            throws Exception {
+        if (!response.isSuccessful()) {
+            String errorBody = response.body() != null ? response.body().string() : "Unknown error";
+            return createErrorResult("API request failed: " + response.code() + " - " + errorBody,
+                    response, System.currentTimeMillis() - startTime);
         }
+
+        String responseBody = response.body().string();
+        return parseChatResponse(responseBody, System.currentTimeMillis() - startTime);
     }
 
     @Override
-    public GenerateResult chatStream(List<ChatMessage> messages, GenerateOptions options, Consumer<String> consumer) {
+    public StreamHandle chatStreamAsync(List<ChatMessage> messages, GenerateOptions options, StreamCallback callback) {
         long startTime = System.currentTimeMillis();
+        StreamHandle handle = new StreamHandle(callback);
         StringBuilder fullContent = new StringBuilder();
-        CountDownLatch latch = new CountDownLatch(1);
+        StreamDelta delta = new StreamDelta();
         final String[] finishReason = {"stop"};
-        final String[] errorMessage = {null};
 
         try {
             String requestBody = buildChatRequestBody(messages, options, true);
@@ -103,28 +104,19 @@ public class OpenAIAdapter extends AbstractAIAdapter {
                 @Override
                 public void onEvent(EventSource eventSource, String id, String type, String data) {
                     if ("[DONE]".equals(data)) {
-                        latch.countDown();
+                        finish();
                         return;
                     }
 
                     try {
-                        JsonNode node = objectMapper.readTree(data);
-                        JsonNode choices = node.get("choices");
-                        if (choices != null && choices.isArray() && choices.size() > 0) {
-                            JsonNode choice = choices.get(0);
-                            JsonNode delta = choice.get("delta");
-
-                            if (delta != null && delta.has("content")) {
-                                String content = delta.get("content").asText();
-                                fullContent.append(content);
-                                if (consumer != null) {
-                                    consumer.accept(content);
-                                }
-                            }
-
-                            if (choice.has("finish_reason") && !choice.get("finish_reason").isNull()) {
-                                finishReason[0] = choice.get("finish_reason").asText();
-                            }
+                        StreamDeltaParser.parseOpenAI(data, delta);
+                        String content = delta.getContent();
+                        if (content != null) {
+                            fullContent.append(content);
+                            callback.onChunk(content);
+                        }
+                        if (delta.getFinishReason() != null) {
+                            finishReason[0] = delta.getFinishReason();
                         }
                     } catch (Exception e) {
                         log.error("Error parsing SSE data", e);
@@ -133,50 +125,42 @@ public class OpenAIAdapter extends AbstractAIAdapter {
 
                 @Override
                 public void onFailure(EventSource eventSource, Throwable t, Response response) {
-                    errorMessage[0] = t != null ? t.getMessage() : "Unknown error";
+                    String errorMessage = t != null ? t.getMessage() : "Unknown error";
                     if (response != null) {
                         try {
-                            errorMessage[0] = response.body() != null ? response.body().string() : errorMessage[0];
+                            errorMessage = response.body() != null ? response.body().string() : errorMessage;
                         } catch (IOException ignored) {}
                     }
-                    finishReason[0] = "error";
-                    latch.countDown();
+                    handle.complete(createErrorResult(errorMessage, response, System.currentTimeMillis() - startTime));
                 }
 
                 @Override
                 public void onClosed(EventSource eventSource) {
-                    latch.countDown();
+                    finish();
                 }
-            };
-
-            factory.newEventSource(request, listener);
-
-            // 等待流完成，最多等待 5 分钟
-            latch.await(5, TimeUnit.MINUTES);
 
-            long duration = System.currentTimeMillis() - startTime;
-
-            if (errorMessage[0] != null) {
-                return createErrorResult(errorMessage[0], duration);
-            }
-
-            // 流式响应不返回准确的 token 数，这里估算
-            int estimatedTokens = estimateTokens(fullContent.toString());
+                private void finish() {
+                    // 流式响应不返回 token 数，按模型的分词器计算
+                    int completionTokens = countTokens(fullContent.toString(), options);
+                    handle.complete(createSuccessResult(
+                            fullContent.toString(),
+                            getEffectiveModel(options),
+                            countPromptTokens(messages, options),
+                            completionTokens,
+                            finishReason[0],
+                            System.currentTimeMillis() - startTime
+                    ));
+                }
+            };
 
-            return createSuccessResult(
-                    fullContent.toString(),
-                    getEffectiveModel(options),
-                    0, // 流式不返回 prompt tokens
-                    estimatedTokens,
-                    finishReason[0],
-                    duration
-            );
+            handle.bind(factory.newEventSource(request, listener)::cancel);
 
         } catch (Exception e) {
             log.error("OpenAI stream chat error", e);
-            return createErrorResult("Stream request failed: " + e.getMessage(),
-                    System.currentTimeMillis() - startTime);
+            handle.complete(createErrorResult("Stream request failed: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime));
         }
+        return handle;
     }
 
     @Override
@@ -302,28 +286,8 @@ public class OpenAIAdapter extends AbstractAIAdapter {
 
         String model = root.has("model") ? root.get("model").asText() : defaultModel;
 
-        return createSuccessResult(content, model, promptTokens, completionTokens, finishReason, duration);
-    }
-
-    /**
-     * 简单估算 token 数（中文约 2 字符/token，英文约 4 字符/token）
-     */
-    private int estimateTokens(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
-        }
-
-        int chineseCount = 0;
-        int otherCount = 0;
-
-        for (char c : text.toCharArray()) {
-            if (Character.toString(c).matches("[\\u4e00-\\u9fa5]")) {
-                chineseCount++;
-            } else {
-                otherCount++;
-            }
-        }
-
-        return (chineseCount / 2) + (otherCount / 4) + 1;
+        // 相同的提示词前缀由服务端自动缓存，这里只记录命中数
+        return withCacheUsage(createSuccessResult(content, model, promptTokens, completionTokens, finishReason, duration),
+                parseCachedPromptTokens(usage), null);
     }
 }
@@ -0,0 +1,34 @@
+package com.novelai.studio.service.ai.adapter;
+
+import com.novelai.studio.service.ai.dto.GenerateResult;
+
+import java.util.function.Consumer;
+
+/**
+ * 流式生成回调
+ * 在 HTTP 客户端的读取线程上调用，实现中不应长时间阻塞
+ */
+public interface StreamCallback {
+
+    /**
+     * 收到一段生成内容
+     */
+    void onChunk(String chunk);
+
+    /**
+     * 流结束（正常结束、出错或被取消），只调用一次；出错时结果的 finishReason 为 "error"
+     */
+    default void onComplete(GenerateResult result) {
+    }
+
+    /**
+     * 由内容消费者创建回调
+     */
+    static StreamCallback of(Consumer<String> consumer) {
+        return chunk -> {
+            if (consumer != null) {
+                consumer.accept(chunk);
+            }
+        };
+    }
+}
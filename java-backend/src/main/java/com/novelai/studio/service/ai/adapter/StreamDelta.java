@@ -0,0 +1,107 @@
+package com.novelai.studio.service.ai.adapter;
+
+/**
+ * 流式响应中单个事件的增量内容
+ * 同一个流内复用一个实例，每次解析前由 {@link StreamDeltaParser} 重置
+ */
+public class StreamDelta {
+
+    /**
+     * 事件类型（Claude 的 type 字段）
+     */
+    String type;
+
+    /**
+     * 本次增量的文本
+     */
+    String content;
+
+    /**
+     * 本次增量的推理过程文本（GLM 等推理模型的 reasoning_content 字段）
+     */
+    String reasoningContent;
+
+    /**
+     * 结束原因（未结束时为 null）
+     */
+    String finishReason;
+
+    /**
+     * 输入 token 数（事件未携带时为 null）
+     */
+    Integer inputTokens;
+
+    /**
+     * 输出 token 数（事件未携带时为 null）
+     */
+    Integer outputTokens;
+
+    /**
+     * 读取/写入前缀缓存的输入 token 数（Claude 的 message_start 事件携带）
+     */
+    Integer cacheReadTokens;
+    Integer cacheCreationTokens;
+
+    /**
+     * 错误信息
+     */
+    String errorMessage;
+
+    /**
+     * 是否为最后一个事件（Ollama 的 done 字段）
+     */
+    boolean done;
+
+    void reset() {
+        type = null;
+        content = null;
+        reasoningContent = null;
+        finishReason = null;
+        inputTokens = null;
+        outputTokens = null;
+        cacheReadTokens = null;
+        cacheCreationTokens = null;
+        errorMessage = null;
+        done = false;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public String getReasoningContent() {
+        return reasoningContent;
+    }
+
+    public String getFinishReason() {
+        return finishReason;
+    }
+
+    public Integer getInputTokens() {
+        return inputTokens;
+    }
+
+    public Integer getOutputTokens() {
+        return outputTokens;
+    }
+
+    public Integer getCacheReadTokens() {
+        return cacheReadTokens;
+    }
+
+    public Integer getCacheCreationTokens() {
+        return cacheCreationTokens;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+}
@@ -0,0 +1,319 @@
+package com.novelai.studio.service.ai.adapter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * 流式响应事件解析器
+ * 用 Jackson 流式 API 直接定位到增量文本等所需字段，其余字段（id、model、logprobs、安全评级等）
+ * 只跳过不构建节点树；数组只读取第一个元素。解析缓冲区由 JsonFactory 按线程回收复用
+ */
+public final class StreamDeltaParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private StreamDeltaParser() {
+    }
+
+    /**
+     * OpenAI 兼容格式（OpenAI、智谱）：choices[0].delta.content、choices[0].finish_reason
+     */
+    public static void parseOpenAI(String data, StreamDelta delta) throws IOException {
+        delta.reset();
+        try (JsonParser p = FACTORY.createParser(data)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (nextField(p)) {
+                if ("choices".equals(p.currentName())) {
+                    p.nextToken();
+                    if (firstElement(p)) {
+                        readOpenAIChoice(p, delta);
+                        skipRemainingElements(p);
+                    }
+                } else {
+                    skipValue(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gemini 格式：candidates[0].content.parts[0].text、candidates[0].finishReason
+     */
+    public static void parseGemini(String data, StreamDelta delta) throws IOException {
+        delta.reset();
+        try (JsonParser p = FACTORY.createParser(data)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (nextField(p)) {
+                if ("candidates".equals(p.currentName())) {
+                    p.nextToken();
+                    if (firstElement(p)) {
+                        readGeminiCandidate(p, delta);
+                        skipRemainingElements(p);
+                    }
+                } else {
+                    skipValue(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Claude 格式：type、delta.text、delta.stop_reason、message.usage（input_tokens 及前缀缓存读写数）、
+     * usage.output_tokens、error.message
+     */
+    public static void parseClaude(String data, StreamDelta delta) throws IOException {
+        delta.reset();
+        try (JsonParser p = FACTORY.createParser(data)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (nextField(p)) {
+                String field = p.currentName();
+                p.nextToken();
+                if ("type".equals(field)) {
+                    delta.type = text(p);
+                } else if ("delta".equals(field) && isObject(p)) {
+                    while (nextField(p)) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        if ("text".equals(name)) {
+                            delta.content = text(p);
+                        } else if ("stop_reason".equals(name)) {
+                            delta.finishReason = text(p);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else if ("message".equals(field) && isObject(p)) {
+                    while (nextField(p)) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        if ("usage".equals(name) && isObject(p)) {
+                            readClaudeUsage(p, delta);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else if ("usage".equals(field) && isObject(p)) {
+                    delta.outputTokens = intField(p, "output_tokens");
+                } else if ("error".equals(field) && isObject(p)) {
+                    while (nextField(p)) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        if ("message".equals(name)) {
+                            delta.errorMessage = text(p);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ollama 格式（每行一个 JSON）：message.content、done、prompt_eval_count、eval_count
+     */
+    public static void parseOllama(String line, StreamDelta delta) throws IOException {
+        delta.reset();
+        try (JsonParser p = FACTORY.createParser(line)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (nextField(p)) {
+                String field = p.currentName();
+                JsonToken token = p.nextToken();
+                if ("message".equals(field) && isObject(p)) {
+                    while (nextField(p)) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        if ("content".equals(name)) {
+                            delta.content = text(p);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else if ("done".equals(field)) {
+                    delta.done = token == JsonToken.VALUE_TRUE;
+                } else if ("prompt_eval_count".equals(field)) {
+                    delta.inputTokens = intValue(p);
+                } else if ("eval_count".equals(field)) {
+                    delta.outputTokens = intValue(p);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static void readOpenAIChoice(JsonParser p, StreamDelta delta) throws IOException {
+        while (nextField(p)) {
+            String field = p.currentName();
+            p.nextToken();
+            if ("delta".equals(field) && isObject(p)) {
+                while (nextField(p)) {
+                    String name = p.currentName();
+                    p.nextToken();
+                    if ("content".equals(name)) {
+                        delta.content = text(p);
+                    } else if ("reasoning_content".equals(name)) {
+                        delta.reasoningContent = text(p);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else if ("finish_reason".equals(field)) {
+                delta.finishReason = text(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static void readGeminiCandidate(JsonParser p, StreamDelta delta) throws IOException {
+        while (nextField(p)) {
+            String field = p.currentName();
+            p.nextToken();
+            if ("content".equals(field) && isObject(p)) {
+                while (nextField(p)) {
+                    String name = p.currentName();
+                    p.nextToken();
+                    if ("parts".equals(name)) {
+                        if (firstElement(p)) {
+                            while (nextField(p)) {
+                                String partField = p.currentName();
+                                p.nextToken();
+                                if ("text".equals(partField)) {
+                                    delta.content = text(p);
+                                } else {
+                                    p.skipChildren();
+                                }
+                            }
+                            skipRemainingElements(p);
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else if ("finishReason".equals(field)) {
+                delta.finishReason = text(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 读取对象中的一个整数字段，跳过其余字段（当前位于对象起始处）
+     */
+    private static void readClaudeUsage(JsonParser p, StreamDelta delta) throws IOException {
+        while (nextField(p)) {
+            String name = p.currentName();
+            p.nextToken();
+            if ("input_tokens".equals(name)) {
+                delta.inputTokens = intValue(p);
+            } else if ("cache_read_input_tokens".equals(name)) {
+                delta.cacheReadTokens = intValue(p);
+            } else if ("cache_creation_input_tokens".equals(name)) {
+                delta.cacheCreationTokens = intValue(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static Integer intField(JsonParser p, String fieldName) throws IOException {
+        Integer value = null;
+        while (nextField(p)) {
+            String name = p.currentName();
+            p.nextToken();
+            if (fieldName.equals(name)) {
+                value = intValue(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    private static boolean nextField(JsonParser p) throws IOException {
+        return p.nextToken() == JsonToken.FIELD_NAME;
+    }
+
+    /**
+     * 跳过当前字段的值（当前位于字段名处）
+     */
+    private static void skipValue(JsonParser p) throws IOException {
+        p.nextToken();
+        p.skipChildren();
+    }
+
+    /**
+     * 当前值是否为对象；不是则跳过
+     */
+    private static boolean isObject(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.START_OBJECT) {
+            return true;
+        }
+        p.skipChildren();
+        return false;
+    }
+
+    /**
+     * 当前值为数组且第一个元素是对象时，移动到该对象起始处并返回 true；否则跳过整个值
+     */
+    private static boolean firstElement(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return false;
+        }
+        JsonToken token = p.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            return true;
+        }
+        if (token != JsonToken.END_ARRAY && token != null) {
+            p.skipChildren();
+            skipRemainingElements(p);
+        }
+        return false;
+    }
+
+    /**
+     * 跳过数组中剩余的元素，停在数组结束处
+     */
+    private static void skipRemainingElements(JsonParser p) throws IOException {
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            p.skipChildren();
+        }
+    }
+
+    private static String text(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        return p.getText();
+    }
+
+    private static Integer intValue(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return p.getIntValue();
+        }
+        p.skipChildren();
+        return null;
+    }
+}
@@ -0,0 +1,152 @@
+package com.novelai.studio.service.ai.adapter;
+
+import com.novelai.studio.service.ai.dto.GenerateResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 流式生成句柄
+ * 发起流式请求后立即返回，调用方无需占用线程等待；可取消底层请求，或在需要时阻塞等待最终结果
+ */
+public class StreamHandle {
+
+    /**
+     * 被取消时结果中的错误信息（对冲落败、用户取消，不计入熔断）
+     */
+    public static final String CANCELLED = "Stream cancelled";
+
+    /**
+     * 因超时被取消时结果中的错误信息（计入熔断）
+     */
+    public static final String TIMED_OUT = "Stream timed out";
+
+    private final StreamCallback callback;
+
+    private final CompletableFuture<GenerateResult> result = new CompletableFuture<>();
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private final long startTime = System.currentTimeMillis();
+
+    /**
+     * 取消底层请求的操作（请求发出后绑定）
+     */
+    private volatile Runnable canceller;
+
+    public StreamHandle(StreamCallback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * 创建已结束的句柄（如请求未能发出）
+     */
+    public static StreamHandle completed(GenerateResult result, StreamCallback callback) {
+        StreamHandle handle = new StreamHandle(callback);
+        handle.complete(result);
+        return handle;
+    }
+
+    /**
+     * 绑定底层请求的取消操作；句柄已被取消时立即执行
+     */
+    public void bind(Runnable canceller) {
+        this.canceller = canceller;
+        if (finished.get()) {
+            canceller.run();
+        }
+    }
+
+    /**
+     * 结束流并通知回调，只有第一次调用生效；回调执行完后结果才可见
+     */
+    public boolean complete(GenerateResult generateResult) {
+        if (!finished.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            if (callback != null) {
+                callback.onComplete(generateResult);
+            }
+        } finally {
+            result.complete(generateResult);
+        }
+        return true;
+    }
+
+    /**
+     * 取消流式请求（已结束时无效果）
+     */
+    public void cancel() {
+        cancel(CANCELLED);
+    }
+
+    /**
+     * 因超时取消流式请求，结果计为失败（已结束时无效果）
+     */
+    public void timeout() {
+        cancel(TIMED_OUT);
+    }
+
+    /**
+     * 以指定原因取消流式请求（已结束时无效果）
+     */
+    public void cancel(String reason) {
+        if (complete(errorResult(reason))) {
+            Runnable c = canceller;
+            if (c != null) {
+                c.run();
+            }
+        }
+    }
+
+    /**
+     * 被取消的原因（{@link #CANCELLED} 或 {@link #TIMED_OUT}），未被取消或尚未结束时为 null
+     */
+    public String getCancelReason() {
+        GenerateResult r = result.getNow(null);
+        String message = r != null ? r.getErrorMessage() : null;
+        return CANCELLED.equals(message) || TIMED_OUT.equals(message) ? message : null;
+    }
+
+    public boolean isDone() {
+        return finished.get();
+    }
+
+    /**
+     * 最终结果
+     */
+    public CompletableFuture<GenerateResult> getResult() {
+        return result;
+    }
+
+    /**
+     * 阻塞等待最终结果，超时则取消请求并返回错误结果
+     */
+    public GenerateResult await(long timeout, TimeUnit unit) {
+        try {
+            return result.get(timeout, unit);
+        } catch (TimeoutException e) {
+            timeout();
+            return result.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            return result.join();
+        } catch (ExecutionException e) {
+            return errorResult(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+    }
+
+    private GenerateResult errorResult(String message) {
+        return GenerateResult.builder()
+                .content("")
+                .finishReason("error")
+                .errorMessage(message)
+                .duration(System.currentTimeMillis() - startTime)
+                .build();
+    }
+}
@@ -12,9 +12,7 @@ import okhttp3.sse.EventSources;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
 /**
  * 智谱 GLM API 适配器
@@ -40,14 +38,19 @@ public class ZhipuAdapter extends AbstractAIAdapter {
     }
 
     public ZhipuAdapter(String apiKey, String baseUrl, String defaultModel) {
-        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL, defaultModel != null ? defaultModel : DEFAULT_MODEL);
-
-        this.httpClient = new OkHttpClient.Builder()
+        this(apiKey, baseUrl, defaultModel, new OkHttpClient.Builder()
                 .connectTimeout(60, TimeUnit.SECONDS)
                 .readTimeout(180, TimeUnit.SECONDS)  // 智谱生成可能较慢
                 .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+                .build());
+    }
 
+    /**
+     * 使用共享连接池的 HTTP 客户端创建（由 AIService 通过 AIHttpClientFactory 传入）
+     */
+    public ZhipuAdapter(String apiKey, String baseUrl, String defaultModel, OkHttpClient httpClient) {
+        super(apiKey, baseUrl != null ? baseUrl : DEFAULT_BASE_URL, defaultModel != null ? defaultModel : DEFAULT_MODEL);
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -62,42 +65,43 @@ public class ZhipuAdapter extends AbstractAIAdapter {
     }
 
     @Override
-    public GenerateResult chat(List<ChatMessage> messages, GenerateOptions options) {
-        long startTime = System.currentTimeMillis();
-
-        try {
-            String requestBody = buildChatRequestBody(messages, options, false);
-            Request request = buildRequest("/chat/completions", requestBody);
-
-            log.debug("Zhipu request URL: {}", request.url());
-            log.debug("Zhipu request body: {}", requestBody);
+    protected OkHttpClient getHttpClient() {
+        return httpClient;
+    }
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "";
+    @Override
+    protected Request buildChatRequest(List<ChatMessage> messages, GenerateOptions options) throws Exception {
+        String requestBody = buildChatRequestBody(messages, options, false);
+        Request request = buildRequest("/chat/completions", requestBody);
 
-                if (!response.isSuccessful()) {
-                    log.error("Zhipu API error: {} - {}", response.code(), responseBody);
-                    String errorMsg = parseErrorMessage(responseBody, response.code());
-                    return createErrorResult(errorMsg, System.currentTimeMillis() - startTime);
-                }
+        log.debug("Zhipu request URL: {}", request.url());
+        log.debug("Zhipu request body: {}", requestBody);
+        return request;
+    }
 
-                log.debug("Zhipu response: {}", responseBody);
-                return parseChatResponse(responseBody, System.currentTimeMillis() - startTime);
-            }
-        } catch (Exception e) {
-            log.error("Zhipu chat error", e);
-            return createErrorResult("Request failed: " + e.getMessage(),
-                    System.currentTimeMillis() - startTime);
+    @Override
+    protected GenerateResult readChatResponse(Response response, GenerateOptions options, long startTime)
+            throws Exception {
+        String responseBody = response.body() != null ? response.body().string() : "";
+
+        if (!response.isSuccessful()) {
+            log.error("Zhipu API error: {} - {}", response.code(), responseBody);
+            String errorMsg = parseErrorMessage(responseBody, response.code());
+            return createErrorResult(errorMsg, response, System.currentTimeMillis() - startTime);
         }
+
+        log.debug("Zhipu response: {}", responseBody);
+        return parseChatResponse(responseBody, System.currentTimeMillis() - startTime);
     }
 
     @Override
-    public GenerateResult chatStream(List<ChatMessage> messages, GenerateOptions options, Consumer<String> consumer) {
+    public StreamHandle chatStreamAsync(List<ChatMessage> messages, GenerateOptions options, StreamCallback callback) {
         long startTime = System.currentTimeMillis();
+        StreamHandle handle = new StreamHandle(callback);
         StringBuilder fullContent = new StringBuilder();
-        CountDownLatch latch = new CountDownLatch(1);
+        StringBuilder reasoning = new StringBuilder();
+        StreamDelta delta = new StreamDelta();
         final String[] finishReason = {"stop"};
-        final String[] errorMessage = {null};
 
         try {
             String requestBody = buildChatRequestBody(messages, options, true);
@@ -108,28 +112,22 @@ public class ZhipuAdapter extends AbstractAIAdapter {
                 @Override
                 public void onEvent(EventSource eventSource, String id, String type, String data) {
                     if ("[DONE]".equals(data)) {
-                        latch.countDown();
+                        finish();
                         return;
                     }
 
                     try {
-                        JsonNode node = objectMapper.readTree(data);
-                        JsonNode choices = node.get("choices");
-                        if (choices != null && choices.isArray() && choices.size() > 0) {
-                            JsonNode choice = choices.get(0);
-                            JsonNode delta = choice.get("delta");
-
-                            if (delta != null && delta.has("content")) {
-                                String content = delta.get("content").asText();
-                                fullContent.append(content);
-                                if (consumer != null) {
-                                    consumer.accept(content);
-                                }
-                            }
-
-                            if (choice.has("finish_reason") && !choice.get("finish_reason").isNull()) {
-                                finishReason[0] = choice.get("finish_reason").asText();
-                            }
+                        StreamDeltaParser.parseOpenAI(data, delta);
+                        String content = delta.getContent();
+                        if (content != null) {
+                            fullContent.append(content);
+                            callback.onChunk(content);
+                        }
+                        if (delta.getReasoningContent() != null) {
+                            reasoning.append(delta.getReasoningContent());
+                        }
+                        if (delta.getFinishReason() != null) {
+                            finishReason[0] = delta.getFinishReason();
                         }
                     } catch (Exception e) {
                         log.error("Error parsing SSE data", e);
@@ -138,50 +136,48 @@ public class ZhipuAdapter extends AbstractAIAdapter {
 
                 @Override
                 public void onFailure(EventSource eventSource, Throwable t, Response response) {
-                    errorMessage[0] = t != null ? t.getMessage() : "Unknown error";
+                    String errorMessage = t != null ? t.getMessage() : "Unknown error";
                     if (response != null) {
                         try {
                             String body = response.body() != null ? response.body().string() : "";
-                            errorMessage[0] = parseErrorMessage(body, response.code());
+                            errorMessage = parseErrorMessage(body, response.code());
                         } catch (IOException ignored) {}
                     }
-                    finishReason[0] = "error";
-                    latch.countDown();
+                    handle.complete(createErrorResult(errorMessage, response, System.currentTimeMillis() - startTime));
                 }
 
                 @Override
                 public void onClosed(EventSource eventSource) {
-                    latch.countDown();
+                    finish();
                 }
-            };
-
-            factory.newEventSource(request, listener);
-
-            // 等待流完成，最多等待 5 分钟
-            latch.await(5, TimeUnit.MINUTES);
-
-            long duration = System.currentTimeMillis() - startTime;
-
-            if (errorMessage[0] != null) {
-                return createErrorResult(errorMessage[0], duration);
-            }
 
-            int estimatedTokens = estimateTokens(fullContent.toString());
+                private void finish() {
+                    // 与非流式解析一致：推理模型只返回 reasoning_content 时将其作为内容
+                    String text = fullContent.toString();
+                    if (text.isEmpty() && reasoning.length() > 0) {
+                        log.warn("No content in stream, using reasoning_content as content");
+                        text = reasoning.toString();
+                    }
+                    int completionTokens = countTokens(text, options);
+                    handle.complete(createSuccessResult(
+                            text,
+                            getEffectiveModel(options),
+                            countPromptTokens(messages, options),
+                            completionTokens,
+                            finishReason[0],
+                            System.currentTimeMillis() - startTime
+                    ));
+                }
+            };
 
-            return createSuccessResult(
-                    fullContent.toString(),
-                    getEffectiveModel(options),
-                    0,
-                    estimatedTokens,
-                    finishReason[0],
-                    duration
-            );
+            handle.bind(factory.newEventSource(request, listener)::cancel);
 
         } catch (Exception e) {
             log.error("Zhipu stream chat error", e);
-            return createErrorResult("Stream request failed: " + e.getMessage(),
-                    System.currentTimeMillis() - startTime);
+            handle.complete(createErrorResult("Stream request failed: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime));
         }
+        return handle;
     }
 
     @Override
@@ -312,11 +308,10 @@ public class ZhipuAdapter extends AbstractAIAdapter {
         String model = root.has("model") ? root.get("model").asText() : defaultModel;
 
         // 如果有推理内容，使用带 reasoning 的结果构建方法
-        if (reasoning != null && !reasoning.isEmpty()) {
-            return createSuccessResultWithReasoning(content, reasoning, model, promptTokens, completionTokens, finishReason, duration);
-        }
-
-        return createSuccessResult(content, model, promptTokens, completionTokens, finishReason, duration);
+        GenerateResult result = reasoning != null && !reasoning.isEmpty()
+                ? createSuccessResultWithReasoning(content, reasoning, model, promptTokens, completionTokens, finishReason, duration)
+                : createSuccessResult(content, model, promptTokens, completionTokens, finishReason, duration);
+        return withCacheUsage(result, parseCachedPromptTokens(usage), null);
     }
 
     /**
@@ -334,27 +329,4 @@ public class ZhipuAdapter extends AbstractAIAdapter {
         } catch (Exception ignored) {}
         return "HTTP " + httpCode + ": " + responseBody;
     }
-
-    /**
-     * 估算 token 数（中文约 1.5 字符/token）
-     */
-    private int estimateTokens(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
-        }
-
-        int chineseCount = 0;
-        int otherCount = 0;
-
-        for (char c : text.toCharArray()) {
-            if (Character.toString(c).matches("[\\u4e00-\\u9fa5]")) {
-                chineseCount++;
-            } else {
-                otherCount++;
-            }
-        }
-
-        // 智谱的 token 计算：中文约 1.5 字/token
-        return (int) (chineseCount / 1.5) + (otherCount / 4) + 1;
-    }
 }
@@ -24,6 +24,17 @@ public class ChatMessage {
      */
     private String content;
 
+    /**
+     * 是否为可缓存前缀的结尾：为 true 时该消息及之前的全部内容作为提示词前缀缓存（目前只有 Claude 需要显式标记，
+     * OpenAI 兼容接口会自动缓存相同的前缀）
+     */
+    private Boolean cacheable;
+
+    public ChatMessage(String role, String content) {
+        this.role = role;
+        this.content = content;
+    }
+
     /**
      * 创建系统消息
      */
@@ -34,6 +45,17 @@ public class ChatMessage {
                 .build();
     }
 
+    /**
+     * 创建可缓存的系统消息（角色、设定等稳定的上下文）
+     */
+    public static ChatMessage cacheableSystem(String content) {
+        return ChatMessage.builder()
+                .role("system")
+                .content(content)
+                .cacheable(true)
+                .build();
+    }
+
     /**
      * 创建用户消息
      */
@@ -9,7 +9,7 @@ import lombok.AllArgsConstructor;
  * AI 生成选项
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class GenerateOptions {
@@ -46,4 +46,24 @@ public class GenerateOptions {
      * 系统提示词
      */
     private String systemPrompt;
+
+    /**
+     * 系统提示词是否作为可缓存前缀（系统提示词中包含角色、设定等稳定上下文时开启）
+     */
+    private Boolean cacheSystemPrompt;
+
+    /**
+     * 用量归属的书籍ID（只用于 token 用量统计，不发送给服务商）
+     */
+    private String bookId;
+
+    /**
+     * 任务类型：generate/review/summary/chat 等（只用于 token 用量统计）
+     */
+    private String task;
+
+    /**
+     * 调用方的截止时间（毫秒时间戳，不发送给服务商）；按任务分配调用时，到期仍未完成的请求按超时取消并计入熔断
+     */
+    private Long deadline;
 }
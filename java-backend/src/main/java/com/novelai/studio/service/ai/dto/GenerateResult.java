@@ -49,6 +49,28 @@ public class GenerateResult {
      */
     private String errorMessage;
 
+    /**
+     * 出错时的 HTTP 状态码（请求未得到响应时为空）
+     */
+    private Integer httpStatus;
+
+    /**
+     * 服务商通过 Retry-After 要求的等待时间（毫秒），未指定时为空
+     */
+    private Long retryAfterMs;
+
+    /**
+     * 是否来自响应缓存（未实际调用AI）
+     */
+    private Boolean cached;
+
+    /**
+     * 是否被服务商限流或过载拒绝（HTTP 429/503）
+     */
+    public boolean isRateLimited() {
+        return httpStatus != null && (httpStatus == 429 || httpStatus == 503);
+    }
+
     /**
      * Token 使用统计
      */
@@ -71,5 +93,15 @@ public class GenerateResult {
          * 总 Token 数
          */
         private Integer totalTokens;
+
+        /**
+         * 提示词中命中前缀缓存的 Token 数（包含在 promptTokens 中，服务商未返回时为空）
+         */
+        private Integer cachedTokens;
+
+        /**
+         * 提示词中写入前缀缓存的 Token 数（Claude 返回，包含在 promptTokens 中）
+         */
+        private Integer cacheCreationTokens;
     }
 }
@@ -0,0 +1,177 @@
+package com.novelai.studio.service.ai.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 字节级 BPE 分词器
+ * 读取 tiktoken 格式的词表（每行“base64 编码的字节序列 + 空格 + 合并序号”），
+ * 按编码的预分词规则切分文本后，对每段的 UTF-8 字节按合并序号由小到大逐步合并，最终段数即 token 数。
+ * 只计数不输出 token id
+ */
+public class BpeTokenizer implements Tokenizer {
+
+    /**
+     * cl100k_base 的预分词规则（Llama 3、通义千问等 tiktoken 格式词表同样适用）
+     */
+    public static final Pattern CL100K_PATTERN = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+                    + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * o200k_base 的预分词规则（GPT-4o 及之后的 OpenAI 模型）
+     */
+    public static final Pattern O200K_PATTERN = Pattern.compile(
+            "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]*[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]+(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                    + "|[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]+[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]*(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                    + "|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n/]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * 单段最多参与合并的字符数，更长的段（如无标点的长串）分块计数，避免合并耗时平方增长
+     */
+    private static final int MAX_PIECE_CHARS = 256;
+
+    private final String name;
+    private final Pattern pattern;
+
+    /**
+     * 字节序列到合并序号；字节序列以 ISO-8859-1 字符串表示（每个字节对应一个字符）
+     */
+    private final Map<String, Integer> ranks;
+
+    public BpeTokenizer(String name, Pattern pattern, Map<String, Integer> ranks) {
+        this.name = name;
+        this.pattern = pattern;
+        this.ranks = ranks;
+    }
+
+    /**
+     * 从 tiktoken 格式的词表加载
+     */
+    public static BpeTokenizer load(String name, Pattern pattern, InputStream vocab) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>(1 << 18);
+        Base64.Decoder decoder = Base64.getDecoder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(vocab, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    continue;
+                }
+                byte[] bytes = decoder.decode(line.substring(0, space));
+                int rank = Integer.parseInt(line.substring(space + 1).trim());
+                ranks.put(new String(bytes, StandardCharsets.ISO_8859_1), rank);
+            }
+        }
+        if (ranks.isEmpty()) {
+            throw new IOException("Empty vocabulary: " + name);
+        }
+        return new BpeTokenizer(name, pattern, ranks);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 词表大小
+     */
+    public int getVocabularySize() {
+        return ranks.size();
+    }
+
+    @Override
+    public int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            int start = matcher.start();
+            while (start < matcher.end()) {
+                int end = Math.min(matcher.end(), start + MAX_PIECE_CHARS);
+                if (end < matcher.end() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                    end++;
+                }
+                count += countPiece(toByteString(text, start, end));
+                start = end;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 文本片段的 UTF-8 字节，以 ISO-8859-1 字符串表示；纯 ASCII 片段直接截取
+     */
+    private static String toByteString(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) >= 0x80) {
+                byte[] bytes = text.substring(start, end).getBytes(StandardCharsets.UTF_8);
+                return new String(bytes, StandardCharsets.ISO_8859_1);
+            }
+        }
+        return text.substring(start, end);
+    }
+
+    /**
+     * 单段的 token 数：整段在词表中时为 1，否则按合并序号逐步合并相邻片段
+     */
+    private int countPiece(String piece) {
+        int length = piece.length();
+        if (length <= 1 || ranks.containsKey(piece)) {
+            return 1;
+        }
+
+        // boundaries[i] 为第 i 个片段的起点，pairRanks[i] 为片段 i 与 i+1 合并后的序号
+        int[] boundaries = new int[length + 1];
+        int[] pairRanks = new int[length];
+        for (int i = 0; i <= length; i++) {
+            boundaries[i] = i;
+        }
+        int parts = length;
+        for (int i = 0; i < parts - 1; i++) {
+            pairRanks[i] = rank(piece, boundaries[i], boundaries[i + 2]);
+        }
+
+        while (parts > 1) {
+            int minIndex = -1;
+            int minRank = Integer.MAX_VALUE;
+            for (int i = 0; i < parts - 1; i++) {
+                if (pairRanks[i] < minRank) {
+                    minRank = pairRanks[i];
+                    minIndex = i;
+                }
+            }
+            if (minIndex < 0) {
+                break;
+            }
+
+            // 合并片段 minIndex 与 minIndex+1：移除两者之间的边界，只重算受影响的两对
+            System.arraycopy(boundaries, minIndex + 2, boundaries, minIndex + 1, parts - minIndex - 1);
+            System.arraycopy(pairRanks, minIndex + 1, pairRanks, minIndex, parts - minIndex - 2);
+            parts--;
+            if (minIndex < parts - 1) {
+                pairRanks[minIndex] = rank(piece, boundaries[minIndex], boundaries[minIndex + 2]);
+            }
+            if (minIndex > 0) {
+                pairRanks[minIndex - 1] = rank(piece, boundaries[minIndex - 1], boundaries[minIndex + 1]);
+            }
+        }
+        return parts;
+    }
+
+    private int rank(String piece, int start, int end) {
+        Integer rank = ranks.get(piece.substring(start, end));
+        return rank != null ? rank : Integer.MAX_VALUE;
+    }
+}
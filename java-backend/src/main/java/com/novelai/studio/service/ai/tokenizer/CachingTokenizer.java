@@ -0,0 +1,61 @@
+package com.novelai.studio.service.ai.tokenizer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 带计数缓存的分词器
+ * 以文本哈希与长度为键缓存 token 数（LRU），同一段提示词、章节正文重复计数时无需重新分词；
+ * 哈希碰撞只会让计数沿用另一段等长文本的结果，对预算估算可以接受
+ */
+public class CachingTokenizer implements Tokenizer {
+
+    /**
+     * 短文本直接计数，不进缓存
+     */
+    private static final int MIN_CACHED_LENGTH = 64;
+
+    private final Tokenizer delegate;
+    private final Map<Long, Integer> cache;
+
+    public CachingTokenizer(Tokenizer delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public int countTokens(String text) {
+        if (text == null || text.length() < MIN_CACHED_LENGTH) {
+            return delegate.countTokens(text);
+        }
+        Long key = ((long) text.hashCode() << 32) | text.length();
+        synchronized (cache) {
+            Integer cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        int count = delegate.countTokens(text);
+        synchronized (cache) {
+            cache.put(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * 被包装的分词器
+     */
+    public Tokenizer getDelegate() {
+        return delegate;
+    }
+}
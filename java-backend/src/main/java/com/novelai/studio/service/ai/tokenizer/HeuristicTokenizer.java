@@ -0,0 +1,60 @@
+package com.novelai.studio.service.ai.tokenizer;
+
+import com.novelai.studio.service.ai.dto.AIProvider;
+
+/**
+ * 按字符数估算的分词器
+ * 用于未公开分词表的模型（Claude、Gemini、智谱），以及词表文件缺失时的兜底
+ */
+public class HeuristicTokenizer implements Tokenizer {
+
+    /**
+     * 通用估算：中文约 2 字符/token，其他约 4 字符/token
+     */
+    public static final HeuristicTokenizer DEFAULT = new HeuristicTokenizer("heuristic", 2.0, 4.0);
+
+    /**
+     * 智谱 GLM：中文约 1.5 字符/token
+     */
+    public static final HeuristicTokenizer ZHIPU = new HeuristicTokenizer("heuristic-zhipu", 1.5, 4.0);
+
+    private final String name;
+    private final double chineseCharsPerToken;
+    private final double otherCharsPerToken;
+
+    public HeuristicTokenizer(String name, double chineseCharsPerToken, double otherCharsPerToken) {
+        this.name = name;
+        this.chineseCharsPerToken = chineseCharsPerToken;
+        this.otherCharsPerToken = otherCharsPerToken;
+    }
+
+    /**
+     * 服务商对应的估算规则
+     */
+    public static HeuristicTokenizer forProvider(AIProvider provider) {
+        return provider == AIProvider.ZHIPU ? ZHIPU : DEFAULT;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        int chineseCount = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '\u4e00' && c <= '\u9fa5') {
+                chineseCount++;
+            }
+        }
+        int otherCount = text.length() - chineseCount;
+
+        return (int) (chineseCount / chineseCharsPerToken) + (int) (otherCount / otherCharsPerToken) + 1;
+    }
+}
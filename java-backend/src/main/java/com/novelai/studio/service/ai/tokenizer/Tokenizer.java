@@ -0,0 +1,18 @@
+package com.novelai.studio.service.ai.tokenizer;
+
+/**
+ * 分词器
+ * 计算文本在某个模型系列下的 token 数，用于提示词预算与用量统计
+ */
+public interface Tokenizer {
+
+    /**
+     * 分词器名称（编码名，如 cl100k_base）
+     */
+    String getName();
+
+    /**
+     * 计算文本的 token 数
+     */
+    int countTokens(String text);
+}
@@ -0,0 +1,135 @@
+package com.novelai.studio.service.ai.tokenizer;
+
+import com.novelai.studio.service.ai.dto.AIProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 分词器注册表
+ * 按服务商与模型名选择编码，首次使用时加载对应的 tiktoken 格式词表（先查 ai.tokenizer.vocab-dir，
+ * 再查类路径 tokenizers/ 目录）；词表缺失或未公开分词表的模型退回按字符数估算
+ */
+@Component
+public class TokenizerRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenizerRegistry.class);
+
+    public static final String CL100K_BASE = "cl100k_base";
+    public static final String O200K_BASE = "o200k_base";
+    public static final String LLAMA3 = "llama3";
+    public static final String QWEN = "qwen";
+
+    private static final String CLASSPATH_DIR = "tokenizers/";
+    private static final String VOCAB_SUFFIX = ".tiktoken";
+
+    /**
+     * 词表文件目录（文件名为 编码名.tiktoken），为空时只查类路径
+     */
+    @Value("${ai.tokenizer.vocab-dir:}")
+    private String vocabDir;
+
+    /**
+     * 未指定模型时（如审查规则的提示词预算）使用的编码
+     */
+    @Value("${ai.tokenizer.default-encoding:cl100k_base}")
+    private String defaultEncoding;
+
+    /**
+     * 每个分词器缓存的计数条数
+     */
+    @Value("${ai.tokenizer.cache-size:4096}")
+    private int cacheSize;
+
+    private final Map<String, Tokenizer> tokenizers = new ConcurrentHashMap<>();
+
+    /**
+     * 获取模型对应的分词器
+     */
+    public Tokenizer forModel(AIProvider provider, String model) {
+        String encoding = encodingFor(provider, model);
+        if (encoding == null) {
+            return HeuristicTokenizer.forProvider(provider);
+        }
+        return get(encoding);
+    }
+
+    /**
+     * 默认分词器
+     */
+    public Tokenizer getDefault() {
+        return get(defaultEncoding);
+    }
+
+    /**
+     * 按编码名获取分词器，词表不可用时返回估算分词器
+     */
+    public Tokenizer get(String encoding) {
+        return tokenizers.computeIfAbsent(encoding, this::load);
+    }
+
+    /**
+     * 模型使用的编码；返回 null 表示没有可用的公开词表
+     */
+    static String encodingFor(AIProvider provider, String model) {
+        String name = model != null ? model.toLowerCase(Locale.ROOT) : "";
+        switch (provider) {
+            case CLAUDE:
+            case GEMINI:
+            case ZHIPU:
+                return null;
+            case OLLAMA:
+                if (name.contains("llama3") || name.contains("llama-3")) {
+                    return LLAMA3;
+                }
+                return name.contains("qwen") ? QWEN : null;
+            default:
+                if (name.contains("qwen")) {
+                    return QWEN;
+                }
+                if (name.startsWith("gpt-4o") || name.startsWith("gpt-4.1") || name.startsWith("gpt-5")
+                        || name.startsWith("o1") || name.startsWith("o3") || name.startsWith("o4")) {
+                    return O200K_BASE;
+                }
+                return CL100K_BASE;
+        }
+    }
+
+    private Tokenizer load(String encoding) {
+        Pattern pattern = O200K_BASE.equals(encoding) ? BpeTokenizer.O200K_PATTERN : BpeTokenizer.CL100K_PATTERN;
+        try (InputStream vocab = openVocab(encoding)) {
+            if (vocab == null) {
+                log.info("Tokenizer vocabulary {} not found, falling back to character estimate", encoding);
+                return HeuristicTokenizer.DEFAULT;
+            }
+            long start = System.currentTimeMillis();
+            BpeTokenizer tokenizer = BpeTokenizer.load(encoding, pattern, vocab);
+            log.info("Loaded tokenizer {} ({} tokens) in {}ms", encoding, tokenizer.getVocabularySize(),
+                    System.currentTimeMillis() - start);
+            return new CachingTokenizer(tokenizer, cacheSize);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load tokenizer vocabulary {}, falling back to character estimate", encoding, e);
+            return HeuristicTokenizer.DEFAULT;
+        }
+    }
+
+    private InputStream openVocab(String encoding) throws IOException {
+        if (vocabDir != null && !vocabDir.isBlank()) {
+            Path file = Paths.get(vocabDir, encoding + VOCAB_SUFFIX);
+            if (Files.isRegularFile(file)) {
+                return Files.newInputStream(file);
+            }
+        }
+        return TokenizerRegistry.class.getClassLoader().getResourceAsStream(CLASSPATH_DIR + encoding + VOCAB_SUFFIX);
+    }
+}
@@ -0,0 +1,29 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.ReviewIssue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 支持跨章节批量执行的审查规则
+ * 全书审查时由规则引擎一次传入多个章节，规则可将多个章节合并为一次AI请求
+ */
+public interface BatchReviewRule extends ReviewRule {
+
+    /**
+     * 批量检查多个章节
+     * @param context 审查上下文（全书数据）
+     * @param chapters 待检查的章节
+     * @return 章节ID -> 该章节发现的问题
+     */
+    Map<String, List<ReviewIssue>> checkBatch(ReviewContext context, List<Chapter> chapters);
+
+    /**
+     * 是否启用批量执行（默认启用）
+     */
+    default boolean supportsBatch() {
+        return true;
+    }
+}
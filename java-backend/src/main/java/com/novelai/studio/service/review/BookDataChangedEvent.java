@@ -0,0 +1,55 @@
+package com.novelai.studio.service.review;
+
+/**
+ * 书籍数据变更事件
+ * 章节、角色、设定等审查相关数据写入数据库后发布，用于维护审查上下文快照
+ */
+public class BookDataChangedEvent {
+
+    public static final String CHAPTER = "chapter";
+    public static final String CHARACTER = "character";
+    public static final String WORLD_SETTING = "world_setting";
+    public static final String FORESHADOW = "foreshadow";
+    public static final String STORY_EVENT = "story_event";
+    public static final String STATE_CHANGE = "state_change";
+    public static final String CHAPTER_SUMMARY = "chapter_summary";
+    public static final String BOOK = "book";
+
+    /**
+     * 书籍ID，无法确定时为 null（视为所有书籍都可能受影响）
+     */
+    private final String bookId;
+
+    /**
+     * 数据类型
+     */
+    private final String dataType;
+
+    /**
+     * 变更的记录ID，无法确定时为 null
+     */
+    private final String entityId;
+
+    public BookDataChangedEvent(String bookId, String dataType, String entityId) {
+        this.bookId = bookId;
+        this.dataType = dataType;
+        this.entityId = entityId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    @Override
+    public String toString() {
+        return "BookDataChangedEvent{" + dataType + ", book=" + bookId + ", id=" + entityId + "}";
+    }
+}
@@ -0,0 +1,172 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.*;
+import com.novelai.studio.service.review.index.BookEntityAutomaton;
+import com.novelai.studio.service.review.index.ChapterTextIndexCache;
+import com.novelai.studio.service.review.index.TimelinePhraseAutomaton;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 书籍审查数据快照
+ * 保存构建审查上下文所需的全书数据（章节只保存元数据）；章节变更只标记为待重新加载，其余数据变更使整个快照失效
+ */
+public class BookReviewSnapshot {
+
+    private final String bookId;
+
+    /**
+     * 加载时的数据版本
+     */
+    private final long version;
+
+    private final long loadedAt = System.currentTimeMillis();
+
+    private final Book book;
+    private final List<com.novelai.studio.entity.Character> characters;
+    private final Map<String, String> characterNameToId;
+    private final Map<String, com.novelai.studio.entity.Character> characterById;
+    private final List<WorldSetting> worldSettings;
+    private final List<Foreshadow> foreshadows;
+    private final List<StoryEvent> storyEvents;
+    private final List<CharacterStateChange> characterStateChanges;
+    private final List<ChapterSummary> chapterSummaries;
+    private final BookEntityAutomaton entityAutomaton;
+
+    /**
+     * 时间线短语自动机，随事件变更（快照失效）重新编译
+     */
+    private final TimelinePhraseAutomaton timelineAutomaton;
+
+    /**
+     * 章节列表（按序号排序，整体替换）
+     */
+    private volatile List<Chapter> chapters;
+
+    /**
+     * 待重新加载的章节ID
+     */
+    private final Set<String> dirtyChapterIds = ConcurrentHashMap.newKeySet();
+
+    private BookReviewSnapshot(ReviewContext context, long version) {
+        this.bookId = context.getBook().getId();
+        this.version = version;
+        this.book = context.getBook();
+        this.characters = Collections.unmodifiableList(context.getCharacters());
+        this.characterNameToId = Collections.unmodifiableMap(context.getCharacterNameToId());
+        this.characterById = Collections.unmodifiableMap(context.getCharacterById());
+        this.worldSettings = Collections.unmodifiableList(context.getWorldSettings());
+        this.foreshadows = Collections.unmodifiableList(context.getForeshadows());
+        this.storyEvents = Collections.unmodifiableList(context.getStoryEvents());
+        this.characterStateChanges = Collections.unmodifiableList(context.getCharacterStateChanges());
+        this.chapterSummaries = Collections.unmodifiableList(context.getChapterSummaries());
+        this.entityAutomaton = context.getEntityAutomaton();
+        this.timelineAutomaton = context.getTimelineAutomaton();
+        this.chapters = Collections.unmodifiableList(new ArrayList<>(context.getAllChapters()));
+    }
+
+    /**
+     * 由完整加载的审查上下文创建快照
+     */
+    public static BookReviewSnapshot of(ReviewContext context, long version) {
+        return new BookReviewSnapshot(context, version);
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public List<Chapter> getChapters() {
+        return chapters;
+    }
+
+    public boolean containsChapter(String chapterId) {
+        for (Chapter chapter : chapters) {
+            if (chapter.getId().equals(chapterId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 标记章节待重新加载（新增、修改、删除、调整顺序）
+     */
+    public void markChapterDirty(String chapterId) {
+        dirtyChapterIds.add(chapterId);
+    }
+
+    /**
+     * 取出并清空待重新加载的章节ID
+     */
+    public Set<String> drainDirtyChapterIds() {
+        Set<String> drained = new HashSet<>();
+        for (Iterator<String> it = dirtyChapterIds.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    /**
+     * 用重新加载的章节替换快照中的章节
+     * @param requestedIds 请求重新加载的章节ID
+     * @param reloaded 数据库中仍然存在的章节（不在其中的视为已删除）
+     */
+    public synchronized void applyReloadedChapters(Collection<String> requestedIds, Collection<Chapter> reloaded) {
+        Map<String, Chapter> byId = new HashMap<>();
+        for (Chapter chapter : reloaded) {
+            if (bookId.equals(chapter.getBookId())) {
+                byId.put(chapter.getId(), chapter);
+            }
+        }
+
+        List<Chapter> updated = new ArrayList<>(chapters.size() + byId.size());
+        for (Chapter chapter : chapters) {
+            if (!requestedIds.contains(chapter.getId())) {
+                updated.add(chapter);
+            } else if (byId.containsKey(chapter.getId())) {
+                updated.add(byId.remove(chapter.getId()));
+            }
+        }
+        // 新增的章节
+        updated.addAll(byId.values());
+        updated.sort(Comparator.comparing(Chapter::getOrderNum, Comparator.nullsLast(Comparator.naturalOrder())));
+        chapters = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * 基于快照创建审查上下文（各上下文的文本索引互不共享，列表数据只读共享）
+     */
+    public ReviewContext toContext(Chapter currentChapter, ChapterTextIndexCache textIndexCache,
+                                   Function<Chapter, String> contentLoader) {
+        return ReviewContext.builder()
+                .book(book)
+                .currentChapter(currentChapter)
+                .allChapters(chapters)
+                .characters(characters)
+                .characterNameToId(characterNameToId)
+                .characterById(characterById)
+                .worldSettings(worldSettings)
+                .foreshadows(foreshadows)
+                .storyEvents(storyEvents)
+                .characterStateChanges(characterStateChanges)
+                .chapterSummaries(chapterSummaries)
+                .entityAutomaton(entityAutomaton)
+                .timelineAutomaton(timelineAutomaton)
+                .textIndexCache(textIndexCache)
+                .contentLoader(contentLoader)
+                .reviewMode("single")
+                .build();
+    }
+}
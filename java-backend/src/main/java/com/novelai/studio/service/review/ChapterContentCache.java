@@ -0,0 +1,125 @@
+package com.novelai.studio.service.review;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.SoftReference;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 章节正文缓存
+ * 审查上下文只预加载章节元数据，规则需要其他章节正文时经此缓存按需加载。
+ * 按条目数和总字符数双重限制（LRU淘汰），正文以软引用保存，内存紧张时可被回收
+ */
+@Component
+public class ChapterContentCache {
+
+    /**
+     * 最多缓存的章节数
+     */
+    @Value("${review.context.content-cache-max-entries:64}")
+    private int maxEntries = 64;
+
+    /**
+     * 缓存正文的总字符数上限
+     */
+    @Value("${review.context.content-cache-max-chars:2000000}")
+    private long maxChars = 2_000_000L;
+
+    private final LinkedHashMap<String, CachedContent> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalChars;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 获取缓存的正文；版本（更新时间）不一致或已被回收时返回 null
+     */
+    public synchronized String get(String chapterId, LocalDateTime updatedAt) {
+        CachedContent cached = entries.get(chapterId);
+        String content = null;
+        if (cached != null) {
+            content = cached.content.get();
+            if (content == null || !Objects.equals(cached.updatedAt, updatedAt)) {
+                remove(chapterId);
+                content = null;
+            }
+        }
+        if (content == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return content;
+    }
+
+    public synchronized void put(String chapterId, LocalDateTime updatedAt, String content) {
+        if (content == null || content.length() > maxChars) {
+            return;
+        }
+        remove(chapterId);
+        entries.put(chapterId, new CachedContent(content, updatedAt));
+        totalChars += content.length();
+
+        Iterator<Map.Entry<String, CachedContent>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalChars > maxChars) && it.hasNext()) {
+            totalChars -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    public synchronized void remove(String chapterId) {
+        CachedContent removed = entries.remove(chapterId);
+        if (removed != null) {
+            totalChars -= removed.length;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalChars = 0;
+    }
+
+    /**
+     * 章节被修改时移除其正文
+     */
+    @EventListener
+    public void onBookDataChanged(BookDataChangedEvent event) {
+        if (!BookDataChangedEvent.CHAPTER.equals(event.getDataType())) {
+            return;
+        }
+        if (event.getEntityId() != null) {
+            remove(event.getEntityId());
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.size());
+        stats.put("totalChars", totalChars);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    private static final class CachedContent {
+        final SoftReference<String> content;
+        final LocalDateTime updatedAt;
+        final int length;
+
+        CachedContent(String content, LocalDateTime updatedAt) {
+            this.content = new SoftReference<>(content);
+            this.updatedAt = updatedAt;
+            this.length = content.length();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.ReviewIssue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 章节上次审查的基线：审查时的段落及局部规则发现的问题，用于下次增量审查
+ */
+public class ChapterReviewBaseline {
+
+    private final String bookId;
+    private final Integer chapterOrder;
+
+    /**
+     * 书籍级数据指纹（实体、事件顺序、章节顺序、状态变更变化后基线失效）
+     */
+    private final String bookDataFingerprint;
+
+    private final String[] paragraphs;
+    private final int[] paragraphStarts;
+
+    /**
+     * 局部规则名称 -> 该规则发现的问题
+     */
+    private final Map<String, List<ReviewIssue>> localIssues;
+
+    public ChapterReviewBaseline(String bookId, Integer chapterOrder, String bookDataFingerprint,
+                                 String[] paragraphs, int[] paragraphStarts,
+                                 Map<String, List<ReviewIssue>> localIssues) {
+        this.bookId = bookId;
+        this.chapterOrder = chapterOrder;
+        this.bookDataFingerprint = bookDataFingerprint;
+        this.paragraphs = paragraphs;
+        this.paragraphStarts = paragraphStarts;
+        this.localIssues = localIssues;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public Integer getChapterOrder() {
+        return chapterOrder;
+    }
+
+    public String getBookDataFingerprint() {
+        return bookDataFingerprint;
+    }
+
+    public String[] getParagraphs() {
+        return paragraphs;
+    }
+
+    public int[] getParagraphStarts() {
+        return paragraphStarts;
+    }
+
+    public Map<String, List<ReviewIssue>> getLocalIssues() {
+        return localIssues;
+    }
+}
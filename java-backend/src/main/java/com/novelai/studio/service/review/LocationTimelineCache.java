@@ -0,0 +1,134 @@
+package com.novelai.studio.service.review;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.novelai.studio.entity.StoryEvent;
+import com.novelai.studio.mapper.StoryEventMapper;
+import com.novelai.studio.service.review.index.LocationTimeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 角色位置时间线缓存
+ * 每本书维护一个 {@link LocationTimeline}，首次使用时由全部事件构建；
+ * 之后故事事件的新增、修改、删除只标记该事件待重新加载，下次读取时按事件增量更新
+ */
+@Component
+public class LocationTimelineCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationTimelineCache.class);
+
+    /**
+     * 最多缓存的书籍数
+     */
+    private static final int MAX_BOOKS = 16;
+
+    @Autowired
+    private StoryEventMapper storyEventMapper;
+
+    private final Map<String, Entry> timelines = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_BOOKS;
+                }
+            });
+
+    /**
+     * 获取书籍的位置时间线，先应用待重新加载的事件
+     */
+    public LocationTimeline getTimeline(String bookId) {
+        Entry entry;
+        synchronized (timelines) {
+            // 先登记再加载，加载期间发生的事件变更会被标记，下次读取时补上
+            entry = timelines.computeIfAbsent(bookId, k -> new Entry());
+        }
+
+        LocationTimeline timeline = entry.timeline;
+        synchronized (entry) {
+            if (!entry.loaded) {
+                try {
+                    QueryWrapper<StoryEvent> query = new QueryWrapper<>();
+                    query.eq("book_id", bookId).orderByAsc("chapter_order");
+                    for (StoryEvent event : storyEventMapper.selectList(query)) {
+                        timeline.apply(event);
+                    }
+                } catch (RuntimeException e) {
+                    timelines.remove(bookId, entry);
+                    throw e;
+                }
+                entry.loaded = true;
+                log.debug("Built location timeline for book {}: {} characters", bookId, timeline.characterCount());
+            }
+
+            Set<String> reloadIds = timeline.drainDirtyEventIds();
+            if (!reloadIds.isEmpty()) {
+                try {
+                    // 书籍ID未知的变更会标记到所有时间线，其他书籍的事件按不存在处理
+                    List<StoryEvent> reloaded = new ArrayList<>();
+                    for (StoryEvent event : storyEventMapper.selectBatchIds(reloadIds)) {
+                        if (bookId.equals(event.getBookId())) {
+                            reloaded.add(event);
+                        }
+                    }
+                    timeline.applyReloadedEvents(reloadIds, reloaded);
+                } catch (RuntimeException e) {
+                    for (String id : reloadIds) {
+                        timeline.markEventDirty(id);
+                    }
+                    throw e;
+                }
+            }
+        }
+        return timeline;
+    }
+
+    public void invalidate(String bookId) {
+        timelines.remove(bookId);
+    }
+
+    public void clear() {
+        timelines.clear();
+    }
+
+    @EventListener
+    public void onBookDataChanged(BookDataChangedEvent event) {
+        String bookId = event.getBookId();
+        if (BookDataChangedEvent.STORY_EVENT.equals(event.getDataType())) {
+            if (event.getEntityId() == null) {
+                // 无法确定变更的事件（如按条件批量删除），重新构建
+                if (bookId != null) {
+                    invalidate(bookId);
+                } else {
+                    clear();
+                }
+                return;
+            }
+            synchronized (timelines) {
+                for (Map.Entry<String, Entry> entry : timelines.entrySet()) {
+                    if (bookId == null || bookId.equals(entry.getKey())) {
+                        entry.getValue().timeline.markEventDirty(event.getEntityId());
+                    }
+                }
+            }
+        } else if (BookDataChangedEvent.BOOK.equals(event.getDataType())) {
+            if (bookId != null) {
+                invalidate(bookId);
+            } else {
+                clear();
+            }
+        }
+    }
+
+    /**
+     * 书籍时间线及其是否已完成首次加载（在 entry 锁内读写）
+     */
+    private static class Entry {
+        final LocationTimeline timeline = new LocationTimeline();
+        boolean loaded;
+    }
+}
@@ -0,0 +1,65 @@
+package com.novelai.studio.service.review;
+
+/**
+ * 段落级差异
+ * 按公共前缀、公共后缀比较新旧段落，中间部分视为被修改的区域（自动保存通常只改动一处）
+ */
+public final class ParagraphDiff {
+
+    private final int oldCount;
+    private final int newCount;
+    private final int prefix;
+    private final int suffix;
+
+    private ParagraphDiff(int oldCount, int newCount, int prefix, int suffix) {
+        this.oldCount = oldCount;
+        this.newCount = newCount;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    public static ParagraphDiff of(String[] oldParagraphs, String[] newParagraphs) {
+        int max = Math.min(oldParagraphs.length, newParagraphs.length);
+        int prefix = 0;
+        while (prefix < max && oldParagraphs[prefix].equals(newParagraphs[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && oldParagraphs[oldParagraphs.length - 1 - suffix].equals(newParagraphs[newParagraphs.length - 1 - suffix])) {
+            suffix++;
+        }
+        return new ParagraphDiff(oldParagraphs.length, newParagraphs.length, prefix, suffix);
+    }
+
+    /**
+     * 新内容中被修改区域的起点（含）
+     */
+    public int changedStart() {
+        return prefix;
+    }
+
+    /**
+     * 新内容中被修改区域的终点（不含）；与起点相等表示只删除了段落
+     */
+    public int changedEnd() {
+        return newCount - suffix;
+    }
+
+    public boolean isUnchanged() {
+        return oldCount == newCount && prefix == newCount;
+    }
+
+    /**
+     * 旧段落在新内容中的序号，位于修改区域内时返回 -1
+     */
+    public int mapOldParagraph(int oldIndex) {
+        if (oldIndex < prefix) {
+            return oldIndex;
+        }
+        if (oldIndex >= oldCount - suffix && oldIndex < oldCount) {
+            return oldIndex + (newCount - oldCount);
+        }
+        return -1;
+    }
+}
@@ -3,75 +3,221 @@ package com.novelai.studio.service.review;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 实时审查服务
  * 提供章节保存时的自动审查功能
+ *
+ * 采用按章节的尾沿防抖：连续保存只在最后一次保存后静默一段时间才审查，
+ * 持续保存时最长等待 maxWait 也会审查一次；新的保存会取消仍在执行的旧审查，
+ * 同一章节同时最多只有一个审查在执行
  */
 @Service
 public class RealtimeReviewService {
 
     private static final Logger log = LoggerFactory.getLogger(RealtimeReviewService.class);
 
+    /**
+     * 跟踪的章节状态上限
+     */
+    private static final int MAX_TRACKED_CHAPTERS = 512;
+
+    /**
+     * 审查结果缓存上限
+     */
+    private static final int MAX_CACHED_REPORTS = 256;
+
     @Autowired
     private RuleEngineService ruleEngineService;
 
     /**
-     * 防抖时间（毫秒）
+     * 防抖时间（毫秒）：最后一次保存后静默多久才审查
+     */
+    @Value("${review.realtime.debounce-ms:3000}")
+    private long debounceMs = 3000;
+
+    /**
+     * 最长等待时间（毫秒）：持续保存时距第一次未审查的保存最多等待多久
      */
-    private static final long DEBOUNCE_TIME = 3000;
+    @Value("${review.realtime.max-wait-ms:15000}")
+    private long maxWaitMs = 15000;
 
     /**
-     * 最后审查时间记录
+     * 同时执行的实时审查数上限
      */
-    private final Map<String, Long> lastReviewTime = new ConcurrentHashMap<>();
+    @Value("${review.realtime.max-concurrent:2}")
+    private int maxConcurrent = 2;
+
+    private ScheduledExecutorService scheduler;
+
+    private ThreadPoolExecutor workers;
 
     /**
-     * 审查结果缓存
+     * 章节审查调度状态
      */
-    private final Map<String, ReviewReport> reviewCache = new ConcurrentHashMap<>();
+    private final Map<String, ChapterState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 审查结果缓存（LRU）
+     */
+    private final Map<String, ReviewReport> reviewCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ReviewReport> eldest) {
+                    return size() > MAX_CACHED_REPORTS;
+                }
+            });
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "realtime-review-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = new ThreadPoolExecutor(
+                maxConcurrent, maxConcurrent,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "realtime-review-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
 
     /**
      * 章节保存时触发的快速审查
-     * 仅执行Level A规则（确定性错误）
+     * 仅执行Level A规则（确定性错误），在防抖时间后异步执行
      */
-    @Async
     public void onChapterSaved(String bookId, String chapterId) {
-        String key = chapterId;
-
-        // 防抖处理
         long now = System.currentTimeMillis();
-        Long lastTime = lastReviewTime.get(key);
-        if (lastTime != null && now - lastTime < DEBOUNCE_TIME) {
-            log.debug("Debouncing review for chapter: {}", chapterId);
-            return;
+
+        while (true) {
+            ChapterState state = states.computeIfAbsent(chapterId, k -> new ChapterState());
+            synchronized (state) {
+                if (state.removed) {
+                    continue;
+                }
+                state.bookId = bookId;
+                state.version++;
+
+                // 正在执行的审查已过期（达到最长等待而强制执行的除外，否则持续保存时永远得不到结果）
+                if (state.running != null && !state.running.forced) {
+                    state.running.cancelled = true;
+                }
+
+                if (state.timer != null) {
+                    state.timer.cancel(false);
+                    log.debug("Debouncing review for chapter: {}", chapterId);
+                }
+                if (state.firstPendingAt == 0) {
+                    state.firstPendingAt = now;
+                }
+                long delay = Math.min(debounceMs, Math.max(0, state.firstPendingAt + maxWaitMs - now));
+                state.timerForced = delay < debounceMs;
+                state.timer = scheduler.schedule(() -> onTimer(chapterId, state), delay, TimeUnit.MILLISECONDS);
+            }
+            break;
         }
-        lastReviewTime.put(key, now);
 
-        try {
-            log.info("Starting realtime review for chapter: {}", chapterId);
+        if (states.size() > MAX_TRACKED_CHAPTERS) {
+            evictIdleStates();
+        }
+    }
 
-            // 只执行Level A规则
-            ReviewReport report = ruleEngineService.reviewChapter(
-                    bookId,
-                    chapterId,
-                    Arrays.asList(ReviewLevel.ERROR)
-            );
+    /**
+     * 防抖到期：没有执行中的审查则立即提交，否则等其结束后再执行
+     */
+    private void onTimer(String chapterId, ChapterState state) {
+        synchronized (state) {
+            state.timer = null;
+            state.firstPendingAt = 0;
+            if (state.removed) {
+                return;
+            }
+            if (state.running != null) {
+                state.rerunRequested = true;
+                return;
+            }
+            startRun(chapterId, state, state.timerForced);
+        }
+    }
+
+    /**
+     * 提交审查任务（调用方持有 state 锁）
+     */
+    private void startRun(String chapterId, ChapterState state, boolean forced) {
+        ReviewRun run = new ReviewRun(state.version, forced);
+        state.running = run;
+        String bookId = state.bookId;
+        workers.execute(() -> executeRun(bookId, chapterId, state, run));
+    }
 
-            // 缓存结果
-            reviewCache.put(key, report);
+    private void executeRun(String bookId, String chapterId, ChapterState state, ReviewRun run) {
+        ReviewReport report = null;
+        try {
+            if (!run.cancelled) {
+                log.info("Starting realtime review for chapter: {}", chapterId);
 
-            log.info("Realtime review completed for chapter: {}, found {} issues",
-                    chapterId, report.getTotalIssues());
+                // 只执行Level A规则
+                report = ruleEngineService.reviewChapterWithSnapshot(
+                        bookId,
+                        chapterId,
+                        Arrays.asList(ReviewLevel.ERROR),
+                        run
+                );
 
+                log.info("Realtime review completed for chapter: {}, found {} issues",
+                        chapterId, report.getTotalIssues());
+            }
+        } catch (CancellationException e) {
+            log.debug("Superseded realtime review cancelled for chapter: {}", chapterId);
         } catch (Exception e) {
             log.error("Realtime review failed for chapter: {}", chapterId, e);
+        } finally {
+            synchronized (state) {
+                state.running = null;
+                // 只缓存仍然对应最新版本的结果，强制执行的结果虽已过期但仍是当前最新的
+                if (report != null && !run.cancelled && (run.version == state.version || run.forced)) {
+                    reviewCache.put(chapterId, report);
+                }
+                if (state.rerunRequested && !state.removed) {
+                    state.rerunRequested = false;
+                    startRun(chapterId, state, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除没有待执行或执行中审查的章节状态
+     */
+    private void evictIdleStates() {
+        for (Map.Entry<String, ChapterState> entry : states.entrySet()) {
+            ChapterState state = entry.getValue();
+            synchronized (state) {
+                if (state.isIdle()) {
+                    state.removed = true;
+                    states.remove(entry.getKey(), state);
+                }
+            }
         }
     }
 
@@ -83,11 +229,14 @@ public class RealtimeReviewService {
     }
 
     /**
-     * 清除章节的审查缓存
+     * 清除章节的审查缓存，并取消该章节待执行的审查
      */
     public void clearCache(String chapterId) {
         reviewCache.remove(chapterId);
-        lastReviewTime.remove(chapterId);
+        ChapterState state = states.remove(chapterId);
+        if (state != null) {
+            state.cancel();
+        }
     }
 
     /**
@@ -95,7 +244,12 @@ public class RealtimeReviewService {
      */
     public void clearAllCache() {
         reviewCache.clear();
-        lastReviewTime.clear();
+        for (String chapterId : new ArrayList<>(states.keySet())) {
+            ChapterState state = states.remove(chapterId);
+            if (state != null) {
+                state.cancel();
+            }
+        }
     }
 
     /**
@@ -115,4 +269,53 @@ public class RealtimeReviewService {
             return null;
         }
     }
+
+    /**
+     * 单个章节的调度状态，所有字段在 state 锁内读写
+     */
+    private static class ChapterState {
+        String bookId;
+        long version;
+        long firstPendingAt;
+        ScheduledFuture<?> timer;
+        boolean timerForced;
+        ReviewRun running;
+        boolean rerunRequested;
+        boolean removed;
+
+        boolean isIdle() {
+            return timer == null && running == null && !rerunRequested;
+        }
+
+        synchronized void cancel() {
+            removed = true;
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+            if (running != null) {
+                running.cancelled = true;
+            }
+            rerunRequested = false;
+        }
+    }
+
+    /**
+     * 一次审查执行，被新的保存取代时标记取消，规则引擎在规则之间检查
+     */
+    private static class ReviewRun implements ReviewProgressListener {
+        final long version;
+        final boolean forced;
+        volatile boolean cancelled;
+
+        ReviewRun(long version, boolean forced) {
+            this.version = version;
+            this.forced = forced;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package com.novelai.studio.service.review;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 章节审查基线缓存（LRU）
+ * 章节本身的修改正是增量审查要处理的差异，不使基线失效；
+ * 书籍其他数据（角色、事件、设定等）变化会影响局部规则的结果，使该书的所有基线失效
+ */
+@Component
+public class ReviewBaselineCache {
+
+    private static final int MAX_BASELINES = 256;
+
+    private final Map<String, ChapterReviewBaseline> baselines = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ChapterReviewBaseline> eldest) {
+                    return size() > MAX_BASELINES;
+                }
+            });
+
+    public ChapterReviewBaseline get(String chapterId) {
+        return baselines.get(chapterId);
+    }
+
+    public void put(String chapterId, ChapterReviewBaseline baseline) {
+        baselines.put(chapterId, baseline);
+    }
+
+    public void remove(String chapterId) {
+        baselines.remove(chapterId);
+    }
+
+    public void clear() {
+        baselines.clear();
+    }
+
+    @EventListener
+    public void onBookDataChanged(BookDataChangedEvent event) {
+        if (BookDataChangedEvent.CHAPTER.equals(event.getDataType())) {
+            return;
+        }
+        if (event.getBookId() == null) {
+            clear();
+            return;
+        }
+        synchronized (baselines) {
+            baselines.values().removeIf(b -> event.getBookId().equals(b.getBookId()));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.novelai.studio.service.review;
 
+import cn.hutool.crypto.SecureUtil;
 import com.novelai.studio.entity.Book;
 import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.ChapterSummary;
@@ -7,10 +8,23 @@ import com.novelai.studio.entity.CharacterStateChange;
 import com.novelai.studio.entity.Foreshadow;
 import com.novelai.studio.entity.StoryEvent;
 import com.novelai.studio.entity.WorldSetting;
+import com.novelai.studio.service.review.analysis.AnalyzerRegistry;
+import com.novelai.studio.service.review.analysis.ChapterFacts;
+import com.novelai.studio.service.review.analysis.FactKey;
+import com.novelai.studio.service.review.index.BookEntityAutomaton;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.ChapterTextIndexCache;
+import com.novelai.studio.service.review.index.LocationTimeline;
+import com.novelai.studio.service.review.index.OccurrenceIndex;
+import com.novelai.studio.service.review.index.TimelinePhraseAutomaton;
 import lombok.Data;
 import lombok.Builder;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * 规则执行上下文
@@ -31,7 +45,7 @@ public class ReviewContext {
     private Chapter currentChapter;
 
     /**
-     * 书籍的所有章节（按顺序）
+     * 书籍的所有章节（按顺序，只含元数据时正文通过 getChapterContent 获取）
      */
     private List<Chapter> allChapters;
 
@@ -80,4 +94,199 @@ public class ReviewContext {
      */
     @Builder.Default
     private String reviewMode = "single";
+
+    /**
+     * 书籍实体自动机（角色名称/别名、事件标题、地点），未设置时按需构建
+     */
+    private BookEntityAutomaton entityAutomaton;
+
+    /**
+     * 时间线短语自动机（事件标题与关系词组合），未设置时按需构建
+     */
+    private TimelinePhraseAutomaton timelineAutomaton;
+
+    /**
+     * 角色位置时间线（跨审查共享、按事件增量更新），未设置时由本上下文的事件按需构建
+     */
+    private LocationTimeline locationTimeline;
+
+    /**
+     * 书籍级数据指纹（实体、事件顺序与地点、章节顺序、角色状态变更），未设置时按需计算
+     */
+    private String bookDataFingerprint;
+
+    /**
+     * 跨审查共享的章节文本索引缓存（可为空，为空时仅在本上下文内缓存）
+     */
+    private ChapterTextIndexCache textIndexCache;
+
+    /**
+     * 本上下文内的章节文本索引：chapterId -> 索引
+     */
+    @Builder.Default
+    private Map<String, ChapterTextIndex> textIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * 各章节的分析事实（提及、地点、时间标记等），按需计算并在规则之间共享
+     */
+    @Builder.Default
+    private Map<String, ChapterFacts> chapterFacts = new ConcurrentHashMap<>();
+
+    /**
+     * 产出分析事实的分析器
+     */
+    @Builder.Default
+    private AnalyzerRegistry analyzerRegistry = AnalyzerRegistry.defaults();
+
+    /**
+     * 章节正文加载器（allChapters 只含元数据时按需加载正文，可为空）
+     */
+    private Function<Chapter, String> contentLoader;
+
+    /**
+     * 预加载的章节正文：chapterId -> 正文（全书审查时一次批量加载，逐章规则与批量AI规则共用）
+     */
+    @Builder.Default
+    private Map<String, String> chapterContents = new ConcurrentHashMap<>();
+
+    /**
+     * 当前执行规则的预算（截止时间、token 配额），由规则执行守护为每次执行单独绑定到执行线程
+     */
+    public RuleBudget getRuleBudget() {
+        return RuleBudget.current();
+    }
+
+    public BookEntityAutomaton getEntityAutomaton() {
+        if (entityAutomaton == null) {
+            entityAutomaton = BookEntityAutomaton.build(characterNameToId, storyEvents, worldSettings);
+        }
+        return entityAutomaton;
+    }
+
+    public TimelinePhraseAutomaton getTimelineAutomaton() {
+        if (timelineAutomaton == null) {
+            timelineAutomaton = TimelinePhraseAutomaton.build(storyEvents);
+        }
+        return timelineAutomaton;
+    }
+
+    public LocationTimeline getLocationTimeline() {
+        if (locationTimeline == null) {
+            locationTimeline = LocationTimeline.build(storyEvents);
+        }
+        return locationTimeline;
+    }
+
+    /**
+     * 书籍级数据指纹：增量审查复用基线的前提是规则读取的书籍级数据均未变化
+     */
+    public String getBookDataFingerprint() {
+        if (bookDataFingerprint == null) {
+            List<String> entries = new ArrayList<>();
+            if (storyEvents != null) {
+                for (StoryEvent event : storyEvents) {
+                    entries.add("event|" + event.getId() + "|" + event.getTimelineOrder() + "|" + event.getChapterOrder()
+                            + "|" + event.getLocation() + "|" + event.getInvolvedCharacters());
+                }
+            }
+            if (allChapters != null) {
+                for (Chapter chapter : allChapters) {
+                    entries.add("chapter|" + chapter.getId() + "|" + chapter.getOrderNum());
+                }
+            }
+            if (characterStateChanges != null) {
+                for (CharacterStateChange change : characterStateChanges) {
+                    entries.add("state|" + change.getCharacterId() + "|" + change.getField() + "|"
+                            + change.getNewValue() + "|" + change.getChapterOrder());
+                }
+            }
+            // 与加载顺序无关
+            Collections.sort(entries);
+            entries.add(0, getEntityAutomaton().getFingerprint());
+            bookDataFingerprint = SecureUtil.md5(String.join("\n", entries));
+        }
+        return bookDataFingerprint;
+    }
+
+    /**
+     * 获取章节正文：已加载或已预加载则直接返回，否则通过正文加载器按需加载（不回写到章节对象）
+     */
+    public String getChapterContent(Chapter chapter) {
+        if (chapter == null) {
+            return null;
+        }
+        if (chapter.getContent() != null) {
+            return chapter.getContent();
+        }
+        String preloaded = chapter.getId() != null ? chapterContents.get(chapter.getId()) : null;
+        if (preloaded != null || contentLoader == null) {
+            return preloaded;
+        }
+        return contentLoader.apply(chapter);
+    }
+
+    /**
+     * 获取章节的分析事实；章节内容变化（文本索引重建）后重新分析
+     */
+    public ChapterFacts getFacts(Chapter chapter) {
+        ChapterTextIndex textIndex = getTextIndex(chapter);
+        if (chapter == null || chapter.getId() == null) {
+            return new ChapterFacts(this, chapter, textIndex, analyzerRegistry);
+        }
+        ChapterFacts facts = chapterFacts.get(chapter.getId());
+        if (facts == null || facts.getTextIndex() != textIndex) {
+            facts = new ChapterFacts(this, chapter, textIndex, analyzerRegistry);
+            chapterFacts.put(chapter.getId(), facts);
+        }
+        return facts;
+    }
+
+    /**
+     * 读取章节的单个分析事实
+     */
+    public <T> T getFact(Chapter chapter, FactKey<T> key) {
+        return getFacts(chapter).get(key);
+    }
+
+    /**
+     * 释放章节的文本索引和分析事实
+     */
+    public void releaseChapter(String chapterId) {
+        textIndexes.remove(chapterId);
+        chapterFacts.remove(chapterId);
+    }
+
+    /**
+     * 获取章节文本索引（段落、句子、关键词命中、实体出现），按内容构建一次后供所有规则共享
+     */
+    public ChapterTextIndex getTextIndex(Chapter chapter) {
+        String content = getChapterContent(chapter);
+        if (content == null) {
+            return ChapterTextIndex.build("", null);
+        }
+        if (chapter.getId() == null) {
+            return buildTextIndex(content);
+        }
+        ChapterTextIndex index = textIndexes.get(chapter.getId());
+        // 同一章节内容变化（如实时审查中被编辑）时重新获取
+        if (index == null || !index.getContent().equals(content)) {
+            index = buildTextIndex(content);
+            textIndexes.put(chapter.getId(), index);
+        }
+        return index;
+    }
+
+    /**
+     * 获取章节的实体出现索引（每章只扫描一次，供所有规则共享）
+     */
+    public OccurrenceIndex getOccurrenceIndex(Chapter chapter) {
+        return getTextIndex(chapter).getOccurrences();
+    }
+
+    private ChapterTextIndex buildTextIndex(String content) {
+        if (textIndexCache != null) {
+            return textIndexCache.getOrBuild(content, getEntityAutomaton());
+        }
+        return ChapterTextIndex.build(content, getEntityAutomaton());
+    }
 }
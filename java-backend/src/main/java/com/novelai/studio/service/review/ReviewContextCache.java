@@ -0,0 +1,136 @@
+package com.novelai.studio.service.review;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 审查上下文快照缓存
+ * 按书籍缓存 {@link BookReviewSnapshot}，由 {@link BookDataChangedEvent} 维护：
+ * 章节变更只标记该章节待重新加载，其他审查数据变更使快照失效。
+ * 每本书维护一个数据版本号，加载期间发生变更的快照不会被缓存
+ */
+@Component
+public class ReviewContextCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewContextCache.class);
+
+    /**
+     * 最多缓存的书籍数
+     */
+    private static final int MAX_BOOKS = 16;
+
+    /**
+     * 快照最长有效期（秒），作为事件遗漏时的兜底
+     */
+    @Value("${review.context.snapshot-ttl-seconds:600}")
+    private long ttlSeconds = 600;
+
+    private final Map<String, BookReviewSnapshot> snapshots = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, BookReviewSnapshot> eldest) {
+                    return size() > MAX_BOOKS;
+                }
+            });
+
+    /**
+     * 书籍数据版本号
+     */
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 书籍ID未知的变更计数（对所有书籍生效）
+     */
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 当前数据版本（加载快照前读取）
+     */
+    public long currentVersion(String bookId) {
+        AtomicLong version = versions.get(bookId);
+        return (version != null ? version.get() : 0) + globalVersion.get();
+    }
+
+    /**
+     * 获取有效的快照，不存在或已过期返回 null
+     */
+    public BookReviewSnapshot get(String bookId) {
+        BookReviewSnapshot snapshot = snapshots.get(bookId);
+        if (snapshot != null && System.currentTimeMillis() - snapshot.getLoadedAt() > ttlSeconds * 1000) {
+            snapshots.remove(bookId, snapshot);
+            snapshot = null;
+        }
+        if (snapshot == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 缓存快照；加载期间数据已变更则放弃缓存
+     */
+    public void put(BookReviewSnapshot snapshot) {
+        synchronized (snapshots) {
+            if (snapshot.getVersion() == currentVersion(snapshot.getBookId())) {
+                snapshots.put(snapshot.getBookId(), snapshot);
+            }
+        }
+    }
+
+    public void invalidate(String bookId) {
+        snapshots.remove(bookId);
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    @EventListener
+    public void onBookDataChanged(BookDataChangedEvent event) {
+        String bookId = event.getBookId();
+        synchronized (snapshots) {
+            if (bookId != null) {
+                versions.computeIfAbsent(bookId, k -> new AtomicLong()).incrementAndGet();
+            } else {
+                globalVersion.incrementAndGet();
+            }
+
+            if (BookDataChangedEvent.CHAPTER.equals(event.getDataType()) && event.getEntityId() != null) {
+                // 章节变更只需重新加载该章节
+                for (BookReviewSnapshot snapshot : snapshots.values()) {
+                    if (bookId == null ? snapshot.containsChapter(event.getEntityId()) : bookId.equals(snapshot.getBookId())) {
+                        snapshot.markChapterDirty(event.getEntityId());
+                    }
+                }
+            } else if (bookId != null) {
+                snapshots.remove(bookId);
+            } else {
+                snapshots.clear();
+            }
+        }
+        log.debug("Review context snapshot updated by {}", event);
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", snapshots.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
@@ -0,0 +1,250 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.ReviewIssue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * 异步全书审查任务
+ * 记录任务状态和进度，并将进度、问题推送给所有SSE订阅者
+ */
+public class ReviewJob implements ReviewProgressListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewJob.class);
+
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_CANCELLED = "cancelled";
+    public static final String STATUS_FAILED = "failed";
+
+    private final String id;
+    private final String bookId;
+    private final List<String> levels;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private volatile String status = STATUS_QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile int totalChapters;
+    private volatile int completedChapters;
+    private volatile int issuesFound;
+    private volatile String currentStage;
+    private volatile String errorMessage;
+    private volatile LocalDateTime finishedAt;
+    private volatile ReviewReport report;
+    private volatile Future<?> future;
+
+    public ReviewJob(String bookId, List<String> levels) {
+        this.id = UUID.randomUUID().toString();
+        this.bookId = bookId;
+        this.levels = levels;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public List<String> getLevels() {
+        return levels;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public ReviewReport getReport() {
+        return report;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * 任务是否已结束（完成、取消或失败）
+     */
+    public boolean isFinished() {
+        return STATUS_COMPLETED.equals(status) || STATUS_CANCELLED.equals(status) || STATUS_FAILED.equals(status);
+    }
+
+    /**
+     * 请求取消；排队中的任务直接取消，运行中的任务在当前章节结束后停止
+     */
+    public void cancel() {
+        cancelRequested = true;
+        Future<?> f = future;
+        if (STATUS_QUEUED.equals(status) && f != null && f.cancel(false)) {
+            markCancelled();
+        }
+    }
+
+    /**
+     * 任务状态快照
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("jobId", id);
+        map.put("bookId", bookId);
+        map.put("status", status);
+        map.put("totalChapters", totalChapters);
+        map.put("completedChapters", completedChapters);
+        map.put("issuesFound", issuesFound);
+        map.put("stage", currentStage);
+        map.put("createdAt", createdAt);
+        map.put("finishedAt", finishedAt);
+        if (errorMessage != null) {
+            map.put("error", errorMessage);
+        }
+        return map;
+    }
+
+    /**
+     * 添加SSE订阅者，先推送当前状态；已结束的任务推送终态后立即关闭
+     */
+    public void subscribe(SseEmitter emitter) {
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        if (!sendTo(emitter, "status", snapshot())) {
+            return;
+        }
+        // 与 finish 在同一把锁下判断并加入，避免任务恰好在两步之间结束而订阅者永远不被关闭
+        synchronized (emitters) {
+            if (!isFinished()) {
+                emitters.add(emitter);
+                return;
+            }
+        }
+        sendTo(emitter, terminalEvent(), snapshot());
+        emitter.complete();
+    }
+
+    // ========== 生命周期（由 ReviewJobService 调用） ==========
+
+    void markRunning() {
+        status = STATUS_RUNNING;
+        broadcast("status", snapshot());
+    }
+
+    void markCompleted(ReviewReport report) {
+        this.report = report;
+        finish(cancelRequested ? STATUS_CANCELLED : STATUS_COMPLETED);
+    }
+
+    void markCancelled() {
+        finish(STATUS_CANCELLED);
+    }
+
+    void markFailed(Exception e) {
+        errorMessage = e.getMessage();
+        finish(STATUS_FAILED);
+    }
+
+    private void finish(String finalStatus) {
+        List<SseEmitter> subscribers;
+        synchronized (emitters) {
+            if (isFinished()) {
+                return;
+            }
+            finishedAt = LocalDateTime.now();
+            currentStage = null;
+            status = finalStatus;
+            subscribers = new ArrayList<>(emitters);
+            emitters.clear();
+        }
+        String event = terminalEvent();
+        Map<String, Object> data = snapshot();
+        for (SseEmitter emitter : subscribers) {
+            sendTo(emitter, event, data);
+            emitter.complete();
+        }
+    }
+
+    private String terminalEvent() {
+        switch (status) {
+            case STATUS_CANCELLED: return "cancelled";
+            case STATUS_FAILED: return "error";
+            default: return "done";
+        }
+    }
+
+    // ========== ReviewProgressListener ==========
+
+    @Override
+    public void onStart(int totalChapters) {
+        this.totalChapters = totalChapters;
+        this.currentStage = "chapters";
+        broadcast("status", snapshot());
+    }
+
+    @Override
+    public void onChapterReviewed(Chapter chapter, int completedChapters, int totalChapters) {
+        this.completedChapters = completedChapters;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("chapterId", chapter.getId());
+        data.put("chapterOrder", chapter.getOrderNum());
+        data.put("completedChapters", completedChapters);
+        data.put("totalChapters", totalChapters);
+        data.put("issuesFound", issuesFound);
+        broadcast("progress", data);
+    }
+
+    @Override
+    public void onIssues(Chapter chapter, List<ReviewIssue> issues) {
+        issuesFound += issues.size();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("chapterId", chapter.getId());
+        data.put("chapterOrder", chapter.getOrderNum());
+        data.put("issues", issues);
+        broadcast("issues", data);
+    }
+
+    @Override
+    public void onBatchRuleStart(ReviewRule rule) {
+        this.currentStage = rule.getName();
+        broadcast("status", snapshot());
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    // ========== SSE ==========
+
+    private void broadcast(String event, Object data) {
+        for (SseEmitter emitter : emitters) {
+            if (!sendTo(emitter, event, data)) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private boolean sendTo(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Review job {} subscriber disconnected: {}", id, e.getMessage());
+            return false;
+        }
+    }
+}
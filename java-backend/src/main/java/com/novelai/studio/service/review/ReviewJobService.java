@@ -0,0 +1,164 @@
+package com.novelai.studio.service.review;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步审查任务服务
+ * 全书审查在有界线程池中后台执行，通过SSE推送进度，支持取消
+ */
+@Service
+public class ReviewJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewJobService.class);
+
+    /**
+     * SSE连接超时（30分钟）
+     */
+    private static final long SSE_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    @Autowired
+    private RuleEngineService ruleEngineService;
+
+    /**
+     * 同时运行的审查任务数上限
+     */
+    @Value("${review.job.max-concurrent:2}")
+    private int maxConcurrent = 2;
+
+    /**
+     * 排队等待的任务数上限
+     */
+    @Value("${review.job.queue-capacity:8}")
+    private int queueCapacity = 8;
+
+    /**
+     * 已结束任务的保留时间（分钟）
+     */
+    @Value("${review.job.retention-minutes:30}")
+    private int retentionMinutes = 30;
+
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, ReviewJob> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                maxConcurrent, maxConcurrent,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "review-job-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ReviewJob job : jobs.values()) {
+            job.cancel();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 提交全书审查任务；同一本书已有未结束的任务时直接返回该任务
+     * @throws IllegalStateException 任务数已达上限
+     */
+    public ReviewJob submitBookReview(String bookId, List<String> levels) {
+        purgeFinishedJobs();
+
+        synchronized (jobs) {
+            for (ReviewJob existing : jobs.values()) {
+                if (existing.getBookId().equals(bookId) && !existing.isFinished()) {
+                    return existing;
+                }
+            }
+
+            ReviewJob job = new ReviewJob(bookId, levels);
+            try {
+                job.setFuture(executor.submit(() -> runJob(job)));
+            } catch (RejectedExecutionException e) {
+                throw new IllegalStateException("审查任务过多，请稍后再试");
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        }
+    }
+
+    public ReviewJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 取消任务
+     * @return 任务不存在时返回 false
+     */
+    public boolean cancel(String jobId) {
+        ReviewJob job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        // 释放已取消的排队任务占用的队列位置
+        executor.purge();
+        return true;
+    }
+
+    /**
+     * 订阅任务事件流
+     * 事件：status（状态快照）、progress（章节进度）、issues（新发现的问题）、done / cancelled / error（终态）
+     */
+    public SseEmitter subscribe(String jobId) {
+        ReviewJob job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        job.subscribe(emitter);
+        return emitter;
+    }
+
+    private void runJob(ReviewJob job) {
+        if (job.isCancelled()) {
+            job.markCancelled();
+            return;
+        }
+        job.markRunning();
+        try {
+            ReviewReport report = ruleEngineService.reviewBook(job.getBookId(), job.getLevels(), job);
+            job.markCompleted(report);
+            log.info("Review job {} for book {} finished: {} issues, status {}",
+                    job.getId(), job.getBookId(), report.getTotalIssues(), job.getStatus());
+        } catch (Exception e) {
+            log.error("Review job {} for book {} failed: {}", job.getId(), job.getBookId(), e.getMessage(), e);
+            job.markFailed(e);
+        }
+    }
+
+    /**
+     * 清理超过保留时间的已结束任务
+     */
+    private void purgeFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished()
+                && job.getFinishedAt() != null
+                && job.getFinishedAt().isBefore(threshold));
+    }
+}
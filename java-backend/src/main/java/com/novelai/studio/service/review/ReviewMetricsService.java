@@ -0,0 +1,152 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.ReviewHistory;
+import com.novelai.studio.entity.ReviewRuleMetric;
+import com.novelai.studio.mapper.ReviewHistoryMapper;
+import com.novelai.studio.mapper.ReviewRuleMetricMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 审查指标服务
+ * 每次审查结束后异步写入 review_history 及各规则的执行指标，写入失败或队列已满时只记录日志，不影响审查
+ */
+@Service
+public class ReviewMetricsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewMetricsService.class);
+
+    @Autowired
+    private ReviewHistoryMapper reviewHistoryMapper;
+
+    @Autowired
+    private ReviewRuleMetricMapper reviewRuleMetricMapper;
+
+    /**
+     * 是否记录审查指标
+     */
+    @Value("${review.metrics.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 等待写入的审查记录数上限，超出时丢弃
+     */
+    @Value("${review.metrics.queue-capacity:500}")
+    private int queueCapacity = 500;
+
+    private ThreadPoolExecutor writer;
+
+    @PostConstruct
+    public void init() {
+        writer = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "review-metrics-writer");
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, executor) -> log.warn("Review metrics queue is full, dropping record"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 异步记录一次审查
+     */
+    public void record(ReviewReport report) {
+        if (!enabled || report == null || writer == null) {
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                persist(report);
+            } catch (Exception e) {
+                log.warn("Failed to persist review metrics for book {}: {}", report.getBookId(), e.getMessage());
+            }
+        });
+    }
+
+    private void persist(ReviewReport report) {
+        Map<String, Integer> byLevel = report.getIssuesByLevel() != null
+                ? report.getIssuesByLevel() : Collections.emptyMap();
+        LocalDateTime createdAt = report.getEndTime() != null ? report.getEndTime() : LocalDateTime.now();
+
+        ReviewHistory history = new ReviewHistory();
+        history.setId(report.getId());
+        history.setBookId(report.getBookId());
+        if ("single".equals(report.getReviewMode()) && report.getChapterIds() != null
+                && report.getChapterIds().size() == 1) {
+            history.setChapterId(report.getChapterIds().get(0));
+        }
+        history.setReviewMode(report.getReviewMode());
+        history.setRulesExecuted(report.getRulesExecuted());
+        history.setIssuesFound(report.getTotalIssues());
+        history.setErrorsCount(byLevel.getOrDefault(ReviewLevel.ERROR, 0));
+        history.setWarningsCount(byLevel.getOrDefault(ReviewLevel.WARNING, 0));
+        history.setSuggestionsCount(byLevel.getOrDefault(ReviewLevel.SUGGESTION, 0));
+        history.setDurationMs(report.getDuration());
+        history.setCreatedAt(createdAt);
+        reviewHistoryMapper.insert(history);
+
+        if (report.getRuleStats() == null) {
+            return;
+        }
+        for (RuleExecutionStats stats : report.getRuleStats()) {
+            ReviewRuleMetric metric = new ReviewRuleMetric();
+            metric.setHistoryId(history.getId());
+            metric.setBookId(report.getBookId());
+            metric.setReviewMode(report.getReviewMode());
+            metric.setRuleName(stats.getRuleName());
+            metric.setRuleLevel(stats.getLevel());
+            metric.setExecutions(stats.getExecutions());
+            metric.setIssuesFound(stats.getIssuesFound());
+            metric.setFailures(stats.getFailures());
+            metric.setTotalDurationMs(stats.getTotalDurationMs());
+            metric.setMaxDurationMs(stats.getMaxDurationMs());
+            metric.setCreatedAt(createdAt);
+            reviewRuleMetricMapper.insert(metric);
+        }
+    }
+
+    /**
+     * 获取书籍最近的审查记录
+     */
+    public List<ReviewHistory> getRecentHistory(String bookId, int limit) {
+        return reviewHistoryMapper.selectRecentByBookId(bookId, Math.max(1, Math.min(limit, 200)));
+    }
+
+    /**
+     * 获取某次审查的各规则指标
+     */
+    public List<ReviewRuleMetric> getRuleMetrics(String historyId) {
+        return reviewRuleMetricMapper.selectByHistoryId(historyId);
+    }
+
+    /**
+     * 按规则汇总最近若干天的执行指标（按平均耗时降序）
+     * @param bookId 为空时汇总所有书籍
+     */
+    public List<Map<String, Object>> summarizeRules(String bookId, int days) {
+        LocalDateTime since = LocalDateTime.now().minusDays(Math.max(1, days));
+        return reviewRuleMetricMapper.summarizeByRule(bookId, since);
+    }
+}
@@ -0,0 +1,53 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.ReviewIssue;
+
+import java.util.List;
+
+/**
+ * 审查进度监听器
+ * 全书审查过程中按章节回调进度和新发现的问题，并可请求取消
+ */
+public interface ReviewProgressListener {
+
+    /**
+     * 不做任何处理的监听器
+     */
+    ReviewProgressListener NONE = new ReviewProgressListener() {
+    };
+
+    /**
+     * 审查开始
+     * @param totalChapters 待审查章节数
+     */
+    default void onStart(int totalChapters) {
+    }
+
+    /**
+     * 单个章节的逐章规则执行完成
+     * @param completedChapters 已完成章节数
+     * @param totalChapters 待审查章节数
+     */
+    default void onChapterReviewed(Chapter chapter, int completedChapters, int totalChapters) {
+    }
+
+    /**
+     * 发现问题（已保存）
+     */
+    default void onIssues(Chapter chapter, List<ReviewIssue> issues) {
+    }
+
+    /**
+     * 批量规则开始执行
+     */
+    default void onBatchRuleStart(ReviewRule rule) {
+    }
+
+    /**
+     * 是否已请求取消，规则引擎在章节和规则之间检查
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
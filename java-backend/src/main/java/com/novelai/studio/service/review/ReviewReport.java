@@ -74,4 +74,9 @@ public class ReviewReport {
      * 执行的规则数量
      */
     private int rulesExecuted;
+
+    /**
+     * 各规则的执行统计（耗时、问题数、失败数）
+     */
+    private List<RuleExecutionStats> ruleStats;
 }
@@ -1,7 +1,11 @@
 package com.novelai.studio.service.review;
 
 import com.novelai.studio.entity.ReviewIssue;
+import com.novelai.studio.service.review.analysis.FactKey;
+
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 审查规则接口
@@ -58,4 +62,41 @@ public interface ReviewRule {
     default int getPriority() {
         return 100;
     }
+
+    /**
+     * 规则读取的分析事实；规则引擎在执行规则前统一计算，规则本身只做判断
+     */
+    default Set<FactKey<?>> getRequiredFacts() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * 局部规则的上下文窗口（段落数）
+     * 返回值 >= 0 表示规则发现的问题只取决于问题所在段落前后该数量段落内的文本（及书籍级数据），
+     * 且问题位置带有 paragraph；增量审查时只对修改过的段落及其窗口重新执行。默认 -1 表示需要整章文本
+     */
+    default int getLocalWindow() {
+        return -1;
+    }
+
+    /**
+     * 执行开销等级（默认：需要AI的规则为高开销，其余为低开销）
+     */
+    default RuleCost getCost() {
+        return requiresAI() ? RuleCost.EXPENSIVE : RuleCost.CHEAP;
+    }
+
+    /**
+     * 单章执行时限（毫秒），0 表示使用开销等级对应的默认时限
+     */
+    default long getTimeoutMs() {
+        return 0;
+    }
+
+    /**
+     * 单章 token 配额，0 表示不限（仅AI规则使用）
+     */
+    default int getTokenBudget() {
+        return 0;
+    }
 }
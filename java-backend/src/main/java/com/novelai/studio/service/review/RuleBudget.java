@@ -0,0 +1,107 @@
+package com.novelai.studio.service.review;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单次规则执行的预算：截止时间和 token 配额
+ * 由规则执行守护在每次执行规则前创建并绑定到执行线程，AI规则在每次请求前检查。
+ * 预算不放在共享的审查上下文中，超时后仍在运行的任务读到的始终是自己的预算
+ */
+public class RuleBudget {
+
+    /**
+     * 不限时、不限 token
+     */
+    public static final RuleBudget UNLIMITED = new RuleBudget(0, 0);
+
+    /**
+     * 截止时间（System.nanoTime），0 表示不限
+     */
+    private final long deadlineNanos;
+
+    /**
+     * token 配额，0 表示不限
+     */
+    private final int tokenBudget;
+
+    private final AtomicInteger tokensUsed = new AtomicInteger();
+
+    private static final ThreadLocal<RuleBudget> CURRENT = new ThreadLocal<>();
+
+    public RuleBudget(long timeoutMs, int tokenBudget) {
+        this.deadlineNanos = timeoutMs > 0 ? System.nanoTime() + timeoutMs * 1_000_000 : 0;
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * 当前线程正在执行的规则的预算，未绑定时不限
+     */
+    public static RuleBudget current() {
+        RuleBudget budget = CURRENT.get();
+        return budget != null ? budget : UNLIMITED;
+    }
+
+    /**
+     * 在当前线程绑定预算后执行任务
+     */
+    public static <T> T callWith(RuleBudget budget, Callable<T> task) throws Exception {
+        RuleBudget previous = CURRENT.get();
+        CURRENT.set(budget);
+        try {
+            return task.call();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 是否已超过截止时间
+     */
+    public boolean isExpired() {
+        return deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * 截止时间（毫秒时间戳），不限时返回 null
+     */
+    public Long deadlineMillis() {
+        return deadlineNanos != 0 ? System.currentTimeMillis() + remainingMs() : null;
+    }
+
+    /**
+     * 剩余时间（毫秒），不限时返回 Long.MAX_VALUE
+     */
+    public long remainingMs() {
+        if (deadlineNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, (deadlineNanos - System.nanoTime()) / 1_000_000);
+    }
+
+    /**
+     * 剩余配额能否支付预计的 token 数
+     */
+    public boolean canSpend(int estimatedTokens) {
+        return tokenBudget <= 0 || tokensUsed.get() + estimatedTokens <= tokenBudget;
+    }
+
+    /**
+     * 记录实际消耗的 token
+     */
+    public void spend(int tokens) {
+        tokensUsed.addAndGet(Math.max(0, tokens));
+    }
+
+    public int getTokensUsed() {
+        return tokensUsed.get();
+    }
+
+    public int getTokenBudget() {
+        return tokenBudget;
+    }
+}
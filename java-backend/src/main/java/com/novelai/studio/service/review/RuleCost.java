@@ -0,0 +1,23 @@
+package com.novelai.studio.service.review;
+
+/**
+ * 规则执行开销等级
+ * 决定规则的默认执行时限：低开销规则在审查线程内直接执行，其余规则在独立线程中执行并在超时后中断
+ */
+public enum RuleCost {
+
+    /**
+     * 纯文本/内存计算，通常毫秒级
+     */
+    CHEAP,
+
+    /**
+     * 较重的本地计算或数据库查询
+     */
+    MODERATE,
+
+    /**
+     * 需要调用AI等外部服务
+     */
+    EXPENSIVE
+}
@@ -1,16 +1,25 @@
 package com.novelai.studio.service.review;
 
+import cn.hutool.core.bean.BeanUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.novelai.studio.entity.*;
 import com.novelai.studio.mapper.*;
+import com.novelai.studio.service.review.analysis.AnalyzerRegistry;
+import com.novelai.studio.service.review.analysis.ChapterFacts;
+import com.novelai.studio.service.review.analysis.FactKey;
+import com.novelai.studio.service.review.index.BookEntityAutomaton;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.ChapterTextIndexCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -50,6 +59,33 @@ public class RuleEngineService {
     @Autowired
     private ReviewIssueMapper reviewIssueMapper;
 
+    @Autowired
+    private ChapterTextIndexCache chapterTextIndexCache;
+
+    @Autowired
+    private ReviewContextCache reviewContextCache;
+
+    @Autowired
+    private ChapterContentCache chapterContentCache;
+
+    @Autowired
+    private ReviewMetricsService reviewMetricsService;
+
+    @Autowired
+    private RuleExecutionGuard ruleExecutionGuard;
+
+    @Autowired
+    private AnalyzerRegistry analyzerRegistry;
+
+    @Autowired
+    private ReviewBaselineCache reviewBaselineCache;
+
+    @Autowired
+    private LocationTimelineCache locationTimelineCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * 注册的规则列表
      */
@@ -123,9 +159,10 @@ public class RuleEngineService {
             throw new IllegalArgumentException("Book not found: " + bookId);
         }
 
-        // 获取所有章节
+        // 获取所有章节（仅元数据，正文由规则按需加载）
         QueryWrapper<Chapter> chapterQuery = new QueryWrapper<>();
-        chapterQuery.eq("book_id", bookId).orderByAsc("order_num");
+        chapterQuery.select(Chapter.class, info -> !"content".equals(info.getColumn()))
+                .eq("book_id", bookId).orderByAsc("order_num");
         List<Chapter> allChapters = chapterMapper.selectList(chapterQuery);
 
         // 获取当前章节
@@ -198,10 +235,104 @@ public class RuleEngineService {
                 .storyEvents(storyEvents)
                 .characterStateChanges(stateChanges)
                 .chapterSummaries(summaries)
+                .entityAutomaton(BookEntityAutomaton.build(characterNameToId, storyEvents, worldSettings))
+                .locationTimeline(locationTimelineCache.getTimeline(bookId))
+                .textIndexCache(chapterTextIndexCache)
+                .contentLoader(this::loadChapterContent)
+                .analyzerRegistry(analyzerRegistry)
                 .reviewMode(chapterId != null ? "single" : "full")
                 .build();
     }
 
+    /**
+     * 按需加载章节正文（经正文缓存，按更新时间校验是否过期）
+     */
+    public String loadChapterContent(Chapter chapter) {
+        if (chapter == null || chapter.getId() == null) {
+            return null;
+        }
+        String content = chapterContentCache.get(chapter.getId(), chapter.getUpdatedAt());
+        if (content != null) {
+            return content;
+        }
+        QueryWrapper<Chapter> query = new QueryWrapper<>();
+        query.select("id", "content", "updated_at").eq("id", chapter.getId());
+        Chapter loaded = chapterMapper.selectOne(query);
+        if (loaded == null || loaded.getContent() == null) {
+            return null;
+        }
+        // 元数据与正文不是同一时刻读取的，以正文所属版本为准缓存
+        chapterContentCache.put(loaded.getId(), loaded.getUpdatedAt(), loaded.getContent());
+        return loaded.getContent();
+    }
+
+    /**
+     * 复制章节元数据并加载正文，用作当前审查章节（不修改上下文中共享的章节对象）
+     */
+    private Chapter withContent(ReviewContext context, Chapter chapter) {
+        if (chapter.getContent() != null) {
+            return chapter;
+        }
+        Chapter copy = BeanUtil.copyProperties(chapter, Chapter.class);
+        copy.setContent(context.getChapterContent(chapter));
+        return copy;
+    }
+
+    /**
+     * 一次查询加载书籍全部章节的正文，放入上下文供本次审查的所有规则共用
+     */
+    private void preloadChapterContents(ReviewContext context, String bookId) {
+        Set<String> chapterIds = new HashSet<>();
+        for (Chapter chapter : context.getAllChapters()) {
+            chapterIds.add(chapter.getId());
+        }
+        QueryWrapper<Chapter> query = new QueryWrapper<>();
+        query.select("id", "content").eq("book_id", bookId);
+        for (Chapter loaded : chapterMapper.selectList(query)) {
+            if (loaded.getContent() != null && chapterIds.contains(loaded.getId())) {
+                context.getChapterContents().put(loaded.getId(), loaded.getContent());
+            }
+        }
+    }
+
+    /**
+     * 基于书籍快照构建审查上下文
+     * 快照不存在时完整加载一次并缓存；之后只重新加载当前章节和快照中标记为已变更的章节
+     */
+    public ReviewContext buildSnapshotContext(String bookId, String chapterId) {
+        BookReviewSnapshot snapshot = reviewContextCache.get(bookId);
+        if (snapshot == null) {
+            long version = reviewContextCache.currentVersion(bookId);
+            snapshot = BookReviewSnapshot.of(buildContext(bookId, null), version);
+            reviewContextCache.put(snapshot);
+        }
+
+        // 当前章节总是读取最新正文，快照中只保存元数据
+        Chapter currentChapter = chapterMapper.selectById(chapterId);
+        Set<String> reloadIds = snapshot.drainDirtyChapterIds();
+        reloadIds.add(chapterId);
+        try {
+            QueryWrapper<Chapter> reloadQuery = new QueryWrapper<>();
+            reloadQuery.select(Chapter.class, info -> !"content".equals(info.getColumn()))
+                    .in("id", reloadIds);
+            snapshot.applyReloadedChapters(reloadIds, chapterMapper.selectList(reloadQuery));
+        } catch (RuntimeException e) {
+            for (String id : reloadIds) {
+                snapshot.markChapterDirty(id);
+            }
+            throw e;
+        }
+
+        if (currentChapter != null && !snapshot.getBookId().equals(currentChapter.getBookId())) {
+            currentChapter = null;
+        }
+        ReviewContext context = snapshot.toContext(currentChapter, chapterTextIndexCache, this::loadChapterContent);
+        context.setAnalyzerRegistry(analyzerRegistry);
+        // 位置时间线不随快照失效，按事件增量更新
+        context.setLocationTimeline(locationTimelineCache.getTimeline(bookId));
+        return context;
+    }
+
     /**
      * 执行单章节审查
      */
@@ -213,28 +344,85 @@ public class RuleEngineService {
      * 执行单章节审查（指定级别）
      */
     public ReviewReport reviewChapter(String bookId, String chapterId, List<String> levels) {
+        return reviewChapter(bookId, chapterId, levels, ReviewProgressListener.NONE);
+    }
+
+    /**
+     * 执行单章节审查（指定级别，可取消）
+     * 全部规则执行完成后才替换该章节的旧问题，取消时不修改已保存的问题
+     * @throws CancellationException 监听器在规则执行期间请求了取消
+     */
+    public ReviewReport reviewChapter(String bookId, String chapterId, List<String> levels,
+                                      ReviewProgressListener listener) {
         LocalDateTime startTime = LocalDateTime.now();
         long startMs = System.currentTimeMillis();
+        return reviewChapter(buildContext(bookId, chapterId), bookId, chapterId, levels, listener, false,
+                startTime, startMs);
+    }
 
-        // 构建上下文
-        ReviewContext context = buildContext(bookId, chapterId);
-
-        // 清除该章节的旧问题
-        QueryWrapper<ReviewIssue> deleteQuery = new QueryWrapper<>();
-        deleteQuery.eq("chapter_id", chapterId);
-        reviewIssueMapper.delete(deleteQuery);
+    /**
+     * 实时审查单个章节：使用书籍快照，只重新加载被编辑的章节；
+     * 局部规则只对与上次审查相比修改过的段落重新执行，其余段落的问题沿用上次结果
+     * @throws CancellationException 监听器在规则执行期间请求了取消
+     */
+    public ReviewReport reviewChapterWithSnapshot(String bookId, String chapterId, List<String> levels,
+                                                  ReviewProgressListener listener) {
+        LocalDateTime startTime = LocalDateTime.now();
+        long startMs = System.currentTimeMillis();
+        return reviewChapter(buildSnapshotContext(bookId, chapterId), bookId, chapterId, levels, listener, true,
+                startTime, startMs);
+    }
 
+    private ReviewReport reviewChapter(ReviewContext context, String bookId, String chapterId, List<String> levels,
+                                       ReviewProgressListener listener, boolean incremental,
+                                       LocalDateTime startTime, long startMs) {
         // 执行规则
         List<ReviewIssue> allIssues = new ArrayList<>();
         int rulesExecuted = 0;
 
+        Map<String, RuleExecutionStats> ruleStats = new LinkedHashMap<>();
+
         List<ReviewRule> rulesToExecute = getRulesToExecute(levels);
+
+        // 增量审查：与上次审查的段落比较，局部规则只重新检查修改区域
+        Chapter fullChapter = context.getCurrentChapter();
+        ChapterTextIndex fullIndex = fullChapter != null ? context.getTextIndex(fullChapter) : null;
+        ChapterReviewBaseline baseline = null;
+        ParagraphDiff diff = null;
+        Map<String, List<ReviewIssue>> localIssues = new HashMap<>();
+        if (incremental && fullIndex != null) {
+            baseline = usableBaseline(context, fullChapter);
+            if (baseline != null) {
+                diff = ParagraphDiff.of(baseline.getParagraphs(), paragraphsOf(fullIndex));
+            }
+        } else {
+            reviewBaselineCache.remove(chapterId);
+        }
+
+        // 分析阶段：统一计算规则所需的分析事实，规则阶段只读取
+        prepareFacts(context, fullChapter, rulesToExecute);
+
+        Set<String> excerptIds = new HashSet<>();
         for (ReviewRule rule : rulesToExecute) {
-            if (!rule.isEnabled()) {
+            if (listener.isCancelled()) {
+                throw new CancellationException("Review cancelled for chapter: " + chapterId);
+            }
+            if (!rule.isEnabled() || !ruleExecutionGuard.allowExecution(rule)) {
                 continue;
             }
+            boolean local = incremental && fullIndex != null && rule.getLocalWindow() >= 0;
+            long ruleStart = System.nanoTime();
             try {
-                List<ReviewIssue> issues = rule.check(context);
+                List<ReviewIssue> issues;
+                if (local && diff != null && baseline.getLocalIssues().containsKey(rule.getName())) {
+                    issues = reviewChangedParagraphs(rule, context, fullChapter, fullIndex, baseline, diff, excerptIds);
+                } else {
+                    issues = ruleExecutionGuard.check(rule, context);
+                }
+                if (local) {
+                    localIssues.put(rule.getName(), issues != null ? issues : Collections.emptyList());
+                }
+                recordRule(ruleStats, rule, ruleStart, issues != null ? issues.size() : 0, false);
                 if (issues != null && !issues.isEmpty()) {
                     // 补充书籍和章节信息
                     for (ReviewIssue issue : issues) {
@@ -245,17 +433,39 @@ public class RuleEngineService {
                         if (issue.getChapterOrder() == null && context.getCurrentChapter() != null) {
                             issue.setChapterOrder(context.getCurrentChapter().getOrderNum());
                         }
-                        // 保存到数据库
-                        reviewIssueMapper.insert(issue);
                     }
                     allIssues.addAll(issues);
                 }
                 rulesExecuted++;
             } catch (Exception e) {
+                recordRule(ruleStats, rule, ruleStart, 0, true);
                 log.error("Rule {} execution failed: {}", rule.getName(), e.getMessage(), e);
             }
         }
 
+        for (String excerptId : excerptIds) {
+            context.releaseChapter(excerptId);
+        }
+
+        if (listener.isCancelled()) {
+            throw new CancellationException("Review cancelled for chapter: " + chapterId);
+        }
+
+        // 清除该章节的旧问题并保存新问题
+        QueryWrapper<ReviewIssue> deleteQuery = new QueryWrapper<>();
+        deleteQuery.eq("chapter_id", chapterId);
+        reviewIssueMapper.delete(deleteQuery);
+        for (ReviewIssue issue : allIssues) {
+            reviewIssueMapper.insert(issue);
+        }
+        if (!allIssues.isEmpty()) {
+            listener.onIssues(context.getCurrentChapter(), allIssues);
+        }
+        if (incremental && fullIndex != null) {
+            reviewBaselineCache.put(chapterId, new ChapterReviewBaseline(bookId, fullChapter.getOrderNum(),
+                    context.getBookDataFingerprint(), paragraphsOf(fullIndex), paragraphStartsOf(fullIndex), localIssues));
+        }
+
         long endMs = System.currentTimeMillis();
         LocalDateTime endTime = LocalDateTime.now();
 
@@ -265,7 +475,7 @@ public class RuleEngineService {
         Map<String, Integer> issuesByType = allIssues.stream()
                 .collect(Collectors.groupingBy(ReviewIssue::getType, Collectors.summingInt(i -> 1)));
 
-        return ReviewReport.builder()
+        ReviewReport report = ReviewReport.builder()
                 .id(UUID.randomUUID().toString())
                 .bookId(bookId)
                 .chapterIds(Collections.singletonList(chapterId))
@@ -278,7 +488,10 @@ public class RuleEngineService {
                 .duration(endMs - startMs)
                 .reviewMode("single")
                 .rulesExecuted(rulesExecuted)
+                .ruleStats(new ArrayList<>(ruleStats.values()))
                 .build();
+        reviewMetricsService.record(report);
+        return report;
     }
 
     /**
@@ -292,35 +505,69 @@ public class RuleEngineService {
      * 执行全书审查（指定级别）
      */
     public ReviewReport reviewBook(String bookId, List<String> levels) {
+        return reviewBook(bookId, levels, ReviewProgressListener.NONE);
+    }
+
+    /**
+     * 执行全书审查（指定级别，按章节回调进度）
+     * 监听器请求取消时在当前章节/规则结束后停止，返回已完成部分的报告；
+     * 书籍原有的问题只在审查完整结束后才被替换，取消或失败时保持不变
+     */
+    public ReviewReport reviewBook(String bookId, List<String> levels, ReviewProgressListener listener) {
         LocalDateTime startTime = LocalDateTime.now();
         long startMs = System.currentTimeMillis();
 
         // 构建上下文
         ReviewContext context = buildContext(bookId, null);
         context.setReviewMode("full");
-
-        // 清除该书籍的旧问题
-        QueryWrapper<ReviewIssue> deleteQuery = new QueryWrapper<>();
-        deleteQuery.eq("book_id", bookId);
-        reviewIssueMapper.delete(deleteQuery);
+        preloadChapterContents(context, bookId);
 
         // 对每个章节执行规则
         List<ReviewIssue> allIssues = new ArrayList<>();
         List<String> chapterIds = new ArrayList<>();
         int rulesExecuted = 0;
 
+        Map<String, RuleExecutionStats> ruleStats = new LinkedHashMap<>();
+
         List<ReviewRule> rulesToExecute = getRulesToExecute(levels);
 
+        // 支持批量的规则（AI规则）跨章节合并执行，其余规则逐章执行
+        List<BatchReviewRule> batchRules = new ArrayList<>();
+        List<ReviewRule> chapterRules = new ArrayList<>();
+        for (ReviewRule rule : rulesToExecute) {
+            if (!rule.isEnabled()) {
+                continue;
+            }
+            if (rule instanceof BatchReviewRule && ((BatchReviewRule) rule).supportsBatch()) {
+                batchRules.add((BatchReviewRule) rule);
+            } else {
+                chapterRules.add(rule);
+            }
+        }
+
+        int totalChapters = context.getAllChapters().size();
+        listener.onStart(totalChapters);
+
         for (Chapter chapter : context.getAllChapters()) {
+            if (listener.isCancelled()) {
+                break;
+            }
             chapterIds.add(chapter.getId());
-            context.setCurrentChapter(chapter);
+            Chapter current = withContent(context, chapter);
+            context.setCurrentChapter(current);
+            prepareFacts(context, current, chapterRules);
+            List<ReviewIssue> chapterIssues = new ArrayList<>();
 
-            for (ReviewRule rule : rulesToExecute) {
-                if (!rule.isEnabled()) {
+            for (ReviewRule rule : chapterRules) {
+                if (!ruleExecutionGuard.allowExecution(rule)) {
                     continue;
                 }
+                long ruleStart = System.nanoTime();
+                boolean checked = false;
                 try {
-                    List<ReviewIssue> issues = rule.check(context);
+                    List<ReviewIssue> issues = ruleExecutionGuard.check(rule, context);
+                    checked = true;
+                    recordRule(ruleStats, rule, ruleStart, issues != null ? issues.size() : 0, false);
                     if (issues != null && !issues.isEmpty()) {
                         for (ReviewIssue issue : issues) {
                             issue.setBookId(bookId);
@@ -330,16 +577,77 @@ public class RuleEngineService {
                             if (issue.getChapterOrder() == null) {
                                 issue.setChapterOrder(chapter.getOrderNum());
                             }
-                            reviewIssueMapper.insert(issue);
                         }
-                        allIssues.addAll(issues);
+                        chapterIssues.addAll(issues);
                     }
                     rulesExecuted++;
                 } catch (Exception e) {
+                    if (!checked) {
+                        recordRule(ruleStats, rule, ruleStart, 0, true);
+                    }
                     log.error("Rule {} execution failed for chapter {}: {}",
                             rule.getName(), chapter.getTitle(), e.getMessage(), e);
                 }
             }
+
+            // 释放本章的文本索引和分析事实，避免全书审查过程中所有章节的索引常驻内存（正文留给批量规则复用）
+            context.releaseChapter(chapter.getId());
+
+            allIssues.addAll(chapterIssues);
+            if (!chapterIssues.isEmpty()) {
+                listener.onIssues(chapter, chapterIssues);
+            }
+            listener.onChapterReviewed(chapter, chapterIds.size(), totalChapters);
+        }
+        context.setCurrentChapter(null);
+
+        for (BatchReviewRule rule : batchRules) {
+            if (listener.isCancelled()) {
+                break;
+            }
+            if (!ruleExecutionGuard.allowExecution(rule)) {
+                continue;
+            }
+            listener.onBatchRuleStart(rule);
+            long ruleStart = System.nanoTime();
+            boolean checked = false;
+            try {
+                Map<String, List<ReviewIssue>> issuesByChapter =
+                        ruleExecutionGuard.checkBatch(rule, context, context.getAllChapters());
+                checked = true;
+                int batchIssues = 0;
+                for (List<ReviewIssue> issues : issuesByChapter.values()) {
+                    batchIssues += issues != null ? issues.size() : 0;
+                }
+                recordRule(ruleStats, rule, ruleStart, batchIssues, false);
+                for (Chapter chapter : context.getAllChapters()) {
+                    List<ReviewIssue> issues = issuesByChapter.get(chapter.getId());
+                    if (issues == null || issues.isEmpty()) {
+                        continue;
+                    }
+                    for (ReviewIssue issue : issues) {
+                        issue.setBookId(bookId);
+                        if (issue.getChapterId() == null) {
+                            issue.setChapterId(chapter.getId());
+                        }
+                        if (issue.getChapterOrder() == null) {
+                            issue.setChapterOrder(chapter.getOrderNum());
+                        }
+                    }
+                    allIssues.addAll(issues);
+                    listener.onIssues(chapter, issues);
+                }
+                rulesExecuted += context.getAllChapters().size();
+            } catch (Exception e) {
+                if (!checked) {
+                    recordRule(ruleStats, rule, ruleStart, 0, true);
+                }
+                log.error("Batch rule {} execution failed: {}", rule.getName(), e.getMessage(), e);
+            }
+        }
+
+        if (!listener.isCancelled()) {
+            replaceBookIssues(bookId, allIssues);
         }
 
         long endMs = System.currentTimeMillis();
@@ -351,7 +659,7 @@ public class RuleEngineService {
         Map<String, Integer> issuesByType = allIssues.stream()
                 .collect(Collectors.groupingBy(ReviewIssue::getType, Collectors.summingInt(i -> 1)));
 
-        return ReviewReport.builder()
+        ReviewReport report = ReviewReport.builder()
                 .id(UUID.randomUUID().toString())
                 .bookId(bookId)
                 .chapterIds(chapterIds)
@@ -364,7 +672,181 @@ public class RuleEngineService {
                 .duration(endMs - startMs)
                 .reviewMode("full")
                 .rulesExecuted(rulesExecuted)
+                .ruleStats(new ArrayList<>(ruleStats.values()))
                 .build();
+        reviewMetricsService.record(report);
+        return report;
+    }
+
+    /**
+     * 在一个事务中用本次审查的结果替换书籍原有的问题
+     */
+    private void replaceBookIssues(String bookId, List<ReviewIssue> issues) {
+        transactionTemplate.executeWithoutResult(status -> {
+            QueryWrapper<ReviewIssue> deleteQuery = new QueryWrapper<>();
+            deleteQuery.eq("book_id", bookId);
+            reviewIssueMapper.delete(deleteQuery);
+            for (ReviewIssue issue : issues) {
+                reviewIssueMapper.insert(issue);
+            }
+        });
+    }
+
+    /**
+     * 可用于增量审查的基线：同一书籍、章节序号未变且书籍级数据（实体、事件顺序、章节顺序、状态变更）未变
+     */
+    private ChapterReviewBaseline usableBaseline(ReviewContext context, Chapter chapter) {
+        ChapterReviewBaseline baseline = reviewBaselineCache.get(chapter.getId());
+        if (baseline == null
+                || !Objects.equals(baseline.getBookId(), chapter.getBookId())
+                || !Objects.equals(baseline.getChapterOrder(), chapter.getOrderNum())
+                || !Objects.equals(baseline.getBookDataFingerprint(), context.getBookDataFingerprint())) {
+            return null;
+        }
+        return baseline;
+    }
+
+    /**
+     * 局部规则的增量检查：修改区域及其窗口内的段落（受影响区域）的问题重新计算，其余问题从基线平移到新位置
+     * 受影响区域边缘的问题仍依赖其外侧窗口内的段落，因此重新执行时截取的正文再向两侧各扩展一个窗口
+     */
+    private List<ReviewIssue> reviewChangedParagraphs(ReviewRule rule, ReviewContext context, Chapter chapter,
+                                                      ChapterTextIndex fullIndex, ChapterReviewBaseline baseline,
+                                                      ParagraphDiff diff, Set<String> excerptIds) throws Exception {
+        int window = rule.getLocalWindow();
+        int paragraphCount = fullIndex.getParagraphCount();
+        int affectedFrom = Math.max(0, diff.changedStart() - window);
+        int affectedTo = Math.min(paragraphCount, diff.changedEnd() + window);
+        if (diff.isUnchanged()) {
+            affectedFrom = affectedTo = 0;
+        }
+
+        List<ReviewIssue> issues = new ArrayList<>();
+        for (ReviewIssue previous : baseline.getLocalIssues().get(rule.getName())) {
+            Integer oldParagraph = paragraphOf(previous);
+            if (oldParagraph == null || oldParagraph >= baseline.getParagraphStarts().length) {
+                continue;
+            }
+            int newParagraph = diff.mapOldParagraph(oldParagraph);
+            if (newParagraph < 0 || (newParagraph >= affectedFrom && newParagraph < affectedTo)) {
+                continue;
+            }
+            int shift = fullIndex.getParagraphStart(newParagraph) - baseline.getParagraphStarts()[oldParagraph];
+            issues.add(relocate(previous, newParagraph - oldParagraph, shift));
+        }
+
+        if (affectedFrom < affectedTo) {
+            int from = Math.max(0, affectedFrom - window);
+            int to = Math.min(paragraphCount, affectedTo + window);
+            int base = fullIndex.getParagraphStart(from);
+            Chapter excerpt = BeanUtil.copyProperties(chapter, Chapter.class);
+            excerpt.setId(chapter.getId() + "#" + from + "-" + to);
+            excerpt.setContent(fullIndex.getContent().substring(base, fullIndex.getParagraphEnd(to - 1)));
+            excerptIds.add(excerpt.getId());
+
+            context.setCurrentChapter(excerpt);
+            try {
+                List<ReviewIssue> found = ruleExecutionGuard.check(rule, context);
+                if (found != null) {
+                    for (ReviewIssue issue : found) {
+                        ReviewIssue relocated = relocate(issue, from, base);
+                        // 受影响区域之外的问题缺少完整窗口，以基线平移的结果为准
+                        Integer paragraph = paragraphOf(relocated);
+                        if (paragraph != null && (paragraph < affectedFrom || paragraph >= affectedTo)) {
+                            continue;
+                        }
+                        relocated.setChapterId(chapter.getId());
+                        issues.add(relocated);
+                    }
+                }
+            } finally {
+                context.setCurrentChapter(chapter);
+            }
+        }
+        return issues;
+    }
+
+    /**
+     * 复制问题并平移段落序号和字符偏移
+     */
+    private ReviewIssue relocate(ReviewIssue issue, int paragraphShift, int offsetShift) {
+        ReviewIssue copy = BeanUtil.copyProperties(issue, ReviewIssue.class);
+        // 作为新记录插入，主键和时间戳由插入时重新生成
+        copy.setId(null);
+        copy.setCreatedAt(null);
+        copy.setUpdatedAt(null);
+        if (issue.getLocation() != null) {
+            Map<String, Object> location = new HashMap<>(issue.getLocation());
+            shiftInt(location, "paragraph", paragraphShift);
+            shiftInt(location, "startOffset", offsetShift);
+            shiftInt(location, "endOffset", offsetShift);
+            copy.setLocation(location);
+        }
+        return copy;
+    }
+
+    private void shiftInt(Map<String, Object> map, String key, int shift) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            map.put(key, ((Number) value).intValue() + shift);
+        }
+    }
+
+    private Integer paragraphOf(ReviewIssue issue) {
+        Object value = issue.getLocation() != null ? issue.getLocation().get("paragraph") : null;
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    private String[] paragraphsOf(ChapterTextIndex textIndex) {
+        String[] paragraphs = new String[textIndex.getParagraphCount()];
+        for (int i = 0; i < paragraphs.length; i++) {
+            paragraphs[i] = textIndex.getParagraph(i);
+        }
+        return paragraphs;
+    }
+
+    private int[] paragraphStartsOf(ChapterTextIndex textIndex) {
+        int[] starts = new int[textIndex.getParagraphCount()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = textIndex.getParagraphStart(i);
+        }
+        return starts;
+    }
+
+    /**
+     * 计算即将执行的规则声明的分析事实（每种事实每章只计算一次）
+     * 分析失败只记录日志，依赖该事实的规则执行时会再次尝试并按规则失败处理
+     */
+    private void prepareFacts(ReviewContext context, Chapter chapter, List<ReviewRule> rulesToExecute) {
+        if (chapter == null) {
+            return;
+        }
+        Set<FactKey<?>> required = new LinkedHashSet<>();
+        for (ReviewRule rule : rulesToExecute) {
+            if (rule.isEnabled()) {
+                required.addAll(rule.getRequiredFacts());
+            }
+        }
+        if (required.isEmpty()) {
+            return;
+        }
+        ChapterFacts facts = context.getFacts(chapter);
+        for (FactKey<?> key : required) {
+            try {
+                facts.get(key);
+            } catch (Exception e) {
+                log.error("Analyzer for fact {} failed on chapter {}: {}", key, chapter.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 记录一次规则执行的耗时和结果
+     */
+    private void recordRule(Map<String, RuleExecutionStats> ruleStats, ReviewRule rule, long startNanos,
+                            int issueCount, boolean failed) {
+        ruleStats.computeIfAbsent(rule.getName(), k -> new RuleExecutionStats(rule.getName(), rule.getLevel()))
+                .record(System.nanoTime() - startNanos, issueCount, failed);
     }
 
     /**
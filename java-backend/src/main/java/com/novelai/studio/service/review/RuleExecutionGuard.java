@@ -0,0 +1,282 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.ReviewIssue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 规则执行守护
+ * 为每次规则执行设置时限和 token 配额，并按规则维护熔断状态：
+ * 连续多次超时或抛出异常的规则被暂时停用（熔断打开），冷却时间过后放行一次试探执行（半开），
+ * 试探正常完成则恢复，再次失败则重新熔断。
+ * 执行线程和排队数都有上限，超时后仍未结束的任务占满队列时新的执行直接被拒绝
+ */
+@Component
+public class RuleExecutionGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleExecutionGuard.class);
+
+    public static final String CIRCUIT_CLOSED = "closed";
+    public static final String CIRCUIT_OPEN = "open";
+    public static final String CIRCUIT_HALF_OPEN = "half_open";
+
+    /**
+     * 各开销等级的默认单章时限（毫秒）
+     */
+    @Value("${review.rule.timeout-ms.cheap:2000}")
+    private long cheapTimeoutMs = 2000;
+
+    @Value("${review.rule.timeout-ms.moderate:10000}")
+    private long moderateTimeoutMs = 10000;
+
+    @Value("${review.rule.timeout-ms.expensive:60000}")
+    private long expensiveTimeoutMs = 60000;
+
+    /**
+     * 连续超时或失败多少次后熔断
+     */
+    @Value("${review.rule.circuit.timeout-threshold:3}")
+    private int timeoutThreshold = 3;
+
+    /**
+     * 熔断后多久放行试探执行（毫秒）
+     */
+    @Value("${review.rule.circuit.open-ms:300000}")
+    private long openMs = 300000;
+
+    /**
+     * 执行非低开销规则的线程数上限
+     */
+    @Value("${review.rule.max-threads:4}")
+    private int maxThreads = 4;
+
+    /**
+     * 等待执行的任务数上限
+     */
+    @Value("${review.rule.queue-capacity:16}")
+    private int queueCapacity = 16;
+
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, CircuitState> circuits = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                maxThreads, maxThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "review-rule-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 规则当前是否允许执行；熔断冷却结束时只放行一次试探执行
+     */
+    public boolean allowExecution(ReviewRule rule) {
+        CircuitState circuit = circuits.get(rule.getName());
+        return circuit == null || circuit.tryAcquire(openMs);
+    }
+
+    /**
+     * 在时限内执行单章检查
+     * @throws TimeoutException 超过时限（非低开销规则会被中断，结果丢弃）
+     * @throws RejectedExecutionException 执行线程和队列已满
+     */
+    public List<ReviewIssue> check(ReviewRule rule, ReviewContext context) throws Exception {
+        long timeoutMs = timeoutFor(rule);
+        return execute(rule, context, timeoutMs, rule.getTokenBudget(), () -> rule.check(context));
+    }
+
+    /**
+     * 在时限内执行跨章节批量检查，时限和 token 配额按章节数放大
+     * @throws TimeoutException 超过时限
+     */
+    public Map<String, List<ReviewIssue>> checkBatch(BatchReviewRule rule, ReviewContext context,
+                                                     List<Chapter> chapters) throws Exception {
+        int chapterCount = Math.max(1, chapters.size());
+        long timeoutMs = timeoutFor(rule) * chapterCount;
+        int tokenBudget = rule.getTokenBudget() > 0 ? rule.getTokenBudget() * chapterCount : 0;
+        return execute(rule, context, timeoutMs, tokenBudget, () -> rule.checkBatch(context, chapters));
+    }
+
+    private <T> T execute(ReviewRule rule, ReviewContext context, long timeoutMs, int tokenBudget,
+                          Callable<T> task) throws Exception {
+        // 每次执行使用独立的预算，绑定到执行线程而不是共享的上下文
+        RuleBudget budget = new RuleBudget(timeoutMs, tokenBudget);
+        Callable<T> budgeted = () -> RuleBudget.callWith(budget, task);
+        long start = System.nanoTime();
+        if (rule.getCost() == RuleCost.CHEAP) {
+            // 低开销规则直接执行，超时只计入熔断统计，结果照常使用
+            T result;
+            try {
+                result = budgeted.call();
+            } catch (Exception e) {
+                onFailure(rule, "failed: " + e.getMessage());
+                throw e;
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (elapsedMs > timeoutMs) {
+                onFailure(rule, "took " + elapsedMs + "ms (limit " + timeoutMs + "ms)");
+            } else {
+                onSuccess(rule);
+            }
+            return result;
+        }
+
+        Future<T> future;
+        try {
+            future = executor.submit(budgeted);
+        } catch (RejectedExecutionException e) {
+            releaseProbe(rule);
+            log.warn("Rule {} rejected: {} rule tasks still running or queued", rule.getName(),
+                    executor.getActiveCount() + executor.getQueue().size());
+            throw e;
+        }
+        T result;
+        try {
+            result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            onFailure(rule, "timed out after " + timeoutMs + "ms");
+            throw new TimeoutException("Rule " + rule.getName() + " exceeded " + timeoutMs + "ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            releaseProbe(rule);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            onFailure(rule, "failed: " + (cause != null ? cause.getMessage() : e.getMessage()));
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+        onSuccess(rule);
+        return result;
+    }
+
+    private long timeoutFor(ReviewRule rule) {
+        if (rule.getTimeoutMs() > 0) {
+            return rule.getTimeoutMs();
+        }
+        return switch (rule.getCost()) {
+            case CHEAP -> cheapTimeoutMs;
+            case MODERATE -> moderateTimeoutMs;
+            case EXPENSIVE -> expensiveTimeoutMs;
+        };
+    }
+
+    private void onSuccess(ReviewRule rule) {
+        CircuitState circuit = circuits.get(rule.getName());
+        if (circuit != null && circuit.recordSuccess()) {
+            log.info("Rule {} recovered, circuit closed", rule.getName());
+        }
+    }
+
+    private void releaseProbe(ReviewRule rule) {
+        CircuitState circuit = circuits.get(rule.getName());
+        if (circuit != null) {
+            circuit.releaseProbe();
+        }
+    }
+
+    private void onFailure(ReviewRule rule, String reason) {
+        CircuitState circuit = circuits.computeIfAbsent(rule.getName(), k -> new CircuitState());
+        log.warn("Rule {} {}", rule.getName(), reason);
+        if (circuit.recordFailure(timeoutThreshold)) {
+            log.warn("Rule {} failed repeatedly, circuit opened for {}ms", rule.getName(), openMs);
+        }
+    }
+
+    /**
+     * 规则熔断状态：closed / open / half_open
+     */
+    public String getCircuitState(String ruleName) {
+        CircuitState circuit = circuits.get(ruleName);
+        return circuit != null ? circuit.describe(openMs) : CIRCUIT_CLOSED;
+    }
+
+    /**
+     * 手动恢复规则（关闭熔断）
+     */
+    public void reset(String ruleName) {
+        circuits.remove(ruleName);
+    }
+
+    /**
+     * 单个规则的熔断状态
+     */
+    private static class CircuitState {
+        int consecutiveFailures;
+        long openedAt;
+        boolean open;
+        boolean probing;
+
+        synchronized boolean tryAcquire(long openMs) {
+            if (!open) {
+                return true;
+            }
+            if (probing || System.currentTimeMillis() - openedAt < openMs) {
+                return false;
+            }
+            probing = true;
+            return true;
+        }
+
+        /**
+         * @return 熔断是否由此关闭
+         */
+        synchronized boolean recordSuccess() {
+            consecutiveFailures = 0;
+            boolean wasOpen = open;
+            open = false;
+            probing = false;
+            return wasOpen;
+        }
+
+        /**
+         * @return 熔断是否由此打开
+         */
+        synchronized boolean recordFailure(int threshold) {
+            consecutiveFailures++;
+            if (probing || (!open && consecutiveFailures >= threshold)) {
+                open = true;
+                probing = false;
+                openedAt = System.currentTimeMillis();
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void releaseProbe() {
+            probing = false;
+        }
+
+        synchronized String describe(long openMs) {
+            if (!open) {
+                return CIRCUIT_CLOSED;
+            }
+            return probing || System.currentTimeMillis() - openedAt >= openMs ? CIRCUIT_HALF_OPEN : CIRCUIT_OPEN;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.novelai.studio.service.review;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+/**
+ * 单次审查中一条规则的执行统计
+ */
+@Data
+public class RuleExecutionStats {
+
+    private String ruleName;
+
+    private String level;
+
+    /**
+     * 执行次数（全书审查时逐章累计）
+     */
+    private int executions;
+
+    private int issuesFound;
+
+    private int failures;
+
+    private long totalDurationMs;
+
+    private long maxDurationMs;
+
+    /**
+     * 累计耗时（纳秒），用于避免逐章取整丢失精度
+     */
+    @JsonIgnore
+    private long totalNanos;
+
+    public RuleExecutionStats(String ruleName, String level) {
+        this.ruleName = ruleName;
+        this.level = level;
+    }
+
+    /**
+     * 记录一次执行
+     */
+    public void record(long elapsedNanos, int issues, boolean failed) {
+        executions++;
+        issuesFound += issues;
+        if (failed) {
+            failures++;
+        }
+        totalNanos += elapsedNanos;
+        totalDurationMs = totalNanos / 1_000_000;
+        maxDurationMs = Math.max(maxDurationMs, elapsedNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,58 @@
+package com.novelai.studio.service.review.analysis;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分析器注册表
+ * 内置提及、地点、时间标记分析器；Spring 容器中的其他 ChapterAnalyzer Bean 会自动注册，
+ * 同一事实的分析器以后注册者为准
+ */
+@Component
+public class AnalyzerRegistry {
+
+    private static final AnalyzerRegistry DEFAULTS = new AnalyzerRegistry();
+
+    private final Map<FactKey<?>, ChapterAnalyzer<?>> analyzers = new ConcurrentHashMap<>();
+
+    public AnalyzerRegistry() {
+        register(new CharacterMentionAnalyzer());
+        register(new LocationAnalyzer());
+        register(new TemporalMarkerAnalyzer());
+    }
+
+    /**
+     * 只含内置分析器的注册表（未经规则引擎构建的上下文使用）
+     */
+    public static AnalyzerRegistry defaults() {
+        return DEFAULTS;
+    }
+
+    @Autowired(required = false)
+    public void setAnalyzers(List<ChapterAnalyzer<?>> analyzers) {
+        if (analyzers != null) {
+            analyzers.forEach(this::register);
+        }
+    }
+
+    public void register(ChapterAnalyzer<?> analyzer) {
+        analyzers.put(analyzer.getFactKey(), analyzer);
+    }
+
+    /**
+     * 获取产出指定事实的分析器
+     * @throws IllegalArgumentException 没有对应的分析器
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ChapterAnalyzer<T> analyzerFor(FactKey<T> key) {
+        ChapterAnalyzer<?> analyzer = analyzers.get(key);
+        if (analyzer == null) {
+            throw new IllegalArgumentException("No analyzer registered for fact: " + key);
+        }
+        return (ChapterAnalyzer<T>) analyzer;
+    }
+}
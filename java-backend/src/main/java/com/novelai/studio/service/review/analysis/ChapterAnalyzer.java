@@ -0,0 +1,21 @@
+package com.novelai.studio.service.review.analysis;
+
+/**
+ * 章节分析器
+ * 对单个章节执行一次预分析并产出一种事实，供多个规则共享；
+ * 可通过 ChapterFacts 读取其他分析器产出的事实作为输入
+ *
+ * @param <T> 产出事实的数据类型
+ */
+public interface ChapterAnalyzer<T> {
+
+    /**
+     * 产出的事实
+     */
+    FactKey<T> getFactKey();
+
+    /**
+     * 分析章节
+     */
+    T analyze(ChapterFacts facts);
+}
@@ -0,0 +1,69 @@
+package com.novelai.studio.service.review.analysis;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.service.review.ReviewContext;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个章节的分析事实
+ * 事实在首次读取时由对应分析器计算并缓存，与构建时的章节文本索引绑定
+ */
+public class ChapterFacts {
+
+    private final ReviewContext context;
+    private final Chapter chapter;
+    private final ChapterTextIndex textIndex;
+    private final AnalyzerRegistry registry;
+
+    private final Map<FactKey<?>, Object> values = new HashMap<>();
+
+    public ChapterFacts(ReviewContext context, Chapter chapter, ChapterTextIndex textIndex, AnalyzerRegistry registry) {
+        this.context = context;
+        this.chapter = chapter;
+        this.textIndex = textIndex;
+        this.registry = registry;
+    }
+
+    /**
+     * 读取事实，未计算时调用分析器（分析器可递归读取其他事实）
+     * @throws IllegalArgumentException 没有分析器产出该事实
+     */
+    public <T> T get(FactKey<T> key) {
+        synchronized (values) {
+            Object value = values.get(key);
+            if (value != null) {
+                return key.cast(value);
+            }
+        }
+        // 在锁外计算，避免分析器读取依赖事实时死锁；并发时重复计算的结果以先写入者为准
+        T computed = registry.analyzerFor(key).analyze(this);
+        synchronized (values) {
+            Object existing = values.putIfAbsent(key, computed);
+            return existing != null ? key.cast(existing) : computed;
+        }
+    }
+
+    /**
+     * 事实是否已计算
+     */
+    public boolean isComputed(FactKey<?> key) {
+        synchronized (values) {
+            return values.containsKey(key);
+        }
+    }
+
+    public ReviewContext getContext() {
+        return context;
+    }
+
+    public Chapter getChapter() {
+        return chapter;
+    }
+
+    public ChapterTextIndex getTextIndex() {
+        return textIndex;
+    }
+}
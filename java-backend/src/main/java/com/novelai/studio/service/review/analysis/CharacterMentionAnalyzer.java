@@ -0,0 +1,40 @@
+package com.novelai.studio.service.review.analysis;
+
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.EntityKind;
+import com.novelai.studio.service.review.index.EntityOccurrence;
+
+import java.util.*;
+
+/**
+ * 角色提及分析器：按段落整理章节文本索引中的角色出现位置
+ */
+public class CharacterMentionAnalyzer implements ChapterAnalyzer<CharacterMentions> {
+
+    @Override
+    public FactKey<CharacterMentions> getFactKey() {
+        return ReviewFacts.CHARACTER_MENTIONS;
+    }
+
+    @Override
+    public CharacterMentions analyze(ChapterFacts facts) {
+        ChapterTextIndex textIndex = facts.getTextIndex();
+        List<List<EntityOccurrence>> byParagraph = new ArrayList<>(textIndex.getParagraphCount());
+        for (int p = 0; p < textIndex.getParagraphCount(); p++) {
+            List<EntityOccurrence> occurrences = textIndex.occurrencesInParagraph(p, EntityKind.CHARACTER);
+            if (occurrences.isEmpty()) {
+                byParagraph.add(Collections.emptyList());
+                continue;
+            }
+            Set<String> seen = new HashSet<>();
+            List<EntityOccurrence> mentions = new ArrayList<>();
+            for (EntityOccurrence occurrence : occurrences) {
+                if (seen.add(occurrence.getKeyword())) {
+                    mentions.add(occurrence);
+                }
+            }
+            byParagraph.add(mentions);
+        }
+        return new CharacterMentions(byParagraph);
+    }
+}
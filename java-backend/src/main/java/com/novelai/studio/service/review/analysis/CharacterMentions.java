@@ -0,0 +1,32 @@
+package com.novelai.studio.service.review.analysis;
+
+import com.novelai.studio.service.review.index.EntityOccurrence;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 各段落的角色提及
+ */
+public final class CharacterMentions {
+
+    private final List<List<EntityOccurrence>> byParagraph;
+
+    public CharacterMentions(List<List<EntityOccurrence>> byParagraph) {
+        this.byParagraph = byParagraph;
+    }
+
+    /**
+     * 段落内的角色提及（按出现顺序，同一称呼只保留首次出现）
+     */
+    public List<EntityOccurrence> inParagraph(int paragraphIndex) {
+        if (paragraphIndex < 0 || paragraphIndex >= byParagraph.size()) {
+            return Collections.emptyList();
+        }
+        return byParagraph.get(paragraphIndex);
+    }
+
+    public int getParagraphCount() {
+        return byParagraph.size();
+    }
+}
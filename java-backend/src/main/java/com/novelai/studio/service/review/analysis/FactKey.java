@@ -0,0 +1,30 @@
+package com.novelai.studio.service.review.analysis;
+
+/**
+ * 分析事实的类型化键
+ * 每种事实由一个分析器产出，规则通过键声明并读取所需事实
+ *
+ * @param <T> 事实的数据类型
+ */
+public final class FactKey<T> {
+
+    private final String name;
+
+    public FactKey(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @SuppressWarnings("unchecked")
+    T cast(Object value) {
+        return (T) value;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
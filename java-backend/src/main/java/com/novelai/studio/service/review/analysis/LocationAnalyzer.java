@@ -0,0 +1,61 @@
+package com.novelai.studio.service.review.analysis;
+
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.EntityKind;
+import com.novelai.studio.service.review.index.EntityOccurrence;
+
+import java.util.List;
+
+/**
+ * 地点分析器：为每个段落确定一个地点
+ * 优先使用段落中最先出现的已知地点，否则取位置标记词（在、来到、进入……）之后的短语
+ */
+public class LocationAnalyzer implements ChapterAnalyzer<ParagraphLocations> {
+
+    private static final String[] LOCATION_MARKERS = {"在", "到", "来到", "进入", "离开", "位于"};
+
+    @Override
+    public FactKey<ParagraphLocations> getFactKey() {
+        return ReviewFacts.PARAGRAPH_LOCATIONS;
+    }
+
+    @Override
+    public ParagraphLocations analyze(ChapterFacts facts) {
+        ChapterTextIndex textIndex = facts.getTextIndex();
+        String[] locations = new String[textIndex.getParagraphCount()];
+        for (int p = 0; p < locations.length; p++) {
+            locations[p] = extractLocation(textIndex.getParagraph(p),
+                    textIndex.occurrencesInParagraph(p, EntityKind.LOCATION));
+        }
+        return new ParagraphLocations(locations);
+    }
+
+    private String extractLocation(String paragraph, List<EntityOccurrence> knownLocationMentions) {
+        if (!knownLocationMentions.isEmpty()) {
+            return knownLocationMentions.get(0).getEntityId();
+        }
+
+        for (String marker : LOCATION_MARKERS) {
+            int idx = paragraph.indexOf(marker);
+            if (idx >= 0 && idx + marker.length() < paragraph.length()) {
+                // 取到下一个标点或非地点字符为止
+                StringBuilder location = new StringBuilder();
+                for (int i = idx + marker.length(); i < paragraph.length(); i++) {
+                    char c = paragraph.charAt(i);
+                    if (Character.isLetterOrDigit(c) || c == '的' || c == '里' || c == '中' || c == '上' || c == '下') {
+                        location.append(c);
+                        if (location.length() >= 10) {
+                            break;
+                        }
+                    } else if (location.length() > 0) {
+                        break;
+                    }
+                }
+                if (location.length() >= 2) {
+                    return location.toString();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.novelai.studio.service.review.analysis;
+
+/**
+ * 各段落的地点
+ */
+public final class ParagraphLocations {
+
+    private final String[] locations;
+
+    public ParagraphLocations(String[] locations) {
+        this.locations = locations;
+    }
+
+    /**
+     * 段落的地点，无法判断时返回 null
+     */
+    public String get(int paragraphIndex) {
+        if (paragraphIndex < 0 || paragraphIndex >= locations.length) {
+            return null;
+        }
+        return locations[paragraphIndex];
+    }
+}
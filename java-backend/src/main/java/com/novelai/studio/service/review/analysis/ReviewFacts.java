@@ -0,0 +1,25 @@
+package com.novelai.studio.service.review.analysis;
+
+/**
+ * 内置分析事实
+ */
+public final class ReviewFacts {
+
+    /**
+     * 各段落的角色提及（同一称呼在段落内只保留首次出现）
+     */
+    public static final FactKey<CharacterMentions> CHARACTER_MENTIONS = new FactKey<>("character_mentions");
+
+    /**
+     * 各段落的地点（已知地点优先，否则按位置标记词提取）
+     */
+    public static final FactKey<ParagraphLocations> PARAGRAPH_LOCATIONS = new FactKey<>("paragraph_locations");
+
+    /**
+     * 各段落的事件提及和先后关系词
+     */
+    public static final FactKey<TemporalMarkers> TEMPORAL_MARKERS = new FactKey<>("temporal_markers");
+
+    private ReviewFacts() {
+    }
+}
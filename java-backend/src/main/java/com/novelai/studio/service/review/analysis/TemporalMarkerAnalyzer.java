@@ -0,0 +1,63 @@
+package com.novelai.studio.service.review.analysis;
+
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.EntityKind;
+import com.novelai.studio.service.review.index.EntityOccurrence;
+import com.novelai.studio.service.review.index.KeywordCategory;
+import com.novelai.studio.service.review.index.KeywordHit;
+import com.novelai.studio.service.review.index.TimelinePhraseAutomaton;
+
+import java.util.*;
+
+/**
+ * 时间标记分析器：记录每个段落提及的事件、是否含有先后关系词以及出现的时间线短语
+ */
+public class TemporalMarkerAnalyzer implements ChapterAnalyzer<TemporalMarkers> {
+
+    @Override
+    public FactKey<TemporalMarkers> getFactKey() {
+        return ReviewFacts.TEMPORAL_MARKERS;
+    }
+
+    @Override
+    public TemporalMarkers analyze(ChapterFacts facts) {
+        ChapterTextIndex textIndex = facts.getTextIndex();
+        int paragraphCount = textIndex.getParagraphCount();
+
+        List<Map<String, Integer>> eventMentions = new ArrayList<>(paragraphCount);
+        for (int p = 0; p < paragraphCount; p++) {
+            List<EntityOccurrence> occurrences = textIndex.occurrencesInParagraph(p, EntityKind.EVENT);
+            if (occurrences.isEmpty()) {
+                eventMentions.add(Collections.emptyMap());
+                continue;
+            }
+            int paragraphStart = textIndex.getParagraphStart(p);
+            Map<String, Integer> mentions = new HashMap<>();
+            for (EntityOccurrence occurrence : occurrences) {
+                mentions.putIfAbsent(occurrence.getKeyword(), occurrence.getStart() - paragraphStart);
+            }
+            eventMentions.add(mentions);
+        }
+
+        // 事件标题与关系词的组合由书籍级短语自动机一次扫描得到
+        TimelinePhraseAutomaton timelineAutomaton = facts.getContext() != null
+                ? facts.getContext().getTimelineAutomaton()
+                : TimelinePhraseAutomaton.empty();
+
+        return new TemporalMarkers(eventMentions,
+                paragraphsWith(textIndex, KeywordCategory.BEFORE),
+                paragraphsWith(textIndex, KeywordCategory.AFTER),
+                timelineAutomaton.scan(textIndex));
+    }
+
+    private BitSet paragraphsWith(ChapterTextIndex textIndex, KeywordCategory category) {
+        BitSet paragraphs = new BitSet(textIndex.getParagraphCount());
+        for (KeywordHit hit : textIndex.getKeywordHits(category)) {
+            int p = textIndex.paragraphIndexOf(hit.getStart());
+            if (p >= 0 && hit.getEnd() <= textIndex.getParagraphEnd(p)) {
+                paragraphs.set(p);
+            }
+        }
+        return paragraphs;
+    }
+}
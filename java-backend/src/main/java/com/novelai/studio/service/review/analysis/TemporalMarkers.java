@@ -0,0 +1,70 @@
+package com.novelai.studio.service.review.analysis;
+
+import com.novelai.studio.service.review.index.TimelinePhrase;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 各段落的事件提及、先后关系词和时间线短语
+ */
+public final class TemporalMarkers {
+
+    private final List<Map<String, Integer>> eventMentions;
+    private final BitSet beforeParagraphs;
+    private final BitSet afterParagraphs;
+    private final Map<Integer, List<TimelinePhrase>> timelinePhrases;
+
+    public TemporalMarkers(List<Map<String, Integer>> eventMentions, BitSet beforeParagraphs, BitSet afterParagraphs,
+                           Map<Integer, List<TimelinePhrase>> timelinePhrases) {
+        this.eventMentions = eventMentions;
+        this.beforeParagraphs = beforeParagraphs;
+        this.afterParagraphs = afterParagraphs;
+        this.timelinePhrases = timelinePhrases;
+    }
+
+    /**
+     * 段落内提及的事件标题及其首次出现位置（相对段落起点）
+     */
+    public Map<String, Integer> eventMentions(int paragraphIndex) {
+        if (paragraphIndex < 0 || paragraphIndex >= eventMentions.size()) {
+            return Collections.emptyMap();
+        }
+        return eventMentions.get(paragraphIndex);
+    }
+
+    /**
+     * 段落是否含有"之前"类关系词
+     */
+    public boolean hasBeforeWord(int paragraphIndex) {
+        return beforeParagraphs.get(paragraphIndex);
+    }
+
+    /**
+     * 段落是否含有"之后"类关系词
+     */
+    public boolean hasAfterWord(int paragraphIndex) {
+        return afterParagraphs.get(paragraphIndex);
+    }
+
+    /**
+     * 段落内出现的"事件标题+之后类关系词"（或反序）短语，按出现位置排列
+     */
+    public List<TimelinePhrase> timelinePhrases(int paragraphIndex) {
+        return timelinePhrases.getOrDefault(paragraphIndex, Collections.emptyList());
+    }
+
+    /**
+     * 含有时间线短语的段落序号
+     */
+    public Set<Integer> paragraphsWithTimelinePhrases() {
+        return timelinePhrases.keySet();
+    }
+
+    public int getParagraphCount() {
+        return eventMentions.size();
+    }
+}
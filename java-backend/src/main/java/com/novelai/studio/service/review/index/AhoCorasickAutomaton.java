@@ -0,0 +1,220 @@
+package com.novelai.studio.service.review.index;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick 多模式匹配自动机
+ * 一次线性扫描即可找出文本中所有关键词的出现位置（含重叠匹配）
+ *
+ * @param <T> 关键词携带的数据类型
+ */
+public final class AhoCorasickAutomaton<T> {
+
+    private final Node<T> root;
+    private final int keywordCount;
+
+    private AhoCorasickAutomaton(Node<T> root, int keywordCount) {
+        this.root = root;
+        this.keywordCount = keywordCount;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 关键词数量
+     */
+    public int size() {
+        return keywordCount;
+    }
+
+    public boolean isEmpty() {
+        return keywordCount == 0;
+    }
+
+    /**
+     * 扫描文本，每次命中都回调处理器
+     */
+    public void scan(CharSequence text, MatchHandler<T> handler) {
+        if (text == null || keywordCount == 0) {
+            return;
+        }
+        Node<T> state = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Node<T> next = state.next.get(c);
+            while (next == null && state != root) {
+                state = state.fail;
+                next = state.next.get(c);
+            }
+            state = next != null ? next : root;
+
+            // 沿输出链报告所有以当前位置结尾的关键词
+            for (Node<T> out = state.terminal ? state : state.output; out != null; out = out.output) {
+                int start = i + 1 - out.depth;
+                for (T payload : out.payloads) {
+                    handler.onMatch(start, i + 1, out.keyword, payload);
+                }
+            }
+        }
+    }
+
+    /**
+     * 扫描文本并返回全部命中（按结束位置排序）
+     */
+    public List<Match<T>> findAll(CharSequence text) {
+        List<Match<T>> matches = new ArrayList<>();
+        scan(text, (start, end, keyword, payload) -> matches.add(new Match<>(start, end, keyword, payload)));
+        return matches;
+    }
+
+    /**
+     * 文本中是否包含任一关键词
+     */
+    public boolean containsAny(CharSequence text) {
+        if (text == null || keywordCount == 0) {
+            return false;
+        }
+        Node<T> state = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Node<T> next = state.next.get(c);
+            while (next == null && state != root) {
+                state = state.fail;
+                next = state.next.get(c);
+            }
+            state = next != null ? next : root;
+            if (state.terminal || state.output != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 命中回调
+     */
+    @FunctionalInterface
+    public interface MatchHandler<T> {
+        void onMatch(int start, int end, String keyword, T payload);
+    }
+
+    /**
+     * 单次命中记录，区间为 [start, end)
+     */
+    public static final class Match<T> {
+        private final int start;
+        private final int end;
+        private final String keyword;
+        private final T payload;
+
+        public Match(int start, int end, String keyword, T payload) {
+            this.start = start;
+            this.end = end;
+            this.keyword = keyword;
+            this.payload = payload;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * 自动机构建器
+     */
+    public static final class Builder<T> {
+
+        private final Node<T> root = new Node<>(0);
+        private int keywordCount;
+
+        private Builder() {
+        }
+
+        /**
+         * 添加关键词；同一关键词可多次添加以携带多个数据
+         */
+        public Builder<T> add(String keyword, T payload) {
+            if (keyword == null || keyword.isEmpty()) {
+                return this;
+            }
+            Node<T> node = root;
+            for (int i = 0; i < keyword.length(); i++) {
+                final int depth = i + 1;
+                node = node.next.computeIfAbsent(keyword.charAt(i), k -> new Node<>(depth));
+            }
+            if (!node.terminal) {
+                node.terminal = true;
+                node.keyword = keyword;
+                keywordCount++;
+            }
+            node.payloads.add(payload);
+            return this;
+        }
+
+        public Builder<T> addAll(Collection<String> keywords, T payload) {
+            if (keywords != null) {
+                for (String keyword : keywords) {
+                    add(keyword, payload);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * 按广度优先计算失败指针与输出链
+         */
+        public AhoCorasickAutomaton<T> build() {
+            Deque<Node<T>> queue = new ArrayDeque<>();
+            root.fail = root;
+            for (Node<T> child : root.next.values()) {
+                child.fail = root;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                Node<T> node = queue.poll();
+                for (Map.Entry<Character, Node<T>> entry : node.next.entrySet()) {
+                    char c = entry.getKey();
+                    Node<T> child = entry.getValue();
+
+                    Node<T> f = node.fail;
+                    while (f != root && !f.next.containsKey(c)) {
+                        f = f.fail;
+                    }
+                    Node<T> target = f.next.get(c);
+                    child.fail = target != null && target != child ? target : root;
+                    child.output = child.fail.terminal ? child.fail : child.fail.output;
+                    queue.add(child);
+                }
+            }
+            return new AhoCorasickAutomaton<>(root, keywordCount);
+        }
+    }
+
+    private static final class Node<T> {
+        final int depth;
+        final Map<Character, Node<T>> next = new HashMap<>(4);
+        final List<T> payloads = new ArrayList<>(1);
+        Node<T> fail;
+        Node<T> output;
+        boolean terminal;
+        String keyword;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
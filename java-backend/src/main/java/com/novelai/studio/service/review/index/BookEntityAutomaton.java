@@ -0,0 +1,125 @@
+package com.novelai.studio.service.review.index;
+
+import cn.hutool.crypto.SecureUtil;
+import com.novelai.studio.entity.StoryEvent;
+import com.novelai.studio.entity.WorldSetting;
+
+import java.util.*;
+
+/**
+ * 书籍级实体自动机
+ * 由角色名称/别名、事件标题、地点名称构建，每本书构建一次，对每章正文只做一次线性扫描
+ */
+public final class BookEntityAutomaton {
+
+    private static final BookEntityAutomaton EMPTY =
+            new BookEntityAutomaton(AhoCorasickAutomaton.<EntityRef>builder().build(), Collections.emptySet(), "empty");
+
+    private final AhoCorasickAutomaton<EntityRef> automaton;
+
+    /**
+     * 关键词集合指纹，关键词相同的自动机指纹相同
+     */
+    private final String fingerprint;
+
+    /**
+     * 已知地点名称
+     */
+    private final Set<String> locationNames;
+
+    private BookEntityAutomaton(AhoCorasickAutomaton<EntityRef> automaton, Set<String> locationNames, String fingerprint) {
+        this.automaton = automaton;
+        this.fingerprint = fingerprint;
+        this.locationNames = Collections.unmodifiableSet(locationNames);
+    }
+
+    public static BookEntityAutomaton empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 构建书籍实体自动机
+     *
+     * @param characterNameToId 角色名称（含别名）到角色ID的映射
+     * @param storyEvents       故事事件（提供事件标题与发生地点）
+     * @param worldSettings     世界观设定（提供地点名称）
+     */
+    public static BookEntityAutomaton build(Map<String, String> characterNameToId,
+                                            List<StoryEvent> storyEvents,
+                                            List<WorldSetting> worldSettings) {
+        AhoCorasickAutomaton.Builder<EntityRef> builder = AhoCorasickAutomaton.builder();
+        List<String> entries = new ArrayList<>();
+
+        if (characterNameToId != null) {
+            for (Map.Entry<String, String> entry : characterNameToId.entrySet()) {
+                builder.add(entry.getKey(), new EntityRef(EntityKind.CHARACTER, entry.getValue()));
+                entries.add(EntityKind.CHARACTER + ":" + entry.getValue() + ":" + entry.getKey());
+            }
+        }
+
+        Set<String> locationNames = new LinkedHashSet<>();
+        if (worldSettings != null) {
+            for (WorldSetting setting : worldSettings) {
+                if (isLocationSetting(setting) && setting.getName() != null && !setting.getName().isEmpty()) {
+                    locationNames.add(setting.getName());
+                }
+            }
+        }
+
+        if (storyEvents != null) {
+            for (StoryEvent event : storyEvents) {
+                if (event.getTitle() != null) {
+                    builder.add(event.getTitle(), new EntityRef(EntityKind.EVENT, event.getId()));
+                    entries.add(EntityKind.EVENT + ":" + event.getId() + ":" + event.getTitle());
+                }
+                if (event.getLocation() != null && !event.getLocation().isEmpty()) {
+                    locationNames.add(event.getLocation());
+                }
+            }
+        }
+
+        for (String location : locationNames) {
+            builder.add(location, new EntityRef(EntityKind.LOCATION, location));
+            entries.add(EntityKind.LOCATION + ":" + location);
+        }
+
+        Collections.sort(entries);
+        String fingerprint = SecureUtil.md5(String.join("\n", entries));
+        return new BookEntityAutomaton(builder.build(), locationNames, fingerprint);
+    }
+
+    /**
+     * 是否为地点类设定
+     */
+    public static boolean isLocationSetting(WorldSetting setting) {
+        return "location".equals(setting.getCategory()) || "geography".equals(setting.getCategory());
+    }
+
+    /**
+     * 对章节正文做一次扫描，生成出现索引
+     */
+    public OccurrenceIndex index(String content) {
+        if (content == null || content.isEmpty() || automaton.isEmpty()) {
+            return OccurrenceIndex.empty();
+        }
+        List<EntityOccurrence> occurrences = new ArrayList<>();
+        automaton.scan(content, (start, end, keyword, entity) ->
+                occurrences.add(new EntityOccurrence(entity, keyword, start, end)));
+        return new OccurrenceIndex(occurrences);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Set<String> getLocationNames() {
+        return locationNames;
+    }
+
+    /**
+     * 关键词数量
+     */
+    public int size() {
+        return automaton.size();
+    }
+}
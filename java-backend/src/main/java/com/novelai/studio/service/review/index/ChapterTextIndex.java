@@ -0,0 +1,277 @@
+package com.novelai.studio.service.review.index;
+
+import java.util.*;
+
+/**
+ * 章节文本索引
+ * 一次性预计算段落偏移、句子边界、词表关键词命中与实体出现位置，供所有规则共享，
+ * 规则无需再反复 split 段落或在窗口内逐词查找
+ */
+public final class ChapterTextIndex {
+
+    /**
+     * 全部词表合并后的关键词自动机
+     */
+    private static final AhoCorasickAutomaton<KeywordCategory> KEYWORD_AUTOMATON;
+
+    static {
+        AhoCorasickAutomaton.Builder<KeywordCategory> builder = AhoCorasickAutomaton.builder();
+        for (KeywordCategory category : KeywordCategory.values()) {
+            builder.addAll(category.getWords(), category);
+        }
+        KEYWORD_AUTOMATON = builder.build();
+    }
+
+    /**
+     * 句末标点
+     */
+    private static final String SENTENCE_TERMINATORS = "。！？!?；;…\n";
+
+    /**
+     * 可附着在句末标点之后的闭合符号
+     */
+    private static final String CLOSING_MARKS = "”’」』）)\"'";
+
+    private final String content;
+
+    /**
+     * 段落（与 content.split("\n") 结果一致）
+     */
+    private final String[] paragraphs;
+    private final int[] paragraphStarts;
+
+    private final int[] sentenceStarts;
+    private final int[] sentenceEnds;
+
+    private final Map<KeywordCategory, List<KeywordHit>> keywordHits = new EnumMap<>(KeywordCategory.class);
+
+    private final OccurrenceIndex occurrences;
+
+    private ChapterTextIndex(String content, OccurrenceIndex occurrences) {
+        this.content = content;
+        this.occurrences = occurrences;
+
+        // 段落偏移
+        this.paragraphs = content.split("\n");
+        this.paragraphStarts = new int[paragraphs.length];
+        int offset = 0;
+        for (int i = 0; i < paragraphs.length; i++) {
+            paragraphStarts[i] = offset;
+            offset += paragraphs[i].length() + 1;
+        }
+
+        // 句子边界
+        List<int[]> sentences = splitSentences(content);
+        this.sentenceStarts = new int[sentences.size()];
+        this.sentenceEnds = new int[sentences.size()];
+        for (int i = 0; i < sentences.size(); i++) {
+            sentenceStarts[i] = sentences.get(i)[0];
+            sentenceEnds[i] = sentences.get(i)[1];
+        }
+
+        // 词表命中（一次扫描覆盖全部词表）
+        for (KeywordCategory category : KeywordCategory.values()) {
+            keywordHits.put(category, new ArrayList<>());
+        }
+        KEYWORD_AUTOMATON.scan(content, (start, end, word, category) ->
+                keywordHits.get(category).add(new KeywordHit(category, word, start, end)));
+        for (List<KeywordHit> hits : keywordHits.values()) {
+            hits.sort(Comparator.comparingInt(KeywordHit::getStart));
+        }
+    }
+
+    /**
+     * 构建章节文本索引
+     *
+     * @param content   章节正文
+     * @param automaton 书籍实体自动机，为 null 时不建立实体出现索引
+     */
+    public static ChapterTextIndex build(String content, BookEntityAutomaton automaton) {
+        String text = content != null ? content : "";
+        OccurrenceIndex occurrences = automaton != null ? automaton.index(text) : OccurrenceIndex.empty();
+        return new ChapterTextIndex(text, occurrences);
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    // ========== 段落 ==========
+
+    public int getParagraphCount() {
+        return paragraphs.length;
+    }
+
+    public String getParagraph(int index) {
+        return paragraphs[index];
+    }
+
+    public int getParagraphStart(int index) {
+        return paragraphStarts[index];
+    }
+
+    public int getParagraphEnd(int index) {
+        return paragraphStarts[index] + paragraphs[index].length();
+    }
+
+    /**
+     * 偏移量所在的段落序号
+     */
+    public int paragraphIndexOf(int offset) {
+        return floorIndex(paragraphStarts, offset);
+    }
+
+    // ========== 句子 ==========
+
+    public int getSentenceCount() {
+        return sentenceStarts.length;
+    }
+
+    public int getSentenceStart(int index) {
+        return sentenceStarts[index];
+    }
+
+    public int getSentenceEnd(int index) {
+        return sentenceEnds[index];
+    }
+
+    public String getSentence(int index) {
+        return content.substring(sentenceStarts[index], sentenceEnds[index]);
+    }
+
+    /**
+     * 偏移量所在的句子序号，不在任何句子内时返回前一个句子
+     */
+    public int sentenceIndexOf(int offset) {
+        return floorIndex(sentenceStarts, offset);
+    }
+
+    // ========== 关键词 ==========
+
+    /**
+     * 指定词表的全部命中（按位置排序）
+     */
+    public List<KeywordHit> getKeywordHits(KeywordCategory category) {
+        return Collections.unmodifiableList(keywordHits.get(category));
+    }
+
+    /**
+     * [start, end) 区间内是否完整包含指定词表中的任一关键词
+     */
+    public boolean hasKeyword(KeywordCategory category, int start, int end) {
+        return !keywordHitsIn(category, start, end).isEmpty();
+    }
+
+    /**
+     * 完整落在 [start, end) 区间内的指定词表命中
+     */
+    public List<KeywordHit> keywordHitsIn(KeywordCategory category, int start, int end) {
+        List<KeywordHit> hits = keywordHits.get(category);
+        int low = 0;
+        int high = hits.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hits.get(mid).getStart() < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<KeywordHit> result = new ArrayList<>();
+        for (int i = low; i < hits.size() && hits.get(i).getStart() < end; i++) {
+            if (hits.get(i).getEnd() <= end) {
+                result.add(hits.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 段落内是否包含指定词表中的任一关键词
+     */
+    public boolean paragraphHasKeyword(int paragraphIndex, KeywordCategory category) {
+        return hasKeyword(category, getParagraphStart(paragraphIndex), getParagraphEnd(paragraphIndex));
+    }
+
+    // ========== 实体 ==========
+
+    /**
+     * 实体出现索引（角色、事件、地点）
+     */
+    public OccurrenceIndex getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * 段落内指定类型的实体出现记录
+     */
+    public List<EntityOccurrence> occurrencesInParagraph(int paragraphIndex, EntityKind kind) {
+        return occurrences.inRange(getParagraphStart(paragraphIndex), getParagraphEnd(paragraphIndex), kind);
+    }
+
+    private static List<int[]> splitSentences(String content) {
+        List<int[]> sentences = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < content.length()) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                // 换行直接结束当前句，换行符本身不计入句子
+                if (hasText(content, start, i)) {
+                    sentences.add(new int[]{start, i});
+                }
+                start = i + 1;
+                i++;
+            } else if (SENTENCE_TERMINATORS.indexOf(c) >= 0) {
+                int end = i + 1;
+                // 连续的句末标点与闭合引号归入同一句
+                while (end < content.length()
+                        && content.charAt(end) != '\n'
+                        && (SENTENCE_TERMINATORS.indexOf(content.charAt(end)) >= 0
+                            || CLOSING_MARKS.indexOf(content.charAt(end)) >= 0)) {
+                    end++;
+                }
+                if (hasText(content, start, end)) {
+                    sentences.add(new int[]{start, end});
+                }
+                start = end;
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        if (hasText(content, start, content.length())) {
+            sentences.add(new int[]{start, content.length()});
+        }
+        return sentences;
+    }
+
+    private static boolean hasText(String content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (!Character.isWhitespace(c) && SENTENCE_TERMINATORS.indexOf(c) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 有序数组中不大于 value 的最后一个元素下标
+     */
+    private static int floorIndex(int[] sortedStarts, int value) {
+        int low = 0;
+        int high = sortedStarts.length - 1;
+        int result = sortedStarts.length > 0 ? 0 : -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (sortedStarts[mid] <= value) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.novelai.studio.service.review.index;
+
+import cn.hutool.crypto.SecureUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 章节文本索引缓存
+ * 以（实体自动机指纹 + 正文内容哈希）为键，同一内容在多条规则、多次审查之间只构建一次
+ */
+@Component
+public class ChapterTextIndexCache {
+
+    /**
+     * 最大缓存条目数
+     */
+    private static final int MAX_CACHE_SIZE = 256;
+
+    /**
+     * LRU 缓存：cacheKey -> 索引
+     */
+    private final Map<String, ChapterTextIndex> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ChapterTextIndex> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private long hits;
+    private long misses;
+
+    /**
+     * 获取或构建章节文本索引
+     */
+    public ChapterTextIndex getOrBuild(String content, BookEntityAutomaton automaton) {
+        String text = content != null ? content : "";
+        String cacheKey = (automaton != null ? automaton.getFingerprint() : "-") + ":" + SecureUtil.md5(text);
+
+        synchronized (cache) {
+            ChapterTextIndex cached = cache.get(cacheKey);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        // 在锁外构建，避免长文本阻塞其他章节
+        ChapterTextIndex index = ChapterTextIndex.build(text, automaton);
+        synchronized (cache) {
+            cache.put(cacheKey, index);
+        }
+        return index;
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStats() {
+        synchronized (cache) {
+            return Map.of(
+                    "size", cache.size(),
+                    "hits", hits,
+                    "misses", misses
+            );
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.novelai.studio.service.review.index;
+
+/**
+ * 可被索引的实体类型
+ */
+public enum EntityKind {
+
+    /**
+     * 角色（名称及别名）
+     */
+    CHARACTER,
+
+    /**
+     * 故事事件（事件标题）
+     */
+    EVENT,
+
+    /**
+     * 地点（世界观地点设定及事件发生地）
+     */
+    LOCATION
+}
@@ -0,0 +1,46 @@
+package com.novelai.studio.service.review.index;
+
+/**
+ * 实体在章节正文中的一次出现，区间为 [start, end)
+ */
+public final class EntityOccurrence {
+
+    private final EntityRef entity;
+    private final String keyword;
+    private final int start;
+    private final int end;
+
+    public EntityOccurrence(EntityRef entity, String keyword, int start, int end) {
+        this.entity = entity;
+        this.keyword = keyword;
+        this.start = start;
+        this.end = end;
+    }
+
+    public EntityRef getEntity() {
+        return entity;
+    }
+
+    public EntityKind getKind() {
+        return entity.getKind();
+    }
+
+    public String getEntityId() {
+        return entity.getId();
+    }
+
+    /**
+     * 实际命中的文本（名称或别名）
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,47 @@
+package com.novelai.studio.service.review.index;
+
+import java.util.Objects;
+
+/**
+ * 自动机关键词所指向的实体
+ */
+public final class EntityRef {
+
+    private final EntityKind kind;
+
+    /**
+     * 实体标识：角色ID / 事件ID / 地点名称
+     */
+    private final String id;
+
+    public EntityRef(EntityKind kind, String id) {
+        this.kind = kind;
+        this.id = id;
+    }
+
+    public EntityKind getKind() {
+        return kind;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EntityRef)) return false;
+        EntityRef that = (EntityRef) o;
+        return kind == that.kind && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, id);
+    }
+
+    @Override
+    public String toString() {
+        return kind + ":" + id;
+    }
+}
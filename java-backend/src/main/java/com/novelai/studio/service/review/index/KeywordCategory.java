@@ -0,0 +1,46 @@
+package com.novelai.studio.service.review.index;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 审查规则共用的关键词词表
+ */
+public enum KeywordCategory {
+
+    /**
+     * 回忆、梦境等非现实场景
+     */
+    FLASHBACK("回忆", "想起", "记得", "从前", "当年", "那时", "梦见", "梦中", "梦里", "恍惚"),
+
+    /**
+     * 表示同时或短时间
+     */
+    SIMULTANEOUS("同时", "此时", "这时", "与此同时", "正当", "就在", "恰好", "刚刚", "刚才", "方才"),
+
+    /**
+     * 表示移动或到达
+     */
+    MOVEMENT("到达", "抵达", "来到", "进入", "离开", "前往", "赶到", "回到", "飞到", "传送"),
+
+    /**
+     * 时间在前
+     */
+    BEFORE("之前", "以前", "前", "曾经", "过去", "早些时候", "先前", "此前"),
+
+    /**
+     * 时间在后
+     */
+    AFTER("之后", "以后", "后", "随后", "接下来", "此后", "稍后");
+
+    private final List<String> words;
+
+    KeywordCategory(String... words) {
+        this.words = Collections.unmodifiableList(Arrays.asList(words));
+    }
+
+    public List<String> getWords() {
+        return words;
+    }
+}
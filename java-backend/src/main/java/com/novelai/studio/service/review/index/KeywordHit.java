@@ -0,0 +1,35 @@
+package com.novelai.studio.service.review.index;
+
+/**
+ * 词表关键词在正文中的一次命中，区间为 [start, end)
+ */
+public final class KeywordHit {
+
+    private final KeywordCategory category;
+    private final String word;
+    private final int start;
+    private final int end;
+
+    public KeywordHit(KeywordCategory category, String word, int start, int end) {
+        this.category = category;
+        this.word = word;
+        this.start = start;
+        this.end = end;
+    }
+
+    public KeywordCategory getCategory() {
+        return category;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+}
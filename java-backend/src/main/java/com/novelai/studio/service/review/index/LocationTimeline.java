@@ -0,0 +1,243 @@
+package com.novelai.studio.service.review.index;
+
+import com.novelai.studio.entity.StoryEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 角色位置时间线索引
+ * 由故事事件的发生地点和参与角色构建：角色 -> 按章节序号排列的位置记录，
+ * 支持按事件增量更新，冲突检测时按章节区间直接查找，无需每次遍历全部事件
+ */
+public final class LocationTimeline {
+
+    /**
+     * 角色ID -> 章节序号 -> 该章节内的位置记录（按加入顺序，更新的事件排在最后）
+     */
+    private final Map<String, TreeMap<Integer, List<Stop>>> byCharacter = new HashMap<>();
+
+    /**
+     * 事件ID -> 该事件产生的位置记录，用于更新和删除
+     */
+    private final Map<String, List<Stop>> byEvent = new HashMap<>();
+
+    /**
+     * 待重新加载的事件ID
+     */
+    private final Set<String> dirtyEventIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 由事件列表构建（事件按章节序号排列时，同章节内保持列表顺序）
+     */
+    public static LocationTimeline build(List<StoryEvent> events) {
+        LocationTimeline timeline = new LocationTimeline();
+        if (events != null) {
+            for (StoryEvent event : events) {
+                timeline.apply(event);
+            }
+        }
+        return timeline;
+    }
+
+    /**
+     * 加入或更新一个事件（先移除该事件原有的位置记录）
+     */
+    public synchronized void apply(StoryEvent event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        remove(event.getId());
+        if (event.getChapterOrder() == null || event.getLocation() == null || event.getInvolvedCharacters() == null) {
+            return;
+        }
+        List<Stop> stops = new ArrayList<>(event.getInvolvedCharacters().size());
+        for (String characterId : event.getInvolvedCharacters()) {
+            if (characterId == null) {
+                continue;
+            }
+            Stop stop = new Stop(characterId, event.getLocation(), event.getChapterOrder(),
+                    event.getChapterId(), event.getId());
+            byCharacter.computeIfAbsent(characterId, k -> new TreeMap<>())
+                    .computeIfAbsent(stop.chapterOrder, k -> new ArrayList<>())
+                    .add(stop);
+            stops.add(stop);
+        }
+        byEvent.put(event.getId(), stops);
+    }
+
+    /**
+     * 移除一个事件的位置记录
+     */
+    public synchronized void remove(String eventId) {
+        List<Stop> stops = byEvent.remove(eventId);
+        if (stops == null) {
+            return;
+        }
+        for (Stop stop : stops) {
+            TreeMap<Integer, List<Stop>> chapters = byCharacter.get(stop.characterId);
+            if (chapters == null) {
+                continue;
+            }
+            List<Stop> inChapter = chapters.get(stop.chapterOrder);
+            if (inChapter != null) {
+                inChapter.remove(stop);
+                if (inChapter.isEmpty()) {
+                    chapters.remove(stop.chapterOrder);
+                }
+            }
+            if (chapters.isEmpty()) {
+                byCharacter.remove(stop.characterId);
+            }
+        }
+    }
+
+    /**
+     * 角色在指定章节之前最后所在的位置，没有记录时返回 null
+     */
+    public synchronized Stop lastStopBefore(String characterId, int chapterOrder) {
+        TreeMap<Integer, List<Stop>> chapters = byCharacter.get(characterId);
+        if (chapters == null) {
+            return null;
+        }
+        Map.Entry<Integer, List<Stop>> entry = chapters.lowerEntry(chapterOrder);
+        if (entry == null) {
+            return null;
+        }
+        List<Stop> stops = entry.getValue();
+        return stops.get(stops.size() - 1);
+    }
+
+    /**
+     * 角色的位置区间（相邻且地点相同的记录合并），按章节顺序排列
+     */
+    public synchronized List<Interval> intervals(String characterId) {
+        List<Interval> intervals = new ArrayList<>();
+        TreeMap<Integer, List<Stop>> chapters = byCharacter.get(characterId);
+        if (chapters == null) {
+            return intervals;
+        }
+        Interval current = null;
+        for (List<Stop> stops : chapters.values()) {
+            for (Stop stop : stops) {
+                if (current != null && current.location.equals(stop.location)) {
+                    current.toChapterOrder = stop.chapterOrder;
+                } else {
+                    current = new Interval(stop.location, stop.chapterOrder, stop.chapterOrder);
+                    intervals.add(current);
+                }
+            }
+        }
+        return intervals;
+    }
+
+    /**
+     * 有位置记录的角色数
+     */
+    public synchronized int characterCount() {
+        return byCharacter.size();
+    }
+
+    /**
+     * 标记事件待重新加载（新增、修改、删除）
+     */
+    public void markEventDirty(String eventId) {
+        dirtyEventIds.add(eventId);
+    }
+
+    /**
+     * 取出并清空待重新加载的事件ID
+     */
+    public Set<String> drainDirtyEventIds() {
+        Set<String> drained = new HashSet<>();
+        for (Iterator<String> it = dirtyEventIds.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    /**
+     * 用重新加载的事件更新索引
+     * @param requestedIds 请求重新加载的事件ID
+     * @param reloaded 数据库中仍然存在的事件（不在其中的视为已删除）
+     */
+    public synchronized void applyReloadedEvents(Collection<String> requestedIds, Collection<StoryEvent> reloaded) {
+        Set<String> found = new HashSet<>();
+        for (StoryEvent event : reloaded) {
+            found.add(event.getId());
+            apply(event);
+        }
+        for (String eventId : requestedIds) {
+            if (!found.contains(eventId)) {
+                remove(eventId);
+            }
+        }
+    }
+
+    /**
+     * 一条位置记录：角色在某章节位于某地点
+     */
+    public static final class Stop {
+        private final String characterId;
+        private final String location;
+        private final int chapterOrder;
+        private final String chapterId;
+        private final String eventId;
+
+        Stop(String characterId, String location, int chapterOrder, String chapterId, String eventId) {
+            this.characterId = characterId;
+            this.location = location;
+            this.chapterOrder = chapterOrder;
+            this.chapterId = chapterId;
+            this.eventId = eventId;
+        }
+
+        public String getCharacterId() {
+            return characterId;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public int getChapterOrder() {
+            return chapterOrder;
+        }
+
+        public String getChapterId() {
+            return chapterId;
+        }
+
+        public String getEventId() {
+            return eventId;
+        }
+    }
+
+    /**
+     * 位置区间：角色在 [fromChapterOrder, toChapterOrder] 章节的记录中一直位于同一地点
+     */
+    public static final class Interval {
+        private final String location;
+        private final int fromChapterOrder;
+        private int toChapterOrder;
+
+        Interval(String location, int fromChapterOrder, int toChapterOrder) {
+            this.location = location;
+            this.fromChapterOrder = fromChapterOrder;
+            this.toChapterOrder = toChapterOrder;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public int getFromChapterOrder() {
+            return fromChapterOrder;
+        }
+
+        public int getToChapterOrder() {
+            return toChapterOrder;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.novelai.studio.service.review.index;
+
+import java.util.*;
+
+/**
+ * 章节实体出现索引
+ * 由 {@link BookEntityAutomaton} 对章节正文一次扫描得到，供各审查规则复用，避免逐名称重复查找
+ */
+public final class OccurrenceIndex {
+
+    private static final OccurrenceIndex EMPTY = new OccurrenceIndex(Collections.emptyList());
+
+    /**
+     * 全部出现记录（按起始位置排序）
+     */
+    private final List<EntityOccurrence> occurrences;
+
+    private final Map<String, List<EntityOccurrence>> byKeyword = new HashMap<>();
+
+    private final Map<EntityRef, List<EntityOccurrence>> byEntity = new HashMap<>();
+
+    OccurrenceIndex(List<EntityOccurrence> occurrences) {
+        List<EntityOccurrence> sorted = new ArrayList<>(occurrences);
+        sorted.sort(Comparator.comparingInt(EntityOccurrence::getStart)
+                .thenComparingInt(EntityOccurrence::getEnd));
+        this.occurrences = Collections.unmodifiableList(sorted);
+
+        for (EntityOccurrence occurrence : this.occurrences) {
+            byKeyword.computeIfAbsent(occurrence.getKeyword(), k -> new ArrayList<>()).add(occurrence);
+            byEntity.computeIfAbsent(occurrence.getEntity(), k -> new ArrayList<>()).add(occurrence);
+        }
+    }
+
+    public static OccurrenceIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 全部出现记录（按起始位置排序）
+     */
+    public List<EntityOccurrence> getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * 指定文本（名称/别名/标题）的出现记录
+     */
+    public List<EntityOccurrence> byKeyword(String keyword) {
+        return byKeyword.getOrDefault(keyword, Collections.emptyList());
+    }
+
+    /**
+     * 指定实体的全部出现记录（包括各个别名）
+     */
+    public List<EntityOccurrence> byEntity(EntityKind kind, String id) {
+        return byEntity.getOrDefault(new EntityRef(kind, id), Collections.emptyList());
+    }
+
+    /**
+     * 指定类型的全部出现记录
+     */
+    public List<EntityOccurrence> byKind(EntityKind kind) {
+        List<EntityOccurrence> result = new ArrayList<>();
+        for (EntityOccurrence occurrence : occurrences) {
+            if (occurrence.getKind() == kind) {
+                result.add(occurrence);
+            }
+        }
+        return result;
+    }
+
+    public boolean contains(String keyword) {
+        return byKeyword.containsKey(keyword);
+    }
+
+    /**
+     * 指定文本的出现次数：同一位置属于多个实体时只计一次，重叠的出现不重复计数
+     * （与逐次 indexOf 跳过整个匹配的计数方式一致）
+     */
+    public int count(String keyword) {
+        int count = 0;
+        int lastEnd = -1;
+        for (EntityOccurrence occurrence : byKeyword(keyword)) {
+            if (occurrence.getStart() >= lastEnd) {
+                count++;
+                lastEnd = occurrence.getEnd();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 完全落在 [start, end) 区间内的出现记录
+     */
+    public List<EntityOccurrence> inRange(int start, int end) {
+        List<EntityOccurrence> result = new ArrayList<>();
+        for (int i = firstAtOrAfter(start); i < occurrences.size(); i++) {
+            EntityOccurrence occurrence = occurrences.get(i);
+            if (occurrence.getStart() >= end) {
+                break;
+            }
+            if (occurrence.getEnd() <= end) {
+                result.add(occurrence);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 完全落在 [start, end) 区间内的指定类型出现记录
+     */
+    public List<EntityOccurrence> inRange(int start, int end, EntityKind kind) {
+        List<EntityOccurrence> result = new ArrayList<>();
+        for (EntityOccurrence occurrence : inRange(start, end)) {
+            if (occurrence.getKind() == kind) {
+                result.add(occurrence);
+            }
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return occurrences.isEmpty();
+    }
+
+    public int size() {
+        return occurrences.size();
+    }
+
+    /**
+     * 二分查找第一个起始位置不小于 offset 的记录下标
+     */
+    private int firstAtOrAfter(int offset) {
+        int low = 0;
+        int high = occurrences.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (occurrences.get(mid).getStart() < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,33 @@
+package com.novelai.studio.service.review.index;
+
+/**
+ * 事件标题与关系词组成的时间线短语
+ */
+public final class TimelinePhrase {
+
+    private final String eventTitle;
+    private final String relationWord;
+
+    /**
+     * 关系词在词表中的序号
+     */
+    private final int relationIndex;
+
+    public TimelinePhrase(String eventTitle, String relationWord, int relationIndex) {
+        this.eventTitle = eventTitle;
+        this.relationWord = relationWord;
+        this.relationIndex = relationIndex;
+    }
+
+    public String getEventTitle() {
+        return eventTitle;
+    }
+
+    public String getRelationWord() {
+        return relationWord;
+    }
+
+    public int getRelationIndex() {
+        return relationIndex;
+    }
+}
@@ -0,0 +1,75 @@
+package com.novelai.studio.service.review.index;
+
+import com.novelai.studio.entity.StoryEvent;
+
+import java.util.*;
+
+/**
+ * 时间线短语自动机
+ * 将事件标题与"之后"类关系词的组合（标题+关系词、关系词+标题）编译为一个自动机，
+ * 每个时间线版本（事件集合）构建一次，对每章正文只做一次线性扫描，与事件数量无关
+ */
+public final class TimelinePhraseAutomaton {
+
+    private static final TimelinePhraseAutomaton EMPTY =
+            new TimelinePhraseAutomaton(AhoCorasickAutomaton.<TimelinePhrase>builder().build());
+
+    private final AhoCorasickAutomaton<TimelinePhrase> automaton;
+
+    private TimelinePhraseAutomaton(AhoCorasickAutomaton<TimelinePhrase> automaton) {
+        this.automaton = automaton;
+    }
+
+    public static TimelinePhraseAutomaton empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由故事事件标题构建（同名事件只编译一次）
+     */
+    public static TimelinePhraseAutomaton build(List<StoryEvent> storyEvents) {
+        if (storyEvents == null || storyEvents.isEmpty()) {
+            return EMPTY;
+        }
+        List<String> afterWords = KeywordCategory.AFTER.getWords();
+        AhoCorasickAutomaton.Builder<TimelinePhrase> builder = AhoCorasickAutomaton.builder();
+        Set<String> titles = new HashSet<>();
+        for (StoryEvent event : storyEvents) {
+            String title = event.getTitle();
+            if (title == null || title.isEmpty() || !titles.add(title)) {
+                continue;
+            }
+            for (int i = 0; i < afterWords.size(); i++) {
+                String word = afterWords.get(i);
+                TimelinePhrase phrase = new TimelinePhrase(title, word, i);
+                builder.add(title + word, phrase);
+                builder.add(word + title, phrase);
+            }
+        }
+        return new TimelinePhraseAutomaton(builder.build());
+    }
+
+    /**
+     * 扫描章节正文，返回按段落归组的命中：段落序号 -> 命中的短语（只计完整落在段落内的命中）
+     */
+    public Map<Integer, List<TimelinePhrase>> scan(ChapterTextIndex textIndex) {
+        if (automaton.isEmpty() || textIndex.getContent().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, List<TimelinePhrase>> byParagraph = new HashMap<>();
+        automaton.scan(textIndex.getContent(), (start, end, keyword, phrase) -> {
+            int p = textIndex.paragraphIndexOf(start);
+            if (p >= 0 && end <= textIndex.getParagraphEnd(p)) {
+                byParagraph.computeIfAbsent(p, k -> new ArrayList<>()).add(phrase);
+            }
+        });
+        return byParagraph;
+    }
+
+    /**
+     * 短语数量
+     */
+    public int size() {
+        return automaton.size();
+    }
+}
@@ -0,0 +1,369 @@
+package com.novelai.studio.service.review.rules;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.ReviewIssue;
+import com.novelai.studio.service.AiTaskDispatchService;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import com.novelai.studio.service.ai.tokenizer.HeuristicTokenizer;
+import com.novelai.studio.service.ai.tokenizer.TokenizerRegistry;
+import com.novelai.studio.service.review.BatchReviewRule;
+import com.novelai.studio.service.review.ReviewContext;
+import com.novelai.studio.service.review.RuleBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AI辅助规则基类
+ * 单章审查时每章一次AI请求；全书审查时按 token 预算将多个章节打包为一次请求，
+ * 共享的设定摘要只发送一次，再按章节标记拆分结果
+ */
+public abstract class AbstractAIReviewRule extends AbstractReviewRule implements BatchReviewRule {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractAIReviewRule.class);
+
+    /**
+     * 单章内容截取长度
+     */
+    protected static final int MAX_CHAPTER_CHARS = 3000;
+
+    /**
+     * 批量结果中的章节标记：【章节N】
+     */
+    private static final Pattern CHAPTER_MARKER = Pattern.compile("【章节(\\d+)】");
+
+    @Autowired
+    protected AiTaskDispatchService aiTaskDispatchService;
+
+    @Autowired(required = false)
+    private TokenizerRegistry tokenizerRegistry;
+
+    /**
+     * 每次批量请求中章节内容的 token 预算
+     */
+    @Value("${review.ai.batch-token-budget:6000}")
+    private int batchTokenBudget = 6000;
+
+    /**
+     * 每次批量请求最多包含的章节数
+     */
+    @Value("${review.ai.batch-max-chapters:8}")
+    private int batchMaxChapters = 8;
+
+    /**
+     * 每章可消耗的 token 配额（提示与输出合计），0 表示不限
+     */
+    @Value("${review.ai.rule-token-budget:12000}")
+    private int ruleTokenBudget = 12000;
+
+    /**
+     * 每个章节的最大输出 token 数（批量请求按章节数放大）
+     */
+    private static final int MAX_OUTPUT_TOKENS = 1000;
+
+    protected AbstractAIReviewRule(String name, String description, String level, String type, int priority) {
+        super(name, description, level, type, priority);
+    }
+
+    @Override
+    public boolean requiresAI() {
+        return true;
+    }
+
+    @Override
+    public int getTokenBudget() {
+        return ruleTokenBudget;
+    }
+
+    /**
+     * 构建共享摘要（角色设定、世界观设定等），返回 null 表示无需检测
+     */
+    protected abstract String buildSharedSummary(ReviewContext context);
+
+    /**
+     * 构建审查提示
+     * @param summary 共享摘要
+     * @param chapterContent 待审查章节内容（批量时为带章节标记的多个章节）
+     */
+    protected abstract String buildReviewPrompt(String summary, String chapterContent);
+
+    /**
+     * 解析单个章节的AI返回结果
+     */
+    protected abstract List<ReviewIssue> parseAIResponse(String response, ReviewContext context);
+
+    @Override
+    public List<ReviewIssue> check(ReviewContext context) {
+        Chapter currentChapter = context.getCurrentChapter();
+        if (currentChapter == null || isBlank(context.getChapterContent(currentChapter))) {
+            return noIssues();
+        }
+
+        String summary = buildSharedSummary(context);
+        if (summary == null) {
+            return noIssues();
+        }
+
+        try {
+            return reviewSingle(summary, currentChapter, context, context.getRuleBudget());
+        } catch (Exception e) {
+            log.error("AI rule {} failed: {}", getName(), e.getMessage(), e);
+            return noIssues();
+        }
+    }
+
+    @Override
+    public Map<String, List<ReviewIssue>> checkBatch(ReviewContext context, List<Chapter> chapters) {
+        Map<String, List<ReviewIssue>> result = new LinkedHashMap<>();
+        if (chapters == null || chapters.isEmpty()) {
+            return result;
+        }
+
+        String summary = buildSharedSummary(context);
+        if (summary == null) {
+            return result;
+        }
+
+        RuleBudget budget = context.getRuleBudget();
+        for (List<Chapter> batch : packBatches(context, chapters)) {
+            if (budget.isExpired()) {
+                log.warn("AI rule {} ran out of time, skipping remaining chapters", getName());
+                break;
+            }
+            try {
+                if (batch.size() == 1) {
+                    Chapter chapter = batch.get(0);
+                    result.put(chapter.getId(), reviewSingle(summary, chapter, context, budget));
+                } else {
+                    result.putAll(reviewBatch(summary, batch, context, budget));
+                }
+            } catch (Exception e) {
+                log.error("AI rule {} batch of {} chapters failed: {}", getName(), batch.size(), e.getMessage(), e);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 按 token 预算打包章节（正文经上下文按需加载，不在此保留）
+     */
+    private List<List<Chapter>> packBatches(ReviewContext context, List<Chapter> chapters) {
+        List<List<Chapter>> batches = new ArrayList<>();
+        List<Chapter> current = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (Chapter chapter : chapters) {
+            String content = context.getChapterContent(chapter);
+            if (isBlank(content)) {
+                continue;
+            }
+            int tokens = estimateTokens(truncate(content));
+            if (!current.isEmpty()
+                    && (currentTokens + tokens > batchTokenBudget || current.size() >= batchMaxChapters)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(chapter);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private List<ReviewIssue> reviewSingle(String summary, Chapter chapter, ReviewContext context,
+                                           RuleBudget budget) {
+        GenerateResult response = callAI(buildReviewPrompt(summary, truncate(context.getChapterContent(chapter))),
+                MAX_OUTPUT_TOKENS, context, budget);
+        if (response == null || response.getContent() == null) {
+            return new ArrayList<>();
+        }
+        List<ReviewIssue> issues = parseAIResponse(response.getContent(), context);
+        attachChapter(issues, chapter);
+        return issues;
+    }
+
+    /**
+     * 多个章节合并为一次请求，按【章节N】标记拆分结果；
+     * 缺少标记的章节无法归属，退回逐章请求。输出被截断（finishReason 为 length）时最后一个章节的结果可能不完整，同样逐章重审
+     */
+    private Map<String, List<ReviewIssue>> reviewBatch(String summary, List<Chapter> batch, ReviewContext context,
+                                                       RuleBudget budget) {
+        StringBuilder block = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            Chapter chapter = batch.get(i);
+            block.append("【章节").append(i + 1).append("】");
+            if (chapter.getTitle() != null) {
+                block.append(chapter.getTitle());
+            }
+            block.append("\n").append(truncate(context.getChapterContent(chapter))).append("\n\n");
+        }
+
+        String prompt = buildReviewPrompt(summary, block.toString()) + String.format("""
+
+            【输出要求】
+            本次共审查%d个章节。请按章节分别输出结果，每个章节的结果以单独一行的章节标记开头（如【章节1】），
+            其后按上述格式输出该章节的问题；没有问题的章节同样需要输出章节标记和无问题标记。
+            """, batch.size());
+
+        GenerateResult response = callAI(prompt, MAX_OUTPUT_TOKENS * batch.size(), context, budget);
+        Map<String, List<ReviewIssue>> result = new LinkedHashMap<>();
+        if (response == null || response.getContent() == null) {
+            return result;
+        }
+
+        Map<Integer, String> sections = splitSections(response.getContent());
+        if ("length".equals(response.getFinishReason())) {
+            // 最后一个章节的结果可能被截断
+            sections.keySet().stream().max(Integer::compare).ifPresent(sections::remove);
+        }
+
+        List<Chapter> missing = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Chapter chapter = batch.get(i);
+            String section = sections.get(i + 1);
+            if (section == null) {
+                missing.add(chapter);
+                continue;
+            }
+            List<ReviewIssue> issues = parseAIResponse(section, context);
+            attachChapter(issues, chapter);
+            result.put(chapter.getId(), issues);
+        }
+
+        if (!missing.isEmpty()) {
+            log.warn("AI rule {} returned no result for {} of {} chapters (finishReason={}), re-reviewing them one by one",
+                    getName(), missing.size(), batch.size(), response.getFinishReason());
+            for (Chapter chapter : missing) {
+                result.put(chapter.getId(), reviewSingle(summary, chapter, context, budget));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按章节标记拆分返回内容：章节序号 -> 该章节的结果文本
+     */
+    private Map<Integer, String> splitSections(String response) {
+        Map<Integer, String> sections = new HashMap<>();
+        Matcher m = CHAPTER_MARKER.matcher(response);
+        int index = -1;
+        int start = 0;
+        while (m.find()) {
+            if (index > 0) {
+                sections.merge(index, response.substring(start, m.start()), String::concat);
+            }
+            index = Integer.parseInt(m.group(1));
+            start = m.end();
+        }
+        if (index > 0) {
+            sections.merge(index, response.substring(start), String::concat);
+        }
+        return sections;
+    }
+
+    /**
+     * 调用AI；已超时或剩余 token 配额不足时不再请求，返回 null
+     */
+    private GenerateResult callAI(String prompt, int maxTokens, ReviewContext context, RuleBudget budget) {
+        int estimated = estimateTokens(prompt) + maxTokens;
+        if (budget.isExpired() || Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        if (!budget.canSpend(estimated)) {
+            log.warn("AI rule {} token budget exhausted ({} of {} used), skipping request",
+                    getName(), budget.getTokensUsed(), budget.getTokenBudget());
+            return null;
+        }
+
+        GenerateOptions options = GenerateOptions.builder()
+                .maxTokens(maxTokens)
+                .temperature(0.3)
+                .bookId(context.getBook() != null ? context.getBook().getId() : null)
+                .task(AiTaskDispatchService.TASK_REVIEW)
+                .deadline(budget.deadlineMillis())
+                .build();
+
+        GenerateResult result = aiTaskDispatchService.generateForTask(AiTaskDispatchService.TASK_REVIEW, prompt, options);
+        if (result != null && result.getTokenUsage() != null && result.getTokenUsage().getTotalTokens() != null) {
+            budget.spend(result.getTokenUsage().getTotalTokens());
+        } else {
+            budget.spend(estimated);
+        }
+        return result;
+    }
+
+    private void attachChapter(List<ReviewIssue> issues, Chapter chapter) {
+        for (ReviewIssue issue : issues) {
+            if (issue.getChapterId() == null) {
+                issue.setChapterId(chapter.getId());
+            }
+            if (issue.getChapterOrder() == null) {
+                issue.setChapterOrder(chapter.getOrderNum());
+            }
+        }
+    }
+
+    /**
+     * 截取章节内容（避免超长）
+     */
+    protected String truncate(String content) {
+        if (content == null) {
+            return "";
+        }
+        return content.length() > MAX_CHAPTER_CHARS ? content.substring(0, MAX_CHAPTER_CHARS) + "..." : content;
+    }
+
+    /**
+     * 计算 token 数（默认编码的分词器，未注入时按字符数估算）
+     */
+    protected int estimateTokens(String text) {
+        if (tokenizerRegistry == null) {
+            return HeuristicTokenizer.DEFAULT.countTokens(text);
+        }
+        return tokenizerRegistry.getDefault().countTokens(text);
+    }
+
+    protected BigDecimal parseConfidence(String confidenceStr) {
+        BigDecimal confidence = new BigDecimal("0.70");
+        try {
+            if (confidenceStr != null && !confidenceStr.isEmpty()) {
+                confidence = new BigDecimal(confidenceStr.replaceAll("[^0-9.]", ""));
+            }
+        } catch (Exception e) {
+            // 使用默认置信度
+        }
+        return confidence;
+    }
+
+    /**
+     * 提取"字段：值"形式的单行字段（兼容中英文冒号）
+     */
+    protected String extractField(String text, String fieldName) {
+        int start = text.indexOf(fieldName + "：");
+        if (start < 0) {
+            start = text.indexOf(fieldName + ":");
+        }
+        if (start < 0) return null;
+
+        start += fieldName.length() + 1;
+        int end = text.indexOf("\n", start);
+        if (end < 0) end = text.length();
+
+        return text.substring(start, end).trim();
+    }
+
+    private boolean isBlank(String content) {
+        return content == null || content.isEmpty();
+    }
+}
@@ -6,6 +6,11 @@ import com.novelai.studio.entity.ReviewIssue;
 import com.novelai.studio.service.review.ReviewContext;
 import com.novelai.studio.service.review.ReviewLevel;
 import com.novelai.studio.service.review.ReviewType;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.EntityKind;
+import com.novelai.studio.service.review.index.EntityOccurrence;
+import com.novelai.studio.service.review.index.KeywordCategory;
+import com.novelai.studio.service.review.index.OccurrenceIndex;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -20,6 +25,11 @@ import java.util.regex.Pattern;
 @Component
 public class CharacterDeathConflictRule extends AbstractReviewRule {
 
+    /**
+     * 动作描写动词（预编译，只在名称出现位置之后做一次锚定匹配）
+     */
+    private static final Pattern ACTION_VERB_PATTERN = Pattern.compile("[说道想走跑站坐躺看听问答笑哭喊叫来去回打杀挥举拿放吃喝睡醒]");
+
     public CharacterDeathConflictRule() {
         super(
             "角色生死冲突检测",
@@ -30,6 +40,12 @@ public class CharacterDeathConflictRule extends AbstractReviewRule {
         );
     }
 
+    @Override
+    public int getLocalWindow() {
+        // 每段单独报告，回忆/梦境词只在相邻段落内查找
+        return 1;
+    }
+
     @Override
     public List<ReviewIssue> check(ReviewContext context) {
         if (context.getCurrentChapter() == null) {
@@ -51,43 +67,73 @@ public class CharacterDeathConflictRule extends AbstractReviewRule {
             return noIssues();
         }
 
-        // 检查当前章节内容中是否出现已死亡角色
-        for (Map.Entry<String, Integer> entry : deadCharacters.entrySet()) {
-            String characterName = entry.getKey();
-            Integer deathChapter = entry.getValue();
-
-            // 获取该角色的所有名称（包括别名）
-            Set<String> allNames = getCharacterAllNames(context, characterName);
-
-            for (String name : allNames) {
-                // 检查是否在内容中出现（排除回忆、梦境等特殊场景）
-                List<String> occurrences = findCharacterOccurrences(content, name);
-
-                for (String occurrence : occurrences) {
-                    if (!isInFlashbackOrDream(content, occurrence)) {
-                        issues.add(ReviewIssue.builder()
-                                .level(ReviewLevel.ERROR)
-                                .type(ReviewType.CHARACTER_DEATH_CONFLICT)
-                                .title("角色生死冲突：" + characterName)
-                                .description(String.format(
-                                    "角色「%s」在第%d章已死亡，但在当前章节（第%d章）中出现活动描写。",
-                                    characterName, deathChapter, currentChapter.getOrderNum()
-                                ))
-                                .location(Map.of(
-                                    "originalText", occurrence,
-                                    "characterName", name
-                                ))
-                                .suggestion("请检查该角色是否确实已死亡，或修改相关描写（如改为回忆场景）")
-                                .reference(Map.of(
-                                    "deathChapter", deathChapter
-                                ))
-                                .confidence(new BigDecimal("0.95"))
-                                .build());
-                        break; // 每个名称只报告一次
-                    }
+        // 收集本章实际提及的已死亡角色名称（包括别名）：名称 -> 角色主名
+        ChapterTextIndex textIndex = context.getTextIndex(currentChapter);
+        OccurrenceIndex occurrenceIndex = textIndex.getOccurrences();
+        Map<String, String> mentionedNames = new HashMap<>();
+        for (String characterName : deadCharacters.keySet()) {
+            for (String name : getCharacterAllNames(context, characterName)) {
+                // 本章未提及该名称则无需进一步匹配
+                if (occurrenceIndex.contains(name)) {
+                    mentionedNames.put(name, characterName);
                 }
             }
         }
+        if (mentionedNames.isEmpty()) {
+            return noIssues();
+        }
+
+        // 按出现位置顺序检查名称后是否紧跟动作动词（排除简单提及以及回忆、梦境等特殊场景）
+        Set<String> reportedNames = new HashSet<>();
+        Matcher verbMatcher = ACTION_VERB_PATTERN.matcher(content);
+        for (EntityOccurrence occurrence : occurrenceIndex.byKind(EntityKind.CHARACTER)) {
+            String name = occurrence.getKeyword();
+            if (!mentionedNames.containsKey(name)) {
+                continue;
+            }
+            int matchStart = occurrence.getStart();
+            int paragraph = textIndex.paragraphIndexOf(matchStart);
+            if (reportedNames.contains(paragraph + "|" + name)) {
+                continue;
+            }
+            int nameEnd = occurrence.getEnd();
+            if (nameEnd >= content.length() || !verbMatcher.region(nameEnd, nameEnd + 1).lookingAt()) {
+                continue;
+            }
+            int matchEnd = nameEnd + 1;
+
+            // 获取上下文（限于所在段落）
+            int contextStart = Math.max(textIndex.getParagraphStart(paragraph), matchStart - 20);
+            int contextEnd = Math.min(textIndex.getParagraphEnd(paragraph), matchEnd + 20);
+            if (isInFlashbackOrDream(textIndex, paragraph, contextStart, contextEnd)) {
+                continue;
+            }
+
+            String characterName = mentionedNames.get(name);
+            Integer deathChapter = deadCharacters.get(characterName);
+            issues.add(ReviewIssue.builder()
+                    .level(ReviewLevel.ERROR)
+                    .type(ReviewType.CHARACTER_DEATH_CONFLICT)
+                    .title("角色生死冲突：" + characterName)
+                    .description(String.format(
+                        "角色「%s」在第%d章已死亡，但在当前章节（第%d章）中出现活动描写。",
+                        characterName, deathChapter, currentChapter.getOrderNum()
+                    ))
+                    .location(Map.of(
+                        "paragraph", paragraph,
+                        "originalText", content.substring(contextStart, contextEnd),
+                        "characterName", name,
+                        "startOffset", matchStart,
+                        "endOffset", matchEnd
+                    ))
+                    .suggestion("请检查该角色是否确实已死亡，或修改相关描写（如改为回忆场景）")
+                    .reference(Map.of(
+                        "deathChapter", deathChapter
+                    ))
+                    .confidence(new BigDecimal("0.95"))
+                    .build());
+            reportedNames.add(paragraph + "|" + name); // 每个名称每段只报告一次
+        }
 
         return issues;
     }
@@ -144,49 +190,14 @@ public class CharacterDeathConflictRule extends AbstractReviewRule {
         return allNames;
     }
 
-    /**
-     * 在内容中查找角色出现的位置
-     */
-    private List<String> findCharacterOccurrences(String content, String name) {
-        List<String> occurrences = new ArrayList<>();
-
-        // 使用正则匹配角色名称（排除简单提及，只找动作描写）
-        // 匹配模式：角色名 + 动词（说、道、想、走、跑等）
-        String pattern = name + "(?:说|道|想|走|跑|站|坐|躺|看|听|问|答|笑|哭|喊|叫|来|去|回|打|杀|挥|举|拿|放|吃|喝|睡|醒)";
-        Pattern p = Pattern.compile(pattern);
-        Matcher m = p.matcher(content);
-
-        while (m.find()) {
-            // 获取上下文
-            int start = Math.max(0, m.start() - 20);
-            int end = Math.min(content.length(), m.end() + 20);
-            occurrences.add(content.substring(start, end));
-        }
-
-        return occurrences;
-    }
-
     /**
      * 检查是否在回忆或梦境场景中
+     * 在命中片段前后100字内（不超出相邻段落）查找回忆/梦境词汇（使用章节文本索引中预先扫描的命中位置）
      */
-    private boolean isInFlashbackOrDream(String content, String occurrence) {
-        // 简单检测：查看上下文是否包含回忆/梦境相关词汇
-        String[] flashbackKeywords = {"回忆", "想起", "记得", "从前", "当年", "那时", "梦见", "梦中", "梦里", "恍惚"};
-
-        // 在occurrence周围200字内查找关键词
-        int pos = content.indexOf(occurrence);
-        if (pos < 0) return false;
-
-        int start = Math.max(0, pos - 100);
-        int end = Math.min(content.length(), pos + occurrence.length() + 100);
-        String context = content.substring(start, end);
-
-        for (String keyword : flashbackKeywords) {
-            if (context.contains(keyword)) {
-                return true;
-            }
-        }
-
-        return false;
+    private boolean isInFlashbackOrDream(ChapterTextIndex textIndex, int paragraph, int start, int end) {
+        int windowStart = Math.max(textIndex.getParagraphStart(Math.max(0, paragraph - 1)), start - 100);
+        int windowEnd = Math.min(textIndex.getParagraphEnd(Math.min(textIndex.getParagraphCount() - 1, paragraph + 1)),
+                end + 100);
+        return textIndex.hasKeyword(KeywordCategory.FLASHBACK, windowStart, windowEnd);
     }
 }
@@ -2,9 +2,14 @@ package com.novelai.studio.service.review.rules;
 
 import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.ReviewIssue;
-import com.novelai.studio.entity.StoryEvent;
-import com.novelai.studio.entity.WorldSetting;
 import com.novelai.studio.service.review.ReviewContext;
+import com.novelai.studio.service.review.analysis.CharacterMentions;
+import com.novelai.studio.service.review.analysis.FactKey;
+import com.novelai.studio.service.review.analysis.ParagraphLocations;
+import com.novelai.studio.service.review.analysis.ReviewFacts;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.EntityOccurrence;
+import com.novelai.studio.service.review.index.KeywordCategory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -12,21 +17,11 @@ import java.util.*;
 
 /**
  * 地理位置冲突规则
- * 检测角色在短时间内出现在不合理的不同地点
+ * 检测角色在短时间内出现在不合理的不同地点（跨章节的位置连续性见 {@link LocationContinuityRule}）
  */
 @Component
 public class LocationConflictRule extends AbstractReviewRule {
 
-    // 表示同时或短时间的词汇
-    private static final List<String> SIMULTANEOUS_WORDS = Arrays.asList(
-        "同时", "此时", "这时", "与此同时", "正当", "就在", "恰好", "刚刚", "刚才", "方才"
-    );
-
-    // 表示移动或到达的词汇
-    private static final List<String> MOVEMENT_WORDS = Arrays.asList(
-        "到达", "抵达", "来到", "进入", "离开", "前往", "赶到", "回到", "飞到", "传送"
-    );
-
     public LocationConflictRule() {
         super(
             "location_conflict",
@@ -37,6 +32,17 @@ public class LocationConflictRule extends AbstractReviewRule {
         );
     }
 
+    @Override
+    public int getLocalWindow() {
+        // 只比较相距不超过两段的相邻提及
+        return 2;
+    }
+
+    @Override
+    public Set<FactKey<?>> getRequiredFacts() {
+        return Set.of(ReviewFacts.CHARACTER_MENTIONS, ReviewFacts.PARAGRAPH_LOCATIONS);
+    }
+
     @Override
     public List<ReviewIssue> check(ReviewContext context) {
         Chapter currentChapter = context.getCurrentChapter();
@@ -45,15 +51,6 @@ public class LocationConflictRule extends AbstractReviewRule {
         }
 
         List<ReviewIssue> issues = new ArrayList<>();
-        String content = currentChapter.getContent();
-
-        // 获取世界观设定中的地点信息
-        List<WorldSetting> worldSettings = context.getWorldSettings();
-        Set<String> knownLocations = extractLocations(worldSettings);
-
-        // 获取故事事件中的地点信息
-        List<StoryEvent> events = context.getStoryEvents();
-        Map<String, List<LocationMention>> characterLocationHistory = buildLocationHistory(events, currentChapter.getOrderNum());
 
         // 获取角色名称映射
         Map<String, String> characterNameToId = context.getCharacterNameToId();
@@ -62,34 +59,28 @@ public class LocationConflictRule extends AbstractReviewRule {
             return noIssues();
         }
 
-        // 分析当前章节中的位置提及
-        String[] paragraphs = content.split("\n");
+        // 当前章节中的位置提及（段落内的角色提及与地点均来自共享的分析事实）
+        ChapterTextIndex textIndex = context.getTextIndex(currentChapter);
+        CharacterMentions characterMentions = context.getFact(currentChapter, ReviewFacts.CHARACTER_MENTIONS);
+        ParagraphLocations paragraphLocations = context.getFact(currentChapter, ReviewFacts.PARAGRAPH_LOCATIONS);
         Map<String, List<LocationMention>> currentChapterLocations = new HashMap<>();
 
-        for (int paragraphIndex = 0; paragraphIndex < paragraphs.length; paragraphIndex++) {
-            String paragraph = paragraphs[paragraphIndex];
-
-            // 检查每个角色在当前段落中的位置
-            for (Map.Entry<String, String> entry : characterNameToId.entrySet()) {
-                String characterName = entry.getKey();
-                String characterId = entry.getValue();
-
-                if (paragraph.contains(characterName)) {
-                    // 尝试从段落中提取位置信息
-                    String location = extractLocationFromParagraph(paragraph, knownLocations);
-                    if (location != null) {
-                        LocationMention mention = new LocationMention(
-                            characterId,
-                            characterName,
-                            location,
-                            paragraphIndex,
-                            currentChapter.getId()
-                        );
-                        currentChapterLocations
-                            .computeIfAbsent(characterId, k -> new ArrayList<>())
-                            .add(mention);
-                    }
-                }
+        for (int paragraphIndex = 0; paragraphIndex < characterMentions.getParagraphCount(); paragraphIndex++) {
+            List<EntityOccurrence> mentions = characterMentions.inParagraph(paragraphIndex);
+            String location = mentions.isEmpty() ? null : paragraphLocations.get(paragraphIndex);
+            if (location == null) {
+                continue;
+            }
+            for (EntityOccurrence mention : mentions) {
+                currentChapterLocations
+                    .computeIfAbsent(mention.getEntityId(), k -> new ArrayList<>())
+                    .add(new LocationMention(
+                        mention.getEntityId(),
+                        mention.getKeyword(),
+                        location,
+                        paragraphIndex,
+                        currentChapter.getId()
+                    ));
             }
         }
 
@@ -106,8 +97,8 @@ public class LocationConflictRule extends AbstractReviewRule {
 
                         // 检查是否有合理的移动描述
                         boolean hasMovement = false;
-                        for (int p = current.paragraphIndex; p <= next.paragraphIndex && p < paragraphs.length; p++) {
-                            if (containsMovementWord(paragraphs[p])) {
+                        for (int p = current.paragraphIndex; p <= next.paragraphIndex && p < textIndex.getParagraphCount(); p++) {
+                            if (textIndex.paragraphHasKeyword(p, KeywordCategory.MOVEMENT)) {
                                 hasMovement = true;
                                 break;
                             }
@@ -115,8 +106,8 @@ public class LocationConflictRule extends AbstractReviewRule {
 
                         if (!hasMovement) {
                             // 检查是否有"同时"这样的词表示不可能的同时出现
-                            String relevantText = paragraphs[next.paragraphIndex];
-                            if (containsSimultaneousWord(relevantText)) {
+                            String relevantText = textIndex.getParagraph(next.paragraphIndex);
+                            if (textIndex.paragraphHasKeyword(next.paragraphIndex, KeywordCategory.SIMULTANEOUS)) {
                                 issues.add(createLocationIssue(
                                     context,
                                     currentChapter,
@@ -149,149 +140,9 @@ public class LocationConflictRule extends AbstractReviewRule {
             }
         }
 
-        // 检查与历史章节的位置冲突
-        for (Map.Entry<String, List<LocationMention>> entry : currentChapterLocations.entrySet()) {
-            String characterId = entry.getKey();
-            List<LocationMention> currentMentions = entry.getValue();
-            List<LocationMention> historyMentions = characterLocationHistory.get(characterId);
-
-            if (historyMentions != null && !historyMentions.isEmpty() && !currentMentions.isEmpty()) {
-                LocationMention lastHistory = historyMentions.get(historyMentions.size() - 1);
-                LocationMention firstCurrent = currentMentions.get(0);
-
-                // 如果上一章节结束时在A地点，当前章节开始就在B地点（无过渡）
-                if (!lastHistory.location.equals(firstCurrent.location)) {
-                    String firstParagraph = paragraphs[firstCurrent.paragraphIndex];
-                    if (!containsMovementWord(firstParagraph)) {
-                        issues.add(createLocationIssue(
-                            context,
-                            currentChapter,
-                            firstCurrent.paragraphIndex,
-                            "地理位置冲突：跨章节位置不连续",
-                            String.format("角色「%s」在前一章节最后位于「%s」，本章节直接出现在「%s」，缺少移动说明",
-                                firstCurrent.characterName,
-                                lastHistory.location,
-                                firstCurrent.location),
-                            firstParagraph
-                        ));
-                    }
-                }
-            }
-        }
-
         return issues;
     }
 
-    /**
-     * 从世界观设定中提取已知地点
-     */
-    private Set<String> extractLocations(List<WorldSetting> worldSettings) {
-        Set<String> locations = new HashSet<>();
-        if (worldSettings == null) {
-            return locations;
-        }
-
-        for (WorldSetting setting : worldSettings) {
-            if ("location".equals(setting.getCategory()) || "geography".equals(setting.getCategory())) {
-                locations.add(setting.getName());
-            }
-        }
-        return locations;
-    }
-
-    /**
-     * 构建角色历史位置记录
-     */
-    private Map<String, List<LocationMention>> buildLocationHistory(List<StoryEvent> events, int currentChapterOrder) {
-        Map<String, List<LocationMention>> history = new HashMap<>();
-
-        if (events == null) {
-            return history;
-        }
-
-        for (StoryEvent event : events) {
-            if (event.getChapterOrder() != null &&
-                event.getChapterOrder() < currentChapterOrder &&
-                event.getLocation() != null &&
-                event.getInvolvedCharacters() != null) {
-
-                for (String characterId : event.getInvolvedCharacters()) {
-                    LocationMention mention = new LocationMention(
-                        characterId,
-                        null,
-                        event.getLocation(),
-                        0,
-                        event.getChapterId()
-                    );
-                    history.computeIfAbsent(characterId, k -> new ArrayList<>()).add(mention);
-                }
-            }
-        }
-
-        return history;
-    }
-
-    /**
-     * 从段落中提取位置信息
-     */
-    private String extractLocationFromParagraph(String paragraph, Set<String> knownLocations) {
-        // 首先检查已知地点
-        for (String location : knownLocations) {
-            if (paragraph.contains(location)) {
-                return location;
-            }
-        }
-
-        // 使用常见的位置标记词提取
-        String[] locationMarkers = {"在", "到", "来到", "进入", "离开", "位于"};
-        for (String marker : locationMarkers) {
-            int idx = paragraph.indexOf(marker);
-            if (idx >= 0 && idx + marker.length() < paragraph.length()) {
-                // 提取标记词后的内容作为可能的位置
-                String afterMarker = paragraph.substring(idx + marker.length());
-                // 简单提取：取到下一个标点或动词为止
-                StringBuilder location = new StringBuilder();
-                for (char c : afterMarker.toCharArray()) {
-                    if (Character.isLetterOrDigit(c) || c == '的' || c == '里' || c == '中' || c == '上' || c == '下') {
-                        location.append(c);
-                        if (location.length() >= 10) break; // 限制长度
-                    } else if (location.length() > 0) {
-                        break;
-                    }
-                }
-                if (location.length() >= 2) {
-                    return location.toString();
-                }
-            }
-        }
-
-        return null;
-    }
-
-    /**
-     * 检查是否包含表示移动的词汇
-     */
-    private boolean containsMovementWord(String text) {
-        for (String word : MOVEMENT_WORDS) {
-            if (text.contains(word)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * 检查是否包含表示同时的词汇
-     */
-    private boolean containsSimultaneousWord(String text) {
-        for (String word : SIMULTANEOUS_WORDS) {
-            if (text.contains(word)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * 创建位置冲突问题
      */
@@ -0,0 +1,125 @@
+package com.novelai.studio.service.review.rules;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.ReviewIssue;
+import com.novelai.studio.service.review.ReviewContext;
+import com.novelai.studio.service.review.analysis.CharacterMentions;
+import com.novelai.studio.service.review.analysis.FactKey;
+import com.novelai.studio.service.review.analysis.ParagraphLocations;
+import com.novelai.studio.service.review.analysis.ReviewFacts;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.EntityOccurrence;
+import com.novelai.studio.service.review.index.KeywordCategory;
+import com.novelai.studio.service.review.index.LocationTimeline;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 跨章节位置连续性规则
+ * 检测角色在本章首次出现的地点与前面章节最后所在地点不一致且缺少移动说明
+ * 依赖角色在本章的首次提及，需要整章文本，因此不参与段落级增量审查
+ */
+@Component
+public class LocationContinuityRule extends AbstractReviewRule {
+
+    public LocationContinuityRule() {
+        super(
+            "location_continuity",
+            "检测跨章节位置连续性：检查角色在本章首次出现的地点是否与前一章节衔接",
+            "error",
+            "location_conflict",
+            91
+        );
+    }
+
+    @Override
+    public Set<FactKey<?>> getRequiredFacts() {
+        return Set.of(ReviewFacts.CHARACTER_MENTIONS, ReviewFacts.PARAGRAPH_LOCATIONS);
+    }
+
+    @Override
+    public List<ReviewIssue> check(ReviewContext context) {
+        Chapter currentChapter = context.getCurrentChapter();
+        if (currentChapter == null || currentChapter.getContent() == null) {
+            return noIssues();
+        }
+
+        Map<String, String> characterNameToId = context.getCharacterNameToId();
+        if (characterNameToId == null || characterNameToId.isEmpty()) {
+            return noIssues();
+        }
+
+        ChapterTextIndex textIndex = context.getTextIndex(currentChapter);
+        CharacterMentions characterMentions = context.getFact(currentChapter, ReviewFacts.CHARACTER_MENTIONS);
+        ParagraphLocations paragraphLocations = context.getFact(currentChapter, ReviewFacts.PARAGRAPH_LOCATIONS);
+        LocationTimeline locationTimeline = context.getLocationTimeline();
+
+        List<ReviewIssue> issues = new ArrayList<>();
+        Set<String> seenCharacters = new HashSet<>();
+        for (int paragraphIndex = 0; paragraphIndex < characterMentions.getParagraphCount(); paragraphIndex++) {
+            List<EntityOccurrence> mentions = characterMentions.inParagraph(paragraphIndex);
+            String location = mentions.isEmpty() ? null : paragraphLocations.get(paragraphIndex);
+            if (location == null) {
+                continue;
+            }
+            for (EntityOccurrence mention : mentions) {
+                // 只看角色在本章带地点的首次提及
+                if (!seenCharacters.add(mention.getEntityId())) {
+                    continue;
+                }
+                LocationTimeline.Stop lastHistory = locationTimeline.lastStopBefore(
+                        mention.getEntityId(), currentChapter.getOrderNum());
+
+                // 如果上一章节结束时在A地点，当前章节开始就在B地点（无过渡）
+                if (lastHistory == null
+                        || lastHistory.getLocation().equals(location)
+                        || textIndex.paragraphHasKeyword(paragraphIndex, KeywordCategory.MOVEMENT)) {
+                    continue;
+                }
+                issues.add(createContinuityIssue(
+                    context,
+                    currentChapter,
+                    paragraphIndex,
+                    String.format("角色「%s」在前一章节最后位于「%s」，本章节直接出现在「%s」，缺少移动说明",
+                        mention.getKeyword(),
+                        lastHistory.getLocation(),
+                        location),
+                    textIndex.getParagraph(paragraphIndex)
+                ));
+            }
+        }
+
+        return issues;
+    }
+
+    /**
+     * 创建跨章节位置不连续问题
+     */
+    private ReviewIssue createContinuityIssue(
+            ReviewContext context,
+            Chapter chapter,
+            int paragraphIndex,
+            String description,
+            String originalText) {
+
+        Map<String, Object> location = new HashMap<>();
+        location.put("paragraph", paragraphIndex);
+        location.put("originalText", originalText.length() > 200 ? originalText.substring(0, 200) + "..." : originalText);
+
+        return ReviewIssue.builder()
+                .bookId(context.getBook().getId())
+                .chapterId(chapter.getId())
+                .chapterOrder(chapter.getOrderNum())
+                .level(getLevel())
+                .type(getType())
+                .title("地理位置冲突：跨章节位置不连续")
+                .description(description)
+                .location(location)
+                .suggestion("请添加角色移动的描述，或修正位置信息使其连贯")
+                .confidence(new BigDecimal("0.80"))
+                .status("open")
+                .build();
+    }
+}
@@ -5,6 +5,10 @@ import com.novelai.studio.entity.ReviewIssue;
 import com.novelai.studio.service.review.ReviewContext;
 import com.novelai.studio.service.review.ReviewLevel;
 import com.novelai.studio.service.review.ReviewType;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.EntityKind;
+import com.novelai.studio.service.review.index.EntityOccurrence;
+import com.novelai.studio.service.review.index.OccurrenceIndex;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -17,6 +21,11 @@ import java.util.*;
 @Component
 public class NameInconsistencyRule extends AbstractReviewRule {
 
+    /**
+     * 不同称呼视为"相近位置"的距离阈值（字符数）
+     */
+    private static final int PROXIMITY_WINDOW = 100;
+
     public NameInconsistencyRule() {
         super(
             "称呼不一致检测",
@@ -27,6 +36,12 @@ public class NameInconsistencyRule extends AbstractReviewRule {
         );
     }
 
+    @Override
+    public int getLocalWindow() {
+        // 只比较同一段落或相邻段落内的称呼
+        return 1;
+    }
+
     @Override
     public List<ReviewIssue> check(ReviewContext context) {
         if (context.getCurrentChapter() == null) {
@@ -40,47 +55,62 @@ public class NameInconsistencyRule extends AbstractReviewRule {
         }
 
         List<ReviewIssue> issues = new ArrayList<>();
+        ChapterTextIndex textIndex = context.getTextIndex(currentChapter);
+        OccurrenceIndex occurrenceIndex = textIndex.getOccurrences();
 
         // 检查每个角色
         for (com.novelai.studio.entity.Character character : context.getCharacters()) {
-            // 收集该角色的所有称呼使用情况
-            Map<String, Integer> nameUsage = new HashMap<>();
-
-            // 检查主名称
-            int mainNameCount = countOccurrences(content, character.getName());
-            if (mainNameCount > 0) {
-                nameUsage.put(character.getName(), mainNameCount);
+            // 收集该角色在本章使用过的称呼
+            Set<String> usedNames = new LinkedHashSet<>();
+            if (occurrenceIndex.contains(character.getName())) {
+                usedNames.add(character.getName());
             }
-
-            // 检查别名
             if (character.getAliases() != null) {
                 for (String alias : character.getAliases()) {
-                    int aliasCount = countOccurrences(content, alias);
-                    if (aliasCount > 0) {
-                        nameUsage.put(alias, aliasCount);
+                    if (occurrenceIndex.contains(alias)) {
+                        usedNames.add(alias);
                     }
                 }
             }
 
-            // 如果使用了多个不同的称呼，且存在混用问题
-            if (nameUsage.size() > 1) {
-                // 检查是否存在可能的混淆
-                List<String> potentialIssues = checkForConfusingUsage(content, nameUsage);
-                if (!potentialIssues.isEmpty()) {
+            // 如果使用了多个不同的称呼，按段落检查相近位置的混用
+            if (usedNames.size() > 1) {
+                Map<Integer, List<Map<String, Object>>> conflictsByParagraph =
+                        checkForConfusingUsage(textIndex, occurrenceIndex, usedNames);
+                for (Map.Entry<Integer, List<Map<String, Object>>> entry : conflictsByParagraph.entrySet()) {
+                    List<Map<String, Object>> conflicts = entry.getValue();
+                    Set<String> mixedNames = new LinkedHashSet<>();
+                    for (Map<String, Object> conflict : conflicts) {
+                        for (Object name : (List<?>) conflict.get("names")) {
+                            mixedNames.add((String) name);
+                        }
+                    }
+                    Map<String, Object> location = new HashMap<>();
+                    location.put("characterId", character.getId());
+                    location.put("paragraph", entry.getKey());
+                    location.put("usedNames", new ArrayList<>(mixedNames));
+                    location.put("conflicts", conflicts);
+                    location.put("originalText", conflicts.get(0).get("originalText"));
+                    location.put("startOffset", conflicts.get(0).get("startOffset"));
+                    location.put("endOffset", conflicts.get(0).get("endOffset"));
+                    for (Map<String, Object> conflict : conflicts) {
+                        // 嵌套位置不随增量审查平移，只保留首处的偏移
+                        conflict.remove("startOffset");
+                        conflict.remove("endOffset");
+                    }
                     issues.add(ReviewIssue.builder()
                             .level(ReviewLevel.ERROR)
                             .type(ReviewType.NAME_INCONSISTENCY)
                             .title("称呼使用混乱：" + character.getName())
                             .description(String.format(
-                                "角色「%s」在本章中使用了多个不同的称呼：%s。" +
-                                "在同一段落或相近位置混用不同称呼可能导致读者困惑。",
+                                "角色「%s」在第%d段附近混用了不同的称呼：%s，" +
+                                "共%d处在相近位置切换称呼，可能导致读者困惑。",
                                 character.getName(),
-                                String.join("、", nameUsage.keySet())
-                            ))
-                            .location(Map.of(
-                                "characterId", character.getId(),
-                                "usedNames", nameUsage
+                                entry.getKey() + 1,
+                                String.join("、", mixedNames),
+                                conflicts.size()
                             ))
+                            .location(location)
                             .suggestion("建议在同一场景中保持称呼一致，或在切换称呼时有明确的上下文过渡")
                             .confidence(new BigDecimal("0.80"))
                             .build());
@@ -95,55 +125,89 @@ public class NameInconsistencyRule extends AbstractReviewRule {
     }
 
     /**
-     * 统计文本中某个名称出现的次数
+     * 检查是否存在混淆使用，按后一处称呼所在段落分组返回
+     * 各称呼的出现位置已按起始位置排序，多路归并后用滑动窗口比较相邻的不同称呼，
+     * 总工作量与出现次数成线性关系；只比较同一段落或相邻段落内的称呼，使问题只取决于所在段落附近的文本
      */
-    private int countOccurrences(String content, String name) {
-        int count = 0;
-        int index = 0;
-        while ((index = content.indexOf(name, index)) != -1) {
-            count++;
-            index += name.length();
+    private Map<Integer, List<Map<String, Object>>> checkForConfusingUsage(ChapterTextIndex textIndex,
+                                                                           OccurrenceIndex occurrenceIndex,
+                                                                           Collection<String> names) {
+        Map<Integer, List<Map<String, Object>>> conflicts = new TreeMap<>();
+        if (names.size() < 2) {
+            return conflicts;
+        }
+
+        List<EntityOccurrence> merged = mergeNameOccurrences(occurrenceIndex, names);
+
+        // 只需比较相邻的不同称呼：若两处不同称呼相距不足阈值，其间必有一次相邻切换也不足阈值
+        EntityOccurrence previous = null;
+        for (EntityOccurrence current : merged) {
+            if (previous != null
+                    && !previous.getKeyword().equals(current.getKeyword())
+                    && current.getStart() - previous.getStart() < PROXIMITY_WINDOW) {
+                int paragraph = textIndex.paragraphIndexOf(current.getStart());
+                if (textIndex.paragraphIndexOf(previous.getStart()) >= paragraph - 1) {
+                    Map<String, Object> conflict = new LinkedHashMap<>();
+                    conflict.put("names", List.of(previous.getKeyword(), current.getKeyword()));
+                    conflict.put("startOffset", previous.getStart());
+                    conflict.put("endOffset", current.getEnd());
+                    conflict.put("originalText", textIndex.getContent().substring(previous.getStart(), current.getEnd()));
+                    conflicts.computeIfAbsent(paragraph, k -> new ArrayList<>()).add(conflict);
+                }
+            }
+            previous = current;
         }
-        return count;
+
+        return conflicts;
     }
 
     /**
-     * 检查是否存在混淆使用
+     * 将各称呼（已排序）的出现记录多路归并为一个有序序列
+     * 同一位置的重复记录、以及被更长称呼包含的短称呼（如"张三"中的"三"）会被跳过
      */
-    private List<String> checkForConfusingUsage(String content, Map<String, Integer> nameUsage) {
-        List<String> issues = new ArrayList<>();
-
-        List<String> names = new ArrayList<>(nameUsage.keySet());
-        if (names.size() < 2) {
-            return issues;
+    private List<EntityOccurrence> mergeNameOccurrences(OccurrenceIndex occurrenceIndex, Collection<String> names) {
+        List<List<EntityOccurrence>> lists = new ArrayList<>();
+        int total = 0;
+        for (String name : names) {
+            List<EntityOccurrence> list = occurrenceIndex.byKeyword(name);
+            if (!list.isEmpty()) {
+                lists.add(list);
+                total += list.size();
+            }
         }
 
-        // 检查是否在相近位置（100字内）出现了不同的称呼
-        for (int i = 0; i < names.size(); i++) {
-            for (int j = i + 1; j < names.size(); j++) {
-                String name1 = names.get(i);
-                String name2 = names.get(j);
-
-                // 查找两个名称在文中的位置
-                int pos1 = content.indexOf(name1);
-                while (pos1 >= 0) {
-                    int pos2 = content.indexOf(name2);
-                    while (pos2 >= 0) {
-                        if (Math.abs(pos1 - pos2) < 100) {
-                            issues.add(String.format("「%s」和「%s」在相近位置出现", name1, name2));
-                            break;
-                        }
-                        pos2 = content.indexOf(name2, pos2 + 1);
-                    }
-                    if (!issues.isEmpty()) break;
-                    pos1 = content.indexOf(name1, pos1 + 1);
+        List<EntityOccurrence> merged = new ArrayList<>(total);
+        int[] cursors = new int[lists.size()];
+        int coveredEnd = -1;
+        while (true) {
+            int best = -1;
+            EntityOccurrence bestOccurrence = null;
+            for (int i = 0; i < lists.size(); i++) {
+                if (cursors[i] >= lists.get(i).size()) {
+                    continue;
+                }
+                EntityOccurrence candidate = lists.get(i).get(cursors[i]);
+                // 起始位置相同时较长的称呼优先
+                if (bestOccurrence == null
+                        || candidate.getStart() < bestOccurrence.getStart()
+                        || (candidate.getStart() == bestOccurrence.getStart()
+                            && candidate.getEnd() > bestOccurrence.getEnd())) {
+                    best = i;
+                    bestOccurrence = candidate;
                 }
-                if (!issues.isEmpty()) break;
             }
-            if (!issues.isEmpty()) break;
-        }
+            if (best < 0) {
+                break;
+            }
+            cursors[best]++;
 
-        return issues;
+            if (bestOccurrence.getKind() != EntityKind.CHARACTER || bestOccurrence.getEnd() <= coveredEnd) {
+                continue;
+            }
+            merged.add(bestOccurrence);
+            coveredEnd = bestOccurrence.getEnd();
+        }
+        return merged;
     }
 
     /**
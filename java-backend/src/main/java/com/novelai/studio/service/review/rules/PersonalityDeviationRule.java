@@ -1,16 +1,9 @@
 package com.novelai.studio.service.review.rules;
 
-import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.ReviewIssue;
-import com.novelai.studio.service.ai.AIService;
-import com.novelai.studio.service.ai.dto.GenerateOptions;
-import com.novelai.studio.service.ai.dto.GenerateResult;
 import com.novelai.studio.service.review.ReviewContext;
 import com.novelai.studio.service.review.ReviewLevel;
 import com.novelai.studio.service.review.ReviewType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -21,12 +14,7 @@ import java.util.*;
  * 使用AI检测角色行为与设定性格不符的情况
  */
 @Component
-public class PersonalityDeviationRule extends AbstractReviewRule {
-
-    private static final Logger log = LoggerFactory.getLogger(PersonalityDeviationRule.class);
-
-    @Autowired
-    private AIService aiService;
+public class PersonalityDeviationRule extends AbstractAIReviewRule {
 
     public PersonalityDeviationRule() {
         super(
@@ -39,56 +27,12 @@ public class PersonalityDeviationRule extends AbstractReviewRule {
     }
 
     @Override
-    public boolean requiresAI() {
-        return true;
-    }
-
-    @Override
-    public List<ReviewIssue> check(ReviewContext context) {
-        if (context.getCurrentChapter() == null) {
-            return noIssues();
-        }
-
-        Chapter currentChapter = context.getCurrentChapter();
-        String content = currentChapter.getContent();
-        if (content == null || content.isEmpty()) {
-            return noIssues();
-        }
-
+    protected String buildSharedSummary(ReviewContext context) {
         // 如果没有角色设定，跳过检测
         if (context.getCharacters() == null || context.getCharacters().isEmpty()) {
-            return noIssues();
-        }
-
-        List<ReviewIssue> issues = new ArrayList<>();
-
-        try {
-            // 构建角色性格摘要
-            String characterSummary = buildCharacterSummary(context.getCharacters());
-
-            // 截取章节内容（避免超长）
-            String truncatedContent = content.length() > 3000 ? content.substring(0, 3000) + "..." : content;
-
-            // 构建AI审查提示
-            String prompt = buildReviewPrompt(characterSummary, truncatedContent);
-
-            // 调用AI进行审查
-            GenerateOptions options = GenerateOptions.builder()
-                    .maxTokens(1000)
-                    .temperature(0.3)
-                    .build();
-
-            GenerateResult result = aiService.generate(prompt, null, options);
-
-            if (result != null && result.getContent() != null) {
-                issues.addAll(parseAIResponse(result.getContent(), context));
-            }
-
-        } catch (Exception e) {
-            log.error("AI personality deviation check failed: {}", e.getMessage(), e);
+            return null;
         }
-
-        return issues;
+        return buildCharacterSummary(context.getCharacters());
     }
 
     private String buildCharacterSummary(List<com.novelai.studio.entity.Character> characters) {
@@ -129,7 +73,8 @@ public class PersonalityDeviationRule extends AbstractReviewRule {
         }
     }
 
-    private String buildReviewPrompt(String characterSummary, String content) {
+    @Override
+    protected String buildReviewPrompt(String characterSummary, String content) {
         return String.format("""
             你是一个小说逻辑审查助手。请检查以下章节中角色的行为是否符合其性格设定。
 
@@ -159,7 +104,8 @@ public class PersonalityDeviationRule extends AbstractReviewRule {
             """, characterSummary, content);
     }
 
-    private List<ReviewIssue> parseAIResponse(String response, ReviewContext context) {
+    @Override
+    protected List<ReviewIssue> parseAIResponse(String response, ReviewContext context) {
         List<ReviewIssue> issues = new ArrayList<>();
 
         if (response.contains("[无偏离]")) {
@@ -177,14 +123,7 @@ public class PersonalityDeviationRule extends AbstractReviewRule {
             String suggestion = extractField(part, "建议");
             String confidenceStr = extractField(part, "置信度");
 
-            BigDecimal confidence = new BigDecimal("0.70");
-            try {
-                if (confidenceStr != null && !confidenceStr.isEmpty()) {
-                    confidence = new BigDecimal(confidenceStr.replaceAll("[^0-9.]", ""));
-                }
-            } catch (Exception e) {
-                // 使用默认置信度
-            }
+            BigDecimal confidence = parseConfidence(confidenceStr);
 
             if (problem != null && !problem.isEmpty()) {
                 issues.add(ReviewIssue.builder()
@@ -204,16 +143,4 @@ public class PersonalityDeviationRule extends AbstractReviewRule {
 
         return issues;
     }
-
-    private String extractField(String text, String fieldName) {
-        String pattern = fieldName + "[:：]";
-        int start = text.indexOf(pattern);
-        if (start < 0) return null;
-
-        start += fieldName.length() + 1;
-        int end = text.indexOf("\n", start);
-        if (end < 0) end = text.length();
-
-        return text.substring(start, end).trim();
-    }
 }
@@ -1,17 +1,10 @@
 package com.novelai.studio.service.review.rules;
 
-import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.ReviewIssue;
 import com.novelai.studio.entity.WorldSetting;
-import com.novelai.studio.service.ai.AIService;
-import com.novelai.studio.service.ai.dto.GenerateOptions;
-import com.novelai.studio.service.ai.dto.GenerateResult;
 import com.novelai.studio.service.review.ReviewContext;
 import com.novelai.studio.service.review.ReviewLevel;
 import com.novelai.studio.service.review.ReviewType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -22,12 +15,7 @@ import java.util.*;
  * 使用AI检测内容与世界观设定的矛盾
  */
 @Component
-public class SettingConflictRule extends AbstractReviewRule {
-
-    private static final Logger log = LoggerFactory.getLogger(SettingConflictRule.class);
-
-    @Autowired
-    private AIService aiService;
+public class SettingConflictRule extends AbstractAIReviewRule {
 
     public SettingConflictRule() {
         super(
@@ -40,57 +28,12 @@ public class SettingConflictRule extends AbstractReviewRule {
     }
 
     @Override
-    public boolean requiresAI() {
-        return true;
-    }
-
-    @Override
-    public List<ReviewIssue> check(ReviewContext context) {
-        if (context.getCurrentChapter() == null) {
-            return noIssues();
-        }
-
-        Chapter currentChapter = context.getCurrentChapter();
-        String content = currentChapter.getContent();
-        if (content == null || content.isEmpty()) {
-            return noIssues();
-        }
-
+    protected String buildSharedSummary(ReviewContext context) {
         // 如果没有世界观设定，跳过检测
         if (context.getWorldSettings() == null || context.getWorldSettings().isEmpty()) {
-            return noIssues();
+            return null;
         }
-
-        List<ReviewIssue> issues = new ArrayList<>();
-
-        try {
-            // 构建世界观设定摘要
-            String settingSummary = buildSettingSummary(context.getWorldSettings());
-
-            // 截取章节内容（避免超长）
-            String truncatedContent = content.length() > 3000 ? content.substring(0, 3000) + "..." : content;
-
-            // 构建AI审查提示
-            String prompt = buildReviewPrompt(settingSummary, truncatedContent);
-
-            // 调用AI进行审查
-            GenerateOptions options = GenerateOptions.builder()
-                    .maxTokens(1000)
-                    .temperature(0.3)
-                    .build();
-
-            GenerateResult result = aiService.generate(prompt, null, options);
-
-            if (result != null && result.getContent() != null) {
-                // 解析AI返回的结果
-                issues.addAll(parseAIResponse(result.getContent(), context));
-            }
-
-        } catch (Exception e) {
-            log.error("AI setting conflict check failed: {}", e.getMessage(), e);
-        }
-
-        return issues;
+        return buildSettingSummary(context.getWorldSettings());
     }
 
     private String buildSettingSummary(List<WorldSetting> settings) {
@@ -123,7 +66,8 @@ public class SettingConflictRule extends AbstractReviewRule {
         }
     }
 
-    private String buildReviewPrompt(String settingSummary, String content) {
+    @Override
+    protected String buildReviewPrompt(String settingSummary, String content) {
         return String.format("""
             你是一个小说逻辑审查助手。请检查以下章节内容是否与世界观设定存在矛盾。
 
@@ -153,7 +97,8 @@ public class SettingConflictRule extends AbstractReviewRule {
             """, settingSummary, content);
     }
 
-    private List<ReviewIssue> parseAIResponse(String response, ReviewContext context) {
+    @Override
+    protected List<ReviewIssue> parseAIResponse(String response, ReviewContext context) {
         List<ReviewIssue> issues = new ArrayList<>();
 
         if (response.contains("[无冲突]")) {
@@ -171,14 +116,7 @@ public class SettingConflictRule extends AbstractReviewRule {
             String suggestion = extractField(part, "建议");
             String confidenceStr = extractField(part, "置信度");
 
-            BigDecimal confidence = new BigDecimal("0.70");
-            try {
-                if (confidenceStr != null && !confidenceStr.isEmpty()) {
-                    confidence = new BigDecimal(confidenceStr.replaceAll("[^0-9.]", ""));
-                }
-            } catch (Exception e) {
-                // 使用默认置信度
-            }
+            BigDecimal confidence = parseConfidence(confidenceStr);
 
             if (problem != null && !problem.isEmpty()) {
                 issues.add(ReviewIssue.builder()
@@ -197,16 +135,4 @@ public class SettingConflictRule extends AbstractReviewRule {
 
         return issues;
     }
-
-    private String extractField(String text, String fieldName) {
-        String pattern = fieldName + "[:：]";
-        int start = text.indexOf(pattern);
-        if (start < 0) return null;
-
-        start += fieldName.length() + 1;
-        int end = text.indexOf("\n", start);
-        if (end < 0) end = text.length();
-
-        return text.substring(start, end).trim();
-    }
 }
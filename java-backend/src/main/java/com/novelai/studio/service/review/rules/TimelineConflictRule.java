@@ -4,6 +4,12 @@ import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.ReviewIssue;
 import com.novelai.studio.entity.StoryEvent;
 import com.novelai.studio.service.review.ReviewContext;
+import com.novelai.studio.service.review.analysis.FactKey;
+import com.novelai.studio.service.review.analysis.ReviewFacts;
+import com.novelai.studio.service.review.analysis.TemporalMarkers;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.index.KeywordCategory;
+import com.novelai.studio.service.review.index.TimelinePhrase;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -16,13 +22,8 @@ import java.util.*;
 @Component
 public class TimelineConflictRule extends AbstractReviewRule {
 
-    // 时间先后关系词
-    private static final List<String> BEFORE_WORDS = Arrays.asList(
-        "之前", "以前", "前", "曾经", "过去", "早些时候", "先前", "此前"
-    );
-    private static final List<String> AFTER_WORDS = Arrays.asList(
-        "之后", "以后", "后", "随后", "接下来", "此后", "稍后"
-    );
+    // 时间在后的关系词
+    private static final List<String> AFTER_WORDS = KeywordCategory.AFTER.getWords();
 
     public TimelineConflictRule() {
         super(
@@ -34,6 +35,17 @@ public class TimelineConflictRule extends AbstractReviewRule {
         );
     }
 
+    @Override
+    public int getLocalWindow() {
+        // 只比较同一段落内的事件提及和关系词
+        return 0;
+    }
+
+    @Override
+    public Set<FactKey<?>> getRequiredFacts() {
+        return Set.of(ReviewFacts.TEMPORAL_MARKERS);
+    }
+
     @Override
     public List<ReviewIssue> check(ReviewContext context) {
         Chapter currentChapter = context.getCurrentChapter();
@@ -47,7 +59,8 @@ public class TimelineConflictRule extends AbstractReviewRule {
         }
 
         List<ReviewIssue> issues = new ArrayList<>();
-        String content = currentChapter.getContent();
+        ChapterTextIndex textIndex = context.getTextIndex(currentChapter);
+        TemporalMarkers markers = context.getFact(currentChapter, ReviewFacts.TEMPORAL_MARKERS);
         int currentChapterOrder = currentChapter.getOrderNum();
 
         // 按时间线顺序排序事件
@@ -63,10 +76,10 @@ public class TimelineConflictRule extends AbstractReviewRule {
         }
 
         // 检查时间描述冲突
-        issues.addAll(checkTimeDescriptionConflicts(context, content, currentChapter, pastEvents));
+        issues.addAll(checkTimeDescriptionConflicts(context, textIndex, markers, currentChapter, pastEvents));
 
         // 检查事件顺序引用冲突
-        issues.addAll(checkEventOrderConflicts(context, content, currentChapter, sortedEvents));
+        issues.addAll(checkEventOrderConflicts(context, textIndex, markers, currentChapter, sortedEvents));
 
         return issues;
     }
@@ -76,39 +89,64 @@ public class TimelineConflictRule extends AbstractReviewRule {
      */
     private List<ReviewIssue> checkTimeDescriptionConflicts(
             ReviewContext context,
-            String content,
+            ChapterTextIndex textIndex,
+            TemporalMarkers markers,
             Chapter currentChapter,
             List<StoryEvent> pastEvents) {
 
         List<ReviewIssue> issues = new ArrayList<>();
-        String[] paragraphs = content.split("\n");
+        if (pastEvents.isEmpty() || markers.paragraphsWithTimelinePhrases().isEmpty()) {
+            return issues;
+        }
 
-        for (int paragraphIndex = 0; paragraphIndex < paragraphs.length; paragraphIndex++) {
-            String paragraph = paragraphs[paragraphIndex];
+        // 同名的过去事件：标题 -> 在 pastEvents 中的序号
+        Map<String, List<Integer>> pastEventsByTitle = new HashMap<>();
+        for (int i = 0; i < pastEvents.size(); i++) {
+            String eventTitle = pastEvents.get(i).getTitle();
+            if (eventTitle != null) {
+                pastEventsByTitle.computeIfAbsent(eventTitle, k -> new ArrayList<>()).add(i);
+            }
+        }
 
-            // 检查是否提到过去的事件发生在"之后"的矛盾表述
-            for (StoryEvent pastEvent : pastEvents) {
+        // 只处理短语自动机命中的段落，不再逐事件、逐关系词查找
+        for (int paragraphIndex : new TreeSet<>(markers.paragraphsWithTimelinePhrases())) {
+            Map<String, BitSet> matchedWords = new HashMap<>();
+            for (TimelinePhrase phrase : markers.timelinePhrases(paragraphIndex)) {
+                if (pastEventsByTitle.containsKey(phrase.getEventTitle())) {
+                    matchedWords.computeIfAbsent(phrase.getEventTitle(), k -> new BitSet())
+                            .set(phrase.getRelationIndex());
+                }
+            }
+            if (matchedWords.isEmpty()) {
+                continue;
+            }
+            String paragraph = textIndex.getParagraph(paragraphIndex);
+
+            // 按时间线顺序报告提到过去事件发生在"之后"的矛盾表述
+            List<Integer> matchedEvents = new ArrayList<>();
+            for (String eventTitle : matchedWords.keySet()) {
+                matchedEvents.addAll(pastEventsByTitle.get(eventTitle));
+            }
+            Collections.sort(matchedEvents);
+
+            for (int eventIndex : matchedEvents) {
+                StoryEvent pastEvent = pastEvents.get(eventIndex);
                 String eventTitle = pastEvent.getTitle();
-                if (eventTitle != null && paragraph.contains(eventTitle)) {
-                    // 检查是否有矛盾的时间表述
-                    for (String afterWord : AFTER_WORDS) {
-                        if (paragraph.contains(eventTitle + afterWord) ||
-                            paragraph.contains(afterWord + eventTitle)) {
-                            issues.add(createTimelineIssue(
-                                context,
-                                currentChapter,
-                                paragraphIndex,
-                                "时间线矛盾：事件顺序错误",
-                                String.format("事件「%s」发生在第%d章，但当前章节(第%d章)描述其在「%s」，与时间线矛盾",
-                                    eventTitle,
-                                    pastEvent.getChapterOrder(),
-                                    currentChapter.getOrderNum(),
-                                    afterWord),
-                                paragraph,
-                                pastEvent
-                            ));
-                        }
-                    }
+                BitSet words = matchedWords.get(eventTitle);
+                for (int w = words.nextSetBit(0); w >= 0; w = words.nextSetBit(w + 1)) {
+                    issues.add(createTimelineIssue(
+                        context,
+                        currentChapter,
+                        paragraphIndex,
+                        "时间线矛盾：事件顺序错误",
+                        String.format("事件「%s」发生在第%d章，但当前章节(第%d章)描述其在「%s」，与时间线矛盾",
+                            eventTitle,
+                            pastEvent.getChapterOrder(),
+                            currentChapter.getOrderNum(),
+                            AFTER_WORDS.get(w)),
+                        paragraph,
+                        pastEvent
+                    ));
                 }
             }
         }
@@ -121,71 +159,65 @@ public class TimelineConflictRule extends AbstractReviewRule {
      */
     private List<ReviewIssue> checkEventOrderConflicts(
             ReviewContext context,
-            String content,
+            ChapterTextIndex textIndex,
+            TemporalMarkers markers,
             Chapter currentChapter,
             List<StoryEvent> sortedEvents) {
 
         List<ReviewIssue> issues = new ArrayList<>();
-        String[] paragraphs = content.split("\n");
 
-        // 构建事件提及的位置映射
-        Map<String, List<Integer>> eventMentions = new HashMap<>();
-        for (int i = 0; i < paragraphs.length; i++) {
-            String paragraph = paragraphs[i];
-            for (StoryEvent event : sortedEvents) {
-                if (event.getTitle() != null && paragraph.contains(event.getTitle())) {
-                    eventMentions.computeIfAbsent(event.getId(), k -> new ArrayList<>()).add(i);
-                }
+        // 检查同一段落中提及多个事件时的顺序
+        for (int paragraphIndex = 0; paragraphIndex < markers.getParagraphCount(); paragraphIndex++) {
+            Map<String, Integer> mentionedTitles = markers.eventMentions(paragraphIndex);
+            if (mentionedTitles.size() < 2
+                    || !(markers.hasBeforeWord(paragraphIndex) || markers.hasAfterWord(paragraphIndex))) {
+                continue;
             }
-        }
+            String paragraph = textIndex.getParagraph(paragraphIndex);
+            int paragraphStart = textIndex.getParagraphStart(paragraphIndex);
 
-        // 检查同一段落中提及多个事件时的顺序
-        for (int paragraphIndex = 0; paragraphIndex < paragraphs.length; paragraphIndex++) {
-            String paragraph = paragraphs[paragraphIndex];
             List<StoryEvent> mentionedEvents = new ArrayList<>();
-
             for (StoryEvent event : sortedEvents) {
-                if (event.getTitle() != null && paragraph.contains(event.getTitle())) {
+                if (event.getTitle() != null && mentionedTitles.containsKey(event.getTitle())) {
                     mentionedEvents.add(event);
                 }
             }
 
             // 如果一个段落提及了多个事件，检查描述顺序是否与时间线一致
-            if (mentionedEvents.size() >= 2) {
-                for (int i = 0; i < mentionedEvents.size() - 1; i++) {
-                    StoryEvent event1 = mentionedEvents.get(i);
-                    StoryEvent event2 = mentionedEvents.get(i + 1);
-
-                    int pos1 = paragraph.indexOf(event1.getTitle());
-                    int pos2 = paragraph.indexOf(event2.getTitle());
-
-                    Integer order1 = event1.getTimelineOrder();
-                    Integer order2 = event2.getTimelineOrder();
-
-                    if (order1 != null && order2 != null) {
-                        // 检查是否有"先...后"这样的顺序描述
-                        String between = paragraph.substring(Math.min(pos1, pos2), Math.max(pos1 + event1.getTitle().length(), pos2 + event2.getTitle().length()));
-
-                        boolean hasBeforeWord = BEFORE_WORDS.stream().anyMatch(between::contains);
-                        boolean hasAfterWord = AFTER_WORDS.stream().anyMatch(between::contains);
-
-                        if (hasBeforeWord || hasAfterWord) {
-                            // 根据文本中的先后顺序判断
-                            boolean textOrder = pos1 < pos2; // event1在文本中先出现
-                            boolean timelineOrder = order1 < order2; // event1在时间线上先发生
-
-                            if (hasBeforeWord && textOrder != timelineOrder) {
-                                issues.add(createTimelineIssue(
-                                    context,
-                                    currentChapter,
-                                    paragraphIndex,
-                                    "时间线矛盾：事件顺序描述错误",
-                                    String.format("「%s」和「%s」的时间顺序描述与实际时间线不符",
-                                        event1.getTitle(), event2.getTitle()),
-                                    paragraph,
-                                    event1
-                                ));
-                            }
+            for (int i = 0; i < mentionedEvents.size() - 1; i++) {
+                StoryEvent event1 = mentionedEvents.get(i);
+                StoryEvent event2 = mentionedEvents.get(i + 1);
+
+                int pos1 = mentionedTitles.get(event1.getTitle());
+                int pos2 = mentionedTitles.get(event2.getTitle());
+
+                Integer order1 = event1.getTimelineOrder();
+                Integer order2 = event2.getTimelineOrder();
+
+                if (order1 != null && order2 != null) {
+                    // 检查两个事件之间是否有"先...后"这样的顺序描述
+                    int betweenStart = paragraphStart + Math.min(pos1, pos2);
+                    int betweenEnd = paragraphStart + Math.max(pos1 + event1.getTitle().length(), pos2 + event2.getTitle().length());
+
+                    boolean hasBeforeWord = textIndex.hasKeyword(KeywordCategory.BEFORE, betweenStart, betweenEnd);
+                    boolean hasAfterWord = textIndex.hasKeyword(KeywordCategory.AFTER, betweenStart, betweenEnd);
+
+                    if (hasBeforeWord || hasAfterWord) {
+                        // 根据文本中的先后顺序判断
+                        boolean textOrder = pos1 < pos2; // event1在文本中先出现
+                        boolean timelineOrder = order1 < order2; // event1在时间线上先发生
+
+                        if (hasBeforeWord && textOrder != timelineOrder) {
+                            issues.add(createTimelineIssue(
+                                context,
+                                currentChapter,
+                                paragraphIndex,
+                                "时间线矛盾：事件顺序描述错误",
+                                String.format("「%s」和「%s」的时间顺序描述与实际时间线不符",
+                                    event1.getTitle(), event2.getTitle()),
+                                paragraph,
+                                event1
+                            ));
                         }
                     }
                 }
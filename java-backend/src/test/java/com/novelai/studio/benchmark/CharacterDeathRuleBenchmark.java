@@ -0,0 +1,207 @@
+package com.novelai.studio.benchmark;
+
+import com.novelai.studio.entity.Book;
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.CharacterStateChange;
+import com.novelai.studio.entity.ReviewIssue;
+import com.novelai.studio.service.review.ReviewContext;
+import com.novelai.studio.service.review.index.BookEntityAutomaton;
+import com.novelai.studio.service.review.index.ChapterTextIndex;
+import com.novelai.studio.service.review.rules.CharacterDeathConflictRule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 角色生死冲突规则基准测试
+ * 对比旧实现（每个名称每章重新编译正则、按首次出现位置回查回忆词）与
+ * 预编译模式 + 章节文本索引的单章耗时，章节长度约 1 万字
+ *
+ * 运行：mvn test-compile 后执行
+ * java -cp "target/test-classes:target/classes:$(依赖classpath)" com.novelai.studio.benchmark.CharacterDeathRuleBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CharacterDeathRuleBenchmark {
+
+    private static final String[] SURNAMES = {"张", "李", "王", "赵", "钱", "孙", "周", "吴", "郑", "冯"};
+    private static final String[] GIVEN_NAMES = {"青云", "无忌", "若水", "长风", "明月"};
+    private static final String[] FILLER = {
+        "山风吹过，林间落叶纷飞。", "远处传来阵阵钟声，", "众人沉默不语，", "天色渐暗，",
+        "他握紧了手中的长剑。", "城中灯火通明，", "那一战之后，江湖再无宁日。"
+    };
+    private static final String[] VERBS = {"说", "道", "走", "笑", "看", "问"};
+
+    @Param({"10000"})
+    public int chapterLength;
+
+    private CharacterDeathConflictRule rule;
+    private ReviewContext baseContext;
+    private ReviewContext warmContext;
+    private BookEntityAutomaton automaton;
+    private Chapter chapter;
+    private List<String> deadNames;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<com.novelai.studio.entity.Character> characters = new ArrayList<>();
+        Map<String, String> nameToId = new HashMap<>();
+        Map<String, com.novelai.studio.entity.Character> byId = new HashMap<>();
+        List<CharacterStateChange> stateChanges = new ArrayList<>();
+        deadNames = new ArrayList<>();
+
+        int index = 0;
+        for (String surname : SURNAMES) {
+            for (String given : GIVEN_NAMES) {
+                com.novelai.studio.entity.Character character = new com.novelai.studio.entity.Character();
+                character.setId("char-" + index);
+                character.setName(surname + given);
+                character.setAliases(List.of(surname + "兄" + index));
+                characters.add(character);
+                byId.put(character.getId(), character);
+                nameToId.put(character.getName(), character.getId());
+                nameToId.put(character.getAliases().get(0), character.getId());
+
+                // 每五个角色中有一个已死亡
+                if (index % 5 == 0) {
+                    CharacterStateChange change = new CharacterStateChange();
+                    change.setCharacterId(character.getId());
+                    change.setChapterOrder(1);
+                    change.setField("isAlive");
+                    change.setNewValue("false");
+                    stateChanges.add(change);
+                    deadNames.add(character.getName());
+                }
+                index++;
+            }
+        }
+
+        StringBuilder content = new StringBuilder(chapterLength + 64);
+        while (content.length() < chapterLength) {
+            content.append(FILLER[random.nextInt(FILLER.length)]);
+            if (random.nextInt(3) == 0) {
+                com.novelai.studio.entity.Character character = characters.get(random.nextInt(characters.size()));
+                content.append(character.getName()).append(VERBS[random.nextInt(VERBS.length)]).append("：“走吧。”");
+            }
+            if (random.nextInt(8) == 0) {
+                content.append('\n');
+            }
+        }
+
+        chapter = new Chapter();
+        chapter.setId("chapter-bench");
+        chapter.setOrderNum(2);
+        chapter.setContent(content.toString());
+
+        Book book = new Book();
+        book.setId("book-bench");
+
+        automaton = BookEntityAutomaton.build(nameToId, Collections.emptyList(), Collections.emptyList());
+        baseContext = ReviewContext.builder()
+                .book(book)
+                .characters(characters)
+                .characterNameToId(nameToId)
+                .characterById(byId)
+                .characterStateChanges(stateChanges)
+                .entityAutomaton(automaton)
+                .build();
+        rule = new CharacterDeathConflictRule();
+
+        warmContext = ReviewContext.builder()
+                .book(book)
+                .currentChapter(chapter)
+                .characters(characters)
+                .characterNameToId(nameToId)
+                .characterById(byId)
+                .characterStateChanges(stateChanges)
+                .entityAutomaton(automaton)
+                .build();
+        warmContext.getTextIndex(chapter);
+    }
+
+    /**
+     * 当前实现：每次都重新构建章节文本索引（不命中任何缓存），衡量单章完整成本
+     */
+    @Benchmark
+    public List<ReviewIssue> indexedRule() {
+        ReviewContext context = ReviewContext.builder()
+                .book(baseContext.getBook())
+                .currentChapter(chapter)
+                .characters(baseContext.getCharacters())
+                .characterNameToId(baseContext.getCharacterNameToId())
+                .characterById(baseContext.getCharacterById())
+                .characterStateChanges(baseContext.getCharacterStateChanges())
+                .entityAutomaton(automaton)
+                .build();
+        return rule.check(context);
+    }
+
+    /**
+     * 当前实现：章节文本索引已由其他规则构建（一次审查中的常见情况）
+     */
+    @Benchmark
+    public List<ReviewIssue> indexedRuleWarmIndex() {
+        return rule.check(warmContext);
+    }
+
+    /**
+     * 仅构建章节文本索引的成本（多条规则共享）
+     */
+    @Benchmark
+    public ChapterTextIndex textIndexOnly() {
+        return ChapterTextIndex.build(chapter.getContent(), automaton);
+    }
+
+    /**
+     * 旧实现：每个已死亡角色名称编译一次正则，并以 indexOf 回查首次出现位置判断回忆场景
+     */
+    @Benchmark
+    public int legacyPerNamePattern() {
+        String content = chapter.getContent();
+        String[] flashbackKeywords = {"回忆", "想起", "记得", "从前", "当年", "那时", "梦见", "梦中", "梦里", "恍惚"};
+        int found = 0;
+        for (String name : deadNames) {
+            Pattern p = Pattern.compile(name + "(?:说|道|想|走|跑|站|坐|躺|看|听|问|答|笑|哭|喊|叫|来|去|回|打|杀|挥|举|拿|放|吃|喝|睡|醒)");
+            Matcher m = p.matcher(content);
+            while (m.find()) {
+                int start = Math.max(0, m.start() - 20);
+                int end = Math.min(content.length(), m.end() + 20);
+                String occurrence = content.substring(start, end);
+                int pos = content.indexOf(occurrence);
+                String window = content.substring(Math.max(0, pos - 100),
+                        Math.min(content.length(), pos + occurrence.length() + 100));
+                boolean flashback = false;
+                for (String keyword : flashbackKeywords) {
+                    if (window.contains(keyword)) {
+                        flashback = true;
+                        break;
+                    }
+                }
+                if (!flashback) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CharacterDeathRuleBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
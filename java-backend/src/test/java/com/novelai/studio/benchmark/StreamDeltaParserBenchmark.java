@@ -0,0 +1,86 @@
+package com.novelai.studio.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novelai.studio.service.ai.adapter.StreamDelta;
+import com.novelai.studio.service.ai.adapter.StreamDeltaParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式响应事件解析基准测试
+ * 对比旧实现（readTree 构建完整节点树后取 choices[0].delta.content）与流式解析器的单事件耗时和分配量，
+ * 事件为带 id、model、logprobs 等无关字段的 OpenAI 兼容增量事件
+ *
+ * 运行：mvn test-compile 后执行（已启用 GC 分析器，关注 gc.alloc.rate.norm，即每个事件分配的字节数）
+ * java -cp "target/test-classes:target/classes:$(依赖classpath)" com.novelai.studio.benchmark.StreamDeltaParserBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamDeltaParserBenchmark {
+
+    @Param({"plain", "logprobs"})
+    public String eventShape;
+
+    private ObjectMapper objectMapper;
+    private StreamDelta delta;
+    private String event;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        delta = new StreamDelta();
+        String logprobs = "logprobs".equals(eventShape)
+                ? "{\"content\":[{\"token\":\"他\",\"logprob\":-0.012,\"bytes\":[228,187,150],\"top_logprobs\":["
+                        + "{\"token\":\"他\",\"logprob\":-0.012},{\"token\":\"她\",\"logprob\":-4.6}]}]}"
+                : "null";
+        event = "{\"id\":\"chatcmpl-9xZ3bQk2\",\"object\":\"chat.completion.chunk\",\"created\":1718000000,"
+                + "\"model\":\"gpt-4o-2024-08-06\",\"system_fingerprint\":\"fp_3aa7262c27\","
+                + "\"choices\":[{\"index\":0,\"delta\":{\"content\":\"他握紧了\"},\"logprobs\":" + logprobs + ","
+                + "\"finish_reason\":null}],\"usage\":null}";
+    }
+
+    /**
+     * 旧实现：readTree 构建完整节点树
+     */
+    @Benchmark
+    public String readTree() throws IOException {
+        JsonNode node = objectMapper.readTree(event);
+        JsonNode choices = node.get("choices");
+        if (choices != null && choices.isArray() && choices.size() > 0) {
+            JsonNode deltaNode = choices.get(0).get("delta");
+            if (deltaNode != null && deltaNode.has("content")) {
+                return deltaNode.get("content").asText();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 当前实现：流式解析，只读取所需字段
+     */
+    @Benchmark
+    public String streamingParser() throws IOException {
+        StreamDeltaParser.parseOpenAI(event, delta);
+        return delta.getContent();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StreamDeltaParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.novelai.studio.service;
+
+import com.novelai.studio.service.ai.adapter.StreamHandle;
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AiTaskDispatchService 失败切换单元测试
+ */
+class AiTaskDispatchServiceTest {
+
+    @Test
+    void dispatch_whenFirstConfigFails_fallsBackToNextPriority() {
+        // Arrange
+        FixedCandidatesDispatchService service = new FixedCandidatesDispatchService(List.of("primary", "backup"));
+        List<String> calledConfigs = new ArrayList<>();
+
+        // Act
+        GenerateResult result = service.dispatch(AiTaskDispatchService.TASK_SUMMARY, configId -> {
+            calledConfigs.add(configId);
+            return StreamHandle.completed("primary".equals(configId)
+                    ? GenerateResult.builder().finishReason("error").errorMessage("503").build()
+                    : GenerateResult.builder().content("摘要").finishReason("stop").build(), null);
+        });
+
+        // Assert
+        assertEquals(List.of("primary", "backup"), calledConfigs);
+        assertEquals("摘要", result.getContent());
+    }
+
+    @Test
+    void dispatch_whenAllConfigsFail_returnsLastError() {
+        // Arrange
+        FixedCandidatesDispatchService service = new FixedCandidatesDispatchService(List.of("a", "b", "c"));
+
+        // Act
+        GenerateResult result = service.dispatch(AiTaskDispatchService.TASK_REVIEW, configId ->
+                StreamHandle.completed(GenerateResult.builder()
+                        .finishReason("error")
+                        .errorMessage("failed: " + configId)
+                        .build(), null));
+
+        // Assert
+        assertEquals("error", result.getFinishReason());
+        assertEquals("failed: c", result.getErrorMessage());
+    }
+
+    @Test
+    void dispatch_skipsOpenCircuitUntilAvailableConfigsFail() {
+        // Arrange
+        FixedCandidatesDispatchService service = new FixedCandidatesDispatchService(List.of("down", "healthy"));
+        service.openCircuits.add("down");
+        List<String> calledConfigs = new ArrayList<>();
+
+        // Act
+        GenerateResult result = service.dispatch(AiTaskDispatchService.TASK_SUMMARY, configId -> {
+            calledConfigs.add(configId);
+            return StreamHandle.completed(GenerateResult.builder().content(configId).finishReason("stop").build(), null);
+        });
+
+        // Assert
+        assertEquals(List.of("healthy"), calledConfigs);
+        assertEquals("healthy", result.getContent());
+    }
+
+    @Test
+    void dispatch_whenAttemptTimesOut_cancelsAsTimeoutAndFallsBack() {
+        // Arrange
+        FixedCandidatesDispatchService service = new FixedCandidatesDispatchService(List.of("hanging", "backup"));
+        ReflectionTestUtils.setField(service, "attemptTimeoutMs", 50L);
+        StreamHandle hanging = new StreamHandle(null);
+
+        // Act
+        GenerateResult result = service.dispatch(AiTaskDispatchService.TASK_SUMMARY, configId ->
+                "hanging".equals(configId) ? hanging
+                        : StreamHandle.completed(GenerateResult.builder().content("摘要").finishReason("stop").build(), null));
+
+        // Assert
+        assertEquals("摘要", result.getContent());
+        assertEquals(StreamHandle.TIMED_OUT, hanging.getResult().join().getErrorMessage());
+        assertEquals(StreamHandle.TIMED_OUT, hanging.getCancelReason());
+    }
+
+    @Test
+    void dispatch_whenDeadlinePasses_timesOutWithoutTryingRemainingConfigs() {
+        // Arrange
+        FixedCandidatesDispatchService service = new FixedCandidatesDispatchService(List.of("hanging", "backup"));
+        StreamHandle hanging = new StreamHandle(null);
+        List<String> calledConfigs = new ArrayList<>();
+
+        // Act
+        GenerateResult result = service.dispatch(AiTaskDispatchService.TASK_REVIEW, System.currentTimeMillis() + 50,
+                configId -> {
+                    calledConfigs.add(configId);
+                    return "hanging".equals(configId) ? hanging
+                            : StreamHandle.completed(GenerateResult.builder().content("ok").finishReason("stop").build(), null);
+                });
+
+        // Assert
+        assertEquals(List.of("hanging"), calledConfigs);
+        assertEquals(StreamHandle.TIMED_OUT, result.getErrorMessage());
+        assertEquals(StreamHandle.TIMED_OUT, hanging.getCancelReason());
+    }
+
+    private static class FixedCandidatesDispatchService extends AiTaskDispatchService {
+        private final List<String> candidates;
+        private final Set<String> openCircuits = new HashSet<>();
+
+        FixedCandidatesDispatchService(List<String> candidates) {
+            this.candidates = candidates;
+        }
+
+        @Override
+        public List<String> getConfigIdsForTask(String taskType) {
+            return candidates;
+        }
+
+        @Override
+        boolean isAvailable(String configId) {
+            return !openCircuits.contains(configId);
+        }
+    }
+}
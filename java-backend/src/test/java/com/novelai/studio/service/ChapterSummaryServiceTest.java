@@ -3,7 +3,6 @@ package com.novelai.studio.service;
 import com.novelai.studio.entity.Chapter;
 import com.novelai.studio.entity.ChapterSummary;
 import com.novelai.studio.mapper.ChapterSummaryMapper;
-import com.novelai.studio.service.ai.AIService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,7 +29,7 @@ class ChapterSummaryServiceTest {
     private ChapterService chapterService;
 
     @Mock
-    private AIService aiService;
+    private AiTaskDispatchService aiTaskDispatchService;
 
     @InjectMocks
     private ChapterSummaryService chapterSummaryService;
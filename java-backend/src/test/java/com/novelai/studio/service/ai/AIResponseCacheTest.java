@@ -0,0 +1,87 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.entity.AiConfig;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AIResponseCache 单元测试
+ */
+class AIResponseCacheTest {
+
+    private Path dir;
+    private AiConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("ai-cache-test");
+        config = new AiConfig();
+        config.setId("config-1");
+        config.setProvider("openai");
+        config.setModel("gpt-4o-mini");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void get_afterPut_returnsCachedResultOnlyForSameInput() {
+        // Arrange
+        AIResponseCache cache = newCache(256);
+        GenerateOptions options = GenerateOptions.builder().task("summary").temperature(0.3).build();
+        String key = cache.keyFor(config, "章节正文", options);
+        cache.put(key, GenerateResult.builder().content("摘要").finishReason("stop").build());
+
+        // Act
+        GenerateResult hit = cache.get(cache.keyFor(config, "章节正文", options));
+        GenerateResult changedPrompt = cache.get(cache.keyFor(config, "修改后的正文", options));
+        GenerateResult changedOptions = cache.get(cache.keyFor(config, "章节正文",
+                GenerateOptions.builder().task("summary").temperature(0.7).build()));
+
+        // Assert
+        assertEquals("摘要", hit.getContent());
+        assertTrue(hit.getCached());
+        assertNull(changedPrompt);
+        assertNull(changedOptions);
+        assertNull(cache.keyFor(config, "章节正文", GenerateOptions.builder().task("generate").build()));
+    }
+
+    @Test
+    void put_overSizeLimit_evictsLeastRecentlyUsed() {
+        // Arrange: 上限 0MB，每次写入后只保留不超过上限的条目
+        AIResponseCache cache = newCache(0);
+        GenerateOptions options = GenerateOptions.builder().task("summary").build();
+        String key = cache.keyFor(config, "正文", options);
+
+        // Act
+        cache.put(key, GenerateResult.builder().content("摘要").finishReason("stop").build());
+
+        // Assert
+        assertNull(cache.get(key));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    private AIResponseCache newCache(long maxSizeMb) {
+        AIResponseCache cache = new AIResponseCache();
+        ReflectionTestUtils.setField(cache, "dir", dir.toString());
+        ReflectionTestUtils.setField(cache, "maxSizeMb", maxSizeMb);
+        cache.init();
+        return cache;
+    }
+}
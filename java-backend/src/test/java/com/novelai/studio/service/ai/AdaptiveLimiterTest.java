@@ -0,0 +1,116 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdaptiveLimiter 单元测试
+ */
+class AdaptiveLimiterTest {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    void acquire_beyondConcurrencyLimit_waitsForRelease() throws Exception {
+        // Arrange
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test",
+                new AdaptiveLimiter.Settings(0, 0).concurrency(2, 1, 2), timer);
+        AdaptiveLimiter.Permit first = limiter.acquire(0).get(1, TimeUnit.SECONDS);
+        limiter.acquire(0).get(1, TimeUnit.SECONDS);
+
+        // Act
+        CompletableFuture<AdaptiveLimiter.Permit> third = limiter.acquire(0);
+        boolean grantedBeforeRelease = third.isDone();
+        int queued = limiter.getQueueDepth();
+        first.release(GenerateResult.builder().content("ok").finishReason("stop").build());
+
+        // Assert
+        assertFalse(grantedBeforeRelease);
+        assertEquals(1, queued);
+        assertNotNull(third.get(1, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void releaseConcurrency_freesSlotOnceWhileKeepingPermitOpen() throws Exception {
+        // Arrange
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test",
+                new AdaptiveLimiter.Settings(0, 0).concurrency(1, 1, 1), timer);
+        AdaptiveLimiter.Permit streaming = limiter.acquire(0).get(1, TimeUnit.SECONDS);
+        CompletableFuture<AdaptiveLimiter.Permit> next = limiter.acquire(0);
+        boolean grantedBeforeFirstChunk = next.isDone();
+
+        // Act：首个内容到达后归还名额，重复调用无效果
+        streaming.releaseConcurrency();
+        streaming.releaseConcurrency();
+        AdaptiveLimiter.Permit second = next.get(1, TimeUnit.SECONDS);
+        CompletableFuture<AdaptiveLimiter.Permit> third = limiter.acquire(0);
+        boolean thirdGrantedWhileSecondRuns = third.isDone();
+        streaming.release(GenerateResult.builder().content("ok").finishReason("stop").build());
+        boolean thirdGrantedAfterStreamEnds = third.isDone();
+        second.release(null);
+
+        // Assert
+        assertFalse(grantedBeforeFirstChunk);
+        assertNotNull(second);
+        assertFalse(thirdGrantedWhileSecondRuns);
+        assertFalse(thirdGrantedAfterStreamEnds);
+        assertNotNull(third.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void release_whenRateLimited_halvesConcurrencyAndHonorsRetryAfter() throws Exception {
+        // Arrange
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test",
+                new AdaptiveLimiter.Settings(0, 0).concurrency(4, 1, 8), timer);
+        AdaptiveLimiter.Permit permit = limiter.acquire(0).get(1, TimeUnit.SECONDS);
+
+        // Act
+        permit.release(GenerateResult.builder()
+                .finishReason("error")
+                .httpStatus(429)
+                .retryAfterMs(300L)
+                .build());
+        long start = System.currentTimeMillis();
+        CompletableFuture<AdaptiveLimiter.Permit> next = limiter.acquire(0);
+        boolean grantedImmediately = next.isDone();
+        next.get(2, TimeUnit.SECONDS);
+        long waited = System.currentTimeMillis() - start;
+
+        // Assert
+        assertFalse(grantedImmediately);
+        assertTrue(waited >= 250, "waited " + waited + "ms");
+        assertEquals(2.0, (Double) limiter.getStats().get("concurrencyLimit"), 0.001);
+        assertEquals(1L, limiter.getStats().get("throttled"));
+    }
+
+    @Test
+    void acquire_whenRequestBucketEmpty_refillsOverTime() throws Exception {
+        // Arrange: 每分钟 120 次，即每 500ms 补充一次
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", new AdaptiveLimiter.Settings(120, 0), timer);
+        for (int i = 0; i < 120; i++) {
+            limiter.acquire(0).get(1, TimeUnit.SECONDS).release(null);
+        }
+
+        // Act
+        CompletableFuture<AdaptiveLimiter.Permit> next = limiter.acquire(0);
+        boolean grantedImmediately = next.isDone();
+
+        // Assert
+        assertFalse(grantedImmediately);
+        assertNotNull(next.get(2, TimeUnit.SECONDS));
+    }
+}
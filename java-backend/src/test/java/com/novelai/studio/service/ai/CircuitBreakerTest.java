@@ -0,0 +1,78 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.service.ai.adapter.StreamHandle;
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CircuitBreaker 单元测试
+ */
+class CircuitBreakerTest {
+
+    private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        prober.shutdownNow();
+    }
+
+    @Test
+    void record_whenFailureRateReached_opensAndProbeClosesAgain() throws Exception {
+        // Arrange
+        AtomicBoolean healthy = new AtomicBoolean(false);
+        CircuitBreaker breaker = new CircuitBreaker("test",
+                new CircuitBreaker.Settings(10, 4, 50).openDuration(50, 50), prober, healthy::get);
+        GenerateResult ok = GenerateResult.builder().content("ok").finishReason("stop").build();
+        GenerateResult down = GenerateResult.builder().finishReason("error").errorMessage("connect timed out").build();
+
+        // Act
+        breaker.record(ok, 10);
+        breaker.record(down, 10);
+        breaker.record(ok, 10);
+        boolean closedBeforeThreshold = breaker.allowRequest();
+        breaker.record(down, 10);
+        boolean allowedWhenOpen = breaker.allowRequest();
+        Thread.sleep(200);
+        CircuitBreaker.State afterFailedProbe = breaker.getState();
+        healthy.set(true);
+        Thread.sleep(200);
+
+        // Assert
+        assertTrue(closedBeforeThreshold);
+        assertFalse(allowedWhenOpen);
+        assertNotEquals(CircuitBreaker.State.CLOSED, afterFailedProbe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void classify_ignoresRateLimitsCancellationsAndBadRequestsButCountsTimeouts() {
+        // Arrange
+        GenerateResult rateLimited = GenerateResult.builder().finishReason("error").httpStatus(429).build();
+        GenerateResult badRequest = GenerateResult.builder().finishReason("error").httpStatus(400).build();
+        GenerateResult cancelled = GenerateResult.builder().finishReason("error")
+                .errorMessage(StreamHandle.CANCELLED).build();
+        GenerateResult timedOut = GenerateResult.builder().finishReason("error")
+                .errorMessage(StreamHandle.TIMED_OUT).build();
+        GenerateResult unauthorized = GenerateResult.builder().finishReason("error").httpStatus(401).build();
+        GenerateResult serverError = GenerateResult.builder().finishReason("error").httpStatus(502).build();
+        GenerateResult slow = GenerateResult.builder().content("ok").finishReason("stop").build();
+
+        // Act & Assert
+        assertNull(CircuitBreaker.classify(rateLimited, 10, 0));
+        assertNull(CircuitBreaker.classify(badRequest, 10, 0));
+        assertNull(CircuitBreaker.classify(cancelled, 10, 0));
+        assertTrue(CircuitBreaker.classify(timedOut, 10, 0));
+        assertTrue(CircuitBreaker.classify(unauthorized, 10, 0));
+        assertTrue(CircuitBreaker.classify(serverError, 10, 0));
+        assertTrue(CircuitBreaker.classify(slow, 5000, 1000));
+        assertFalse(CircuitBreaker.classify(slow, 500, 1000));
+    }
+}
@@ -0,0 +1,90 @@
+package com.novelai.studio.service.ai;
+
+import com.novelai.studio.entity.TokenUsage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenUsageBuffer 单元测试
+ */
+class TokenUsageBufferTest {
+
+    @Test
+    void offer_whenFull_dropsAndDrainFreesSpace() {
+        // Arrange
+        TokenUsageBuffer buffer = new TokenUsageBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(usage("c" + i)));
+        }
+
+        // Act
+        boolean acceptedWhenFull = buffer.offer(usage("overflow"));
+        List<TokenUsage> drained = new ArrayList<>();
+        int count = buffer.drainTo(drained, 3);
+
+        // Assert
+        assertFalse(acceptedWhenFull);
+        assertEquals(1L, buffer.getDropped());
+        assertEquals(3, count);
+        assertEquals("c0", drained.get(0).getConfigId());
+        assertEquals(1, buffer.size());
+        assertTrue(buffer.offer(usage("c4")));
+    }
+
+    @Test
+    void offer_fromManyThreads_drainsEveryRecordOnce() throws Exception {
+        // Arrange
+        int threads = 4;
+        int perThread = 500;
+        TokenUsageBuffer buffer = new TokenUsageBuffer(threads * perThread);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    buffer.offer(usage(id + "-" + i));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        // Act
+        start.countDown();
+        List<TokenUsage> drained = new ArrayList<>();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        while (buffer.drainTo(drained, 128) > 0) {
+            // 持续读取直到为空
+        }
+
+        // Assert
+        Set<String> ids = new HashSet<>();
+        for (TokenUsage usage : drained) {
+            ids.add(usage.getConfigId());
+        }
+        assertEquals(threads * perThread, drained.size());
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(0L, buffer.getDropped());
+    }
+
+    private static TokenUsage usage(String configId) {
+        TokenUsage usage = new TokenUsage();
+        usage.setConfigId(configId);
+        return usage;
+    }
+}
@@ -0,0 +1,125 @@
+package com.novelai.studio.service.ai.adapter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamDeltaParser 单元测试
+ */
+class StreamDeltaParserTest {
+
+    @Test
+    void testParseOpenAI_ExtractsContentAndSkipsUnrelatedFields() throws Exception {
+        // Arrange
+        String data = "{\"id\":\"c1\",\"object\":\"chat.completion.chunk\",\"model\":\"gpt\","
+                + "\"choices\":[{\"index\":0,\"logprobs\":{\"content\":[{\"token\":\"x\"}]},"
+                + "\"delta\":{\"role\":\"assistant\",\"content\":\"你好\"},\"finish_reason\":null},"
+                + "{\"delta\":{\"content\":\"第二个\"}}],\"usage\":null}";
+        StreamDelta delta = new StreamDelta();
+
+        // Act
+        StreamDeltaParser.parseOpenAI(data, delta);
+
+        // Assert
+        assertEquals("你好", delta.getContent());
+        assertNull(delta.getFinishReason());
+
+        // Act：复用同一实例解析结束事件，上一次的内容被重置
+        StreamDeltaParser.parseOpenAI("{\"choices\":[{\"delta\":{},\"finish_reason\":\"length\"}]}", delta);
+
+        // Assert
+        assertNull(delta.getContent());
+        assertEquals("length", delta.getFinishReason());
+    }
+
+    @Test
+    void testParseOpenAI_ExtractsReasoningContent() throws Exception {
+        // Arrange
+        String data = "{\"choices\":[{\"delta\":{\"role\":\"assistant\",\"reasoning_content\":\"先分析\"}}]}";
+        StreamDelta delta = new StreamDelta();
+
+        // Act
+        StreamDeltaParser.parseOpenAI(data, delta);
+
+        // Assert
+        assertNull(delta.getContent());
+        assertEquals("先分析", delta.getReasoningContent());
+
+        // Act：下一个事件只有正文，推理内容被重置
+        StreamDeltaParser.parseOpenAI("{\"choices\":[{\"delta\":{\"content\":\"正文\"}}]}", delta);
+
+        // Assert
+        assertEquals("正文", delta.getContent());
+        assertNull(delta.getReasoningContent());
+    }
+
+    @Test
+    void testParseClaude_ReadsEventTypeAndUsage() throws Exception {
+        // Arrange
+        StreamDelta delta = new StreamDelta();
+
+        // Act & Assert
+        StreamDeltaParser.parseClaude("{\"type\":\"message_start\",\"message\":{\"id\":\"m\","
+                + "\"content\":[],\"usage\":{\"input_tokens\":25,\"output_tokens\":1}}}", delta);
+        assertEquals("message_start", delta.getType());
+        assertEquals(25, delta.getInputTokens().intValue());
+
+        StreamDeltaParser.parseClaude("{\"type\":\"content_block_delta\",\"index\":0,"
+                + "\"delta\":{\"type\":\"text_delta\",\"text\":\"世界\"}}", delta);
+        assertEquals("content_block_delta", delta.getType());
+        assertEquals("世界", delta.getContent());
+
+        StreamDeltaParser.parseClaude("{\"delta\":{\"stop_reason\":\"end_turn\"},"
+                + "\"usage\":{\"output_tokens\":15},\"type\":\"message_delta\"}", delta);
+        assertEquals("message_delta", delta.getType());
+        assertEquals("end_turn", delta.getFinishReason());
+        assertEquals(15, delta.getOutputTokens().intValue());
+    }
+
+    @Test
+    void testParseClaude_ReadsPromptCacheUsage() throws Exception {
+        // Arrange
+        StreamDelta delta = new StreamDelta();
+
+        // Act
+        StreamDeltaParser.parseClaude("{\"type\":\"message_start\",\"message\":{\"usage\":{\"input_tokens\":12,"
+                + "\"cache_creation_input_tokens\":0,\"cache_read_input_tokens\":2048,\"output_tokens\":1}}}", delta);
+
+        // Assert
+        assertEquals(12, delta.getInputTokens().intValue());
+        assertEquals(2048, delta.getCacheReadTokens().intValue());
+        assertEquals(0, delta.getCacheCreationTokens().intValue());
+
+        // Act
+        StreamDeltaParser.parseClaude("{\"type\":\"content_block_delta\",\"delta\":{\"text\":\"a\"}}", delta);
+
+        // Assert
+        assertNull(delta.getCacheReadTokens());
+    }
+
+    @Test
+    void testParseGeminiAndOllama_ReadsNestedFields() throws Exception {
+        // Arrange
+        StreamDelta delta = new StreamDelta();
+
+        // Act
+        StreamDeltaParser.parseGemini("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"山\"},{\"text\":\"水\"}],"
+                + "\"role\":\"model\"},\"finishReason\":\"STOP\",\"safetyRatings\":[{\"category\":\"x\"}]}],"
+                + "\"usageMetadata\":{\"promptTokenCount\":3}}", delta);
+
+        // Assert
+        assertEquals("山", delta.getContent());
+        assertEquals("STOP", delta.getFinishReason());
+
+        // Act
+        StreamDeltaParser.parseOllama("{\"model\":\"llama\",\"message\":{\"role\":\"assistant\",\"content\":\"\"},"
+                + "\"done\":true,\"prompt_eval_count\":12,\"eval_count\":34}", delta);
+
+        // Assert
+        assertEquals("", delta.getContent());
+        assertTrue(delta.isDone());
+        assertEquals(12, delta.getInputTokens().intValue());
+        assertEquals(34, delta.getOutputTokens().intValue());
+    }
+}
@@ -0,0 +1,94 @@
+package com.novelai.studio.service.ai.tokenizer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BpeTokenizer 单元测试
+ */
+class BpeTokenizerTest {
+
+    private BpeTokenizer tokenizer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 小词表：单字节 a b c d 空格，合并 ab、cd、abcd，以及“你”的三个 UTF-8 字节及其合并
+        String[] tokens = {"a", "b", "c", "d", " ", "ab", "cd", "abcd", " ab"};
+        StringBuilder vocab = new StringBuilder();
+        int rank = 0;
+        for (String token : tokens) {
+            vocab.append(encode(token.getBytes(StandardCharsets.UTF_8))).append(' ').append(rank++).append('\n');
+        }
+        byte[] ni = "你".getBytes(StandardCharsets.UTF_8);
+        for (byte b : ni) {
+            vocab.append(encode(new byte[]{b})).append(' ').append(rank++).append('\n');
+        }
+        vocab.append(encode(new byte[]{ni[0], ni[1]})).append(' ').append(rank++).append('\n');
+        vocab.append(encode(ni)).append(' ').append(rank).append('\n');
+
+        tokenizer = BpeTokenizer.load("test", BpeTokenizer.CL100K_PATTERN,
+                new ByteArrayInputStream(vocab.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void testCountTokens_MergesByRank() {
+        // Act & Assert
+        assertEquals(1, tokenizer.countTokens("abcd"));
+        // ab、cd 先合并，再合并为 abcd，剩余 ab
+        assertEquals(2, tokenizer.countTokens("abcdab"));
+        // 没有可用的合并
+        assertEquals(4, tokenizer.countTokens("dcba"));
+        // 预分词：“abcd”与“ ab”两段
+        assertEquals(2, tokenizer.countTokens("abcd ab"));
+        assertEquals(0, tokenizer.countTokens(""));
+    }
+
+    @Test
+    void testCountTokens_MergesMultiByteCharacters() {
+        // Act & Assert
+        assertEquals(1, tokenizer.countTokens("你"));
+        assertEquals(2, tokenizer.countTokens("你你"));
+        // 标点单独成段，词表中没有其字节，按三个字节计
+        assertEquals(4, tokenizer.countTokens("你，"));
+    }
+
+    @Test
+    void testCachingTokenizer_ReusesCountForSameText() {
+        // Arrange
+        int[] calls = {0};
+        Tokenizer counting = new Tokenizer() {
+            @Override
+            public String getName() {
+                return "counting";
+            }
+
+            @Override
+            public int countTokens(String text) {
+                calls[0]++;
+                return tokenizer.countTokens(text);
+            }
+        };
+        CachingTokenizer caching = new CachingTokenizer(counting, 8);
+        String text = "abcd ".repeat(20);
+
+        // Act
+        int first = caching.countTokens(text);
+        int second = caching.countTokens(new String(text.toCharArray()));
+
+        // Assert
+        assertEquals(first, second);
+        // 首段“abcd”，其后每段“ abcd”合并为空格与 abcd，末尾单独的空格
+        assertEquals(40, first);
+        assertEquals(1, calls[0]);
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,60 @@
+package com.novelai.studio.service.review;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ParagraphDiff 单元测试
+ */
+class ParagraphDiffTest {
+
+    @Test
+    void testOf_InsertedParagraphMapsSuffixForward() {
+        // Arrange
+        String[] oldParagraphs = {"甲", "乙", "丙", "丁"};
+        String[] newParagraphs = {"甲", "乙改", "新增", "丙", "丁"};
+
+        // Act
+        ParagraphDiff diff = ParagraphDiff.of(oldParagraphs, newParagraphs);
+
+        // Assert
+        assertFalse(diff.isUnchanged());
+        assertEquals(1, diff.changedStart());
+        assertEquals(3, diff.changedEnd());
+        assertEquals(0, diff.mapOldParagraph(0));
+        assertEquals(-1, diff.mapOldParagraph(1));
+        assertEquals(3, diff.mapOldParagraph(2));
+        assertEquals(4, diff.mapOldParagraph(3));
+    }
+
+    @Test
+    void testOf_DeletedParagraphHasEmptyChangedRange() {
+        // Arrange
+        String[] oldParagraphs = {"甲", "乙", "丙"};
+        String[] newParagraphs = {"甲", "丙"};
+
+        // Act
+        ParagraphDiff diff = ParagraphDiff.of(oldParagraphs, newParagraphs);
+
+        // Assert
+        assertEquals(diff.changedStart(), diff.changedEnd());
+        assertEquals(-1, diff.mapOldParagraph(1));
+        assertEquals(1, diff.mapOldParagraph(2));
+    }
+
+    @Test
+    void testOf_RepeatedParagraphsDoNotOverlapPrefixAndSuffix() {
+        // Arrange
+        String[] oldParagraphs = {"甲", "甲"};
+        String[] newParagraphs = {"甲", "甲", "甲"};
+
+        // Act
+        ParagraphDiff diff = ParagraphDiff.of(oldParagraphs, newParagraphs);
+
+        // Assert
+        assertEquals(2, diff.changedStart());
+        assertEquals(3, diff.changedEnd());
+        assertEquals(1, diff.mapOldParagraph(1));
+    }
+}
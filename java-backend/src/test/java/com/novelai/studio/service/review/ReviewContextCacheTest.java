@@ -0,0 +1,150 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.Book;
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.StoryEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReviewContextCache / BookReviewSnapshot 单元测试
+ */
+class ReviewContextCacheTest {
+
+    private ReviewContextCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReviewContextCache();
+    }
+
+    @Test
+    void testChapterChange_MarksChapterDirtyAndKeepsSnapshot() {
+        // Arrange
+        BookReviewSnapshot snapshot = BookReviewSnapshot.of(context("book-1", chapter("c1", 1), chapter("c2", 2)),
+                cache.currentVersion("book-1"));
+        cache.put(snapshot);
+
+        // Act
+        cache.onBookDataChanged(new BookDataChangedEvent(null, BookDataChangedEvent.CHAPTER, "c2"));
+
+        // Assert
+        assertSame(snapshot, cache.get("book-1"));
+        assertEquals(Set.of("c2"), snapshot.drainDirtyChapterIds());
+        assertTrue(snapshot.drainDirtyChapterIds().isEmpty());
+    }
+
+    @Test
+    void testSettingChange_InvalidatesSnapshot() {
+        // Arrange
+        cache.put(BookReviewSnapshot.of(context("book-1", chapter("c1", 1)), cache.currentVersion("book-1")));
+        cache.put(BookReviewSnapshot.of(context("book-2", chapter("c9", 1)), cache.currentVersion("book-2")));
+
+        // Act
+        cache.onBookDataChanged(new BookDataChangedEvent("book-1", BookDataChangedEvent.CHARACTER, "char-1"));
+
+        // Assert
+        assertNull(cache.get("book-1"));
+        assertNotNull(cache.get("book-2"));
+    }
+
+    @Test
+    void testPut_DiscardsSnapshotLoadedBeforeChange() {
+        // Arrange
+        long version = cache.currentVersion("book-1");
+        cache.onBookDataChanged(new BookDataChangedEvent("book-1", BookDataChangedEvent.STORY_EVENT, "e1"));
+
+        // Act
+        cache.put(BookReviewSnapshot.of(context("book-1", chapter("c1", 1)), version));
+
+        // Assert
+        assertNull(cache.get("book-1"));
+    }
+
+    @Test
+    void testApplyReloadedChapters_UpdatesAddsRemovesAndReorders() {
+        // Arrange
+        BookReviewSnapshot snapshot = BookReviewSnapshot.of(
+                context("book-1", chapter("c1", 1), chapter("c2", 2), chapter("c3", 3)), 0);
+        Chapter movedFirst = chapter("c3", 0);
+        Chapter added = chapter("c4", 4);
+
+        // Act
+        snapshot.applyReloadedChapters(Set.of("c2", "c3", "c4"), List.of(movedFirst, added));
+
+        // Assert
+        List<String> ids = new ArrayList<>();
+        for (Chapter chapter : snapshot.getChapters()) {
+            ids.add(chapter.getId());
+        }
+        assertEquals(List.of("c3", "c1", "c4"), ids);
+        assertSame(movedFirst, snapshot.getChapters().get(0));
+    }
+
+    @Test
+    void testBookDataFingerprint_ChangesWhenEventsOrChaptersReordered() {
+        // Arrange
+        ReviewContext original = context("book-1", chapter("c1", 1), chapter("c2", 2));
+        original.getStoryEvents().add(event("e1", 1, 1));
+        original.getStoryEvents().add(event("e2", 2, 2));
+        ReviewContext sameData = context("book-1", chapter("c2", 2), chapter("c1", 1));
+        sameData.getStoryEvents().add(event("e2", 2, 2));
+        sameData.getStoryEvents().add(event("e1", 1, 1));
+        ReviewContext eventsReordered = context("book-1", chapter("c1", 1), chapter("c2", 2));
+        eventsReordered.getStoryEvents().add(event("e1", 2, 1));
+        eventsReordered.getStoryEvents().add(event("e2", 1, 2));
+        ReviewContext chaptersReordered = context("book-1", chapter("c1", 2), chapter("c2", 1));
+        chaptersReordered.getStoryEvents().add(event("e1", 1, 1));
+        chaptersReordered.getStoryEvents().add(event("e2", 2, 2));
+
+        // Act
+        String fingerprint = original.getBookDataFingerprint();
+
+        // Assert
+        assertEquals(fingerprint, sameData.getBookDataFingerprint());
+        assertNotEquals(fingerprint, eventsReordered.getBookDataFingerprint());
+        assertNotEquals(fingerprint, chaptersReordered.getBookDataFingerprint());
+    }
+
+    private StoryEvent event(String id, int timelineOrder, int chapterOrder) {
+        StoryEvent event = new StoryEvent();
+        event.setId(id);
+        event.setTitle("事件" + id);
+        event.setTimelineOrder(timelineOrder);
+        event.setChapterOrder(chapterOrder);
+        return event;
+    }
+
+    private ReviewContext context(String bookId, Chapter... chapters) {
+        Book book = new Book();
+        book.setId(bookId);
+        for (Chapter chapter : chapters) {
+            chapter.setBookId(bookId);
+        }
+        return ReviewContext.builder()
+                .book(book)
+                .allChapters(Arrays.asList(chapters))
+                .characters(new ArrayList<>())
+                .characterNameToId(new HashMap<>())
+                .characterById(new HashMap<>())
+                .worldSettings(new ArrayList<>())
+                .foreshadows(new ArrayList<>())
+                .storyEvents(new ArrayList<>())
+                .characterStateChanges(new ArrayList<>())
+                .chapterSummaries(new ArrayList<>())
+                .build();
+    }
+
+    private Chapter chapter(String id, int order) {
+        Chapter chapter = new Chapter();
+        chapter.setId(id);
+        chapter.setBookId("book-1");
+        chapter.setOrderNum(order);
+        chapter.setContent("正文" + id);
+        return chapter;
+    }
+}
@@ -0,0 +1,178 @@
+package com.novelai.studio.service.review;
+
+import com.novelai.studio.entity.ReviewIssue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RuleExecutionGuard 单元测试
+ */
+class RuleExecutionGuardTest {
+
+    private RuleExecutionGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        guard = new RuleExecutionGuard();
+        guard.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void testCheck_ReturnsIssuesWithinDeadline() throws Exception {
+        // Arrange
+        ReviewRule rule = new SleepingRule("快速规则", RuleCost.EXPENSIVE, 0, 1000);
+        ReviewContext context = ReviewContext.builder().build();
+
+        // Act
+        List<ReviewIssue> issues = guard.check(rule, context);
+
+        // Assert
+        assertEquals(1, issues.size());
+        assertSame(RuleBudget.UNLIMITED, context.getRuleBudget());
+        assertEquals(RuleExecutionGuard.CIRCUIT_CLOSED, guard.getCircuitState(rule.getName()));
+    }
+
+    @Test
+    void testCheck_TimesOutAndOpensCircuitAfterRepeatedTimeouts() throws Exception {
+        // Arrange
+        ReviewRule rule = new SleepingRule("慢规则", RuleCost.EXPENSIVE, 500, 20);
+        ReviewContext context = ReviewContext.builder().build();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertTrue(guard.allowExecution(rule));
+            assertThrows(TimeoutException.class, () -> guard.check(rule, context));
+        }
+
+        // Assert
+        assertFalse(guard.allowExecution(rule));
+        assertEquals(RuleExecutionGuard.CIRCUIT_OPEN, guard.getCircuitState(rule.getName()));
+
+        guard.reset(rule.getName());
+        assertTrue(guard.allowExecution(rule));
+    }
+
+    @Test
+    void testCheck_CheapRuleOverDeadlineKeepsResult() throws Exception {
+        // Arrange
+        ReviewRule rule = new SleepingRule("低开销规则", RuleCost.CHEAP, 30, 5);
+
+        // Act
+        List<ReviewIssue> issues = guard.check(rule, ReviewContext.builder().build());
+
+        // Assert
+        assertEquals(1, issues.size());
+        assertEquals(RuleExecutionGuard.CIRCUIT_CLOSED, guard.getCircuitState(rule.getName()));
+    }
+
+    @Test
+    void testCheck_RepeatedFailuresOpenCircuit() {
+        // Arrange
+        ReviewRule rule = new SleepingRule("出错规则", RuleCost.EXPENSIVE, -1, 1000);
+        ReviewContext context = ReviewContext.builder().build();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class, () -> guard.check(rule, context));
+        }
+
+        // Assert
+        assertEquals(RuleExecutionGuard.CIRCUIT_OPEN, guard.getCircuitState(rule.getName()));
+    }
+
+    @Test
+    void testCheck_EachExecutionHasOwnBudget() throws Exception {
+        // Arrange
+        List<RuleBudget> seen = new ArrayList<>();
+        ReviewRule rule = new SleepingRule("预算规则", RuleCost.EXPENSIVE, 0, 1000) {
+            @Override
+            public List<ReviewIssue> check(ReviewContext context) {
+                seen.add(context.getRuleBudget());
+                return Collections.emptyList();
+            }
+        };
+        ReviewContext context = ReviewContext.builder().build();
+
+        // Act
+        guard.check(rule, context);
+        guard.check(rule, context);
+
+        // Assert
+        assertEquals(2, seen.size());
+        assertNotSame(RuleBudget.UNLIMITED, seen.get(0));
+        assertNotSame(seen.get(0), seen.get(1));
+        assertSame(RuleBudget.UNLIMITED, context.getRuleBudget());
+    }
+
+    /**
+     * 执行固定时长后返回一个问题的规则（sleepMs 为负数时抛出异常）
+     */
+    private static class SleepingRule implements ReviewRule {
+        private final String name;
+        private final RuleCost cost;
+        private final long sleepMs;
+        private final long timeoutMs;
+
+        SleepingRule(String name, RuleCost cost, long sleepMs, long timeoutMs) {
+            this.name = name;
+            this.cost = cost;
+            this.sleepMs = sleepMs;
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return name;
+        }
+
+        @Override
+        public String getLevel() {
+            return ReviewLevel.ERROR;
+        }
+
+        @Override
+        public String getType() {
+            return "test";
+        }
+
+        @Override
+        public RuleCost getCost() {
+            return cost;
+        }
+
+        @Override
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        @Override
+        public List<ReviewIssue> check(ReviewContext context) {
+            if (sleepMs < 0) {
+                throw new IllegalStateException(name);
+            }
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(ReviewIssue.builder().title(name).build());
+        }
+    }
+}
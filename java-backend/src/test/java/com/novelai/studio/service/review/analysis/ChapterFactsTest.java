@@ -0,0 +1,103 @@
+package com.novelai.studio.service.review.analysis;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.StoryEvent;
+import com.novelai.studio.service.review.ReviewContext;
+import com.novelai.studio.service.review.index.BookEntityAutomaton;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChapterFacts / 内置分析器 单元测试
+ */
+class ChapterFactsTest {
+
+    private static final FactKey<Integer> PARAGRAPH_COUNT = new FactKey<>("paragraph_count");
+
+    @Test
+    void testGet_ComputesEachFactOncePerContent() {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+        AnalyzerRegistry registry = new AnalyzerRegistry();
+        registry.register(new ChapterAnalyzer<Integer>() {
+            @Override
+            public FactKey<Integer> getFactKey() {
+                return PARAGRAPH_COUNT;
+            }
+
+            @Override
+            public Integer analyze(ChapterFacts facts) {
+                runs.incrementAndGet();
+                return facts.getTextIndex().getParagraphCount();
+            }
+        });
+        ReviewContext context = context(registry);
+        Chapter chapter = chapter("第一段。\n第二段。");
+
+        // Act
+        int first = context.getFact(chapter, PARAGRAPH_COUNT);
+        int second = context.getFact(chapter, PARAGRAPH_COUNT);
+        chapter.setContent("只有一段。");
+        int afterEdit = context.getFact(chapter, PARAGRAPH_COUNT);
+
+        // Assert
+        assertEquals(2, first);
+        assertEquals(2, second);
+        assertEquals(1, afterEdit);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testBuiltInAnalyzers_PublishMentionsLocationsAndTemporalMarkers() {
+        // Arrange
+        ReviewContext context = context(AnalyzerRegistry.defaults());
+        Chapter chapter = chapter("张三来到天水城，三哥说道：“走吧。”张三点头。\n青云大比之后，众人散去。");
+
+        // Act
+        CharacterMentions mentions = context.getFact(chapter, ReviewFacts.CHARACTER_MENTIONS);
+        ParagraphLocations locations = context.getFact(chapter, ReviewFacts.PARAGRAPH_LOCATIONS);
+        TemporalMarkers markers = context.getFact(chapter, ReviewFacts.TEMPORAL_MARKERS);
+
+        // Assert
+        assertEquals(2, mentions.inParagraph(0).size());
+        assertEquals("天水城", locations.get(0));
+        assertEquals(Map.of("青云大比", 0), markers.eventMentions(1));
+        assertTrue(markers.hasAfterWord(1));
+        assertFalse(markers.hasAfterWord(0));
+    }
+
+    @Test
+    void testGet_UnknownFactThrows() {
+        // Arrange
+        ReviewContext context = context(AnalyzerRegistry.defaults());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> context.getFact(chapter("内容"), new FactKey<String>("unknown")));
+    }
+
+    private ReviewContext context(AnalyzerRegistry registry) {
+        Map<String, String> names = new HashMap<>();
+        names.put("张三", "c1");
+        names.put("三哥", "c1");
+        StoryEvent event = new StoryEvent();
+        event.setId("e1");
+        event.setTitle("青云大比");
+        event.setLocation("天水城");
+        return ReviewContext.builder()
+                .entityAutomaton(BookEntityAutomaton.build(names, List.of(event), Collections.emptyList()))
+                .analyzerRegistry(registry)
+                .build();
+    }
+
+    private Chapter chapter(String content) {
+        Chapter chapter = new Chapter();
+        chapter.setId("ch1");
+        chapter.setContent(content);
+        return chapter;
+    }
+}
@@ -0,0 +1,108 @@
+package com.novelai.studio.service.review.index;
+
+import com.novelai.studio.entity.StoryEvent;
+import com.novelai.studio.entity.WorldSetting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BookEntityAutomaton 单元测试
+ */
+class BookEntityAutomatonTest {
+
+    private BookEntityAutomaton automaton;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, String> characterNameToId = new HashMap<>();
+        characterNameToId.put("张三", "char-1");
+        characterNameToId.put("三哥", "char-1");
+        characterNameToId.put("李四", "char-2");
+
+        StoryEvent event = new StoryEvent();
+        event.setId("event-1");
+        event.setTitle("青云大比");
+        event.setLocation("青云山");
+
+        WorldSetting setting = new WorldSetting();
+        setting.setCategory("location");
+        setting.setName("天水城");
+
+        automaton = BookEntityAutomaton.build(characterNameToId, List.of(event), List.of(setting));
+    }
+
+    @Test
+    void index_ShouldFindAllEntityKindsInOnePass() {
+        // Arrange
+        String content = "张三来到天水城。\n三哥说起青云大比，李四点头。";
+
+        // Act
+        OccurrenceIndex index = automaton.index(content);
+
+        // Assert
+        assertEquals(1, index.count("张三"));
+        assertEquals(1, index.count("三哥"));
+        assertEquals(2, index.byEntity(EntityKind.CHARACTER, "char-1").size());
+        assertEquals(1, index.byKind(EntityKind.EVENT).size());
+        assertEquals(content.indexOf("青云大比"), index.byKeyword("青云大比").get(0).getStart());
+        assertTrue(index.contains("天水城"));
+    }
+
+    @Test
+    void index_ShouldReportOverlappingKeywords() {
+        // Act：“青云山”与“青云大比”共享前缀
+        OccurrenceIndex index = automaton.index("青云山上，青云大比开始了");
+
+        // Assert
+        assertEquals(1, index.count("青云山"));
+        assertEquals(1, index.count("青云大比"));
+    }
+
+    @Test
+    void count_ShouldMatchNonOverlappingOccurrencesOnce() {
+        // Arrange：“哈哈”同时是两个角色的名称，“哈哈哈”中有两处重叠匹配
+        Map<String, String> characterNameToId = new HashMap<>();
+        characterNameToId.put("哈哈", "char-1");
+        BookEntityAutomaton shared = BookEntityAutomaton.build(characterNameToId, List.of(), List.of());
+        StoryEvent event = new StoryEvent();
+        event.setId("event-1");
+        event.setTitle("哈哈");
+        BookEntityAutomaton withEvent = BookEntityAutomaton.build(characterNameToId, List.of(event), List.of());
+
+        // Act
+        OccurrenceIndex overlapping = shared.index("哈哈哈");
+        OccurrenceIndex duplicated = withEvent.index("他说哈哈");
+
+        // Assert
+        assertEquals(1, overlapping.count("哈哈"));
+        assertEquals(1, duplicated.count("哈哈"));
+    }
+
+    @Test
+    void inRange_ShouldOnlyReturnOccurrencesInsideRange() {
+        // Arrange
+        String content = "张三在前。\n李四在后。";
+        OccurrenceIndex index = automaton.index(content);
+        int secondParagraphStart = content.indexOf('\n') + 1;
+
+        // Act
+        List<EntityOccurrence> firstParagraph = index.inRange(0, secondParagraphStart - 1, EntityKind.CHARACTER);
+        List<EntityOccurrence> secondParagraph = index.inRange(secondParagraphStart, content.length(), EntityKind.CHARACTER);
+
+        // Assert
+        assertEquals(1, firstParagraph.size());
+        assertEquals("张三", firstParagraph.get(0).getKeyword());
+        assertEquals(1, secondParagraph.size());
+        assertEquals("char-2", secondParagraph.get(0).getEntityId());
+    }
+
+    @Test
+    void index_WhenContentIsEmpty_ShouldReturnEmptyIndex() {
+        assertTrue(automaton.index("").isEmpty());
+        assertTrue(automaton.index(null).isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package com.novelai.studio.service.review.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChapterTextIndex 单元测试
+ */
+class ChapterTextIndexTest {
+
+    @Test
+    void paragraphs_ShouldMatchSplitByNewline() {
+        // Arrange
+        String content = "第一段。\n\n第三段，张三来到城门。\n";
+
+        // Act
+        ChapterTextIndex index = ChapterTextIndex.build(content, null);
+
+        // Assert
+        String[] expected = content.split("\n");
+        assertEquals(expected.length, index.getParagraphCount());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], index.getParagraph(i));
+            assertEquals(expected[i], content.substring(index.getParagraphStart(i), index.getParagraphEnd(i)));
+        }
+        assertEquals(2, index.paragraphIndexOf(content.indexOf("张三")));
+    }
+
+    @Test
+    void sentences_ShouldSplitOnTerminatorsAndNewlines() {
+        // Arrange
+        String content = "他问：“你来了？”她点头。\n天黑了";
+
+        // Act
+        ChapterTextIndex index = ChapterTextIndex.build(content, null);
+
+        // Assert
+        assertEquals(3, index.getSentenceCount());
+        assertEquals("他问：“你来了？”", index.getSentence(0));
+        assertEquals("她点头。", index.getSentence(1));
+        assertEquals("天黑了", index.getSentence(2));
+        assertEquals(1, index.sentenceIndexOf(content.indexOf("点头")));
+    }
+
+    @Test
+    void keywordHits_ShouldBeCollectedForAllCategoriesInOnePass() {
+        // Arrange
+        String content = "与此同时，他回忆起当年。\n随后众人离开了大殿。";
+
+        // Act
+        ChapterTextIndex index = ChapterTextIndex.build(content, null);
+
+        // Assert
+        assertTrue(index.paragraphHasKeyword(0, KeywordCategory.SIMULTANEOUS));
+        assertTrue(index.paragraphHasKeyword(0, KeywordCategory.FLASHBACK));
+        assertFalse(index.paragraphHasKeyword(0, KeywordCategory.MOVEMENT));
+        assertTrue(index.paragraphHasKeyword(1, KeywordCategory.MOVEMENT));
+        assertTrue(index.paragraphHasKeyword(1, KeywordCategory.AFTER));
+        assertEquals(2, index.getKeywordHits(KeywordCategory.FLASHBACK).size());
+    }
+
+    @Test
+    void occurrences_ShouldComeFromBookAutomaton() {
+        // Arrange
+        BookEntityAutomaton automaton = BookEntityAutomaton.build(Map.of("张三", "char-1"), null, null);
+        String content = "序章。\n张三出场。";
+
+        // Act
+        ChapterTextIndex index = ChapterTextIndex.build(content, automaton);
+
+        // Assert
+        List<EntityOccurrence> mentions = index.occurrencesInParagraph(1, EntityKind.CHARACTER);
+        assertEquals(1, mentions.size());
+        assertEquals("char-1", mentions.get(0).getEntityId());
+        assertTrue(index.occurrencesInParagraph(0, EntityKind.CHARACTER).isEmpty());
+    }
+}
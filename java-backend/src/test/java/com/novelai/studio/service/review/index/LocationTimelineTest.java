@@ -0,0 +1,81 @@
+package com.novelai.studio.service.review.index;
+
+import com.novelai.studio.entity.StoryEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocationTimeline 单元测试
+ */
+class LocationTimelineTest {
+
+    @Test
+    void lastStopBefore_ShouldReturnLatestLocationInEarlierChapters() {
+        // Arrange
+        LocationTimeline timeline = LocationTimeline.build(List.of(
+                event("e1", 1, "青云山", "char-1"),
+                event("e2", 3, "天水城", "char-1", "char-2"),
+                event("e3", 3, "落霞谷", "char-1"),
+                event("e4", 5, "东海", "char-1")));
+
+        // Act
+        LocationTimeline.Stop beforeFour = timeline.lastStopBefore("char-1", 4);
+        LocationTimeline.Stop beforeThree = timeline.lastStopBefore("char-1", 3);
+
+        // Assert
+        assertEquals("落霞谷", beforeFour.getLocation());
+        assertEquals("青云山", beforeThree.getLocation());
+        assertEquals("天水城", timeline.lastStopBefore("char-2", 10).getLocation());
+        assertNull(timeline.lastStopBefore("char-1", 1));
+        assertNull(timeline.lastStopBefore("char-3", 10));
+    }
+
+    @Test
+    void applyReloadedEvents_ShouldUpdateAndRemoveEvents() {
+        // Arrange
+        LocationTimeline timeline = LocationTimeline.build(List.of(
+                event("e1", 1, "青云山", "char-1"),
+                event("e2", 2, "天水城", "char-1")));
+
+        // Act
+        timeline.markEventDirty("e1");
+        timeline.markEventDirty("e2");
+        timeline.applyReloadedEvents(timeline.drainDirtyEventIds(), List.of(event("e1", 1, "落霞谷", "char-1")));
+
+        // Assert
+        assertEquals("落霞谷", timeline.lastStopBefore("char-1", 5).getLocation());
+        assertTrue(timeline.drainDirtyEventIds().isEmpty());
+    }
+
+    @Test
+    void intervals_ShouldMergeConsecutiveStopsAtSameLocation() {
+        // Arrange
+        LocationTimeline timeline = LocationTimeline.build(List.of(
+                event("e1", 1, "青云山", "char-1"),
+                event("e2", 2, "青云山", "char-1"),
+                event("e3", 4, "天水城", "char-1")));
+
+        // Act
+        List<LocationTimeline.Interval> intervals = timeline.intervals("char-1");
+
+        // Assert
+        assertEquals(2, intervals.size());
+        assertEquals("青云山", intervals.get(0).getLocation());
+        assertEquals(1, intervals.get(0).getFromChapterOrder());
+        assertEquals(2, intervals.get(0).getToChapterOrder());
+        assertEquals(4, intervals.get(1).getFromChapterOrder());
+    }
+
+    private StoryEvent event(String id, int chapterOrder, String location, String... characterIds) {
+        StoryEvent event = new StoryEvent();
+        event.setId(id);
+        event.setChapterId("chapter-" + chapterOrder);
+        event.setChapterOrder(chapterOrder);
+        event.setLocation(location);
+        event.setInvolvedCharacters(Arrays.asList(characterIds));
+        return event;
+    }
+}
@@ -0,0 +1,93 @@
+package com.novelai.studio.service.review.rules;
+
+import com.novelai.studio.entity.Book;
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.Character;
+import com.novelai.studio.entity.ReviewIssue;
+import com.novelai.studio.service.review.ReviewContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NameInconsistencyRule 单元测试
+ */
+class NameInconsistencyRuleTest {
+
+    private NameInconsistencyRule rule;
+    private Book testBook;
+
+    @BeforeEach
+    void setUp() {
+        rule = new NameInconsistencyRule();
+
+        testBook = new Book();
+        testBook.setId("book-1");
+        testBook.setTitle("测试书籍");
+    }
+
+    @Test
+    void check_WhenNamesMixedInTwoParagraphs_ShouldReportEachParagraph() {
+        // Arrange
+        ReviewContext context = context("张三走进屋里，三哥坐下了。\n今天天气很好。\n张三喝了茶，三哥笑了。");
+
+        // Act
+        List<ReviewIssue> issues = rule.check(context);
+
+        // Assert
+        assertEquals(2, issues.size());
+        assertEquals(0, issues.get(0).getLocation().get("paragraph"));
+        assertEquals(2, issues.get(1).getLocation().get("paragraph"));
+        assertEquals(List.of("张三", "三哥"), issues.get(0).getLocation().get("usedNames"));
+    }
+
+    @Test
+    void check_WhenNamesSeparatedByParagraph_ShouldReturnNoIssues() {
+        // Arrange
+        ReviewContext context = context("张三走进屋里。\n天色已晚。\n三哥坐下了。");
+
+        // Act
+        List<ReviewIssue> issues = rule.check(context);
+
+        // Assert
+        assertTrue(issues.isEmpty());
+    }
+
+    @Test
+    void getLocalWindow_ShouldBeParagraphLocal() {
+        // Act & Assert
+        assertEquals(1, rule.getLocalWindow());
+    }
+
+    private ReviewContext context(String content) {
+        Chapter chapter = new Chapter();
+        chapter.setId("chapter-1");
+        chapter.setOrderNum(1);
+        chapter.setContent(content);
+
+        Character character = new Character();
+        character.setId("char-1");
+        character.setName("张三");
+        character.setAliases(List.of("三哥"));
+
+        Map<String, String> nameToId = new HashMap<>();
+        nameToId.put("张三", "char-1");
+        nameToId.put("三哥", "char-1");
+
+        return ReviewContext.builder()
+                .book(testBook)
+                .currentChapter(chapter)
+                .characters(List.of(character))
+                .characterNameToId(nameToId)
+                .characterById(Map.of("char-1", character))
+                .storyEvents(new ArrayList<>())
+                .worldSettings(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.novelai.studio.service.review.rules;
+
+import com.novelai.studio.entity.Chapter;
+import com.novelai.studio.entity.ReviewIssue;
+import com.novelai.studio.entity.WorldSetting;
+import com.novelai.studio.service.AiTaskDispatchService;
+import com.novelai.studio.service.ai.dto.GenerateOptions;
+import com.novelai.studio.service.ai.dto.GenerateResult;
+import com.novelai.studio.service.review.ReviewContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SettingConflictRule 批量审查单元测试
+ */
+class SettingConflictRuleTest {
+
+    private SettingConflictRule rule;
+    private FakeDispatchService fakeDispatchService;
+    private ReviewContext context;
+    private List<Chapter> chapters;
+
+    @BeforeEach
+    void setUp() {
+        fakeDispatchService = new FakeDispatchService();
+        rule = new SettingConflictRule();
+        rule.aiTaskDispatchService = fakeDispatchService;
+
+        WorldSetting setting = new WorldSetting();
+        setting.setCategory("power_system");
+        setting.setName("修炼境界");
+        setting.setContent("练气、筑基、金丹");
+
+        chapters = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Chapter chapter = new Chapter();
+            chapter.setId("chapter-" + i);
+            chapter.setOrderNum(i);
+            chapter.setTitle("第" + i + "章");
+            chapter.setContent("第" + i + "章正文");
+            chapters.add(chapter);
+        }
+
+        context = ReviewContext.builder()
+                .worldSettings(List.of(setting))
+                .allChapters(chapters)
+                .build();
+    }
+
+    @Test
+    void testCheckBatch_MultipleChaptersInOneRequest() {
+        // Arrange
+        fakeDispatchService.response = """
+            【章节1】
+            [无冲突]
+            【章节2】
+            [冲突1]
+            类型：设定冲突
+            问题：境界顺序错误
+            位置：金丹之后突破筑基
+            建议：调整境界顺序
+            置信度：0.9
+            【章节3】
+            [无冲突]
+            """;
+
+        // Act
+        Map<String, List<ReviewIssue>> result = rule.checkBatch(context, chapters);
+
+        // Assert
+        assertEquals(1, fakeDispatchService.prompts.size());
+        String prompt = fakeDispatchService.prompts.get(0);
+        assertEquals(prompt.indexOf("【世界观设定】"), prompt.lastIndexOf("【世界观设定】"));
+        assertTrue(result.get("chapter-1").isEmpty());
+        assertTrue(result.get("chapter-3").isEmpty());
+        assertEquals(1, result.get("chapter-2").size());
+
+        ReviewIssue issue = result.get("chapter-2").get(0);
+        assertEquals("境界顺序错误", issue.getDescription());
+        assertEquals("chapter-2", issue.getChapterId());
+        assertEquals(Integer.valueOf(2), issue.getChapterOrder());
+    }
+
+    @Test
+    void testCheckBatch_FallsBackWhenMarkersMissing() {
+        // Arrange
+        fakeDispatchService.response = "[无冲突]\n未发现与世界观设定的明显矛盾。";
+
+        // Act
+        Map<String, List<ReviewIssue>> result = rule.checkBatch(context, chapters);
+
+        // Assert
+        assertEquals(4, fakeDispatchService.prompts.size());
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void testCheckBatch_ReviewsMissingSectionsOneByOne() {
+        // Arrange
+        fakeDispatchService.response = "【章节1】\n[无冲突]\n【章节2】\n[无冲突]";
+
+        // Act
+        Map<String, List<ReviewIssue>> result = rule.checkBatch(context, chapters);
+
+        // Assert
+        assertEquals(2, fakeDispatchService.prompts.size());
+        assertEquals(3000, fakeDispatchService.maxTokens.get(0).intValue());
+        assertTrue(fakeDispatchService.prompts.get(1).contains("第3章正文"));
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void testCheckBatch_ReviewsLastSectionAgainWhenTruncated() {
+        // Arrange
+        fakeDispatchService.response = "【章节1】\n[无冲突]\n【章节2】\n[冲突1]\n问题：境界";
+        fakeDispatchService.finishReason = "length";
+
+        // Act
+        Map<String, List<ReviewIssue>> result = rule.checkBatch(context, chapters);
+
+        // Assert：章节2的结果可能不完整，与缺失的章节3一起逐章重审
+        assertEquals(3, fakeDispatchService.prompts.size());
+        assertTrue(fakeDispatchService.prompts.get(1).contains("第2章正文"));
+        assertTrue(fakeDispatchService.prompts.get(2).contains("第3章正文"));
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void testCheck_SingleChapter() {
+        // Arrange
+        fakeDispatchService.response = "[冲突1]\n问题：越级施法\n置信度：0.8";
+        context.setCurrentChapter(chapters.get(0));
+
+        // Act
+        List<ReviewIssue> issues = rule.check(context);
+
+        // Assert
+        assertEquals(1, issues.size());
+        assertEquals("越级施法", issues.get(0).getDescription());
+        assertFalse(fakeDispatchService.prompts.get(0).contains("【章节1】"));
+    }
+
+    /**
+     * 记录提示词并返回固定结果的 AIService
+     */
+    private static class FakeDispatchService extends AiTaskDispatchService {
+        private final List<String> prompts = new ArrayList<>();
+        private final List<Integer> maxTokens = new ArrayList<>();
+        private String response;
+        private String finishReason = "stop";
+
+        @Override
+        public GenerateResult generateForTask(String taskType, String prompt, GenerateOptions options) {
+            prompts.add(prompt);
+            maxTokens.add(options.getMaxTokens());
+            GenerateResult result = new GenerateResult();
+            result.setContent(response);
+            result.setFinishReason(finishReason);
+            return result;
+        }
+    }
+}
@@ -2,10 +2,11 @@
  * AI配置API服务
  */
 import { get, post, put, del, aiPost } from './index'
-import type { AIConfig, GenerateResult } from '@/types'
+import type { AICircuitStats, AIConfig, AIHttpStats, AILimiterStats, AIResponseCacheStats, GenerateResult, TokenUsageRecorderStats, TokenUsageSummary } from '@/types'
 
 const CONFIG_BASE_URL = '/ai-configs'
 const AI_BASE_URL = '/ai'
+const TOKEN_USAGE_BASE_URL = '/token-usage'
 
 /**
  * 创建AI配置输入
@@ -46,11 +47,14 @@ export interface GenerateRequest {
   prompt: string
   configId?: string
   systemPrompt?: string
+  cacheSystemPrompt?: boolean   // 系统提示词作为可缓存前缀（同一系统提示词重复使用时开启）
+  includeBookContext?: boolean  // 显式附带书籍的设定、角色上下文（默认不附带；作为可缓存前缀，需同时传 bookId）
   model?: string
   maxTokens?: number
   temperature?: number
   topP?: number
   stopSequences?: string[]
+  bookId?: string
 }
 
 /**
@@ -59,6 +63,7 @@ export interface GenerateRequest {
 export interface ChatMessage {
   role: 'system' | 'user' | 'assistant'
   content: string
+  cacheable?: boolean           // 该消息及之前的内容作为可缓存前缀
 }
 
 /**
@@ -162,6 +167,71 @@ export async function getAvailableModels(id: string): Promise<string[]> {
   return get<string[]>(`${CONFIG_BASE_URL}/${id}/models`)
 }
 
+/**
+ * 获取AI HTTP 连接池与请求统计
+ */
+export async function getAIHttpStats(): Promise<AIHttpStats> {
+  return get<AIHttpStats>(`${CONFIG_BASE_URL}/http-stats`)
+}
+
+/**
+ * 获取各AI配置的限流状态
+ */
+export async function getAILimiterStats(): Promise<AILimiterStats> {
+  return get<AILimiterStats>(`${CONFIG_BASE_URL}/limiter-stats`)
+}
+
+/**
+ * 获取各AI配置的熔断状态
+ */
+export async function getAICircuitStats(): Promise<AICircuitStats> {
+  return get<AICircuitStats>(`${CONFIG_BASE_URL}/circuit-stats`)
+}
+
+/**
+ * 获取AI响应缓存状态
+ */
+export async function getAIResponseCacheStats(): Promise<AIResponseCacheStats> {
+  return get<AIResponseCacheStats>(`${CONFIG_BASE_URL}/response-cache`)
+}
+
+/**
+ * 清空AI响应缓存
+ */
+export async function clearAIResponseCache(): Promise<void> {
+  return del<void>(`${CONFIG_BASE_URL}/response-cache`)
+}
+
+// ========== Token 用量相关API ==========
+
+/**
+ * 按书籍汇总 token 用量
+ */
+export async function getTokenUsageByBook(days = 30): Promise<TokenUsageSummary[]> {
+  return get<TokenUsageSummary[]>(`${TOKEN_USAGE_BASE_URL}/books`, { days })
+}
+
+/**
+ * 按AI配置汇总 token 用量
+ */
+export async function getTokenUsageByConfig(bookId?: string, days = 30): Promise<TokenUsageSummary[]> {
+  return get<TokenUsageSummary[]>(`${TOKEN_USAGE_BASE_URL}/configs`, { bookId, days })
+}
+
+/**
+ * 按任务类型汇总 token 用量
+ */
+export async function getTokenUsageByTask(bookId?: string, days = 30): Promise<TokenUsageSummary[]> {
+  return get<TokenUsageSummary[]>(`${TOKEN_USAGE_BASE_URL}/tasks`, { bookId, days })
+}
+
+/**
+ * 获取 token 用量记录器状态
+ */
+export async function getTokenUsageRecorderStats(): Promise<TokenUsageRecorderStats> {
+  return get<TokenUsageRecorderStats>(`${TOKEN_USAGE_BASE_URL}/recorder`)
+}
+
 // ========== AI生成相关API ==========
 
 /**
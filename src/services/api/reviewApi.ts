@@ -1,5 +1,14 @@
 import request from '@/utils/request'
-import type { ReviewIssue, ReviewReport, ReviewRuleInfo, ReviewStats } from '@/types/review'
+import type {
+  ReviewHistory,
+  ReviewIssue,
+  ReviewJob,
+  ReviewReport,
+  ReviewRuleInfo,
+  ReviewRuleMetric,
+  ReviewStats,
+  RuleMetricsSummary
+} from '@/types/review'
 
 const BASE_URL = '/api/review'
 
@@ -10,6 +19,13 @@ export function getRules(): Promise<ReviewRuleInfo[]> {
   return request.get(`${BASE_URL}/rules`)
 }
 
+/**
+ * 手动恢复被熔断的规则
+ */
+export function resetRuleCircuit(ruleName: string): Promise<void> {
+  return request.post(`${BASE_URL}/rules/${encodeURIComponent(ruleName)}/circuit/reset`)
+}
+
 /**
  * 审查单个章节
  */
@@ -33,6 +49,39 @@ export function reviewBook(
   return request.post(`${BASE_URL}/book/${bookId}`, null, { params })
 }
 
+/**
+ * 提交异步全书审查任务
+ */
+export function submitBookReviewJob(
+  bookId: string,
+  levels?: string[]
+): Promise<ReviewJob> {
+  const params = levels?.length ? { levels: levels.join(',') } : {}
+  return request.post(`${BASE_URL}/jobs/book/${bookId}`, null, { params })
+}
+
+/**
+ * 获取审查任务状态
+ */
+export function getReviewJob(jobId: string): Promise<ReviewJob> {
+  return request.get(`${BASE_URL}/jobs/${jobId}`)
+}
+
+/**
+ * 取消审查任务
+ */
+export function cancelReviewJob(jobId: string): Promise<void> {
+  return request.delete(`${BASE_URL}/jobs/${jobId}`)
+}
+
+/**
+ * 审查任务事件流地址（EventSource）
+ * 事件：status、progress、issues，以及终态 done / cancelled / error
+ */
+export function reviewJobEventsUrl(jobId: string): string {
+  return `${BASE_URL}/jobs/${jobId}/events`
+}
+
 /**
  * 快速审查（仅Level A规则）
  */
@@ -104,3 +153,24 @@ export function clearBookIssues(bookId: string): Promise<void> {
 export function getIssue(issueId: string): Promise<ReviewIssue> {
   return request.get(`${BASE_URL}/issues/${issueId}`)
 }
+
+/**
+ * 获取书籍最近的审查记录
+ */
+export function getReviewHistory(bookId: string, limit = 20): Promise<ReviewHistory[]> {
+  return request.get(`${BASE_URL}/history/${bookId}`, { limit })
+}
+
+/**
+ * 获取某次审查中各规则的执行指标
+ */
+export function getReviewRuleMetrics(historyId: string): Promise<ReviewRuleMetric[]> {
+  return request.get(`${BASE_URL}/history/${historyId}/rules`)
+}
+
+/**
+ * 按规则汇总执行指标（按平均耗时降序）
+ */
+export function getRuleMetricsSummary(bookId?: string, days = 7): Promise<RuleMetricsSummary[]> {
+  return request.get(`${BASE_URL}/metrics/rules`, { bookId, days })
+}
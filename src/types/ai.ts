@@ -93,11 +93,14 @@ export interface GenerateResult {
     promptTokens: number
     completionTokens: number
     totalTokens: number
+    cachedTokens?: number         // 命中提示词前缀缓存的 token 数
+    cacheCreationTokens?: number  // 写入提示词前缀缓存的 token 数（Claude）
   }
   finishReason: 'stop' | 'length' | 'error'
   model: string
   duration: number            // 耗时（毫秒）
   errorMessage?: string       // 错误信息
+  cached?: boolean            // 是否来自响应缓存
 }
 
 /**
@@ -147,6 +150,110 @@ export interface TokenUsageRecord {
   timestamp: string
 }
 
+/**
+ * AI 限流器状态（按AI配置）
+ */
+export interface AILimiterStats {
+  enabled: boolean
+  configs: Record<string, {
+    name: string
+    concurrencyLimit: number
+    inFlight: number
+    queued: number
+    availableRequests: number
+    availableTokens: number
+    pausedForMs: number
+    granted: number
+    throttled: number
+    timedOut: number
+  }>
+}
+
+/**
+ * AI 熔断器状态（按AI配置）
+ */
+export interface AICircuitStats {
+  enabled: boolean
+  configs: Record<string, {
+    name: string
+    state: 'CLOSED' | 'OPEN' | 'HALF_OPEN'
+    recentCalls: number
+    recentFailures: number
+    retryInMs: number
+    opened: number
+    rejected: number
+  }>
+}
+
+/**
+ * AI 响应缓存状态
+ */
+export interface AIResponseCacheStats {
+  enabled: boolean
+  tasks: string[]
+  entries: number
+  sizeBytes: number
+  maxSizeBytes: number
+  hits: number
+  misses: number
+  evictions: number
+}
+
+/**
+ * Token 用量汇总（按书籍、AI配置或任务类型分组）
+ */
+export interface TokenUsageSummary {
+  bookId?: string
+  configId?: string
+  task?: string
+  calls: number
+  promptTokens: number
+  completionTokens: number
+  totalTokens: number
+  estimatedCost: number
+}
+
+/**
+ * Token 用量记录器状态
+ */
+export interface TokenUsageRecorderStats {
+  enabled: boolean
+  pending: number
+  capacity: number
+  written: number
+  failed: number
+  dropped: number
+}
+
+/**
+ * AI HTTP 连接池与请求统计
+ */
+export interface AIHttpStats {
+  pool: {
+    connections: number
+    idleConnections: number
+  }
+  dispatcher: {
+    runningCalls: number
+    queuedCalls: number
+    maxRequests: number
+    maxRequestsPerHost: number
+  }
+  connections: {
+    connectionsOpened: number
+    connectFailures: number
+    tlsHandshakes: number
+    connectionsAcquired: number
+    connectionReuseRate: number
+  }
+  providers: Record<string, {
+    requests: number
+    failures: number
+    inFlight: number
+    avgLatencyMs: number
+  }>
+}
+
 /**
  * AI提供商映射
  */
@@ -91,6 +91,70 @@ export interface ReviewReport {
   duration: number
   reviewMode: 'single' | 'batch' | 'full'
   rulesExecuted: number
+  ruleStats?: RuleExecutionStats[]
+}
+
+/**
+ * 单次审查中一条规则的执行统计
+ */
+export interface RuleExecutionStats {
+  ruleName: string
+  level: ReviewLevel
+  executions: number
+  issuesFound: number
+  failures: number
+  totalDurationMs: number
+  maxDurationMs: number
+}
+
+/**
+ * 审查历史记录
+ */
+export interface ReviewHistory {
+  id: string
+  bookId: string
+  chapterId?: string
+  reviewMode: 'single' | 'batch' | 'full'
+  rulesExecuted: number
+  issuesFound: number
+  errorsCount: number
+  warningsCount: number
+  suggestionsCount: number
+  durationMs: number
+  createdAt: string
+}
+
+/**
+ * 某次审查中一条规则的执行指标
+ */
+export interface ReviewRuleMetric {
+  id: string
+  historyId: string
+  bookId: string
+  reviewMode: string
+  ruleName: string
+  ruleLevel: ReviewLevel
+  executions: number
+  issuesFound: number
+  failures: number
+  totalDurationMs: number
+  maxDurationMs: number
+  createdAt: string
+}
+
+/**
+ * 按规则汇总的执行指标
+ */
+export interface RuleMetricsSummary {
+  ruleName: string
+  ruleLevel: ReviewLevel
+  runs: number
+  executions: number
+  issuesFound: number
+  failures: number
+  totalDurationMs: number
+  maxDurationMs: number
+  avgDurationMs: number
 }
 
 /**
@@ -104,6 +168,8 @@ export interface ReviewRuleInfo {
   requiresAI: boolean
   enabled: boolean
   priority: number
+  cost?: 'cheap' | 'moderate' | 'expensive'
+  circuitState?: 'closed' | 'open' | 'half_open'
 }
 
 /**
@@ -119,6 +185,27 @@ export interface ReviewStats {
   info: number
 }
 
+/**
+ * 异步审查任务状态
+ */
+export type ReviewJobStatus = 'queued' | 'running' | 'completed' | 'cancelled' | 'failed'
+
+/**
+ * 异步审查任务快照
+ */
+export interface ReviewJob {
+  jobId: string
+  bookId: string
+  status: ReviewJobStatus
+  totalChapters: number
+  completedChapters: number
+  issuesFound: number
+  stage?: string
+  createdAt: string
+  finishedAt?: string
+  error?: string
+}
+
 /**
  * 级别显示配置
  */